@@ -0,0 +1,280 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ *
+ * BenchExtensionmodule.c
+ *
+ * Counterparts of the JMH benchmarks in JyNI-Bench/src. Every function
+ * does as little as possible besides the boundary crossing it is made for,
+ * so the benchmarks measure JyNI rather than the extension.
+ *
+ *  Created on: 19.10.2026
+ */
+
+#include <Python.h>
+#include <structmember.h>
+
+#define BENCH_SIZE 10
+
+/* A callable with one attribute, seen as PyCPeer on Java side. */
+typedef struct {
+	PyObject_HEAD
+	PyObject* value;
+} BenchObject;
+
+static PyObject*
+BenchObject_call(PyObject* self, PyObject* args, PyObject* kw)
+{
+	Py_RETURN_NONE;
+}
+
+static int
+BenchObject_traverse(BenchObject* self, visitproc visit, void* arg)
+{
+	Py_VISIT(self->value);
+	return 0;
+}
+
+static int
+BenchObject_clear(BenchObject* self)
+{
+	Py_CLEAR(self->value);
+	return 0;
+}
+
+static void
+BenchObject_dealloc(BenchObject* self)
+{
+	PyObject_GC_UnTrack(self);
+	BenchObject_clear(self);
+	Py_TYPE(self)->tp_free((PyObject*) self);
+}
+
+static PyMemberDef BenchObject_members[] = {
+	{"value", T_OBJECT, offsetof(BenchObject, value), 0, "Attribute for get/set benchmarks."},
+	{NULL}		/* Sentinel */
+};
+
+static PyTypeObject BenchObjectType = {
+	PyVarObject_HEAD_INIT(NULL, 0)
+	"BenchExtension.BenchObject",               /* tp_name */
+	sizeof(BenchObject),                        /* tp_basicsize */
+	0,                                          /* tp_itemsize */
+	(destructor) BenchObject_dealloc,           /* tp_dealloc */
+	0,                                          /* tp_print */
+	0,                                          /* tp_getattr */
+	0,                                          /* tp_setattr */
+	0,                                          /* tp_compare */
+	0,                                          /* tp_repr */
+	0,                                          /* tp_as_number */
+	0,                                          /* tp_as_sequence */
+	0,                                          /* tp_as_mapping */
+	0,                                          /* tp_hash */
+	BenchObject_call,                           /* tp_call */
+	0,                                          /* tp_str */
+	0,                                          /* tp_getattro */
+	0,                                          /* tp_setattro */
+	0,                                          /* tp_as_buffer */
+	Py_TPFLAGS_DEFAULT | Py_TPFLAGS_HAVE_GC,    /* tp_flags */
+	"Callable object with one attribute.",      /* tp_doc */
+	(traverseproc) BenchObject_traverse,        /* tp_traverse */
+	(inquiry) BenchObject_clear,                /* tp_clear */
+	0,                                          /* tp_richcompare */
+	0,                                          /* tp_weaklistoffset */
+	0,                                          /* tp_iter */
+	0,                                          /* tp_iternext */
+	0,                                          /* tp_methods */
+	BenchObject_members,                        /* tp_members */
+	0,                                          /* tp_getset */
+	0,                                          /* tp_base */
+	0,                                          /* tp_dict */
+	0,                                          /* tp_descr_get */
+	0,                                          /* tp_descr_set */
+	0,                                          /* tp_dictoffset */
+	0,                                          /* tp_init */
+	0,                                          /* tp_alloc */
+	PyType_GenericNew,                          /* tp_new */
+};
+
+PyObject*
+noargs(PyObject* self, PyObject* args)
+{
+	Py_RETURN_NONE;
+}
+
+PyObject*
+kwcall(PyObject* self, PyObject* args, PyObject* kw)
+{
+	PyObject *a, *b = NULL;
+	static char* kwlist[] = {"a", "b", NULL};
+	if (!PyArg_ParseTupleAndKeywords(args, kw, "O|O", kwlist, &a, &b))
+		return NULL;
+	Py_RETURN_NONE;
+}
+
+/* Only converts the argument to native. */
+PyObject*
+consume(PyObject* self, PyObject* arg)
+{
+	Py_RETURN_NONE;
+}
+
+PyObject*
+new_str(PyObject* self, PyObject* args)
+{
+	return PyString_FromString("JyNI benchmark string of 32 chs.");
+}
+
+PyObject*
+new_unicode(PyObject* self, PyObject* args)
+{
+	return PyUnicode_FromString("JyNI benchmark string of 32 chs.");
+}
+
+PyObject*
+new_long(PyObject* self, PyObject* args)
+{
+	return PyLong_FromLongLong(1234567890123456789LL);
+}
+
+PyObject*
+new_tuple(PyObject* self, PyObject* args)
+{
+	int i;
+	PyObject* result = PyTuple_New(BENCH_SIZE);
+	if (!result) return NULL;
+	for (i = 0; i < BENCH_SIZE; ++i)
+		PyTuple_SET_ITEM(result, i, PyInt_FromLong(i));
+	return result;
+}
+
+PyObject*
+new_list(PyObject* self, PyObject* args)
+{
+	int i;
+	PyObject* result = PyList_New(BENCH_SIZE);
+	if (!result) return NULL;
+	for (i = 0; i < BENCH_SIZE; ++i)
+		PyList_SET_ITEM(result, i, PyInt_FromLong(i));
+	return result;
+}
+
+PyObject*
+new_dict(PyObject* self, PyObject* args)
+{
+	int i;
+	PyObject *key, *result = PyDict_New();
+	if (!result) return NULL;
+	for (i = 0; i < BENCH_SIZE; ++i)
+	{
+		key = PyString_FromFormat("key%i", i);
+		PyDict_SetItem(result, key, Py_None);
+		Py_DECREF(key);
+	}
+	return result;
+}
+
+/* Iterates the argument via the iterator protocol, returns the item count. */
+PyObject*
+iterate(PyObject* self, PyObject* arg)
+{
+	long count = 0;
+	PyObject *item, *it = PyObject_GetIter(arg);
+	if (!it) return NULL;
+	while ((item = PyIter_Next(it)))
+	{
+		++count;
+		Py_DECREF(item);
+	}
+	Py_DECREF(it);
+	if (PyErr_Occurred()) return NULL;
+	return PyInt_FromLong(count);
+}
+
+/* Iterates a dict via PyDict_Next, returns the item count. */
+PyObject*
+dict_next(PyObject* self, PyObject* arg)
+{
+	long count = 0;
+	Py_ssize_t pos = 0;
+	PyObject *key, *value;
+	if (!PyDict_Check(arg))
+	{
+		PyErr_SetString(PyExc_TypeError, "dict expected");
+		return NULL;
+	}
+	while (PyDict_Next(arg, &pos, &key, &value))
+		++count;
+	return PyInt_FromLong(count);
+}
+
+/* Performs the given number of Py_INCREF/Py_DECREF pairs on an object. */
+PyObject*
+incdec(PyObject* self, PyObject* args)
+{
+	PyObject* obj;
+	long i, n;
+	if (!PyArg_ParseTuple(args, "Ol", &obj, &n))
+		return NULL;
+	for (i = 0; i < n; ++i)
+	{
+		Py_INCREF(obj);
+		Py_DECREF(obj);
+	}
+	Py_RETURN_NONE;
+}
+
+PyMethodDef BenchExtensionMethods[] = {
+	{"noargs", noargs, METH_NOARGS, "Does nothing."},
+	{"kwcall", (PyCFunction) kwcall, METH_VARARGS | METH_KEYWORDS, "Parses a and optional b."},
+	{"consume", consume, METH_O, "Does nothing with its argument."},
+	{"new_str", new_str, METH_NOARGS, "Returns a new str of 32 chars."},
+	{"new_unicode", new_unicode, METH_NOARGS, "Returns a new unicode of 32 chars."},
+	{"new_long", new_long, METH_NOARGS, "Returns a new long."},
+	{"new_tuple", new_tuple, METH_NOARGS, "Returns a new tuple of ten ints."},
+	{"new_list", new_list, METH_NOARGS, "Returns a new list of ten ints."},
+	{"new_dict", new_dict, METH_NOARGS, "Returns a new dict of ten str keys."},
+	{"iterate", iterate, METH_O, "Counts the items of an iterable."},
+	{"dict_next", dict_next, METH_O, "Counts the items of a dict via PyDict_Next."},
+	{"incdec", incdec, METH_VARARGS, "Increments and decrements the refcount n times."},
+	{NULL, NULL, 0, NULL}		/* Sentinel */
+};
+
+PyMODINIT_FUNC
+initBenchExtension(void)
+{
+	PyObject* m;
+	if (PyType_Ready(&BenchObjectType) < 0)
+		return;
+	m = Py_InitModule3("BenchExtension", BenchExtensionMethods,
+			"Counterpart of the JyNI benchmarks.");
+	if (!m) return;
+	Py_INCREF(&BenchObjectType);
+	PyModule_AddObject(m, "BenchObject", (PyObject*) &BenchObjectType);
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+
+package JyNI.bench;
+
+import java.io.File;
+
+import org.python.core.Py;
+import org.python.core.PyObject;
+import org.python.core.PyString;
+import org.python.core.PySystemState;
+import org.python.core.imp;
+
+/**
+ * Sets up Jython with JyNI for the benchmarks. JyNI is initialized by
+ * Jython itself via JyNIInitializer, since JyNI.jar is on the classpath.
+ *
+ * The system property "jyni.bench.path" lists the build folders of
+ * BenchExtension and DemoExtension, separated by File.pathSeparator.
+ * Every lib.* folder in them, as created by setup.py, is added to sys.path.
+ */
+public class BenchSupport {
+	protected static boolean initialized = false;
+
+	public static synchronized void init() {
+		if (initialized) return;
+		PySystemState.initialize();
+		PySystemState sys = Py.getSystemState();
+		String prop = System.getProperty("jyni.bench.path");
+		if (prop != null) {
+			for (String dir: prop.split(File.pathSeparator)) {
+				File[] libs = new File(dir).listFiles();
+				if (libs == null) continue;
+				for (File lib: libs) {
+					if (lib.isDirectory() && lib.getName().startsWith("lib."))
+						sys.path.append(new PyString(lib.getAbsolutePath()));
+				}
+			}
+		}
+		initialized = true;
+	}
+
+	public static PyObject importModule(String name) {
+		init();
+		return imp.importName(name.intern(), true);
+	}
+
+	public static PyObject get(PyObject module, String name) {
+		return module.__getattr__(name.intern());
+	}
+}
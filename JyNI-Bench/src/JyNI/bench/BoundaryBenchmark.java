@@ -0,0 +1,158 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+
+package JyNI.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.python.core.Py;
+import org.python.core.PyDictionary;
+import org.python.core.PyList;
+import org.python.core.PyObject;
+
+/**
+ * Calls, attribute access, iteration and refcounting across the
+ * Java/native boundary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundaryBenchmark {
+	public static final int SIZE = 100;
+	public static final int REFCOUNT_OPS = 1000;
+
+	protected static final String[] KEYWORDS = {"b"};
+
+	PyObject noargs, kwcall, intSquare1, argCountToString, iterate, dictNext, incdec;
+	PyObject benchObject, one, two, three, refcountOps;
+	PyList jyList;
+	PyDictionary jyDict;
+
+	@Setup
+	public void setup() {
+		PyObject bench = BenchSupport.importModule("BenchExtension");
+		PyObject demo = BenchSupport.importModule("DemoExtension");
+		noargs = BenchSupport.get(bench, "noargs");
+		kwcall = BenchSupport.get(bench, "kwcall");
+		iterate = BenchSupport.get(bench, "iterate");
+		dictNext = BenchSupport.get(bench, "dict_next");
+		incdec = BenchSupport.get(bench, "incdec");
+		intSquare1 = BenchSupport.get(demo, "intSquare1");
+		argCountToString = BenchSupport.get(demo, "argCountToString");
+		benchObject = BenchSupport.get(bench, "BenchObject").__call__();
+		one = Py.newInteger(1);
+		two = Py.newInteger(2);
+		three = Py.newInteger(3);
+		refcountOps = Py.newInteger(REFCOUNT_OPS);
+		jyList = new PyList();
+		jyDict = new PyDictionary();
+		for (int i = 0; i < SIZE; ++i) {
+			jyList.append(Py.newInteger(i));
+			jyDict.__setitem__(Py.newString("key"+i), Py.newInteger(i));
+		}
+	}
+
+	@Benchmark
+	public PyObject callNoArgs() {
+		return noargs.__call__();
+	}
+
+	@Benchmark
+	public PyObject callOneArg() {
+		return intSquare1.__call__(two);
+	}
+
+	@Benchmark
+	public PyObject callVarArgs() {
+		return argCountToString.__call__(one, two, three);
+	}
+
+	@Benchmark
+	public PyObject callKeywords() {
+		return kwcall.__call__(new PyObject[] {one, two}, KEYWORDS);
+	}
+
+	/** Call of a native object via PyCPeer.__call__. */
+	@Benchmark
+	public PyObject peerCallNoArgs() {
+		return benchObject.__call__();
+	}
+
+	@Benchmark
+	public PyObject peerCallKeywords() {
+		return benchObject.__call__(new PyObject[] {one, two}, KEYWORDS);
+	}
+
+	@Benchmark
+	public PyObject getAttr() {
+		return benchObject.__getattr__("value");
+	}
+
+	@Benchmark
+	public void setAttr() {
+		benchObject.__setattr__("value", one);
+	}
+
+	/** Native iteration over a Jython list of SIZE items. */
+	@Benchmark
+	public PyObject iterateJythonList() {
+		return iterate.__call__(jyList);
+	}
+
+	/** PyDict_Next over a Jython dict of SIZE items. */
+	@Benchmark
+	public PyObject dictNextJythonDict() {
+		return dictNext.__call__(jyDict);
+	}
+
+	/** One Py_INCREF/Py_DECREF pair on a native object, amortized over one call. */
+	@Benchmark
+	@OperationsPerInvocation(REFCOUNT_OPS)
+	public PyObject refCount() {
+		return incdec.__call__(benchObject, refcountOps);
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+
+package JyNI.bench;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.python.core.Py;
+import org.python.core.PyDictionary;
+import org.python.core.PyInteger;
+import org.python.core.PyList;
+import org.python.core.PyLong;
+import org.python.core.PyObject;
+import org.python.core.PyString;
+import org.python.core.PyTuple;
+import org.python.core.PyUnicode;
+
+/**
+ * Conversion of objects in both directions. toNative* benchmarks pass a
+ * fresh Jython object to a native function that ignores it, toJython*
+ * benchmarks call a native function that returns a fresh object.
+ * Fresh objects are needed since converted objects are mirrored, so a
+ * repeated conversion of the same object would only be a lookup.
+ * Containers hold ten items.
+ * toNativeSmallInt and toNativeLetter pass Jython's preallocated objects,
+ * which are resolved by the identity cache. toNativeInt passes a fresh int
+ * outside that cache to show what the cache check costs on a miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+	public static final int SIZE = 10;
+	public static final String STRING = "JyNI benchmark string of 32 chs.";
+	public static final int INT = 123456789;
+	public static final BigInteger LONG = BigInteger.valueOf(1234567890123456789L);
+
+	PyObject consume, newStr, newUnicode, newLong, newTuple, newList, newDict;
+	PyObject[] items;
+	PyString[] keys;
+
+	@Setup
+	public void setup() {
+		PyObject bench = BenchSupport.importModule("BenchExtension");
+		consume = BenchSupport.get(bench, "consume");
+		newStr = BenchSupport.get(bench, "new_str");
+		newUnicode = BenchSupport.get(bench, "new_unicode");
+		newLong = BenchSupport.get(bench, "new_long");
+		newTuple = BenchSupport.get(bench, "new_tuple");
+		newList = BenchSupport.get(bench, "new_list");
+		newDict = BenchSupport.get(bench, "new_dict");
+		items = new PyObject[SIZE];
+		keys = new PyString[SIZE];
+		for (int i = 0; i < SIZE; ++i) {
+			items[i] = Py.newInteger(i);
+			keys[i] = Py.newString("key"+i);
+		}
+	}
+
+	@Benchmark
+	public PyObject toNativeSmallInt() {
+		return consume.__call__(Py.newInteger(SIZE));
+	}
+
+	@Benchmark
+	public PyObject toNativeInt() {
+		return consume.__call__(new PyInteger(INT));
+	}
+
+	@Benchmark
+	public PyObject toNativeLetter() {
+		return consume.__call__(Py.newString('x'));
+	}
+
+	@Benchmark
+	public PyObject toNativeStr() {
+		return consume.__call__(new PyString(STRING));
+	}
+
+	@Benchmark
+	public PyObject toNativeUnicode() {
+		return consume.__call__(new PyUnicode(STRING));
+	}
+
+	@Benchmark
+	public PyObject toNativeLong() {
+		return consume.__call__(new PyLong(LONG));
+	}
+
+	@Benchmark
+	public PyObject toNativeTuple() {
+		return consume.__call__(new PyTuple(items));
+	}
+
+	@Benchmark
+	public PyObject toNativeList() {
+		return consume.__call__(new PyList(items));
+	}
+
+	@Benchmark
+	public PyObject toNativeDict() {
+		PyDictionary dict = new PyDictionary();
+		for (int i = 0; i < SIZE; ++i)
+			dict.__setitem__(keys[i], Py.None);
+		return consume.__call__(dict);
+	}
+
+	@Benchmark
+	public PyObject toJythonStr() {
+		return newStr.__call__();
+	}
+
+	@Benchmark
+	public PyObject toJythonUnicode() {
+		return newUnicode.__call__();
+	}
+
+	@Benchmark
+	public PyObject toJythonLong() {
+		return newLong.__call__();
+	}
+
+	@Benchmark
+	public PyObject toJythonTuple() {
+		return newTuple.__call__();
+	}
+
+	@Benchmark
+	public PyObject toJythonList() {
+		return newList.__call__();
+	}
+
+	@Benchmark
+	public PyObject toJythonDict() {
+		return newDict.__call__();
+	}
+}
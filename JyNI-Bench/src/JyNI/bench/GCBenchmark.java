@@ -0,0 +1,95 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+
+package JyNI.bench;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.python.core.Py;
+import org.python.core.PyList;
+import org.python.core.PyObject;
+import org.python.core.PyTuple;
+
+/**
+ * A full JyNI GC cycle: A reference cycle of a tuple and a list is
+ * mirrored to native code and dropped. The benchmark ends when the Java
+ * GC together with JyNI's GC collected it, which involves exploring the
+ * native reference graph, JyNI's weak references and finalization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GCBenchmark {
+	public static final long TIMEOUT = 10000;
+
+	PyObject consume;
+
+	@Setup
+	public void setup() {
+		consume = BenchSupport.get(BenchSupport.importModule("BenchExtension"), "consume");
+	}
+
+	protected WeakReference<PyObject> createCycle() {
+		PyList list = new PyList();
+		PyTuple tuple = new PyTuple(Py.newInteger(1), list);
+		list.append(tuple);
+		consume.__call__(tuple);
+		return new WeakReference<PyObject>(tuple);
+	}
+
+	@Benchmark
+	public void fullGCCycle() throws InterruptedException {
+		WeakReference<PyObject> ref = createCycle();
+		long deadline = System.currentTimeMillis()+TIMEOUT;
+		while (ref.get() != null) {
+			if (System.currentTimeMillis() > deadline)
+				throw new IllegalStateException("Cycle was not collected within "+TIMEOUT+" ms.");
+			System.gc();
+			Thread.sleep(1);
+		}
+	}
+}
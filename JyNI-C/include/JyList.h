@@ -41,9 +41,9 @@
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_get
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
-jobject JyList_get(JNIEnv *env, jclass class, jlong handle, jint index);
+jobject JyList_get(JNIEnv *env, jclass class, jlong handle, jint index, jlong tstate);
 
 /*
  * Class:     JyNI_JyNI
@@ -55,22 +55,50 @@ jint JyList_size(JNIEnv *env, jclass class, jlong handle);
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_set
- * Signature: (JILorg/python/core/PyObject;J)Lorg/python/core/PyObject;
+ * Signature: (JILorg/python/core/PyObject;JJ)Lorg/python/core/PyObject;
  */
-jobject JyList_set(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj);
+jobject JyList_set(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj, jlong tstate);
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_add
- * Signature: (JILorg/python/core/PyObject;J)V
+ * Signature: (JILorg/python/core/PyObject;JJ)V
  */
-void JyList_add(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj);
+void JyList_add(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj, jlong tstate);
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_remove
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
-jobject JyList_remove(JNIEnv *env, jclass class, jlong handle, jint index);
+jobject JyList_remove(JNIEnv *env, jclass class, jlong handle, jint index, jlong tstate);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_getRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)I
+ */
+jint JyList_getRange(JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray dest, jint destPos, jint count, jlong tstate);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_setRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ */
+void JyList_setRange(JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray src, jint srcPos, jint count, jlong tstate);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_insertRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ */
+void JyList_insertRange(JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray src, jint srcPos, jint count, jlong tstate);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_removeRange
+ * Signature: (JIIJ)V
+ */
+void JyList_removeRange(JNIEnv *env, jclass class, jlong handle, jint fromIndex, jint toIndex, jlong tstate);
 
 #endif /* JYLIST_H_ */
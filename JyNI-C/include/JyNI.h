@@ -73,11 +73,13 @@
 #define ENTER_JyNI \
 	PyEval_AcquireLock(); \
 	if (_PyThreadState_Current != NULL) Py_FatalError("ENTER_JyNI: overwriting non-NULL tstate"); \
+	_JyNI_HoldsGIL = 1; \
 	_PyThreadState_Current = (PyThreadState*) tstate;
 
 #define LEAVE_JyNI0 \
 	JyNI_GC_Explore(); \
 	_PyThreadState_Current = NULL; \
+	_JyNI_HoldsGIL = 0; \
 	PyEval_ReleaseLock();
 
 #define LEAVE_JyNI \
@@ -99,6 +101,58 @@
 		else {JyNI_GC_Explore();} /*maybe also JyErr_InsertCurExc()...?*/ \
 	}
 
+/* GIL scheduling, see Python/ceval_gil.h: */
+#ifdef MS_WINDOWS
+#define JyNI_THREAD_LOCAL __declspec(thread)
+#else
+#define JyNI_THREAD_LOCAL __thread
+#endif
+
+/* Whether the current thread holds the GIL: */
+extern JyNI_THREAD_LOCAL int _JyNI_HoldsGIL;
+
+#define JyNI_GIL_HIST_BUCKETS 24
+void JyNI_GIL_Yield(void);
+void JyNI_GIL_SetSwitchInterval(jlong microseconds);
+jlong JyNI_GIL_GetSwitchInterval(void);
+void JyNI_GIL_GetWaitHistogram(jlong* dest, int currentThread);
+jlong JyNI_GIL_GetForcedSwitches(void);
+void JyNI_GIL_GetStats(jlong* acquisitions, jlong* waitMicros);
+
+/* Counters of the native PyThread locks, see Python/thread_JyNI.c: */
+void JyNI_Lock_GetStats(jlong* acquisitions, jlong* contended, jlong* waitMicros);
+
+/*
+ * Events reported to JyNIEvents, which forwards them to Java Flight Recorder.
+ * The ids match the constants in JyNIEvents. JyNI_eventMask has the bit
+ * (1 << id) set while the event is enabled in some recording.
+ */
+#define JyNI_EVENT_TO_JYTHON 4
+#define JyNI_EVENT_TO_NATIVE 5
+#define JyNI_EVENT_GIL_WAIT  6
+#define JyNI_EventEnabled(id) (JyNI_eventMask & (1 << (id)))
+extern volatile jint JyNI_eventMask;
+jlong JyNI_nanoTime(void);
+void JyNI_reportEvent(jint id, const char* nativeType, jlong start);
+
+/*
+ * Per-function profiler, see JyProfiler.c. A profiled call-in declares
+ * a JyNI_ProfileTimes and marks the end of argument conversion and of the
+ * native call. JyNI_PROFILE_END records the three phases for the callable
+ * (slot == NULL) or for the given slot of target's type.
+ * Must be used with the GIL held.
+ */
+#define JyNI_PROFILE_SUB_BITS 3
+#define JyNI_PROFILE_HIST_BUCKETS ((40-JyNI_PROFILE_SUB_BITS+1) << JyNI_PROFILE_SUB_BITS)
+typedef struct { jlong start, converted, called; } JyNI_ProfileTimes;
+extern volatile jint JyNI_profiling;
+void JyNI_ProfileRecord(JyNI_ProfileTimes* times, PyObject* target, const char* slot);
+#define JyNI_PROFILE_BEGIN(t) (t).start = JyNI_profiling ? JyNI_nanoTime() : 0
+#define JyNI_PROFILE_CONVERTED(t) if ((t).start) (t).converted = JyNI_nanoTime()
+#define JyNI_PROFILE_CALLED(t) if ((t).start) (t).called = JyNI_nanoTime()
+#define JyNI_PROFILE_END(t, target, slot) \
+	if ((t).start) JyNI_ProfileRecord(&(t), (PyObject*) (target), slot)
+
 #define cstr_decl(cstrName) \
 	const char* utf_string; \
 	VLA_DECL(char, cstrName)
@@ -631,6 +685,7 @@ extern const char* JyAttributeSetEntry;
 extern const char* JyAttributeJyGCHead;
 extern const char* JyAttributeJyGCRefTmp;
 extern const char* JyAttributeWeakRefCount;
+extern const char* JyAttributeJyHash;
 //extern const char* JyAttributeSubDelegFlags;
 //extern const char* JyAttributeTruncateSize;
 
@@ -769,21 +824,23 @@ jint JyNI_setAttrString(JNIEnv *env, jclass class, jlong handle, jstring name, j
 jobject JyNI_repr(JNIEnv *env, jclass class, jlong handle, jlong tstate);
 jstring JyNI_PyObjectAsString(JNIEnv *env, jclass class, jlong handle, jlong tstate);
 jobject JyNI_PyObjectAsPyString(JNIEnv *env, jclass class, jlong handle, jlong tstate);
-jobject JyNIlookupFromHandle(JNIEnv *env, jclass class, jlong handle);
+jobject JyNIlookupFromHandle(JNIEnv *env, jclass class, jlong handle, jlong tstate);
 jint JyNIcurrentNativeRefCount(JNIEnv *env, jclass class, jlong handle);
 void JyNI_nativeIncref(jlong handle, jlong tstate);
 void JyNI_nativeDecref(jlong handle, jlong tstate);
-jstring JyNIgetNativeTypeName(JNIEnv *env, jclass class, jlong handle);
+jstring JyNIgetNativeTypeName(JNIEnv *env, jclass class, jlong handle, jlong tstate);
 //In gcmodule (declared here to preserve original gcmodule.h):
 jboolean JyGC_clearNativeReferences(JNIEnv *env, jclass class, jlongArray references, jlong tstate);
-void JyGC_restoreCStubBackend(JNIEnv *env, jclass class, jlong handle, jobject backend, jobject newHead);
+void JyGC_restoreCStubBackend(JNIEnv *env, jclass class, jlong handle, jobject backend, jobject newHead, jlong tstate);
 //jlongArray JyGC_validateGCHead(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks);
-jboolean JyGC_validateGCHead(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks);
+jboolean JyGC_validateGCHead(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks, jlong tstate);
 jlongArray JyGC_nativeTraverse(JNIEnv *env, jclass class, jlong handle);
+jlong JyGC_writeHeapSnapshot(JNIEnv *env, jclass class, jobject sink, jlong tstate);
 void JyNI_releaseWeakReferent(JNIEnv *env, jclass class, jlong handle, jlong tstate);
-jobject JyNI_getItem(JNIEnv *env, jclass class, jlong handle, jobject key, jlong tstate);
-jint JyNI_setItem(JNIEnv *env, jclass class, jlong handle, jobject key, jobject value, jlong tstate);
-jint JyNI_delItem(JNIEnv *env, jclass class, jlong handle, jobject key, jlong tstate);
+jobject JyNI_getItem(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate);
+jobject JyNI_findItem(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate);
+jint JyNI_setItem(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jobject value, jint valueHash, jlong tstate);
+jint JyNI_delItem(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate);
 jint JyNI_PyObjectLength(JNIEnv *env, jclass class, jlong handle, jlong tstate);
 jobject JyNI_descr_get(jlong self, jobject obj, jobject type, jlong tstate);
 jint JyNI_descr_set(jlong self, jobject obj, jobject value, jlong tstate);
@@ -791,10 +848,23 @@ jint JyNI_PyObject_Compare(jlong handle, jobject o, jlong tstate);
 jobject JyNI_PyObject_RichCompare(jlong handle, jobject o, jint op, jlong tstate);
 jobject JyNI_PyObject_GetIter(jlong handle, jlong tstate);
 jobject JyNI_PyIter_Next(jlong handle, jlong tstate);
+jint JyNI_PyIter_NextBatch(JNIEnv *env, jclass class, jlong handle, jobjectArray dest, jlong tstate);
 
 // PyCFunction call-ins:
 jobject JyNI_PyCFunction_getSelf(jlong handle, jlong tstate);
 jobject JyNI_PyCFunction_getModule(jlong handle, jlong tstate);
+
+// GIL scheduling:
+void JyNI_setGILSwitchInterval(jlong microseconds);
+jlong JyNI_getGILSwitchInterval();
+jlongArray JyNI_getGILWaitHistogram(JNIEnv *env, jclass class, jboolean currentThread);
+jlong JyNI_getGILForcedSwitches();
+void JyNI_setNativeEventMask(jint mask, jlong thresholdNanos);
+jlongArray JyNI_getRuntimeStats(JNIEnv *env, jclass class);
+void JyNI_setProfiling(jboolean enable);
+void JyNI_resetProfile();
+jobjectArray JyNI_getProfileNames(JNIEnv *env, jclass class);
+jlongArray JyNI_getProfileData(JNIEnv *env, jclass class, jint index);
 jobject JyNI_CMethodDef_bind(jlong handle, jobject bindTo, jlong tstate);
 
 // PyNumber call-ins:
@@ -857,6 +927,7 @@ jint    JyNI_PyMapping_Length(jlong o, jlong tstate);
 
 // Utility call-ins:
 jint JyNI_putenv(JNIEnv *env, jstring value);
+jint JyNI_unsetenv(JNIEnv *env, jstring key);
 
 /* implemented in _codecsmodule.c */
 jobject JyNI_mbcs_encode(jobject input, jobject errors, jlong tstate);
@@ -972,6 +1043,7 @@ inline jobject JyNI_JythonPyObject_FromPyObject(PyObject* op);
  * This function returns a NEW reference, i.e. caller must decref it in the end.
  */
 inline PyObject* JyNI_PyObject_FromJythonPyObject(jobject jythonPyObject);
+inline PyObject* JyNI_PyObject_FromJythonPyObjectHashed(jobject jythonPyObject, jint hash);
 
 //inline PyObject* JyNI_PyObject_FromJythonPyObject_verbose(jobject jythonPyObject);
 
@@ -999,6 +1071,8 @@ void JyErr_SetFromJNIEnv();
 inline PyObject* JyNI_PyObject_Call(jobject func, PyObject *arg, PyObject *kw);
 inline jint JyNI_GetDLOpenFlags();
 inline void JyNI_CleanUp_JyObject(JyObject* obj);
+inline void JyNI_SetNativeHandle(JNIEnv* env, jobject jythonPyObject, PyObject* op);
+inline void JyNI_ForgetNativeHandle(PyObject* op);
 inline jobject JyNI_GetJythonDelegate(PyObject* v);
 inline void JyNI_printJInfo(jobject obj);
 inline void JyNI_jprintHash(jobject obj);
@@ -1017,11 +1091,26 @@ inline int PyModule_AddObjectJy(jobject m, const char *name, jobject o);
 inline int _PyObject_Compare(PyObject *v, PyObject *w);
 
 /* Hashmap stuff */
+typedef struct {
+	size_t size;       /* number of tracked pointers */
+	size_t capacity;   /* number of slots */
+	size_t maxProbe;   /* longest probe distance since last resize */
+	size_t totalProbe; /* sum of probe distances of all entries */
+	size_t resizes;    /* number of grow- and shrink-operations */
+} JyHashStats;
+
 inline void JyHash_init();
 inline void JyHash_printTable();
+inline void JyHash_getStats(JyHashStats* stats);
 inline int JyHash_insert(void* ptr);
 inline int JyHash_contains(void* ptr);
 inline int JyHash_delete(void* ptr);
+inline void JyHash_rev_init();
+inline int JyHash_rev_insert(jint hash, PyObject* op);
+inline int JyHash_rev_delete(jint hash, PyObject* op);
+inline PyObject* JyHash_rev_lookup(JNIEnv* env, jint hash, jobject obj);
+inline size_t JyHash_rev_size();
+jlong JyNI_GetArenaBytes(void);
 
 /* JyNI specific:
  * Backdoor to reach original alloc-functions, which were renamed with "Raw"-prefix: */
@@ -1095,6 +1184,13 @@ typedef struct {
 extern JyIntObject *small_ints[NSMALLNEGINTS + NSMALLPOSINTS];
 extern PyStringObject *characters[UCHAR_MAX + 1];
 extern PyUnicodeObject *unicode_latin1[256];
+
+/* Identity cache linking the above to Jython's preallocated objects (see JySync.c): */
+void JySync_InitIdentityCache(JNIEnv *env);
+void JySync_ClearIdentityCache(JNIEnv *env);
+void JySync_LinkPreAllocatedString(PyStringObject* op);
+PyObject* JySync_PyObject_FromIdentityCache(JNIEnv *env, jobject src);
+jboolean JySync_IsIdentityCacheRef(PyObject* op, jobject ref);
 //extern PyFloatBlock *block_list;
 
 /* Load- and unload-stuff from Python-files, missing in the headers currently used: */
@@ -57,6 +57,7 @@
 #define pack_JyLock                "JyNI/JyLock"
 #define pack_NativeAction          "JyNI/JyReferenceMonitor$NativeAction"
 #define pack_JyReferenceMonitor    "JyNI/JyReferenceMonitor"
+#define pack_JyNIEvents            "JyNI/JyNIEvents"
 #define pack_pyCPeer               "JyNI/PyCPeer"
 #define pack_pyCPeerGC             "JyNI/gc/PyCPeerGC"
 #define pack_pyCPeerTypeGC         "JyNI/gc/PyCPeerTypeGC"
@@ -186,6 +187,9 @@ extern jmethodID string_intern;
 extern jclass bigIntClass;
 extern jmethodID bigInt_fromByteArrayConstructor;
 extern jmethodID bigInt_toByteArray;
+extern jmethodID bigInt_bitLength;
+extern jmethodID bigInt_longValue;
+extern jmethodID bigInt_signum;
 
 extern jclass JyNIClass;
 extern jmethodID JyNI_setNativeHandle;
@@ -211,6 +215,7 @@ extern jmethodID JyNI_JyNI_GetModule;
 extern jmethodID JyNI_slice_compare;
 extern jmethodID JyNI_printPyLong;
 extern jmethodID JyNI_lookupNativeHandles;
+extern jmethodID JyNI_newUnsignedLong;
 extern jmethodID JyNI_prepareKeywordArgs;
 extern jmethodID JyNI_getCurrentThreadID;
 extern jmethodID JyNI_JyNI_pyCode_co_code;
@@ -275,6 +280,8 @@ extern jmethodID JyLock_Constructor;
 extern jmethodID JyLock_acquire;
 extern jmethodID JyLock_release;
 
+/* The following IDs are looked up by JyNI_initDiagnosticsJNI: */
+jint JyNI_initDiagnosticsJNI(JNIEnv *env);
 extern jclass NativeActionClass;
 extern jmethodID NativeAction_constructor;
 extern jfieldID NativeAction_actionField;
@@ -285,11 +292,16 @@ extern jfieldID NativeAction_cTypeNameField;
 extern jfieldID NativeAction_cMethodField;
 extern jfieldID NativeAction_cLineField;
 extern jfieldID NativeAction_cFileField;
+extern jfieldID NativeAction_timeField;
+extern jfieldID NativeAction_sizeField;
 
 extern jclass JyReferenceMonitorClass;
 extern jmethodID JyRefMonitorMakeDebugInfo;
 extern jmethodID JyReferenceMonitor_addNativeAction;
 
+extern jclass JyNIEventsClass;
+extern jmethodID JyNIEvents_nativeEvent;
+
 extern jclass pyCPeerClass;
 extern jmethodID pyCPeer_Constructor;
 extern jfieldID pyCPeer_objectHandleField;
@@ -461,6 +473,7 @@ extern jclass pyStringMapClass;
 extern jclass pyIntClass;
 extern jmethodID pyInt_Constructor;
 extern jmethodID pyInt_getValue;
+extern jfieldID pyInt_valueField;
 
 extern jclass pyLongClass;
 extern jmethodID pyLong_byBigIntConstructor;
@@ -472,6 +485,7 @@ extern jmethodID pyLong_bit_length;
 
 extern jclass pyUnicodeClass;
 extern jclass pyStringClass;
+extern jfieldID pyString_stringField;
 
 extern jclass pyFloatClass;
 extern jmethodID pyFloat_byDoubleConstructor;
@@ -702,6 +716,15 @@ extern jfieldID threadStateCurExcInfo_curexc_type;
 extern jfieldID threadStateCurExcInfo_curexc_value;
 extern jfieldID threadStateCurExcInfo_curexc_traceback;
 
+/* Looks up the IDs of exceptionsClass on first use. Like env(errRet)
+ * this needs a JNIEnv* env in scope and must be succeeded by a semicolon.
+ */
+#define exceptionsJNI(errRet) \
+	if (!exceptionsJNIInitialized && JyNI_initExceptionsJNI(env) == JNI_ERR) \
+		return errRet
+
+extern jboolean exceptionsJNIInitialized;
+jint JyNI_initExceptionsJNI(JNIEnv *env);
 extern jclass exceptionsClass;
 extern jmethodID exceptions_KeyError__str__;
 extern jmethodID exceptions_EnvironmentError__init__;
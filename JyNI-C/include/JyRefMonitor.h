@@ -60,6 +60,11 @@
 #define JY_NATIVE_GC_TRACK   25  // JY_GC_MASK | INC_MASK | NATIVE_MASK
 #define JY_NATIVE_GC_UNTRACK 26  // JY_GC_MASK | DEC_MASK | NATIVE_MASK
 
+/* Flags for Jy_memDebugFlags: */
+#define JY_MEMDEBUG_ENABLED  1
+#define JY_MEMDEBUG_BUFFERED 2
+#define JY_MEMDEBUG_SAMPLED  4
+
 #define IsJyNIDebug(flags) Jy_memDebugFlags
 
 #define JyNIDebug(flags, pref, ref, size, tpName) \
@@ -77,7 +82,10 @@
 extern jint Jy_memDebugFlags;
 
 // Call-in
-void JyRefMonitor_setMemDebug(JNIEnv *env, jclass class, jint flags);
+void JyRefMonitor_setMemDebugFlags(JNIEnv *env, jclass class, jint flags);
+jint JyRefMonitor_drain(JNIEnv *env, jclass class, jobjectArray dest);
+jlong JyRefMonitor_getDropped(JNIEnv *env, jclass class);
+void JyRefMonitor_setSampleInterval(JNIEnv *env, jclass class, jlong bytes);
 
 // Memory-tracking
 void JyRefMonitor_addAction(jshort action, PyObject* op, JyObject* object,
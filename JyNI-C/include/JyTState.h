@@ -103,6 +103,15 @@ jlong JyTState_initNativeThreadState(JNIEnv *env, jclass class, jobject jyTState
  */
 void JyTState_clearNativeThreadState(JNIEnv *env, jclass class, jlong threadState);
 
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getThreadStatePoolStats
+ * Signature: ()[J
+ */
+jlongArray JyTState_getThreadStatePoolStats(JNIEnv *env, jclass class);
+
 void _delNativeThreadState(PyThreadState* threadState);
+void JyTState_initPool();
+void JyTState_getPoolStats(jlong* dest);
 
 #endif /* JYTSTATE_H_ */
@@ -49,9 +49,14 @@ jobject JyNI_PyNumber_ ## name (jlong o, jlong tstate) \
 { \
 	PyObject* res; \
 	jobject jres; \
+	JyNI_ProfileTimes prof; \
 	ENTER_JyNI \
+	JyNI_PROFILE_BEGIN(prof); \
+	JyNI_PROFILE_CONVERTED(prof); \
 	res = PyNumber_ ## name ((PyObject*) o); \
+	JyNI_PROFILE_CALLED(prof); \
 	jres = JyNI_JythonPyObject_FromPyObject(res); \
+	JyNI_PROFILE_END(prof, o, "PyNumber_" #name); \
 	Py_XDECREF(res); \
 	LEAVE_JyNI \
 	return jres; \
@@ -62,10 +67,15 @@ jobject JyNI_ ## pref ## _ ## name (jlong o1, jobject o2, jlong tstate) \
 { \
 	PyObject* arg, *res; \
 	jobject jres; \
+	JyNI_ProfileTimes prof; \
 	ENTER_JyNI \
+	JyNI_PROFILE_BEGIN(prof); \
 	arg = JyNI_PyObject_FromJythonPyObject(o2); \
+	JyNI_PROFILE_CONVERTED(prof); \
 	res = pref ## _ ## name ((PyObject*) o1, arg); \
+	JyNI_PROFILE_CALLED(prof); \
 	jres = JyNI_JythonPyObject_FromPyObject(res); \
+	JyNI_PROFILE_END(prof, o1, #pref "_" #name); \
 	Py_XDECREF(arg); \
 	Py_XDECREF(res); \
 	LEAVE_JyNI \
@@ -79,11 +89,16 @@ jobject JyNI_PyNumber_ ## name (jlong o1, jobject o2, jobject o3, jlong tstate)
 { \
 	PyObject* arg2, *arg3, *res; \
 	jobject jres; \
+	JyNI_ProfileTimes prof; \
 	ENTER_JyNI \
+	JyNI_PROFILE_BEGIN(prof); \
 	arg2 = JyNI_PyObject_FromJythonPyObject(o2); \
 	arg3 = JyNI_PyObject_FromJythonPyObject(o3); \
+	JyNI_PROFILE_CONVERTED(prof); \
 	res = PyNumber_ ## name ((PyObject*) o1, arg2, arg3); \
+	JyNI_PROFILE_CALLED(prof); \
 	jres = JyNI_JythonPyObject_FromPyObject(res); \
+	JyNI_PROFILE_END(prof, o1, "PyNumber_" #name); \
 	Py_XDECREF(arg2); \
 	Py_XDECREF(arg3); \
 	Py_XDECREF(res); \
@@ -106,9 +121,14 @@ jobject JyNI_PySequence_ ## name (jlong o, jint l, jlong tstate) \
 { \
 	PyObject* res; \
 	jobject jres; \
+	JyNI_ProfileTimes prof; \
 	ENTER_JyNI \
+	JyNI_PROFILE_BEGIN(prof); \
+	JyNI_PROFILE_CONVERTED(prof); \
 	res = PySequence_ ## name ((PyObject*) o, l); \
+	JyNI_PROFILE_CALLED(prof); \
 	jres = JyNI_JythonPyObject_FromPyObject(res); \
+	JyNI_PROFILE_END(prof, o, "PySequence_" #name); \
 	Py_XDECREF(res); \
 	LEAVE_JyNI \
 	return jres; \
@@ -174,6 +194,34 @@ jobject JyNI_PyIter_Next(jlong handle, jlong tstate)
 }
 
 
+/*
+ * Fills dest with up to its length next items of the iterator, so Java can
+ * iterate with one JNI-call and GIL-acquisition per batch. Returns the number
+ * of items stored. A smaller number than the length of dest means the
+ * iterator was exhausted or raised an exception, which is then pending
+ * as usual.
+ */
+jint JyNI_PyIter_NextBatch(JNIEnv *env, jclass class, jlong handle, jobjectArray dest, jlong tstate)
+{
+	PyObject* res;
+	jobject jres;
+	jint count = 0, max = (*env)->GetArrayLength(env, dest);
+
+	RE_ENTER_JyNI
+	while (count < max)
+	{
+		res = PyIter_Next((PyObject*) handle);
+		if (!res) break;
+		jres = JyNI_JythonPyObject_FromPyObject(res);
+		Py_DECREF(res);
+		(*env)->SetObjectArrayElement(env, dest, count++, jres);
+		(*env)->DeleteLocalRef(env, jres);
+	}
+	RE_LEAVE_JyNI
+	return count;
+}
+
+
 // PyNumber-methods:
 
 PyNumberMethod2(Add)
@@ -189,7 +189,7 @@ inline PyObject* JyNI_ExceptionAlloc(ExceptionMapEntry* eme)
 		JyNI_AddJyAttribute(_jy, JyAttributeSyncFunctions, tme->sync); \
 	_jy->jy = (*env)->NewWeakGlobalRef(env, src); \
 	if (!(_jy->flags & JY_HAS_JHANDLE_FLAG_MASK)) { /*some sync-on-init methods might already init this */ \
-		(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, src, (jlong) dest); \
+		JyNI_SetNativeHandle(env, src, (PyObject*) dest); \
 		_jy->flags |= JY_HAS_JHANDLE_FLAG_MASK; \
 	} \
 	/* Take care for already existing Jython-weak references */ \
@@ -213,7 +213,7 @@ inline PyObject* JyNI_ExceptionAlloc(ExceptionMapEntry* eme)
 		if (tme == &builtinTypes[TME_INDEX_Type]) \
 			((PyTypeObject*) dest)->tp_flags |= Py_TPFLAGS_HEAPTYPE; \
 		jy = AS_JY(dest); \
-		(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, src, (jlong) dest); \
+		JyNI_SetNativeHandle(env, src, (PyObject*) dest); \
 		jy->flags |= JY_HAS_JHANDLE_FLAG_MASK; \
 		if (dest && tme->sync && tme->sync->jy2py) { \
 			tme->sync->jy2py(src, dest); \
@@ -235,7 +235,12 @@ inline PyObject* JyNI_InitPyObject(TypeMapEntry* tme, jobject src)
 	if (dest)
 	{
 		jy = AS_JY(dest);
-		INIT_JY(jy, tme, src, dest)
+		/* Objects from the identity cache in JySync.c are already linked to
+		 * their eternal Jython counterpart, which must not be replaced. */
+		if (!(jy->flags & JY_CACHE_ETERNAL_FLAG_MASK) || !JyObject_IS_INITIALIZED(jy))
+		{
+			INIT_JY(jy, tme, src, dest)
+		}
 	}
 	return dest;
 }
@@ -316,7 +321,7 @@ inline PyTypeObject* JyNI_AllocPyObjectNativeTypePeer(TypeMapEntry* tme, jobject
 	dest->tp_traverse = jythontype_traverse;
 
 	jy = AS_JY(dest);
-	(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, src, (jlong) dest);
+	JyNI_SetNativeHandle(env, src, (PyObject*) dest);
 	jy->flags |= JY_HAS_JHANDLE_FLAG_MASK | JY_SUBTYPE_FLAG_MASK;// | JY_INITIALIZED_FLAG_MASK;
 	//jy->jy = (*env)->NewWeakGlobalRef(env, src);
 
@@ -363,7 +368,7 @@ inline PyObject* JyNI_InitPyException(ExceptionMapEntry* eme, jobject src)
 		env(NULL);
 		jy->jy = (*env)->NewWeakGlobalRef(env, src);
 		//if (jy->flags & JY_HAS_JHANDLE_FLAG_MASK == 0) { //Always true here
-		(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, src, (jlong) obj);//, jy->flags & JY_TRUNCATE_FLAG_MASK);
+		JyNI_SetNativeHandle(env, src, obj);//, jy->flags & JY_TRUNCATE_FLAG_MASK);
 		jy->flags |= JY_HAS_JHANDLE_FLAG_MASK;
 		jy->flags |= JY_INITIALIZED_FLAG_MASK;
 		if (PyType_IS_GC(eme->exc_type))
@@ -470,7 +475,7 @@ inline jobject JyNI_InitStaticJythonPyObject(PyObject* src)
 			er = (*env)->NewObject(env, pyCPeerClass, pyCPeer_Constructor, (jlong) src,
 					JyNI_JythonPyObject_FromPyObject(Py_TYPE(src)));
 		}
-		(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, er, (jlong) src);
+		JyNI_SetNativeHandle(env, er, src);
 		return er;
 	}
 }
@@ -496,7 +501,7 @@ inline jobject JyNI_InitJythonPyObject(TypeMapEntry* tme, PyObject* src, JyObjec
 		JyNI_AddJyAttribute(srcJy, JyAttributeSyncFunctions, tme->sync);
 	srcJy->jy = (*env)->NewWeakGlobalRef(env, dest);
 	if (!(srcJy->flags & JY_HAS_JHANDLE_FLAG_MASK)) {  //some sync-on-init methods might already init this
-		(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, dest, (jlong) src);
+		JyNI_SetNativeHandle(env, dest, src);
 		srcJy->flags |= JY_HAS_JHANDLE_FLAG_MASK;
 	}
 	srcJy->flags |= JY_INITIALIZED_FLAG_MASK;
@@ -36,28 +36,20 @@
  *
  *
  * This file implements a hash-table from scratch. It is intended for C pointer
- * hashing, and we attempt to optimize it for this purpose over time. E.g. it already
- * turned out that for pointers, which usually differ mainly in the lower bits
- * mapping the plain pointer value into table space (value % capacity) yield
- * sufficient table-fill results. Using Knuth's hash function (value * factor)
- * does not notably improve this behavior in this usecase.
- * k-th rehashing is done by k-left-bitshift before applying "modulo capacity".
- * We increase table size whenever rehashing-sequence exceeds a maximal count.
- * With maxCount == 40 we usually achieve 75%-90% table fill when resize is needed.
- * Currently maxCount is constant, but probably should be formulated as fraction of
- * tableSize.
- * For resizing we roughly double the size, but ensure table-size is odd (though
- * maybe not needed for the trivial hash-function we ended up with).
- * In the rare case that the resized table directly exceeds max rehash-count when
- * we init it with the old values, we abort the resize operation and make a new
- * attempt with additional 10% increased size.
- * As of this writing table-shrinking is never applied. (Will be added later.)
- * Deletion is applied by inserting a constant dummy element. Currently no cleaning
- * is applied and dummies are only removed on resize.
- * We plan to add some flags that would allow in-place resize, in-place dummy
- * clean-up and true deletion for elements that were never stepped over by rehash.
- * However so far delDummies tend not to accumulate critically, even on frequent
- * use of del-feature.
+ * hashing. Originally it mapped the plain pointer value into table space and
+ * rehashed by left-shifts, which let probe chains grow over time since deletion
+ * dummies were never cleaned up and the table never shrank.
+ *
+ * Now it is an open-addressing table with linear probing and power-of-two capacity.
+ * Pointers are mixed with the 64 bit finalizer of MurmurHash3 before masking,
+ * because allocator alignment leaves the lower bits of plain pointers mostly zero.
+ * Deletion uses backward-shift, i.e. subsequent entries of the probe chain are moved
+ * back into the freed slot. So no deletion dummies (tombstones) exist at all and
+ * probe chains are always as short as if the remaining entries were inserted into
+ * a fresh table.
+ * The table doubles when it becomes 3/4 full and halves when fill drops below 1/8,
+ * but never shrinks below initCapacity.
+ * JyHash_getStats exposes size, capacity, probe lengths and resize count.
  *
  * JyNI uses this hashtable to track dynamically (m)allocated pointers, because there
  * is no good way to distinguish them from static memory positions. This discrimination
@@ -67,58 +59,52 @@
  * as long as only membership-testing is required. However we plan to migrate the whole
  * lookup-mechanism, which is currently header-based, to this hashtable, vastly
  * simplifying various parts of JyNI. Using a similar mechanism for the other lookup
- * direction on native site would reduce JVM-callbacks and potentially improve performance;
- * however it might still be a bottle-neck to consistently obtain hash-values for jobjects,
- * because this is only doable on Java-site. We would later expand the interface to directly
- * pass corresponding hashes down to native site whenever Java-objects are handed down, but
- * that's a future optimization.
+ * direction on native site reduces JVM-callbacks, see below.
+ *
+ * The second table (JyHash_rev_*) maps Java identity hashes to the native counterparts
+ * of Jython objects. JyNI.setNativeHandle returns System.identityHashCode of the object
+ * it is called on, so every mirrored object is recorded here when its handle is set
+ * (see JyNI_SetNativeHandle). Natives that receive System.identityHashCode along with
+ * an object can then resolve it without calling JyNI.lookupNativeHandle. Identity hashes
+ * are not unique, so this table is a multimap and each candidate is confirmed via
+ * IsSameObject on its jy-reference. It uses the same probing and deletion scheme as the
+ * pointer table, but keeps no statistics.
+ *
+ * Neither table is synchronized. Every access, including lookups, requires the GIL,
+ * since a concurrent insert or delete may resize the table or shift entries.
+ * JyHash_assertGIL checks this unless NDEBUG is defined, so JNI entry points that
+ * can reach these tables take the GIL via RE_ENTER_JyNI. Before
+ * PyEval_InitThreads only the initializing thread runs JyNI, so no GIL exists yet.
  */
 
 #include "JyNI.h"
 
-//#define initSize 50021
-//#define initSize 11939
-#define initSize 1019
-#define maxRehash 40
+/* Must be a power of two: */
+#define initCapacity 1024
 
-//#define initSize 13
-//#define maxRehash 10
+#define JyHash_assertGIL() assert(_JyNI_HoldsGIL || !PyEval_ThreadsInitialized())
 
-size_t tableCapacity = initSize, tableSize = 0, delDummies = 0, collisions = 0;
-
-#define increasedSize 2*tableCapacity-1
-
-/*
- * Todo:
- * Add some flags, e.g. steppedOver, rehashed, reinserted
- * which allow some improvements (but increase size on the other hand)
- * - true deletion possible for never over-stepped bins
- * - table-cleaning (remove delDummies) possible in-place
- * - table-resize possible in-place module memmove by realloc
- */
+static size_t tableCapacity = initCapacity, tableMask = initCapacity-1, tableSize = 0;
+/* Statistics, see JyHash_getStats: */
+static size_t maxProbe = 0, totalProbe = 0, resizeCount = 0;
 
 typedef struct {
 	void* ptr;
 } TableEntry;
 
-TableEntry* ptrTable;
-
-// We use the table-pointer itself as delDummy, because it
-// will surely never be inserted into the table as a regular value.
-#define delDummy ptrTable
-
-/*
- * It appears for memory pointers the identity modulo capacity
- * is actually a rather good hash function.
- */
-//#define hash_func(i) ((uintptr_t) i)*2654435761 % tableCapacity
-#define hash_func(i) ((uintptr_t) i) % tableCapacity
+static TableEntry* ptrTable;
 
-//#define rehash_func(i, k, prev) hash_func(prev)
+static inline size_t hash_func(void* ptr)
+{
+	uint64_t h = (uint64_t) (uintptr_t) ptr;
+	h ^= h >> 33;
+	h *= 0xff51afd7ed558ccdULL;
+	h ^= h >> 33;
+	return ((size_t) h) & tableMask;
+}
 
-#define rehash_func(i, k, prev) hash_func((((uintptr_t) i) << k))
-//#define rehash_func(i, k, prev) hash_func((((uintptr_t) i) << k)*((ssize_t) prev))
-//#define rehash_func(i, k, prev) hash_func(i >> k)
+/* Distance of pos from home-position of the entry stored there: */
+#define probe_distance(pos, ptr) (((pos) - hash_func(ptr)) & tableMask)
 
 inline void JyHash_init()
 {
@@ -128,181 +114,283 @@ inline void JyHash_init()
 
 inline void JyHash_printTable()
 {
-	int i;
+	size_t i;
 	for (i = 0; i < tableCapacity; ++i)
 	{
-		if (ptrTable[i].ptr != delDummy) printf("%i: %i\n", i, ptrTable[i]);
-		else printf("%i: %s\n", i, "--");
+		if (ptrTable[i].ptr) printf("%lu: %p (%lu)\n", (unsigned long) i, ptrTable[i].ptr,
+				(unsigned long) probe_distance(i, ptrTable[i].ptr));
+		else printf("%lu: %s\n", (unsigned long) i, "--");
 	}
 }
 
+inline void JyHash_getStats(JyHashStats* stats)
+{
+	stats->size = tableSize;
+	stats->capacity = tableCapacity;
+	stats->maxProbe = maxProbe;
+	stats->totalProbe = totalProbe;
+	stats->resizes = resizeCount;
+}
+
+/*
+ * Returns the position of ptr or -1 if ptr is not contained.
+ * No entry is farther than maxProbe away from its home-position,
+ * so the search can stop there.
+ */
 static inline ssize_t getPos(void* ptr)
 {
-//	GET_POS(!ptrTable[pos].ptr)
-	size_t pos = hash_func(ptr);
-//	printf("%i %i\n", pos, ptrTable[pos].ptr);
-	if (ptrTable[pos].ptr == ptr) return pos;
-	if (!ptrTable[pos].ptr) return ~pos;
-	else {
-		int rehash = 1;
-		pos = rehash_func(ptr, rehash, pos);
-		while (ptrTable[pos].ptr != ptr)
-		{
-			if (!ptrTable[pos].ptr) return ~pos;
-			if (++rehash > maxRehash) return ~tableCapacity;
-			pos = rehash_func(ptr, rehash, pos);
-		}
-		return pos;
+	size_t pos = hash_func(ptr), dist = 0;
+	while (ptrTable[pos].ptr)
+	{
+		if (ptrTable[pos].ptr == ptr) return pos;
+		if (++dist > maxProbe) return -1;
+		pos = (pos+1) & tableMask;
 	}
+	return -1;
 }
 
 /*
- * Like getPos, but counts collisions.
+ * Places ptr into the first free slot of its probe chain.
+ * Assumes ptr is not yet contained and the table is not full.
  */
-static inline ssize_t getPosForInsert0(void* ptr)
+static inline void insert0(void* ptr)
 {
-//	GET_POS(!ptrTable[pos].ptr)
-	size_t pos = hash_func(ptr);
-//	printf("%i %i\n", pos, ptrTable[pos].ptr);
-	if (ptrTable[pos].ptr == ptr) return pos;
-	if (!ptrTable[pos].ptr) return ~pos;
-	else {
-		int rehash = 1;
-		++collisions;
-		pos = rehash_func(ptr, rehash, pos);
-		while (ptrTable[pos].ptr != ptr)
-		{
-			if (!ptrTable[pos].ptr) return ~pos;
-			if (++rehash > maxRehash) return ~tableCapacity;
-			++collisions;
-			//printf("rehash0 %i over %i\n", ptr, ptrTable[pos].ptr);
-			pos = rehash_func(ptr, rehash, pos);
-		}
-		return pos;
+	size_t pos = hash_func(ptr), dist = 0;
+	while (ptrTable[pos].ptr)
+	{
+		++dist;
+		pos = (pos+1) & tableMask;
 	}
+	ptrTable[pos].ptr = ptr;
+	++tableSize;
+	totalProbe += dist;
+	if (dist > maxProbe) maxProbe = dist;
 }
 
-static inline ssize_t getPosForInsert(void* ptr)
+static void resize_ptrTable(size_t newCapacity)
 {
-//	GET_POS(!ptrTable[pos].ptr || ptrTable[pos].ptr == delDummy)
-	ssize_t freePos = -1, pos = hash_func(ptr);
-//	printf("%i %i\n", pos, pos);
-	if (ptrTable[pos].ptr == ptr) return pos;
-	else if (!ptrTable[pos].ptr) return ~pos;
-	else if (ptrTable[pos].ptr == delDummy && freePos == -1) {
-		freePos = pos;
+	TableEntry* oldTable = ptrTable;
+	size_t i, oldCapacity = tableCapacity;
+	TableEntry* newTable = (TableEntry*) calloc(newCapacity, sizeof(TableEntry));
+	if (!newTable) {
+		/* Keep working with the old table. */
+		jputs("resize_ptrTable failed!");
+		return;
 	}
-
+	ptrTable = newTable;
+	tableCapacity = newCapacity;
+	tableMask = newCapacity-1;
+	tableSize = 0;
+	maxProbe = 0;
+	totalProbe = 0;
+	++resizeCount;
+	for (i = 0; i < oldCapacity; ++i)
 	{
-		int rehash = 1;
-		++collisions;
-		//printf("rehash %i over %i\n", ptr, ptrTable[pos].ptr);
-		pos = rehash_func(ptr, rehash, pos);
-		while (ptrTable[pos].ptr != ptr)
-		{
-			if (!ptrTable[pos].ptr) return freePos != -1 ? (--delDummies, ~freePos) : ~pos;
-			else if (ptrTable[pos].ptr == delDummy && freePos == -1) freePos = pos;
-			if (++rehash > maxRehash) return freePos != -1 ? (--delDummies, ~freePos) : ~tableCapacity;
-			++collisions;
-			//printf("rehash %i over %i\n", ptr, ptrTable[pos].ptr);
-			pos = rehash_func(ptr, rehash, pos);
-		}
-		return pos;
+		if (oldTable[i].ptr) insert0(oldTable[i].ptr);
 	}
+	free(oldTable);
 }
 
-inline static void resize_ptrTable(size_t newSize);
+inline int JyHash_insert(void* ptr)
+{
+	JyHash_assertGIL();
+	if (getPos(ptr) >= 0) return 0;
+	if ((tableSize+1)*4 > tableCapacity*3)
+		resize_ptrTable(tableCapacity*2);
+	insert0(ptr);
+	return 1;
+}
 
-/*
- * insert0 doesn't care for delDummies, it's intended only for use
- * with fresh tables.
- */
-static inline int insert0(void* ptr)
+inline int JyHash_contains(void* ptr)
 {
-	ssize_t pos = getPosForInsert0(ptr);
-	if (pos < 0) {
-		if (pos == ~tableCapacity) {
-//			printf("Warning: maximal rehash exhausted in insert0");
-			return ~tableCapacity; //abort resize in this case
-		}
-		ptrTable[~pos].ptr = ptr;
-		++tableSize;
+	JyHash_assertGIL();
+	return getPos(ptr) >= 0;
+}
+
+inline int JyHash_delete(void* ptr)
+{
+	ssize_t hole;
+	size_t next, home;
+	JyHash_assertGIL();
+	hole = getPos(ptr);
+	if (hole < 0) return 0;
+	totalProbe -= probe_distance((size_t) hole, ptr);
+	/* Backward-shift (Knuth's Algorithm R): walk the rest of the cluster and move
+	 * every entry back into the hole that would otherwise become unreachable,
+	 * i.e. whose home-position is not cyclically within (hole, next]. */
+	next = hole;
+	while (ptrTable[next = (next+1) & tableMask].ptr)
+	{
+		home = hash_func(ptrTable[next].ptr);
+		if (((next-home) & tableMask) < ((next-hole) & tableMask)) continue;
+		totalProbe -= (next-hole) & tableMask;
+		ptrTable[hole].ptr = ptrTable[next].ptr;
+		hole = next;
 	}
-	return pos < 0;
+	ptrTable[hole].ptr = NULL;
+	--tableSize;
+	if (tableCapacity > initCapacity && tableSize*8 < tableCapacity)
+		resize_ptrTable(tableCapacity/2);
+	return 1;
 }
 
-inline static void resize_ptrTable(size_t newSize)
+/* Reverse lookup: Java identity hash -> PyObject* */
+
+static size_t revCapacity = initCapacity, revMask = initCapacity-1, revSize = 0;
+
+typedef struct {
+	jint hash;
+	PyObject* op;
+} RevEntry;
+
+static RevEntry* revTable;
+
+static inline size_t rev_hash_func(jint hash)
 {
-	TableEntry* oldTable = ptrTable;
-	ssize_t i = tableCapacity-1, oldCapacity = tableCapacity;
-	tableCapacity = newSize;
-	ptrTable = (TableEntry*) calloc(tableCapacity, sizeof(TableEntry));
-	if (!ptrTable) jputs("resize_ptrTable failed!");
-	delDummies = 0;
-	tableSize = 0;
-	collisions = 0;
-	for (; i >= 0; --i) {// oldTable counts as delDummy here
-		//if (i < 0) printf("%i\n", i);
-		if (oldTable[i].ptr && oldTable[i].ptr != oldTable)
-		{
-			if (insert0(oldTable[i].ptr) == ~tableCapacity)
-			{
-				// abort resize and choose different size
-				// this will become much cheaper once we support
-				// in-place resize via realloc
-				tableCapacity *= 1.10;
-//				printf("Adjusted capacity: %i\n", tableCapacity);
-				// Ensure it's odd
-				if (tableCapacity % 2 == 0) tableCapacity -= 1;
-				i = oldCapacity-1;
-				free(ptrTable);
-				ptrTable = (TableEntry*) calloc(tableCapacity, sizeof(TableEntry));
-			}
-		}
+	uint32_t h = (uint32_t) hash;
+	h ^= h >> 16;
+	h *= 0x85ebca6bU;
+	h ^= h >> 13;
+	return ((size_t) h) & revMask;
+}
+
+static inline void rev_insert0(jint hash, PyObject* op)
+{
+	size_t pos = rev_hash_func(hash);
+	while (revTable[pos].op) pos = (pos+1) & revMask;
+	revTable[pos].hash = hash;
+	revTable[pos].op = op;
+	++revSize;
+}
+
+static void resize_revTable(size_t newCapacity)
+{
+	RevEntry* oldTable = revTable;
+	size_t i, oldCapacity = revCapacity;
+	RevEntry* newTable = (RevEntry*) calloc(newCapacity, sizeof(RevEntry));
+	if (!newTable) {
+		/* Keep working with the old table. */
+		jputs("resize_revTable failed!");
+		return;
+	}
+	revTable = newTable;
+	revCapacity = newCapacity;
+	revMask = newCapacity-1;
+	revSize = 0;
+	for (i = 0; i < oldCapacity; ++i)
+	{
+		if (oldTable[i].op) rev_insert0(oldTable[i].hash, oldTable[i].op);
 	}
 	free(oldTable);
 }
 
-inline int JyHash_insert(void* ptr)
+inline void JyHash_rev_init()
 {
-	ssize_t pos = getPosForInsert(ptr);
-	//printf("%i %i\n", pos, pos);//ptrTable[pos].ptr);
-	if (pos < 0) {
-		if (pos == ~tableCapacity) {
-//			printf("Resize table to %i\n", increasedSize);
-//			printf("Collisions %i\n", collisions);
-//			printf("Size %i\n", tableSize);
-//			printf("delDummies %i\n", delDummies);
-//			printf("Load %f\%\n", 100.0*tableSize/tableCapacity);
-			resize_ptrTable(increasedSize);
-//			puts("resize done");
-			return insert0(ptr); //resize in this case
-		}
-		ptrTable[~pos].ptr = ptr;
-		++tableSize;
+	revTable = (RevEntry*) calloc(revCapacity, sizeof(RevEntry));
+	if (!revTable) jputs("JyHash_rev_init failed!");
+}
+
+/*
+ * Records op as native counterpart of a Jython object with the given
+ * identity hash. Adding the same pair twice has no effect.
+ */
+inline int JyHash_rev_insert(jint hash, PyObject* op)
+{
+	size_t pos;
+	JyHash_assertGIL();
+	if (!revTable) return 0;
+	pos = rev_hash_func(hash);
+	while (revTable[pos].op)
+	{
+		if (revTable[pos].op == op && revTable[pos].hash == hash) return 0;
+		pos = (pos+1) & revMask;
+	}
+	if ((revSize+1)*4 > revCapacity*3)
+	{
+		resize_revTable(revCapacity*2);
+		rev_insert0(hash, op);
+	} else
+	{
+		revTable[pos].hash = hash;
+		revTable[pos].op = op;
+		++revSize;
 	}
-	return pos < 0;
+	return 1;
 }
 
-inline void clean_table()
+/*
+ * Removes the pair (hash, op). Only pointers are compared,
+ * so op may already be freed or reallocated.
+ */
+inline int JyHash_rev_delete(jint hash, PyObject* op)
 {
-	resize_ptrTable(tableCapacity);
+	size_t hole, next, home;
+	JyHash_assertGIL();
+	if (!revTable) return 0;
+	hole = rev_hash_func(hash);
+	while (revTable[hole].op != op || revTable[hole].hash != hash)
+	{
+		if (!revTable[hole].op) return 0;
+		hole = (hole+1) & revMask;
+	}
+	/* Backward-shift, see JyHash_delete. */
+	next = hole;
+	while (revTable[next = (next+1) & revMask].op)
+	{
+		home = rev_hash_func(revTable[next].hash);
+		if (((next-home) & revMask) < ((next-hole) & revMask)) continue;
+		revTable[hole] = revTable[next];
+		hole = next;
+	}
+	revTable[hole].op = NULL;
+	--revSize;
+	if (revCapacity > initCapacity && revSize*8 < revCapacity)
+		resize_revTable(revCapacity/2);
+	return 1;
 }
 
-inline int JyHash_contains(void* ptr)
+/*
+ * Whether op still belongs to a live allocation, i.e. to one that
+ * is contained in the pointer table. Uses only pointer arithmetic,
+ * so op may already be freed.
+ */
+static inline int rev_is_live(PyObject* op)
 {
-	ssize_t pos = getPos(ptr);
-//	printf("%i %i\n", pos, pos>=0);
-	return pos >= 0;
+	return getPos(_AS_JY_NO_GC(op)) >= 0 || getPos(_AS_JY_WITH_GC(op)) >= 0;
 }
 
-inline int JyHash_delete(void* ptr)
+/*
+ * Returns the native counterpart of obj, given that hash is
+ * System.identityHashCode(obj). Returns a BORROWED reference
+ * or NULL if obj is not mirrored (or was not recorded).
+ * Performs no upcall into Java.
+ * Entries are usually removed in JyNI_CleanUp_JyObject, but objects
+ * freed on other paths may leave stale ones. So each candidate is
+ * checked against the pointer table before it is dereferenced.
+ */
+inline PyObject* JyHash_rev_lookup(JNIEnv* env, jint hash, jobject obj)
 {
-	ssize_t pos = getPos(ptr);
-	if (pos >= 0) {
-		ptrTable[pos].ptr = delDummy;
-		++delDummies;
-		--tableSize;
+	size_t pos;
+	JyObject* jy;
+	JyHash_assertGIL();
+	if (!revTable) return NULL;
+	pos = rev_hash_func(hash);
+	while (revTable[pos].op)
+	{
+		if (revTable[pos].hash == hash && rev_is_live(revTable[pos].op))
+		{
+			jy = AS_JY(revTable[pos].op);
+			if (JyObject_IS_INITIALIZED(jy) && jy->jy &&
+					(*env)->IsSameObject(env, jy->jy, obj))
+				return revTable[pos].op;
+		}
+		pos = (pos+1) & revMask;
 	}
-	return pos >= 0;
+	return NULL;
+}
+
+/* Number of mirrored objects, i.e. of objects with a native handle. */
+inline size_t JyHash_rev_size()
+{
+	return revSize;
 }
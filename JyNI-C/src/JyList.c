@@ -40,9 +40,9 @@
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_get
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
-jobject JyList_get(JNIEnv *env, jclass class, jlong handle, jint index)
+jobject JyList_get(JNIEnv *env, jclass class, jlong handle, jint index, jlong tstate)
 {
 //	jputs(__FUNCTION__);
 //	jputsLong(((PyObject*) handle)->ob_refcnt);
@@ -59,7 +59,11 @@ jobject JyList_get(JNIEnv *env, jclass class, jlong handle, jint index)
 //		(*env)->ExceptionDescribe(env);
 //	}
 //	if ((*env)->IsSameObject(env, er, NULL)) jputs("er is NULL");
-	return JyNI_JythonPyObject_FromPyObject(PyList_GET_ITEM((PyObject*) handle, index));
+	jobject er;
+	RE_ENTER_JyNI
+	er = JyNI_JythonPyObject_FromPyObject(PyList_GET_ITEM((PyObject*) handle, index));
+	RE_LEAVE_JyNI
+	return er;
 }
 
 /*
@@ -75,15 +79,17 @@ jint JyList_size(JNIEnv *env, jclass class, jlong handle)
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_set
- * Signature: (JILorg/python/core/PyObject;J)Lorg/python/core/PyObject;
+ * Signature: (JILorg/python/core/PyObject;JJ)Lorg/python/core/PyObject;
  */
-jobject JyList_set(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj)
+jobject JyList_set(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj, jlong tstate)
 {
 //	jputs(__FUNCTION__);
 //	jputsLong(handle);
 //	jputsLong(index);
-	jobject old = JyNI_JythonPyObject_FromPyObject(PyList_GET_ITEM((PyObject*) handle, index));
+	jobject old;
 	PyObject* op = (PyObject*) pyObj;
+	RE_ENTER_JyNI
+	old = JyNI_JythonPyObject_FromPyObject(PyList_GET_ITEM((PyObject*) handle, index));
 	Py_XDECREF(PyList_GET_ITEM((PyObject*) handle, index));
 	if (op) Py_INCREF(op);
 	else op = JyNI_PyObject_FromJythonPyObject(obj);
@@ -91,32 +97,133 @@ jobject JyList_set(JNIEnv *env, jclass class, jlong handle, jint index, jobject
 	PyList_SET_ITEM((PyObject*) handle, index, op);
 	updateJyGCHeadLink((PyObject*) handle, AS_JY_WITH_GC((PyObject*) handle), index, op, AS_JY(op));
 	//updateJyGCHeadLinks((PyObject*) handle, AS_JY_WITH_GC((PyObject*) handle));
+	RE_LEAVE_JyNI
 	return old;
 }
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_add
- * Signature: (JILorg/python/core/PyObject;J)V
+ * Signature: (JILorg/python/core/PyObject;JJ)V
  */
-void JyList_add(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj)
+void JyList_add(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj, jlong tstate)
 {
 //	jputs(__FUNCTION__);
 //	jputsLong(handle);
 //	jputsLong(index);
+	RE_ENTER_JyNI
 	PyList_Append((PyObject*) handle, pyObj != NULL ? (PyObject*) pyObj : JyNI_PyObject_FromJythonPyObject(obj));
+	RE_LEAVE_JyNI
 }
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_remove
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
-jobject JyList_remove(JNIEnv *env, jclass class, jlong handle, jint index)
+jobject JyList_remove(JNIEnv *env, jclass class, jlong handle, jint index, jlong tstate)
 {
 //	jputs(__FUNCTION__);
 //	jputsLong(handle);
 //	jputsLong(index);
 	//list_ass_slice(self, i, i+1, (PyObject *)NULL)
+	RE_ENTER_JyNI
 	PyList_SetSlice((PyObject*) handle, index, index+1, (PyObject *) NULL);
+	RE_LEAVE_JyNI
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_getRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)I
+ *
+ * Copies up to count items starting at index into dest, beginning at destPos.
+ * Returns the number of items copied, which is less than count if the list
+ * ends before.
+ */
+jint JyList_getRange(JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray dest, jint destPos, jint count, jlong tstate)
+{
+	jint i, size = (jint) PyList_GET_SIZE((PyObject*) handle);
+	jobject item;
+	if (index < 0 || index >= size) return 0;
+	if (count > size-index) count = size-index;
+	RE_ENTER_JyNI
+	for (i = 0; i < count; ++i)
+	{
+		item = JyNI_JythonPyObject_FromPyObject(PyList_GET_ITEM((PyObject*) handle, index+i));
+		(*env)->SetObjectArrayElement(env, dest, destPos+i, item);
+		(*env)->DeleteLocalRef(env, item);
+		if ((*env)->ExceptionCheck(env))
+		{
+			count = i;
+			break;
+		}
+	}
+	RE_LEAVE_JyNI
+	return count;
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_setRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ *
+ * Replaces count items starting at index by the items of src, beginning at srcPos.
+ */
+void JyList_setRange(JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray src, jint srcPos, jint count, jlong tstate)
+{
+	jint i;
+	jobject item;
+	PyObject* op;
+	RE_ENTER_JyNI
+	for (i = 0; i < count; ++i)
+	{
+		item = (*env)->GetObjectArrayElement(env, src, srcPos+i);
+		op = JyNI_PyObject_FromJythonPyObject(item);
+		(*env)->DeleteLocalRef(env, item);
+		Py_XDECREF(PyList_GET_ITEM((PyObject*) handle, index+i));
+		PyList_SET_ITEM((PyObject*) handle, index+i, op);
+		updateJyGCHeadLink((PyObject*) handle, AS_JY_WITH_GC((PyObject*) handle), index+i, op, AS_JY(op));
+	}
+	RE_LEAVE_JyNI
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_insertRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ *
+ * Inserts count items of src, beginning at srcPos, before index.
+ */
+void JyList_insertRange(JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray src, jint srcPos, jint count, jlong tstate)
+{
+	jint i;
+	jobject item;
+	PyObject* items;
+	RE_ENTER_JyNI
+	items = PyList_New(count);
+	if (items)
+	{
+		for (i = 0; i < count; ++i)
+		{
+			item = (*env)->GetObjectArrayElement(env, src, srcPos+i);
+			PyList_SET_ITEM(items, i, JyNI_PyObject_FromJythonPyObject(item));
+			(*env)->DeleteLocalRef(env, item);
+		}
+		PyList_SetSlice((PyObject*) handle, index, index, items);
+		Py_DECREF(items);
+	}
+	RE_LEAVE_JyNI
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_removeRange
+ * Signature: (JIIJ)V
+ */
+void JyList_removeRange(JNIEnv *env, jclass class, jlong handle, jint fromIndex, jint toIndex, jlong tstate)
+{
+	RE_ENTER_JyNI
+	PyList_SetSlice((PyObject*) handle, fromIndex, toIndex, (PyObject *) NULL);
+	RE_LEAVE_JyNI
 }
@@ -48,6 +48,8 @@
 #ifdef MS_WINDOWS
 #include <windows.h>
 #include <DbgHelp.h>
+#else
+#include <time.h>
 #endif
 
 const char* excPrefix = "exceptions.";
@@ -59,6 +61,7 @@ TypeMapEntry builtinTypes[builtinTypeCount];
 #define builtinExceptionCount 50
 //PyTypeObject* builtinExceptions[builtinExceptionCount];
 ExceptionMapEntry builtinExceptions[builtinExceptionCount];
+static jboolean builtinExceptionsInitialized = JNI_FALSE;
 int (*PyOS_InputHook)(void) = NULL;
 
 int Py_DebugFlag; /* Needed by parser.c */
@@ -186,6 +189,8 @@ jobject JyNI_callPyCPeer(JNIEnv *env, jclass class, jlong peerHandle, jobject ar
 //	jputsLong(PyErr_Occurred());
 	if (peer->ob_type->tp_call) {
 		PyObject *jargs, *jkw, *jres;
+		JyNI_ProfileTimes prof;
+		JyNI_PROFILE_BEGIN(prof);
 //		if (Py_TYPE(peer) == &PyCFunction_Type) {
 //			jputsLong(((PyCFunctionObject*) peer)->m_ml);
 //			jputsLong(((PyCFunctionObject*) peer)->m_self);
@@ -203,9 +208,12 @@ jobject JyNI_callPyCPeer(JNIEnv *env, jclass class, jlong peerHandle, jobject ar
 //			jputsLong(PyTuple_GET_ITEM(jargs, 0));
 //		}
 		jkw = JyNI_PyObject_FromJythonPyObject(kw);
+		JyNI_PROFILE_CONVERTED(prof);
 //		jputsPy(peer);
 		jres = peer->ob_type->tp_call(peer, jargs, jkw);
+		JyNI_PROFILE_CALLED(prof);
 		er = JyNI_JythonPyObject_FromPyObject(jres);
+		JyNI_PROFILE_END(prof, peer, NULL);
 		Py_XDECREF(jargs);
 		Py_XDECREF(jkw);
 //		puts("decref result....");
@@ -230,6 +238,7 @@ jobject JyNI_getAttrString(JNIEnv *env, jclass class, jlong handle, jstring name
 {
 	PyObject* jres;
 	jobject er;
+	JyNI_ProfileTimes prof;
 	cstr_decl(cName);
 
 	//printf("JyNI_getAttrString %i\n", tstate);
@@ -247,10 +256,14 @@ jobject JyNI_getAttrString(JNIEnv *env, jclass class, jlong handle, jstring name
 	//jputsLong(ensresult);
 	//jputs("JyNI_getAttrString-Handle:");
 	//jputsLong(handle);
+	JyNI_PROFILE_BEGIN(prof);
+	JyNI_PROFILE_CONVERTED(prof);
 	jres = PyObject_GetAttrString((PyObject*) handle, cName);
+	JyNI_PROFILE_CALLED(prof);
 //	jputs("JyNI_getAttrString-Result:");
 	//jputsLong(jres);
 	er = JyNI_JythonPyObject_FromPyObject(jres);//PyObject_GetAttrString((PyObject*) handle, cName));
+	JyNI_PROFILE_END(prof, handle, "PyObject_GetAttr");
 	Py_XDECREF(jres);
 	RE_LEAVE_JyNI
 	return er;
@@ -298,28 +311,33 @@ jobject JyNI_repr(JNIEnv *env, jclass class, jlong handle, jlong tstate)
 /*
  * Class:     JyNI_JyNI
  * Method:    getItem
- * Signature: (JLorg/python/core/PyObject;J)Lorg/python/core/PyObject;
+ * Signature: (JLorg/python/core/PyObject;IJ)Lorg/python/core/PyObject;
  */
 jobject JyNI_getItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
 {
 	PyObject* pkey, * res;
 	jobject er;
+	JyNI_ProfileTimes prof;
 
 //	jputs(__FUNCTION__);
 //	if (handle) jputs(Py_TYPE((PyObject*) handle)->tp_name);
 //	else jputs("Handle is NULL");
 	ENTER_JyNI
 //	jputsLong(__LINE__);
-	pkey = JyNI_PyObject_FromJythonPyObject(key);
+	JyNI_PROFILE_BEGIN(prof);
+	pkey = JyNI_PyObject_FromJythonPyObjectHashed(key, keyHash);
+	JyNI_PROFILE_CONVERTED(prof);
 //	jputsLong(__LINE__);
 //	if (pkey) jputs(Py_TYPE(pkey)->tp_name);
 //	else jputs("pkey is NULL");
 	res = PyObject_GetItem((PyObject*) handle, pkey);
+	JyNI_PROFILE_CALLED(prof);
 //	jputsLong(__LINE__);
 //	if (res) jputs(Py_TYPE(res)->tp_name);
 //	else jputs("res is NULL");
 	er = JyNI_JythonPyObject_FromPyObject(res);
+	JyNI_PROFILE_END(prof, handle, "PyObject_GetItem");
 	Py_XDECREF(pkey);
 	Py_XDECREF(res);
 	LEAVE_JyNI
@@ -327,22 +345,61 @@ jobject JyNI_getItem
 	return er;
 }
 
+/*
+ * Class:     JyNI_JyNI
+ * Method:    findItem
+ * Signature: (JLorg/python/core/PyObject;IJ)Lorg/python/core/PyObject;
+ *
+ * Like getItem, but for iteration via the sequence protocol: If the lookup
+ * fails with IndexError or StopIteration, the error is cleared and NULL is
+ * returned without pending exception. So the end of a sequence doesn't
+ * cost a Java exception.
+ */
+jobject JyNI_findItem
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
+{
+	PyObject* pkey, * res;
+	jobject er;
+	JyNI_ProfileTimes prof;
+
+	ENTER_JyNI
+	JyNI_PROFILE_BEGIN(prof);
+	pkey = JyNI_PyObject_FromJythonPyObjectHashed(key, keyHash);
+	JyNI_PROFILE_CONVERTED(prof);
+	res = PyObject_GetItem((PyObject*) handle, pkey);
+	if (!res && (PyErr_ExceptionMatches(PyExc_IndexError) ||
+			PyErr_ExceptionMatches(PyExc_StopIteration)))
+		PyErr_Clear();
+	JyNI_PROFILE_CALLED(prof);
+	er = JyNI_JythonPyObject_FromPyObject(res);
+	JyNI_PROFILE_END(prof, handle, "PyObject_GetItem");
+	Py_XDECREF(pkey);
+	Py_XDECREF(res);
+	LEAVE_JyNI
+	return er;
+}
+
 /*
  * Class:     JyNI_JyNI
  * Method:    setItem
- * Signature: (JLorg/python/core/PyObject;Lorg/python/core/PyObject;J)I
+ * Signature: (JLorg/python/core/PyObject;ILorg/python/core/PyObject;IJ)I
  */
 jint JyNI_setItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jobject value, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jobject value, jint valueHash, jlong tstate)
 {
 	PyObject* pkey, * pval;
 	jint er;
+	JyNI_ProfileTimes prof;
 
 //	jputs(__FUNCTION__);
 	ENTER_JyNI
-	pkey = JyNI_PyObject_FromJythonPyObject(key);
-	pval = JyNI_PyObject_FromJythonPyObject(value);
+	JyNI_PROFILE_BEGIN(prof);
+	pkey = JyNI_PyObject_FromJythonPyObjectHashed(key, keyHash);
+	pval = JyNI_PyObject_FromJythonPyObjectHashed(value, valueHash);
+	JyNI_PROFILE_CONVERTED(prof);
 	er = PyObject_SetItem((PyObject*) handle, pkey, pval);
+	JyNI_PROFILE_CALLED(prof);
+	JyNI_PROFILE_END(prof, handle, "PyObject_SetItem");
 	Py_XDECREF(pkey);
 	Py_XDECREF(pval);
 	LEAVE_JyNI
@@ -352,16 +409,16 @@ jint JyNI_setItem
 /*
  * Class:     JyNI_JyNI
  * Method:    delItem
- * Signature: (JLorg/python/core/PyObject;J)I
+ * Signature: (JLorg/python/core/PyObject;IJ)I
  */
 jint JyNI_delItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
 {
 	PyObject* pkey;
 	jint er;
 
 	ENTER_JyNI
-	pkey = JyNI_PyObject_FromJythonPyObject(key);
+	pkey = JyNI_PyObject_FromJythonPyObjectHashed(key, keyHash);
 	er = PyObject_DelItem((PyObject*) handle, pkey);
 	Py_XDECREF(pkey);
 	LEAVE_JyNI
@@ -476,19 +533,24 @@ jobject JyNI_PyObjectAsPyString(JNIEnv *env, jclass class, jlong handle, jlong t
 /*
  * Class:     JyNI_JyNI
  * Method:    lookupFromHandle
- * Signature: (J)Lorg/python/core/PyObject;
+ * Signature: (JJ)Lorg/python/core/PyObject;
  */
-jobject JyNIlookupFromHandle(JNIEnv *env, jclass class, jlong handle)
+jobject JyNIlookupFromHandle(JNIEnv *env, jclass class, jlong handle, jlong tstate)
 {
 	/*Note: If this method crashes the JVM, it is most likely because
 	 *      it was called with an already freed handle.
 	 */
 	JyObject* jop;
+	jobject er = NULL;
 	if (!handle) return NULL;
-	if (Is_Static_PyObject((PyObject*) handle)) return NULL;
-	jop = AS_JY((PyObject*) handle);
-	if (jop->flags & JY_INITIALIZED_FLAG_MASK) return jop->jy;
-	return NULL;
+	RE_ENTER_JyNI
+	if (!Is_Static_PyObject((PyObject*) handle))
+	{
+		jop = AS_JY((PyObject*) handle);
+		if (jop->flags & JY_INITIALIZED_FLAG_MASK) er = jop->jy;
+	}
+	RE_LEAVE_JyNI
+	return er;
 }
 
 /*
@@ -528,14 +590,16 @@ void JyNI_nativeDecref(jlong handle, jlong tstate)
 /*
  * Class:     JyNI_JyNI
  * Method:    getNativeTypeName
- * Signature: (J)Ljava/lang/String;
+ * Signature: (JJ)Ljava/lang/String;
  */
-jstring JyNIgetNativeTypeName(JNIEnv *env, jclass class, jlong handle)
+jstring JyNIgetNativeTypeName(JNIEnv *env, jclass class, jlong handle, jlong tstate)
 {
-	if (handle) {
-		return (*env)->NewStringUTF(env, Py_TYPE((PyObject*) handle)->tp_name);
-	} else
-		return NULL;
+	jstring er = NULL;
+	if (!handle) return NULL;
+	RE_ENTER_JyNI
+	er = (*env)->NewStringUTF(env, Py_TYPE((PyObject*) handle)->tp_name);
+	RE_LEAVE_JyNI
+	return er;
 }
 
 /*
@@ -585,6 +649,126 @@ jobject JyNI_PyCFunction_getModule(jlong handle, jlong tstate)
 	return jres;
 }
 
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setGILSwitchInterval
+ * Signature: (J)V
+ */
+void JyNI_setGILSwitchInterval(jlong microseconds)
+{
+	JyNI_GIL_SetSwitchInterval(microseconds);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILSwitchInterval
+ * Signature: ()J
+ */
+jlong JyNI_getGILSwitchInterval()
+{
+	return JyNI_GIL_GetSwitchInterval();
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILWaitHistogram
+ * Signature: (Z)[J
+ */
+jlongArray JyNI_getGILWaitHistogram(JNIEnv *env, jclass class, jboolean currentThread)
+{
+	jlong hist[JyNI_GIL_HIST_BUCKETS];
+	jlongArray jres;
+	JyNI_GIL_GetWaitHistogram(hist, currentThread);
+	jres = (*env)->NewLongArray(env, JyNI_GIL_HIST_BUCKETS);
+	if (jres) (*env)->SetLongArrayRegion(env, jres, 0, JyNI_GIL_HIST_BUCKETS, hist);
+	return jres;
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILForcedSwitches
+ * Signature: ()J
+ */
+jlong JyNI_getGILForcedSwitches()
+{
+	return JyNI_GIL_GetForcedSwitches();
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getRuntimeStats
+ * Signature: ()[J
+ */
+jlongArray JyNI_getRuntimeStats(JNIEnv *env, jclass class)
+{
+	jlong stats[14];
+	JyHashStats hashStats;
+	jlongArray jres;
+	JyHash_getStats(&hashStats);
+	stats[0] = (jlong) JyHash_rev_size();
+	stats[1] = ptrCount;
+	stats[2] = (jlong) hashStats.size;
+	stats[3] = (jlong) hashStats.capacity;
+	stats[4] = (jlong) hashStats.maxProbe;
+	stats[5] = (jlong) hashStats.totalProbe;
+	stats[6] = (jlong) hashStats.resizes;
+	stats[7] = JyNI_GetArenaBytes();
+	JyNI_GIL_GetStats(&stats[8], &stats[9]);
+	stats[10] = JyNI_GIL_GetForcedSwitches();
+	JyNI_Lock_GetStats(&stats[11], &stats[12], &stats[13]);
+	jres = (*env)->NewLongArray(env, 14);
+	if (jres) (*env)->SetLongArrayRegion(env, jres, 0, 14, stats);
+	return jres;
+}
+
+volatile jint JyNI_eventMask = 0;
+static jlong eventThreshold = 0;
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setNativeEventMask
+ * Signature: (IJ)V
+ */
+void JyNI_setNativeEventMask(jint mask, jlong thresholdNanos)
+{
+	if (mask) {
+		env();
+		if (JyNI_initDiagnosticsJNI(env) == JNI_ERR) return;
+	}
+	eventThreshold = thresholdNanos;
+#ifndef MS_WINDOWS
+	/* Native events need a monotonic clock, which is not yet implemented on Windows. */
+	JyNI_eventMask = mask;
+#endif
+}
+
+jlong JyNI_nanoTime(void)
+{
+#ifndef MS_WINDOWS
+	struct timespec now;
+	clock_gettime(CLOCK_MONOTONIC, &now);
+	return (jlong) now.tv_sec * 1000000000 + now.tv_nsec;
+#else
+	return 0;
+#endif
+}
+
+/*
+ * Reports an event that started at start (see JyNI_nanoTime) and ends now,
+ * unless it was shorter than the threshold configured by JyNIEvents.
+ */
+void JyNI_reportEvent(jint id, const char* nativeType, jlong start)
+{
+	jstring jtp = NULL;
+	jlong duration = JyNI_nanoTime() - start;
+	env();
+	if (duration < eventThreshold || (*env)->ExceptionCheck(env)) return;
+	if (nativeType) jtp = (*env)->NewStringUTF(env, nativeType);
+	(*env)->CallStaticVoidMethod(env, JyNIEventsClass, JyNIEvents_nativeEvent,
+			id, jtp, duration);
+	if (jtp) (*env)->DeleteLocalRef(env, jtp);
+}
+
 /*
  * Class:     JyNI_JyNI
  * Method:    JyNI_CMethodDef_bind
@@ -1211,10 +1395,17 @@ inline void initBuiltinTypes()
 //	}
 }
 
+/*
+ * Called by the exception lookups below on first use, since most programs
+ * never convert a native exception. Allocating an exception instance sets
+ * Jy_TPFLAGS_DYN_OBJECTS on its type anyway, so setting it here in advance
+ * is merely a shortcut.
+ */
 inline void initBuiltinExceptions()
 {
 	int i;
 
+	if (builtinExceptionsInitialized) return;
 	builtinExceptions[0].exc_type = (PyTypeObject*) PyExc_BaseException;
 	builtinExceptions[1].exc_type = (PyTypeObject*) PyExc_Exception;
 	builtinExceptions[2].exc_type = (PyTypeObject*) PyExc_StandardError;
@@ -1279,6 +1470,7 @@ inline void initBuiltinExceptions()
 		if (builtinExceptions[i].exc_type)
 			builtinExceptions[i].exc_type->tp_flags |= Jy_TPFLAGS_DYN_OBJECTS;
 	}
+	builtinExceptionsInitialized = JNI_TRUE;
 }
 
 /* Does not work for Heap-Types. */
@@ -1294,6 +1486,7 @@ inline jboolean JyNI_IsBuiltinPyType(PyTypeObject* type)
 	if (&PyCapsule_Type == type) return JNI_TRUE;
 	if (&PyCObject_Type == type) return JNI_TRUE;
 
+	initBuiltinExceptions();
 	for (i = 0; i < builtinExceptionCount; ++i)
 	{
 		if (builtinExceptions[49].exc_type == type) return JNI_TRUE;
@@ -1516,6 +1709,7 @@ inline PyTypeObject* JyNI_PyExceptionType_FromJythonExceptionType(jobject exc)
 	strcpy(mName, excPrefix);
 	strcat(mName, utf_string);
 	(*env)->ReleaseStringUTFChars(env, name, utf_string);
+	initBuiltinExceptions();
 	{
 		int i;
 		for (i = 0; i < builtinExceptionCount; ++i)
@@ -1541,6 +1735,7 @@ inline ExceptionMapEntry* JyNI_PyExceptionMapEntry_FromPyExceptionType(PyTypeObj
 		return NULL;
 	} //else
 		//jputs(excType->tp_name);
+	initBuiltinExceptions();
 	for (i = 0; i < builtinExceptionCount; ++i)
 	{
 		if (builtinExceptions[i].exc_type == excType) return &(builtinExceptions[i]);
@@ -1556,10 +1751,26 @@ inline void JyNI_SyncJy2Py(JyObject* jy, PyObject* op)
 	if (sync != NULL && sync->jy2py != NULL) sync->jy2py(jy->jy, op);
 }
 
+static PyObject* _JyNI_PyObject_FromJythonPyObject0(jobject jythonPyObject, jboolean lookupNative, jboolean checkCPeer, jboolean checkForType);
+
 /*
  * This function returns a NEW reference, i.e. caller must decref it in the end.
  */
 PyObject* _JyNI_PyObject_FromJythonPyObject(jobject jythonPyObject, jboolean lookupNative, jboolean checkCPeer, jboolean checkForType)
+{
+	if (JyNI_EventEnabled(JyNI_EVENT_TO_NATIVE))
+	{
+		jlong start = JyNI_nanoTime();
+		PyObject* result = _JyNI_PyObject_FromJythonPyObject0(jythonPyObject,
+				lookupNative, checkCPeer, checkForType);
+		JyNI_reportEvent(JyNI_EVENT_TO_NATIVE,
+				result && Py_TYPE(result) ? Py_TYPE(result)->tp_name : NULL, start);
+		return result;
+	}
+	return _JyNI_PyObject_FromJythonPyObject0(jythonPyObject, lookupNative, checkCPeer, checkForType);
+}
+
+static PyObject* _JyNI_PyObject_FromJythonPyObject0(jobject jythonPyObject, jboolean lookupNative, jboolean checkCPeer, jboolean checkForType)
 {
 	if (jythonPyObject == NULL) return NULL;
 	else {
@@ -1630,7 +1841,10 @@ PyObject* _JyNI_PyObject_FromJythonPyObject(jobject jythonPyObject, jboolean loo
 		}
 		if (lookupNative)
 		{
-			PyObject* handle = (PyObject*) (*env)->CallStaticLongMethod(env, JyNIClass, JyNI_lookupNativeHandle, jythonPyObject);
+			/* Small ints and letters are resolved without upcall: */
+			PyObject* handle = JySync_PyObject_FromIdentityCache(env, jythonPyObject);
+			if (handle) return handle;
+			handle = (PyObject*) (*env)->CallStaticLongMethod(env, JyNIClass, JyNI_lookupNativeHandle, jythonPyObject);
 			//printf("handle obtained: %u\n", handle);
 			if (handle)
 			{
@@ -1721,6 +1935,31 @@ inline PyObject* JyNI_PyObject_FromJythonPyObject(jobject jythonPyObject)
 	return _JyNI_PyObject_FromJythonPyObject(jythonPyObject, JNI_TRUE, JNI_TRUE, JNI_TRUE);
 }
 
+/*
+ * Like JyNI_PyObject_FromJythonPyObject, but first tries to resolve an
+ * already mirrored object via the reverse lookup table without upcall.
+ * hash must be System.identityHashCode(jythonPyObject), or 0 if unknown.
+ * Returns a NEW reference.
+ */
+inline PyObject* JyNI_PyObject_FromJythonPyObjectHashed(jobject jythonPyObject, jint hash)
+{
+	if (hash && jythonPyObject)
+	{
+		PyObject* handle;
+		env(NULL);
+		handle = JyHash_rev_lookup(env, hash, jythonPyObject);
+		if (handle)
+		{
+			JyObject* jy = AS_JY(handle);
+			if (jy->flags & SYNC_ON_JY_TO_PY_FLAG_MASK)
+				JyNI_SyncJy2Py(jy, handle);
+			Py_INCREF(handle);
+			return handle;
+		}
+	}
+	return _JyNI_PyObject_FromJythonPyObject(jythonPyObject, JNI_TRUE, JNI_TRUE, JNI_TRUE);
+}
+
 inline void JyNI_SyncPy2Jy(PyObject* op, JyObject* jy)
 {
 	//todo: take care of the other flags
@@ -1745,7 +1984,7 @@ inline jobject JyNI_InitJythonPyException(PyObject* src, JyObject* srcJy)
 
 	srcJy->jy = (*env)->NewWeakGlobalRef(env, dest);
 	if (!(srcJy->flags & JY_HAS_JHANDLE_FLAG_MASK)) {  //some exc_factories might already init this
-		(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, dest, (jlong) src);//, srcJy->flags & JY_TRUNCATE_FLAG_MASK);
+		JyNI_SetNativeHandle(env, dest, src);//, srcJy->flags & JY_TRUNCATE_FLAG_MASK);
 		srcJy->flags |= JY_HAS_JHANDLE_FLAG_MASK;
 	}
 	srcJy->flags |= JY_INITIALIZED_FLAG_MASK;
@@ -1761,7 +2000,22 @@ inline jobject JyNI_InitJythonPyException(PyObject* src, JyObject* srcJy)
  * work was done. In case the reference must be stored or cached for
  * future used, NewGlobalRef must be used.
  */
+static inline jobject JyNI_JythonPyObject_FromPyObject0(PyObject* op);
+
 inline jobject JyNI_JythonPyObject_FromPyObject(PyObject* op)
+{
+	if (op && JyNI_EventEnabled(JyNI_EVENT_TO_JYTHON))
+	{
+		jlong start = JyNI_nanoTime();
+		jobject result = JyNI_JythonPyObject_FromPyObject0(op);
+		JyNI_reportEvent(JyNI_EVENT_TO_JYTHON,
+				Py_TYPE(op) ? Py_TYPE(op)->tp_name : NULL, start);
+		return result;
+	}
+	return JyNI_JythonPyObject_FromPyObject0(op);
+}
+
+static inline jobject JyNI_JythonPyObject_FromPyObject0(PyObject* op)
 {
 	if (!op) return NULL;
 	if (op == Py_None) return JyNone;
@@ -2075,7 +2329,7 @@ inline jobject _JyNI_JythonPyTypeObject_FromPyTypeObject(PyTypeObject* type, jcl
 			 * nullpointer exception, so we initialize it here.
 			 */
 			JyNI_SyncPyCPeerTypeMRO(type, er);
-			(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, er, (jlong) type);
+			JyNI_SetNativeHandle(env, er, (PyObject*) type);
 			return er;
 		}
 	}
@@ -2321,12 +2575,48 @@ inline jint JyNI_GetDLOpenFlags()
 	return (*env)->CallStaticIntMethod(env, JyNIClass, JyNI_getDLOpenFlags);
 }
 
+/*
+ * Calls JyNI.setNativeHandle and records the identity hash it returns
+ * in the reverse lookup table, so later conversions of jythonPyObject
+ * can find op without upcall (see JyNI_PyObject_FromJythonPyObjectHashed).
+ */
+inline void JyNI_SetNativeHandle(JNIEnv* env, jobject jythonPyObject, PyObject* op)
+{
+	jint hash = (*env)->CallStaticIntMethod(env, JyNIClass, JyNI_setNativeHandle,
+			jythonPyObject, (jlong) op);
+	/* Static objects have no JyObject-header and are never recorded: */
+	if (hash && Is_DynPtr(AS_JY(op)))
+	{
+		JyNI_ForgetNativeHandle(op);
+		JyNI_AddOrSetJyAttribute(AS_JY(op), JyAttributeJyHash, (void*) (intptr_t) hash);
+		JyHash_rev_insert(hash, op);
+	}
+}
+
+/*
+ * Removes op from the reverse lookup table. Call this before op is
+ * moved in memory; JyNI_SetNativeHandle re-registers it afterwards.
+ */
+inline void JyNI_ForgetNativeHandle(PyObject* op)
+{
+	JyObject* jy = AS_JY(op);
+	jint hash;
+	if (!Is_DynPtr(jy) || !jy->attr) return;
+	hash = (jint) (intptr_t) JyNI_GetJyAttribute(jy, JyAttributeJyHash);
+	if (hash) JyHash_rev_delete(hash, op);
+}
+
 inline void JyNI_CleanUp_JyObject(JyObject* obj)
 {
 //	jputs(__FUNCTION__);
 //	jputs(Py_TYPE(FROM_JY(obj))->tp_name);
 	//Todo: Maybe clean up gc-head here (?)
-	if (obj->attr) JyNI_ClearJyAttributes(obj);
+	if (obj->attr)
+	{
+		jint hash = (jint) (intptr_t) JyNI_GetJyAttribute(obj, JyAttributeJyHash);
+		if (hash) JyHash_rev_delete(hash, FROM_JY(obj));
+		JyNI_ClearJyAttributes(obj);
+	}
 	if (obj->jy && (obj->flags & JY_INITIALIZED_FLAG_MASK))
 	{
 		env();
@@ -2336,7 +2626,10 @@ inline void JyNI_CleanUp_JyObject(JyObject* obj)
 //			(*env)->DeleteWeakGlobalRef(env, obj->jy);
 //		else
 //			(*env)->DeleteGlobalRef(env, obj->jy);
-		(*env)->DeleteWeakGlobalRef(env, obj->jy);
+		/* Refs shared with the identity cache are owned by JySync.c: */
+		if (!(obj->flags & JY_CACHE_ETERNAL_FLAG_MASK) ||
+				!JySync_IsIdentityCacheRef(FROM_JY(obj), obj->jy))
+			(*env)->DeleteWeakGlobalRef(env, obj->jy);
 		obj->flags = 0;
 		obj->jy = NULL;
 	}
@@ -2538,3 +2831,45 @@ jint JyNI_putenv(JNIEnv *env, jstring value)
 }
 
 #endif /* HAVE_PUTENV */
+
+#ifdef HAVE_UNSETENV
+
+jint JyNI_unsetenv(JNIEnv *env, jstring key)
+{
+	const char* utf_string = (*env)->GetStringUTFChars(env, key, ((void *)0));
+	jint res = unsetenv(utf_string);
+	(*env)->ReleaseStringUTFChars(env, key, utf_string);
+	return res;
+}
+
+#elif defined(MS_WINDOWS)
+
+/* On Windows putenv("KEY=") removes KEY and copies its argument. */
+jint JyNI_unsetenv(JNIEnv *env, jstring key)
+{
+	jint res;
+	const char* utf_string = (*env)->GetStringUTFChars(env, key, ((void *)0));
+	size_t len = strlen(utf_string);
+	char* entry = (char*) PyMem_Malloc(len+2);
+	if (!entry) res = -1;
+	else
+	{
+		memcpy(entry, utf_string, len);
+		entry[len] = '=';
+		entry[len+1] = 0;
+		res = putenv(entry);
+		PyMem_Free(entry);
+	}
+	(*env)->ReleaseStringUTFChars(env, key, utf_string);
+	return res;
+}
+
+#else  /* HAVE_UNSETENV */
+
+jint JyNI_unsetenv(JNIEnv *env, jstring key)
+{
+	jputs("JyNI error: unsetenv is not available on this platform.");
+	return -1;
+}
+
+#endif /* HAVE_UNSETENV */
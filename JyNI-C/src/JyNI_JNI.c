@@ -114,6 +114,7 @@ jmethodID JyNI_JyNI_GetModule;
 jmethodID JyNI_slice_compare;
 jmethodID JyNI_printPyLong;
 jmethodID JyNI_lookupNativeHandles;
+jmethodID JyNI_newUnsignedLong;
 jmethodID JyNI_prepareKeywordArgs;
 jmethodID JyNI_getCurrentThreadID;
 jmethodID JyNI_JyNI_pyCode_co_code;
@@ -184,11 +185,16 @@ jfieldID NativeAction_cTypeNameField;
 jfieldID NativeAction_cMethodField;
 jfieldID NativeAction_cLineField;
 jfieldID NativeAction_cFileField;
+jfieldID NativeAction_timeField;
+jfieldID NativeAction_sizeField;
 
 jclass JyReferenceMonitorClass;
 jmethodID JyRefMonitorMakeDebugInfo;
 jmethodID JyReferenceMonitor_addNativeAction;
 
+jclass JyNIEventsClass;
+jmethodID JyNIEvents_nativeEvent;
+
 jclass pyCPeerClass;
 jmethodID pyCPeer_Constructor;
 jfieldID pyCPeer_objectHandleField;
@@ -249,6 +255,9 @@ jclass bigIntClass;
 jmethodID bigInt_fromByteArrayConstructor;
 //jmethodID bigIntegerFromSignByteArrayConstructor;
 jmethodID bigInt_toByteArray;
+jmethodID bigInt_bitLength;
+jmethodID bigInt_longValue;
+jmethodID bigInt_signum;
 //jmethodID bigIntSignum;
 //jmethodID bigIntToStringRadix;
 
@@ -391,6 +400,7 @@ jclass pyStringMapClass;
 jclass pyIntClass;
 jmethodID pyInt_Constructor;
 jmethodID pyInt_getValue;
+jfieldID pyInt_valueField;
 //jmethodID pyIntAsInt;
 //jmethodID pyIntAsLong;
 
@@ -407,6 +417,7 @@ jclass pyUnicodeClass;
 //jmethodID pyUnicode_byStringConstructor;
 
 jclass pyStringClass;
+jfieldID pyString_stringField;
 //jmethodID pyString_byStringConstructor;
 
 jclass pyFloatClass;
@@ -711,6 +722,9 @@ inline jint initJNI(JNIEnv *env)
 	{
 		JNI_CONSTRUCTOR(bigInt, fromByteArrayConstructor, byte array)
 		JNI_METH_CLASS(bigInt, toByteArray, byte array)
+		JNI_METH_CLASS(bigInt, bitLength, int)
+		JNI_METH_CLASS(bigInt, longValue, long)
+		JNI_METH_CLASS(bigInt, signum, int)
 	}
 
 	JNI_CLASS(arrayList)
@@ -736,7 +750,7 @@ inline jint initJNI(JNIEnv *env)
 inline jint initJyNI(JNIEnv *env)
 {
 	JNI_CLASS(JyNI)
-	JNI_METH_STATIC(JyNI, setNativeHandle, void, pyObject, long)
+	JNI_METH_STATIC(JyNI, setNativeHandle, int, pyObject, long)
 	JNI_METH_STATIC(JyNI, registerNativeStaticJyGCHead, void, long, jyGCHead)
 	JNI_METH_STATIC(JyNI, getNativeStaticJyGCHead, jyGCHead, long)
 	JNI_METH_STATIC(JyNI, lookupNativeHandle, long, pyObject)
@@ -758,6 +772,7 @@ inline jint initJyNI(JNIEnv *env)
 	JNI_METH_STATIC(JyNI, slice_compare, int, pySlice, pySlice)
 	JNI_METH_STATIC(JyNI, printPyLong, void, pyObject)
 	JNI_METH_STATIC(JyNI, lookupNativeHandles, long array, pyList)
+	JNI_METH_STATIC(JyNI, newUnsignedLong, pyLong, long)
 	JNI_METH_STATIC(JyNI, prepareKeywordArgs, string array, pyObject array, pyDict)
 	JNI_METH_STATIC(JyNI, getCurrentThreadID, long)
 	JNI_METH_STATIC(JyNI, JyNI_pyCode_co_code, string, pyBaseCode)
@@ -831,20 +846,6 @@ inline jint initJyNI(JNIEnv *env)
 	JNI_METH_CLASS(JyLock, acquire, boolean, boolean)
 	JNI_METH_CLASS(JyLock, release, void)
 
-	JNI_CLASS(NativeAction)
-	JNI_CONSTRUCTOR(NativeAction, constructor)
-	JNI_FIELD(NativeAction, action, short)
-	JNI_FIELD(NativeAction, obj, pyObject)
-	JNI_FIELD(NativeAction, nativeRef1, long)
-	JNI_FIELD(NativeAction, nativeRef2, long)
-	JNI_FIELD(NativeAction, cTypeName, string)
-	JNI_FIELD(NativeAction, cMethod, string)
-	JNI_FIELD(NativeAction, cLine, int)
-	JNI_FIELD(NativeAction, cFile, string)
-
-	JNI_CLASS(JyReferenceMonitor)
-	JNI_METH_STATIC(JyReferenceMonitor, addNativeAction, void, NativeAction)
-
 	//Peer stuff:
 	JNI_CLASS(pyCPeer)
 	JNI_CONSTRUCTOR(pyCPeer, Constructor, long, pyType)
@@ -1026,6 +1027,7 @@ inline jint initJythonObjects(JNIEnv *env)
 	JNI_CLASS(pyInt)
 	JNI_CONSTRUCTOR(pyInt, Constructor, int)
 	JNI_METH_CLASS(pyInt, getValue, int)
+	JNI_FIELD(pyInt, value, int)
 
 	JNI_CLASS(pyLong)
 	JNI_CONSTRUCTOR(pyLong, byLongConstructor, long)
@@ -1039,6 +1041,7 @@ inline jint initJythonObjects(JNIEnv *env)
 //	JNI_CONSTRUCTOR(pyUnicode, byStringConstructor, string)
 
 	JNI_CLASS(pyString)
+	JNI_FIELD(pyString, string, string)
 //	JNI_CONSTRUCTOR(pyString, byStringConstructor, string)
 
 	JNI_CLASS(pyFloat)
@@ -1304,6 +1307,19 @@ inline jint initJythonObjects(JNIEnv *env)
 	JNI_METH_STATIC(imp, importName, pyObject, string, boolean)
 	JNI_METH_STATIC(imp, reload, pyObject, pyModule)
 
+	return JNI_VERSION_1_2;
+}
+
+/*
+ * The IDs of org.python.core.exceptions are only needed when native code
+ * initializes or prints certain exception types, so they are looked up on
+ * first use via the exceptionsJNI macro from JyNI_JNI.h. The callers hold
+ * the GIL, so the flag needs no further synchronization.
+ */
+jboolean exceptionsJNIInitialized = JNI_FALSE;
+
+jint JyNI_initExceptionsJNI(JNIEnv *env)
+{
 	JNI_CLASS(exceptions)
 	JNI_METH_STATIC(exceptions, KeyError__str__, pyObject,
 			pyObject, pyObject array, string array)
@@ -1340,6 +1356,40 @@ inline jint initJythonObjects(JNIEnv *env)
 			pyObject, pyObject array, string array)
 	#endif
 
+	exceptionsJNIInitialized = JNI_TRUE;
+	return JNI_VERSION_1_2;
+}
+
+/*
+ * The IDs used by the reference monitor and by native events are looked up
+ * when one of them is enabled for the first time, since most programs never do.
+ * Concurrent calls merely look the IDs up twice.
+ */
+static jboolean diagnosticsJNIInitialized = JNI_FALSE;
+
+jint JyNI_initDiagnosticsJNI(JNIEnv *env)
+{
+	if (diagnosticsJNIInitialized) return JNI_VERSION_1_2;
+	JNI_CLASS(NativeAction)
+	JNI_CONSTRUCTOR(NativeAction, constructor)
+	JNI_FIELD(NativeAction, action, short)
+	JNI_FIELD(NativeAction, obj, pyObject)
+	JNI_FIELD(NativeAction, nativeRef1, long)
+	JNI_FIELD(NativeAction, nativeRef2, long)
+	JNI_FIELD(NativeAction, cTypeName, string)
+	JNI_FIELD(NativeAction, cMethod, string)
+	JNI_FIELD(NativeAction, cLine, int)
+	JNI_FIELD(NativeAction, cFile, string)
+	JNI_FIELD(NativeAction, time, long)
+	JNI_FIELD(NativeAction, size, long)
+
+	JNI_CLASS(JyReferenceMonitor)
+	JNI_METH_STATIC(JyReferenceMonitor, addNativeAction, void, NativeAction)
+
+	JNI_CLASS(JyNIEvents)
+	JNI_METH_STATIC(JyNIEvents, nativeEvent, void, int, string, long)
+
+	diagnosticsJNIInitialized = JNI_TRUE;
 	return JNI_VERSION_1_2;
 }
 
@@ -1394,13 +1444,13 @@ jint JyNI_init(JavaVM *jvm)
 		return JNI_ERR; // JNI version not supported
 	}
 	JyHash_init();
+	JyHash_rev_init();
 	//Py_Py3kWarningFlag
 	if (initJNI(env) == JNI_ERR) return JNI_ERR;
 	if (initJyNI(env) == JNI_ERR) return JNI_ERR;
 	if (initJythonSite(env) == JNI_ERR) return JNI_ERR;
 	if (initJythonObjects(env) == JNI_ERR) return JNI_ERR;
 	initBuiltinTypes();
-	initBuiltinExceptions();
 	if (initSingletons(env) == JNI_ERR) return JNI_ERR;
 
 	patchJythonStructModule(env);
@@ -1408,7 +1458,9 @@ jint JyNI_init(JavaVM *jvm)
 	//init native objects where necessary:
 	_PySys_Init();
 	PyEval_InitThreads();
+	JyTState_initPool();
 	_PyInt_Init();
+	JySync_InitIdentityCache(env);
 	_PyExc_Init();
 	PyType_Ready(&PyBool_Type);
 
@@ -1446,5 +1498,6 @@ void JyNI_unload(JavaVM *jvm)
 
 		(*env)->DeleteWeakGlobalRef(env, JyEmptyStringArray);
 		(*env)->DeleteWeakGlobalRef(env, JyEmptyPyObjectArray);
+		JySync_ClearIdentityCache(env);
 	}
 }
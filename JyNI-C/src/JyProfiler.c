@@ -0,0 +1,237 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * JyProfiler.c
+ *
+ * Per-function profiler for calls from Java into native code.
+ * Calls of native callables (JyNI_callPyCPeer) are attributed to the
+ * method definition of a PyCFunction, or to the type of other callables.
+ * Slot calls (PyNumber, PySequence and attribute and item access) are
+ * attributed to the slot and the type of the receiver.
+ *
+ * For every function the profiler counts calls and records the time of
+ * argument conversion, of the native call itself and of result conversion,
+ * each in a histogram like HdrHistogram uses: Values below 2^SUB_BITS
+ * nanoseconds have a bucket each. Above, every power of two is split into
+ * 2^SUB_BITS linear sub-buckets, so a bucket's width is at most 1/8 of its
+ * lower bound. The last bucket also counts all values beyond 2^40 ns.
+ * Times include everything the call does, also callbacks into Jython and
+ * nested profiled call-ins.
+ *
+ * Records are written with the GIL held, so no further synchronization is
+ * needed there. Entries are never freed and only appended, so Java reads
+ * them without the GIL, like the other statistics. The values may then be
+ * slightly inconsistent. At most JyNI_PROFILE_MAX_ENTRIES functions are
+ * profiled, further ones are ignored.
+ * Profiling needs a monotonic clock, which is not yet implemented on Windows.
+ *
+ *  Created on: 19.10.2026
+ */
+#include <JyNI.h>
+
+#define JyNI_PROFILE_MAX_ENTRIES 1024
+#define PROFILE_TABLE_SIZE (2*JyNI_PROFILE_MAX_ENTRIES)
+#define PROFILE_HEADER 4
+
+typedef struct {
+	const void* key;
+	const char* slot;
+	char* name;
+	/* calls, total nanoseconds of the three phases, then their histograms */
+	jlong data[PROFILE_HEADER+3*JyNI_PROFILE_HIST_BUCKETS];
+} JyNI_ProfileEntry;
+
+volatile jint JyNI_profiling = 0;
+
+static JyNI_ProfileEntry* profile_entries[JyNI_PROFILE_MAX_ENTRIES];
+static volatile jint profile_count = 0;
+/* open addressing, holds index+1 into profile_entries, 0 if empty */
+static jint profile_table[PROFILE_TABLE_SIZE];
+
+static int profile_bucket(jlong nanos)
+{
+	int mag = 0;
+	jlong v;
+	if (nanos < (1 << JyNI_PROFILE_SUB_BITS)) return nanos < 0 ? 0 : (int) nanos;
+	for (v = nanos; v > 1; v >>= 1) ++mag;
+	if (mag > 39) return JyNI_PROFILE_HIST_BUCKETS-1;
+	return ((mag-JyNI_PROFILE_SUB_BITS+1) << JyNI_PROFILE_SUB_BITS) +
+			(int) ((nanos >> (mag-JyNI_PROFILE_SUB_BITS)) & ((1 << JyNI_PROFILE_SUB_BITS)-1));
+}
+
+static char* profile_name(PyObject* target, const char* slot)
+{
+	char* result;
+	const char* prefix = NULL;
+	const char* suffix = NULL;
+	if (slot)
+	{
+		prefix = Py_TYPE(target)->tp_name;
+		suffix = slot;
+	} else if (PyCFunction_Check(target))
+	{
+		PyCFunctionObject* func = (PyCFunctionObject*) target;
+		if (func->m_self && !PyModule_Check(func->m_self))
+			prefix = Py_TYPE(func->m_self)->tp_name;
+		else if (func->m_module && PyString_Check(func->m_module))
+			prefix = PyString_AS_STRING(func->m_module);
+		suffix = func->m_ml->ml_name;
+	} else if (PyType_Check(target))
+		suffix = ((PyTypeObject*) target)->tp_name;
+	else
+	{
+		prefix = Py_TYPE(target)->tp_name;
+		suffix = "__call__";
+	}
+	result = malloc((prefix ? strlen(prefix)+1 : 0)+strlen(suffix)+1);
+	if (!result) return NULL;
+	if (prefix) sprintf(result, "%s.%s", prefix, suffix);
+	else strcpy(result, suffix);
+	return result;
+}
+
+static JyNI_ProfileEntry* profile_lookup(PyObject* target, const char* slot)
+{
+	const void* key;
+	size_t pos;
+	jint index;
+	JyNI_ProfileEntry* entry;
+
+	if (slot) key = Py_TYPE(target);
+	else if (PyCFunction_Check(target)) key = ((PyCFunctionObject*) target)->m_ml;
+	else if (PyType_Check(target)) key = target;
+	else key = Py_TYPE(target);
+	pos = (((size_t) key >> 4) ^ ((size_t) slot >> 3)) % PROFILE_TABLE_SIZE;
+	while ((index = profile_table[pos]))
+	{
+		entry = profile_entries[index-1];
+		if (entry->key == key && entry->slot == slot) return entry;
+		pos = (pos+1) % PROFILE_TABLE_SIZE;
+	}
+	if (profile_count == JyNI_PROFILE_MAX_ENTRIES) return NULL;
+	entry = calloc(1, sizeof(JyNI_ProfileEntry));
+	if (!entry) return NULL;
+	entry->name = profile_name(target, slot);
+	if (!entry->name)
+	{
+		free(entry);
+		return NULL;
+	}
+	entry->key = key;
+	entry->slot = slot;
+	profile_entries[profile_count] = entry;
+	profile_table[pos] = profile_count+1;
+#ifndef MS_WINDOWS
+	/* Publish the entry only when it is complete: */
+	__sync_synchronize();
+#endif
+	++profile_count;
+	return entry;
+}
+
+void JyNI_ProfileRecord(JyNI_ProfileTimes* times, PyObject* target, const char* slot)
+{
+	jlong end = JyNI_nanoTime();
+	jlong args = times->converted - times->start;
+	jlong call = times->called - times->converted;
+	jlong result = end - times->called;
+	JyNI_ProfileEntry* entry = profile_lookup(target, slot);
+	if (!entry) return;
+	++entry->data[0];
+	entry->data[1] += args;
+	entry->data[2] += call;
+	entry->data[3] += result;
+	++entry->data[PROFILE_HEADER+profile_bucket(args)];
+	++entry->data[PROFILE_HEADER+JyNI_PROFILE_HIST_BUCKETS+profile_bucket(call)];
+	++entry->data[PROFILE_HEADER+2*JyNI_PROFILE_HIST_BUCKETS+profile_bucket(result)];
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setProfiling
+ * Signature: (Z)V
+ */
+void JyNI_setProfiling(jboolean enable)
+{
+#ifndef MS_WINDOWS
+	JyNI_profiling = enable ? 1 : 0;
+#endif
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    resetProfile
+ * Signature: ()V
+ *
+ * Clears the recorded values, but keeps the entries.
+ */
+void JyNI_resetProfile()
+{
+	jint i, count = profile_count;
+	for (i = 0; i < count; ++i)
+		memset(profile_entries[i]->data, 0, sizeof(profile_entries[i]->data));
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getProfileNames
+ * Signature: ()[Ljava/lang/String;
+ */
+jobjectArray JyNI_getProfileNames(JNIEnv *env, jclass class)
+{
+	jint i, count = profile_count;
+	jstring name;
+	jobjectArray result = (*env)->NewObjectArray(env, count, stringClass, NULL);
+	if (!result) return NULL;
+	for (i = 0; i < count; ++i)
+	{
+		name = (*env)->NewStringUTF(env, profile_entries[i]->name);
+		if (!name) return NULL;
+		(*env)->SetObjectArrayElement(env, result, i, name);
+		(*env)->DeleteLocalRef(env, name);
+	}
+	return result;
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getProfileData
+ * Signature: (I)[J
+ */
+jlongArray JyNI_getProfileData(JNIEnv *env, jclass class, jint index)
+{
+	jlongArray result;
+	jsize size = PROFILE_HEADER+3*JyNI_PROFILE_HIST_BUCKETS;
+	if (index < 0 || index >= profile_count) return NULL;
+	result = (*env)->NewLongArray(env, size);
+	if (result) (*env)->SetLongArrayRegion(env, result, 0, size,
+			profile_entries[index]->data);
+	return result;
+}
@@ -35,9 +35,369 @@
  *      Author: Stefan Richthofer
  */
 #include <JyNI.h>
+#include <pythread_JyNI.h>
+#include <math.h>
 
 jint Jy_memDebugFlags = 0;
 
+#ifndef MS_WINDOWS
+#include <time.h>
+#include <pthread.h>
+
+/*
+ * Buffered mode (JY_MEMDEBUG_BUFFERED):
+ * Each thread records its actions into its own native ring of fixed-size
+ * records. Function and file names are static strings, so only their
+ * pointers are stored. Type names can belong to heap types, which may be
+ * gone when the record is drained, so they are copied (and possibly
+ * truncated). Writing a record involves no JNI call, no allocation and no
+ * lock. A ring is written only by its thread and read only by the drainer
+ * (see JyReferenceMonitor), which turns the records into NativeActions in
+ * bulk. If the drainer falls behind, a full ring drops actions and counts
+ * them.
+ * Every record carries a number from a global sequence. The drainer merges
+ * the rings by it, so actions on the same object, e.g. an allocation and a
+ * free on different threads, arrive at JyReferenceMonitor in order.
+ * Rings are allocated on a thread's first action. When the thread ends, its
+ * ring is released and the next new thread reuses it, so the number of rings
+ * is bounded by the number of threads alive at once. Records pending in a
+ * released ring are still drained.
+ */
+#define JY_REFMON_RING_SIZE 1024 /* must be a power of two */
+#define JY_REFMON_TYPE_LEN   128
+
+typedef struct {
+	jlong seq;
+	jshort action;
+	jint line;
+	jlong time;
+	jlong ref1;
+	jlong ref2;
+	jlong size;
+	const char* function;
+	const char* file;
+	char type[JY_REFMON_TYPE_LEN];
+} JyRefMonitor_Record;
+
+typedef struct JyRefMonitor_Ring JyRefMonitor_Ring;
+struct JyRefMonitor_Ring {
+	/* written by the owning thread only */
+	volatile jlong head;
+	/* lower bound for the seq of the record being written, or -1 */
+	volatile jlong writing;
+	/* written by the drainer only */
+	volatile jlong tail;
+	volatile jlong dropped;
+	/* whether a thread owns this ring */
+	volatile int inUse;
+	JyRefMonitor_Ring* next;
+	JyRefMonitor_Record records[JY_REFMON_RING_SIZE];
+};
+
+static JyRefMonitor_Ring* volatile rings = NULL;
+static JyNI_THREAD_LOCAL JyRefMonitor_Ring* localRing = NULL;
+static volatile jlong recordSeq = 0;
+static pthread_key_t ringKey;
+static pthread_once_t ringKeyOnce = PTHREAD_ONCE_INIT;
+
+/* Called on thread exit, see pthread_key_create. */
+static void JyRefMonitor_releaseRing(void* ring)
+{
+	__sync_synchronize();
+	((JyRefMonitor_Ring*) ring)->inUse = 0;
+}
+
+static void JyRefMonitor_initRingKey(void)
+{
+	pthread_key_create(&ringKey, JyRefMonitor_releaseRing);
+}
+
+static JyRefMonitor_Ring* JyRefMonitor_getRing(void)
+{
+	JyRefMonitor_Ring* ring = localRing;
+	if (!ring)
+	{
+		pthread_once(&ringKeyOnce, JyRefMonitor_initRingKey);
+		/* Reuse the ring of an ended thread if there is one: */
+		for (ring = rings; ring; ring = ring->next)
+		{
+			if (!ring->inUse && __sync_bool_compare_and_swap(&ring->inUse, 0, 1))
+				break;
+		}
+		if (!ring)
+		{
+			ring = (JyRefMonitor_Ring*) malloc(sizeof(JyRefMonitor_Ring));
+			if (!ring) return NULL;
+			ring->head = 0;
+			ring->writing = -1;
+			ring->tail = 0;
+			ring->dropped = 0;
+			ring->inUse = 1;
+			do {
+				ring->next = rings;
+			} while (!__sync_bool_compare_and_swap(&rings, ring->next, ring));
+		}
+		pthread_setspecific(ringKey, ring);
+		localRing = ring;
+	}
+	return ring;
+}
+
+static void JyRefMonitor_record(jshort action, JyObject* object, JyObject* object2,
+		size_t size, const char* type, const char* function, const char* file, jint line)
+{
+	struct timespec now;
+	JyRefMonitor_Record* rec;
+	JyRefMonitor_Ring* ring = JyRefMonitor_getRing();
+	if (!ring) return;
+	if (ring->head - ring->tail >= JY_REFMON_RING_SIZE)
+	{
+		++ring->dropped;
+		return;
+	}
+	rec = &ring->records[ring->head & (JY_REFMON_RING_SIZE-1)];
+	/* Announce the record before it takes its number, see JyRefMonitor_drain: */
+	ring->writing = recordSeq;
+	__sync_synchronize();
+	rec->seq = __sync_fetch_and_add(&recordSeq, 1);
+	clock_gettime(CLOCK_REALTIME, &now);
+	rec->action = action;
+	rec->line = line;
+	rec->time = (jlong) now.tv_sec * 1000 + now.tv_nsec / 1000000;
+	rec->ref1 = (jlong) FROM_JY(object);
+	rec->ref2 = object2 ? (jlong) FROM_JY(object2) : 0;
+	rec->size = (jlong) size;
+	rec->function = function;
+	rec->file = file;
+	if (type)
+	{
+		strncpy(rec->type, type, JY_REFMON_TYPE_LEN-1);
+		rec->type[JY_REFMON_TYPE_LEN-1] = 0;
+	} else
+		rec->type[0] = 0;
+	/* Publish the record only after it is complete: */
+	__sync_synchronize();
+	ring->head = ring->head + 1;
+	__sync_synchronize();
+	ring->writing = -1;
+}
+
+/*
+ * Drained records refer to a small set of strings, so the drainer caches
+ * their Java counterparts. The cache is direct-mapped and keyed by content,
+ * since type names are copies. Only the drainer accesses it.
+ */
+#define JY_REFMON_STRCACHE_SIZE 256
+
+static struct {
+	char* key;
+	jstring value;
+} strCache[JY_REFMON_STRCACHE_SIZE];
+
+static jstring JyRefMonitor_cachedString(JNIEnv *env, const char* str)
+{
+	unsigned long hash = 5381;
+	const char* c;
+	int slot;
+	for (c = str; *c; ++c) hash = hash * 33 + (unsigned char) *c;
+	slot = (int) (hash & (JY_REFMON_STRCACHE_SIZE-1));
+	if (strCache[slot].key && strcmp(strCache[slot].key, str) == 0)
+		return strCache[slot].value;
+	if (strCache[slot].key)
+	{
+		(*env)->DeleteGlobalRef(env, strCache[slot].value);
+		free(strCache[slot].key);
+		strCache[slot].key = NULL;
+	}
+	{
+		jstring jstr = (*env)->NewStringUTF(env, str);
+		char* key = (char*) malloc(strlen(str)+1);
+		if (!jstr || !key)
+		{
+			free(key);
+			return jstr;
+		}
+		strcpy(key, str);
+		strCache[slot].key = key;
+		strCache[slot].value = (*env)->NewGlobalRef(env, jstr);
+		(*env)->DeleteLocalRef(env, jstr);
+		return strCache[slot].value;
+	}
+}
+#endif
+
+/*
+ * Sampling mode (JY_MEMDEBUG_SAMPLED):
+ * Only a sample of the allocations is reported, and all further actions
+ * only if they concern a sampled object. Like heap profilers do, samples
+ * are taken by bytes: Each thread counts down the bytes it allocates and
+ * samples the allocation that exhausts the count. The count is then reset
+ * to an exponentially distributed value with mean Jy_memDebugSampleInterval.
+ * So every allocated byte is equally likely to be sampled, i.e. an
+ * allocation of size s is sampled with probability 1-exp(-s/interval).
+ * JyReferenceMonitor extrapolates its reports from this.
+ * Sampled objects are kept in a hash set of their addresses, guarded by
+ * sampledLock. A counting filter in front of it, i.e. one counter per hash
+ * slot, is read without the lock. Most actions on objects that are not
+ * sampled find their counter zero and never take the lock.
+ * Disabling sampling clears the set.
+ */
+#define JY_REFMON_DEFAULT_SAMPLE_INTERVAL (512*1024)
+
+static volatile jlong Jy_memDebugSampleInterval = JY_REFMON_DEFAULT_SAMPLE_INTERVAL;
+static JyNI_THREAD_LOCAL jlong sampleCountdown = -1;
+static JyNI_THREAD_LOCAL unsigned int sampleRandom = 0;
+
+/* Open addressing with linear probing, guarded by sampledLock. */
+static JyObject** sampled = NULL;
+static size_t sampledCapacity = 0;
+static volatile size_t sampledCount = 0;
+static PyThread_type_lock sampledLock = NULL;
+
+/* Counters saturate at 255 and are never decremented then. */
+#define JY_REFMON_FILTER_SIZE 65536 /* must be a power of two */
+static volatile unsigned char sampledFilter[JY_REFMON_FILTER_SIZE];
+
+static size_t JyRefMonitor_filterSlot(JyObject* object)
+{
+	size_t hash = ((size_t) object) >> 3;
+	hash ^= hash >> 15;
+	hash *= 0x2c1b3c6d;
+	hash ^= hash >> 12;
+	return hash & (JY_REFMON_FILTER_SIZE-1);
+}
+
+static size_t JyRefMonitor_sampledSlot(JyObject* object, size_t capacity)
+{
+	size_t hash = ((size_t) object) >> 3;
+	hash ^= hash >> 16;
+	hash *= 0x45d9f3b;
+	hash ^= hash >> 16;
+	return hash & (capacity-1);
+}
+
+/* Caller must hold sampledLock. */
+static void JyRefMonitor_sampledAdd(JyObject* object)
+{
+	size_t i;
+	if ((sampledCount+1)*2 > sampledCapacity)
+	{
+		size_t j, newCapacity = sampledCapacity ? sampledCapacity*2 : 1024;
+		JyObject** newSampled = (JyObject**) calloc(newCapacity, sizeof(JyObject*));
+		if (!newSampled) return;
+		for (j = 0; j < sampledCapacity; ++j)
+		{
+			if (sampled[j])
+			{
+				i = JyRefMonitor_sampledSlot(sampled[j], newCapacity);
+				while (newSampled[i]) i = (i+1) & (newCapacity-1);
+				newSampled[i] = sampled[j];
+			}
+		}
+		free(sampled);
+		sampled = newSampled;
+		sampledCapacity = newCapacity;
+	}
+	i = JyRefMonitor_sampledSlot(object, sampledCapacity);
+	while (sampled[i])
+	{
+		if (sampled[i] == object) return;
+		i = (i+1) & (sampledCapacity-1);
+	}
+	sampled[i] = object;
+	++sampledCount;
+	i = JyRefMonitor_filterSlot(object);
+	if (sampledFilter[i] < 255) ++sampledFilter[i];
+}
+
+/* Caller must hold sampledLock. Returns whether object was contained. */
+static int JyRefMonitor_sampledRemove(JyObject* object)
+{
+	size_t i, j, k;
+	if (!sampledCapacity) return 0;
+	i = JyRefMonitor_sampledSlot(object, sampledCapacity);
+	while (sampled[i] != object)
+	{
+		if (!sampled[i]) return 0;
+		i = (i+1) & (sampledCapacity-1);
+	}
+	/* Backward-shift deletion keeps probe sequences intact without tombstones: */
+	j = i;
+	while (1)
+	{
+		j = (j+1) & (sampledCapacity-1);
+		if (!sampled[j]) break;
+		k = JyRefMonitor_sampledSlot(sampled[j], sampledCapacity);
+		if ((i <= j) ? (i < k && k <= j) : (i < k || k <= j)) continue;
+		sampled[i] = sampled[j];
+		i = j;
+	}
+	sampled[i] = NULL;
+	--sampledCount;
+	i = JyRefMonitor_filterSlot(object);
+	if (sampledFilter[i] < 255) --sampledFilter[i];
+	return 1;
+}
+
+/* Caller must hold sampledLock. */
+static int JyRefMonitor_sampledContains(JyObject* object)
+{
+	size_t i;
+	if (!sampledCapacity) return 0;
+	i = JyRefMonitor_sampledSlot(object, sampledCapacity);
+	while (sampled[i])
+	{
+		if (sampled[i] == object) return 1;
+		i = (i+1) & (sampledCapacity-1);
+	}
+	return 0;
+}
+
+static jlong JyRefMonitor_nextSampleCountdown(void)
+{
+	double u;
+	/* xorshift32, seeded per thread: */
+	if (!sampleRandom)
+		sampleRandom = (unsigned int) (size_t) &sampleRandom ^ (unsigned int) clock() ^ 0x9e3779b9;
+	if (!sampleRandom) sampleRandom = 1;
+	sampleRandom ^= sampleRandom << 13;
+	sampleRandom ^= sampleRandom >> 17;
+	sampleRandom ^= sampleRandom << 5;
+	u = ((sampleRandom >> 8) + 0.5) / 16777216.0;
+	return (jlong) (-log(u) * Jy_memDebugSampleInterval) + 1;
+}
+
+/*
+ * Decides whether an action is reported in sampling mode and keeps track
+ * of sampled objects.
+ */
+static int JyRefMonitor_sample(jshort action, JyObject* object, JyObject* object2, size_t size)
+{
+	int result;
+	if ((action & JY_MEMORY_MASK) && (action & JY_INC_MASK) && !(action & JY_DEC_MASK))
+	{
+		if (sampleCountdown < 0) sampleCountdown = JyRefMonitor_nextSampleCountdown();
+		sampleCountdown -= (jlong) size;
+		if (sampleCountdown > 0) return 0;
+		sampleCountdown = JyRefMonitor_nextSampleCountdown();
+		PyThread_acquire_lock(sampledLock, 1);
+		JyRefMonitor_sampledAdd(object);
+		PyThread_release_lock(sampledLock);
+		return 1;
+	}
+	if (!sampledCount || !sampledFilter[JyRefMonitor_filterSlot(object)]) return 0;
+	PyThread_acquire_lock(sampledLock, 1);
+	if ((action & JY_MEMORY_MASK) && (action & JY_DEC_MASK))
+	{
+		result = JyRefMonitor_sampledRemove(object);
+		if (result && (action & JY_INC_MASK) && object2)
+			JyRefMonitor_sampledAdd(object2);
+	} else
+		result = JyRefMonitor_sampledContains(object);
+	PyThread_release_lock(sampledLock);
+	return result;
+}
+
 /*
  * Class:     JyNI_JyNI
  * Method:    JyRefMonitor_setMemDebug
@@ -45,31 +405,152 @@ jint Jy_memDebugFlags = 0;
  */
 void JyRefMonitor_setMemDebugFlags(JNIEnv *env, jclass class, jint flags)
 {
+	if (flags && JyNI_initDiagnosticsJNI(env) == JNI_ERR) return;
+	if ((flags & JY_MEMDEBUG_SAMPLED) && !sampledLock)
+		sampledLock = PyThread_allocate_lock();
 	Jy_memDebugFlags = flags;
+	if (!(flags & JY_MEMDEBUG_SAMPLED) && sampledLock)
+	{
+		/* Actions still in JyRefMonitor_sample finish under the lock: */
+		PyThread_acquire_lock(sampledLock, 1);
+		free(sampled);
+		sampled = NULL;
+		sampledCapacity = 0;
+		sampledCount = 0;
+		memset((void*) sampledFilter, 0, sizeof(sampledFilter));
+		PyThread_release_lock(sampledLock);
+	}
 //	if (flags) jputs("JyNI: memDebug enabled!");
 //	else jputs("JyNI: memDebug disabled!");
 }
 
+/*
+ * Sets the mean number of allocated bytes between two samples.
+ *
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_setSampleInterval
+ * Signature: (J)V
+ */
+void JyRefMonitor_setSampleInterval(JNIEnv *env, jclass class, jlong bytes)
+{
+	Jy_memDebugSampleInterval = bytes > 0 ? bytes : 1;
+}
+
+/*
+ * Moves buffered actions of all threads into dest, at most dest.length many.
+ * Returns the number of actions stored. Must not be called concurrently.
+ * Actions are stored in the order of their seq, across all rings.
+ *
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_drain
+ * Signature: ([LJyNI/JyReferenceMonitor$NativeAction;)I
+ */
+jint JyRefMonitor_drain(JNIEnv *env, jclass class, jobjectArray dest)
+{
+	jint count = 0;
+#ifndef MS_WINDOWS
+	jint max = (*env)->GetArrayLength(env, dest);
+	JyRefMonitor_Ring *ring, *next;
+	JyRefMonitor_Record *rec, *nextRec;
+	jobject nativeAction;
+	jlong limit, writing;
+	/* A thread may have taken a seq below recordSeq without having published
+	 * the record yet. Records from that seq on are left for the next drain,
+	 * so none is overtaken by a later one: */
+	limit = recordSeq;
+	__sync_synchronize();
+	for (ring = rings; ring; ring = ring->next)
+	{
+		writing = ring->writing;
+		if (writing >= 0 && writing < limit) limit = writing;
+	}
+	while (count < max)
+	{
+		next = NULL;
+		nextRec = NULL;
+		for (ring = rings; ring; ring = ring->next)
+		{
+			if (ring->tail < ring->head)
+			{
+				__sync_synchronize();
+				rec = &ring->records[ring->tail & (JY_REFMON_RING_SIZE-1)];
+				if (rec->seq < limit && (!nextRec || rec->seq < nextRec->seq))
+				{
+					next = ring;
+					nextRec = rec;
+				}
+			}
+		}
+		if (!next) break;
+		rec = nextRec;
+		nativeAction = (*env)->NewObject(env, NativeActionClass, NativeAction_constructor);
+		(*env)->SetShortField(env, nativeAction, NativeAction_actionField, rec->action);
+		(*env)->SetIntField(env, nativeAction, NativeAction_cLineField, rec->line);
+		(*env)->SetLongField(env, nativeAction, NativeAction_timeField, rec->time);
+		(*env)->SetLongField(env, nativeAction, NativeAction_nativeRef1Field, rec->ref1);
+		(*env)->SetLongField(env, nativeAction, NativeAction_nativeRef2Field, rec->ref2);
+		(*env)->SetLongField(env, nativeAction, NativeAction_sizeField, rec->size);
+		if (rec->type[0])
+			(*env)->SetObjectField(env, nativeAction, NativeAction_cTypeNameField,
+					JyRefMonitor_cachedString(env, rec->type));
+		if (rec->function)
+			(*env)->SetObjectField(env, nativeAction, NativeAction_cMethodField,
+					JyRefMonitor_cachedString(env, rec->function));
+		if (rec->file)
+			(*env)->SetObjectField(env, nativeAction, NativeAction_cFileField,
+					JyRefMonitor_cachedString(env, rec->file));
+		(*env)->SetObjectArrayElement(env, dest, count++, nativeAction);
+		(*env)->DeleteLocalRef(env, nativeAction);
+		/* Free the slot only after it was read: */
+		__sync_synchronize();
+		next->tail = next->tail + 1;
+	}
+#endif
+	return count;
+}
+
+/*
+ * Returns the number of actions that were lost because a ring was full.
+ *
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_getDropped
+ * Signature: ()J
+ */
+jlong JyRefMonitor_getDropped(JNIEnv *env, jclass class)
+{
+	jlong result = 0;
+#ifndef MS_WINDOWS
+	JyRefMonitor_Ring* ring;
+	for (ring = rings; ring; ring = ring->next)
+		result += ring->dropped;
+#endif
+	return result;
+}
+
 void JyRefMonitor_addAction(jshort action, PyObject* op, JyObject* object,
 		size_t size, const char* type, const char* function, const char* file, jint line)
 {
 	if (op) assert(op == FROM_JY(object));
+	/* Some callers don't know the size; sampling needs an estimate: */
+	if (size == (size_t) -1 && op && Py_TYPE(op))
+		size = Py_TYPE(op)->tp_basicsize + sizeof(JyObject);
 	JyRefMonitor_addAction2(action, object, NULL, size, type, function, file, line);
 }
 
-void JyRefMonitor_addAction2(jshort action, JyObject* object, JyObject* object2, size_t size,
-		const char* type, const char* function, const char* file, jint line)
+static void JyRefMonitor_addNativeAction(jshort action, JyObject* object, JyObject* object2,
+		size_t size, const char* type, const char* function, const char* file, jint line)
 {
 	jobject nativeAction;
 	env();
 	nativeAction = (*env)->NewObject(env, NativeActionClass, NativeAction_constructor);
 	(*env)->SetShortField(env, nativeAction, NativeAction_actionField, action);
 	(*env)->SetIntField(env, nativeAction, NativeAction_cLineField, line);
+	(*env)->SetLongField(env, nativeAction, NativeAction_sizeField, (jlong) size);
 
 	(*env)->SetLongField(env, nativeAction, NativeAction_nativeRef1Field, (jlong) FROM_JY(object));
 
 	if (object2)
-		(*env)->SetLongField(env, nativeAction, NativeAction_nativeRef2Field, (jlong) FROM_JY(object));
+		(*env)->SetLongField(env, nativeAction, NativeAction_nativeRef2Field, (jlong) FROM_JY(object2));
 
 	if (type)
 	{
@@ -97,3 +578,17 @@ void JyRefMonitor_addAction2(jshort action, JyObject* object, JyObject* object2,
 	(*env)->CallStaticVoidMethod(env, JyReferenceMonitorClass, JyReferenceMonitor_addNativeAction, nativeAction);
 	(*env)->DeleteLocalRef(env, nativeAction);
 }
+
+void JyRefMonitor_addAction2(jshort action, JyObject* object, JyObject* object2, size_t size,
+		const char* type, const char* function, const char* file, jint line)
+{
+	if ((Jy_memDebugFlags & JY_MEMDEBUG_SAMPLED) &&
+			!JyRefMonitor_sample(action, object, object2, size))
+		return;
+#ifndef MS_WINDOWS
+	if (Jy_memDebugFlags & JY_MEMDEBUG_BUFFERED)
+		JyRefMonitor_record(action, object, object2, size, type, function, file, line);
+	else
+#endif
+		JyRefMonitor_addNativeAction(action, object, object2, size, type, function, file, line);
+}
@@ -65,7 +65,7 @@ PyObject* JySync_Init_PyTuple_From_JyTuple(jobject src, PyTypeObject* nonNativeS
 	//jarray back = (*env)->CallObjectMethod(env, src, pyTupleGetArray);
 	srcSize = (*env)->CallIntMethod(env, src, collection_size);
 	er = PyTuple_New(srcSize);
-	(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, src, (jlong) er);//, JNI_FALSE);
+	JyNI_SetNativeHandle(env, src, er);//, JNI_FALSE);
 	AS_JY_WITH_GC(er)->flags |= JY_HAS_JHANDLE_FLAG_MASK;
 	//Py_XINCREF(er);
 	//if (srcSize != PyTuple_GET_SIZE(dest)) //...throw exception since tuple is immutable
@@ -114,17 +114,153 @@ jobject JySync_Init_JyTuple_From_PyTuple(PyObject* src, jclass subtype)
 }
 
 
-jboolean isPreAllocatedJythonString(jobject obj, char value)//jchar value)
+/*
+ * Identity cache for Jython's preallocated small ints (Py.integerCache) and
+ * single-letter strings (Py.letters). The Jython objects are fetched once at
+ * init as weak global refs, so recognizing them later is a plain IsSameObject
+ * instead of a field- and array-lookup per conversion.
+ * Native small_ints are pre-linked to their Jython counterparts at init.
+ * Native single-letter strings in characters[] are created on demand by
+ * stringobject.c, which links them via JySync_LinkPreAllocatedString.
+ * Linked objects carry JY_CACHE_ETERNAL and convert in both directions
+ * without any upcall into Java.
+ */
+static jobject JyIntCache[NSMALLNEGINTSJYTHON + NSMALLPOSINTSJYTHON];
+static jobject JyLetterCache[LETTERCHAR_MAXJYTHON];
+
+void JySync_InitIdentityCache(JNIEnv *env)
+{
+	jint i;
+	JyObject* jy;
+	jarray cache = (*env)->GetStaticObjectField(env, pyPyClass, pyPy_integerCacheField);
+	for (i = 0; i < NSMALLNEGINTSJYTHON + NSMALLPOSINTSJYTHON; ++i)
+	{
+		jobject cached = (*env)->GetObjectArrayElement(env, cache, i);
+		JyIntCache[i] = (*env)->NewWeakGlobalRef(env, cached);
+		(*env)->DeleteLocalRef(env, cached);
+	}
+	(*env)->DeleteLocalRef(env, cache);
+	cache = (*env)->GetStaticObjectField(env, pyPyClass, pyPy_lettersField);
+	for (i = 0; i < LETTERCHAR_MAXJYTHON; ++i)
+	{
+		jobject cached = (*env)->GetObjectArrayElement(env, cache, i);
+		JyLetterCache[i] = (*env)->NewWeakGlobalRef(env, cached);
+		(*env)->DeleteLocalRef(env, cached);
+	}
+	(*env)->DeleteLocalRef(env, cache);
+
+	for (i = -NSMALLNEGINTS; i < NSMALLPOSINTS; ++i)
+	{
+		/* small_ints stores the JyObject-headers: */
+		jy = (JyObject*) small_ints[i + NSMALLNEGINTS];
+		if (!jy) continue;
+		JyNI_InitSingleton(FROM_JY_NO_GC(jy), JyIntCache[i + NSMALLNEGINTSJYTHON]);
+		jy->flags |= JY_HAS_JHANDLE_FLAG_MASK;
+		JyNI_SetNativeHandle(env, jy->jy, FROM_JY_NO_GC(jy));
+	}
+}
+
+void JySync_ClearIdentityCache(JNIEnv *env)
+{
+	jint i;
+	for (i = 0; i < NSMALLNEGINTSJYTHON + NSMALLPOSINTSJYTHON; ++i)
+	{
+		(*env)->DeleteWeakGlobalRef(env, JyIntCache[i]);
+		JyIntCache[i] = NULL;
+	}
+	for (i = 0; i < LETTERCHAR_MAXJYTHON; ++i)
+	{
+		(*env)->DeleteWeakGlobalRef(env, JyLetterCache[i]);
+		JyLetterCache[i] = NULL;
+	}
+}
+
+/*
+ * Links a freshly created entry of characters[] to the corresponding
+ * string in Py.letters.
+ */
+void JySync_LinkPreAllocatedString(PyStringObject* op)
+{
+	unsigned char c = (unsigned char) op->ob_sval[0];
+	JyObject* jy = AS_JY_NO_GC(op);
+	if (c >= LETTERCHAR_MAXJYTHON || !JyLetterCache[c]) return;
+	if (!(jy->flags & JY_INITIALIZED_FLAG_MASK))
+	{
+		env();
+		JyNI_InitSingleton(op, JyLetterCache[c]);
+		jy->flags |= JY_HAS_JHANDLE_FLAG_MASK;
+		JyNI_SetNativeHandle(env, jy->jy, (PyObject*) op);
+	}
+}
+
+/*
+ * Returns a NEW reference to the native counterpart of src, if src is one of
+ * Jython's preallocated ints or letters and the native counterpart is linked.
+ * Returns NULL otherwise. Performs no upcall into Java.
+ * Preallocated objects are never instances of subclasses, so an exact class
+ * check suffices and other objects only pay for GetObjectClass.
+ */
+PyObject* JySync_PyObject_FromIdentityCache(JNIEnv *env, jobject src)
+{
+	PyObject* result = NULL;
+	jclass cls = (*env)->GetObjectClass(env, src);
+	if ((*env)->IsSameObject(env, cls, pyIntClass))
+	{
+		jint value = (*env)->GetIntField(env, src, pyInt_valueField);
+		if (value >= -NSMALLNEGINTS && value < NSMALLPOSINTS &&
+				(*env)->IsSameObject(env, src, JyIntCache[value+NSMALLNEGINTSJYTHON]))
+		{
+			result = FROM_JY_NO_GC(small_ints[value+NSMALLNEGINTS]);
+			Py_INCREF(result);
+		}
+	} else if ((*env)->IsSameObject(env, cls, pyStringClass))
+	{
+		jstring str = (*env)->GetObjectField(env, src, pyString_stringField);
+		if (str && (*env)->GetStringLength(env, str) == 1)
+		{
+			jchar c;
+			(*env)->GetStringRegion(env, str, 0, 1, &c);
+			if (c < LETTERCHAR_MAXJYTHON && characters[c] &&
+					(*env)->IsSameObject(env, src, JyLetterCache[c]))
+			{
+				result = (PyObject*) characters[c];
+				Py_INCREF(result);
+			}
+		}
+		if (str) (*env)->DeleteLocalRef(env, str);
+	}
+	(*env)->DeleteLocalRef(env, cls);
+	return result;
+}
+
+/*
+ * Tells whether ref is the identity cache's weak global ref for op.
+ * Such refs are shared by all links to the cached object and are only
+ * deleted by JySync_ClearIdentityCache.
+ */
+jboolean JySync_IsIdentityCacheRef(PyObject* op, jobject ref)
 {
-	if (value >= LETTERCHAR_MAXJYTHON)
+	if (PyInt_CheckExact(op))
+	{
+		long value = PyInt_AS_LONG(op);
+		return value >= -NSMALLNEGINTSJYTHON && value < NSMALLPOSINTSJYTHON &&
+				JyIntCache[value+NSMALLNEGINTSJYTHON] == ref;
+	}
+	if (PyString_CheckExact(op) && Py_SIZE(op) == 1)
+	{
+		unsigned char c = (unsigned char) PyString_AS_STRING(op)[0];
+		return c < LETTERCHAR_MAXJYTHON && JyLetterCache[c] == ref;
+	}
+	return JNI_FALSE;
+}
+
+static inline jboolean isPreAllocatedJythonString(jobject obj, char value)
+{
+	if ((unsigned char) value >= LETTERCHAR_MAXJYTHON)
 		return JNI_FALSE;
 	else {
-		jarray scache;
-		jobject cachedString;
 		env(JNI_FALSE);
-		scache = (*env)->GetStaticObjectField(env, pyPyClass, pyPy_lettersField);
-		cachedString = (*env)->GetObjectArrayElement(env, scache, (jint) value);
-		return (*env)->IsSameObject(env, cachedString, obj);
+		return (*env)->IsSameObject(env, JyLetterCache[(unsigned char) value], obj);
 	}
 }
 
@@ -240,13 +376,8 @@ static inline jboolean isPreAllocatedJythonInt(jobject obj, jint value)
 	if (value < -NSMALLNEGINTSJYTHON || value >= NSMALLPOSINTSJYTHON)
 		return JNI_FALSE;
 	else {
-		jarray icache;
-		jobject cachedInt;
-
 		env(JNI_FALSE);
-		icache = (*env)->GetStaticObjectField(env, pyPyClass, pyPy_integerCacheField);
-		cachedInt = (*env)->GetObjectArrayElement(env, icache, value+NSMALLNEGINTSJYTHON);
-		return (*env)->IsSameObject(env, cachedInt, obj);
+		return (*env)->IsSameObject(env, JyIntCache[value+NSMALLNEGINTSJYTHON], obj);
 	}
 }
 
@@ -327,39 +458,75 @@ jobject JySync_Init_JyComplex_From_PyComplex(PyObject* src, jclass subtype)
 
 /*
  * This function returns a NEW reference, i.e. caller must decref it in the end.
+ *
+ * Values that fit into 64 bit (signed or unsigned) are transferred as plain
+ * jlong. Only bigger values take the roundtrip via BigInteger.toByteArray.
  */
 PyObject* JySync_Init_PyLong_From_JyLong(jobject src, PyTypeObject* nonNativeSubtype)
 {
+	jobject bival;
+	jint bitLength;
 	env(NULL);
+	bival = (*env)->CallObjectMethod(env, src, pyLong_getValue);
+	bitLength = (*env)->CallIntMethod(env, bival, bigInt_bitLength);
+	if (bitLength < 64)
+	{
+		PyObject *er = PyLong_FromLongLong((PY_LONG_LONG)
+				(*env)->CallLongMethod(env, bival, bigInt_longValue));
+		(*env)->DeleteLocalRef(env, bival);
+		return er;
+	} else if (bitLength == 64 && (*env)->CallIntMethod(env, bival, bigInt_signum) > 0)
 	{
-		jobject bival = (*env)->CallObjectMethod(env, src, pyLong_getValue);
+		PyObject *er = PyLong_FromUnsignedLongLong((unsigned PY_LONG_LONG)
+				(*env)->CallLongMethod(env, bival, bigInt_longValue));
+		(*env)->DeleteLocalRef(env, bival);
+		return er;
+	} else {
 		jarray jbytes = (*env)->CallObjectMethod(env, bival, bigInt_toByteArray);
 		jsize n = (*env)->GetArrayLength(env, jbytes);
 		jbyte* bbytes = (*env)->GetByteArrayElements(env, jbytes, NULL);
-		//memcpy(bytes+n-cpl, bbytes+lb-cpl, cpl);
 		PyObject *er = _PyLong_FromByteArray(bbytes, (size_t) n, JNI_FALSE, JNI_TRUE);
 		(*env)->ReleaseByteArrayElements(env, jbytes, bbytes, JNI_ABORT);
+		(*env)->DeleteLocalRef(env, jbytes);
+		(*env)->DeleteLocalRef(env, bival);
 		return er;
 	}
 }
 
+/*
+ * Values that fit into 64 bit (signed or unsigned) are transferred as plain
+ * jlong. Bigger values are written directly into the backing array of a new
+ * byte[] via a critical region, which is safe since _PyLong_AsByteArray
+ * performs no JNI calls.
+ */
 jobject JySync_Init_JyLong_From_PyLong(PyObject* src, jclass subtype)
 {
 	size_t numBits = _PyLong_NumBits(src);
-	size_t n = 1+numBits/8;
 	env(NULL);
-	if (numBits%8 != 0) {
-		++n;
-	}
+	if (numBits < 64)
 	{
-		jarray jbytes = (*env)->NewByteArray(env, (jsize) n);
-		jbyte* bbytes = (*env)->GetByteArrayElements(env, jbytes, NULL);
-		//memcpy(bbytes, bytes, n);
-		_PyLong_AsByteArray(src, bbytes, n, JNI_FALSE, JNI_TRUE);
-		(*env)->ReleaseByteArrayElements(env, jbytes, bbytes, 0);
-		//jobject bival;
-		return (*env)->CallStaticObjectMethod(env, pyPyClass, pyPy_newLongFromBigInt,
+		return (*env)->CallStaticObjectMethod(env, pyPyClass, pyPy_newLongFromLong,
+				(jlong) PyLong_AsLongLong(src));
+	} else if (numBits == 64 && _PyLong_Sign(src) > 0)
+	{
+		return (*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_newUnsignedLong,
+				(jlong) PyLong_AsUnsignedLongLong(src));
+	} else {
+		size_t n = 1+numBits/8;
+		jarray jbytes;
+		jbyte* bbytes;
+		jobject result;
+		if (numBits%8 != 0) {
+			++n;
+		}
+		jbytes = (*env)->NewByteArray(env, (jsize) n);
+		bbytes = (*env)->GetPrimitiveArrayCritical(env, jbytes, NULL);
+		_PyLong_AsByteArray((PyLongObject*) src, (unsigned char*) bbytes, n, JNI_FALSE, JNI_TRUE);
+		(*env)->ReleasePrimitiveArrayCritical(env, jbytes, bbytes, 0);
+		result = (*env)->CallStaticObjectMethod(env, pyPyClass, pyPy_newLongFromBigInt,
 				(*env)->NewObject(env, bigIntClass, bigInt_fromByteArrayConstructor, jbytes));
+		(*env)->DeleteLocalRef(env, jbytes);
+		return result;
 	}
 }
 
@@ -393,36 +560,58 @@ jobject JySync_Init_JyList_From_PyList(PyObject* src, jclass subtype)
 	return (*env)->CallStaticObjectMethod(env, pyListClass, pyList_fromList, jyList);
 }
 
+/*
+ * Number of list items JySync_Init_PyList_From_JyList converts within
+ * one JNI local frame.
+ */
+#define JYSYNC_LIST_CHUNK 256
+
 /*
  * This function returns a NEW reference, i.e. caller must decref it in the end.
+ *
+ * Items that have no native counterpart yet are read from a single copy of the
+ * backing array rather than via one pyget-upcall per index. Conversion runs in
+ * chunks of JYSYNC_LIST_CHUNK items, each in its own JNI local frame, so the
+ * local refs created while converting huge lists don't pile up.
+ * Note that the items cannot be mirrored lazily on first access, because
+ * extensions read ob_item directly via PyList_GET_ITEM.
  */
 PyObject* JySync_Init_PyList_From_JyList(jobject src, PyTypeObject* nonNativeSubtype)
 {
 	env(NULL);
-	//maybe optimize a bit more here:
-	//if most objects in the list have not yet been converted,
-	//much lookup is done twice here.
 	{
 		jlong* arr;
 		jobject jyList;
+		jarray items = NULL;
 		jarray handles = (*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_lookupNativeHandles, src);
-		jsize i, size = (*env)->GetArrayLength(env, handles);
+		jsize i, chunkEnd, size = (*env)->GetArrayLength(env, handles);
 		PyObject* v, * op = PyList_New((Py_ssize_t) size);
-		(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, src, (jlong) op);//, JNI_FALSE);
+		JyNI_SetNativeHandle(env, src, (PyObject*) op);//, JNI_FALSE);
 		AS_JY_WITH_GC(op)->flags |= JY_HAS_JHANDLE_FLAG_MASK;
 		arr = (*env)->GetLongArrayElements(env, handles, NULL);
 		for (i = 0; i < size; ++i)
 		{
-			v = (PyObject*) arr[i];
-			if (!v) v = JyNI_PyObject_FromJythonPyObject((*env)->CallObjectMethod(env, src, pySequence_pyget, i));
-			else Py_INCREF(v);
-	//		if (!v) v = _JyNI_PyObject_FromJythonPyObject(
-	//				(*env)->CallObjectMethod(env, src, pyListPyGet, i), JNI_FALSE, JNI_FALSE, JNI_TRUE);
-	//JyNI_PyObject_FromJythonPyObject(jobject jythonPyObject, jboolean lookupNative, jboolean checkCPeer, jboolean checkForType)
-			PyList_SET_ITEM(op, i, v);
+			if (!arr[i]) {
+				items = (*env)->CallObjectMethod(env, src, pyList_getArray);
+				break;
+			}
+		}
+		for (i = 0; i < size; i = chunkEnd)
+		{
+			chunkEnd = size-i > JYSYNC_LIST_CHUNK ? i+JYSYNC_LIST_CHUNK : size;
+			(*env)->PushLocalFrame(env, JYSYNC_LIST_CHUNK);
+			for (; i < chunkEnd; ++i)
+			{
+				v = (PyObject*) arr[i];
+				if (!v) v = JyNI_PyObject_FromJythonPyObject(
+						(*env)->GetObjectArrayElement(env, items, i));
+				else Py_INCREF(v);
+				PyList_SET_ITEM(op, i, v);
+			}
+			(*env)->PopLocalFrame(env, NULL);
 		}
-		//jputsLong(__LINE__);
 		(*env)->ReleaseLongArrayElements(env, handles, arr, JNI_ABORT);
+		if (items) (*env)->DeleteLocalRef(env, items);
 		JyNI_GC_ExploreObject(op);
 		//JyNI_GC_ExploreObject should have initialized JyGCHead to a JyList-object.
 		jyList = (*env)->NewLocalRef(env, (jobject) JyObject_GetJyGCHead(op, AS_JY_WITH_GC(op)));
@@ -1050,7 +1239,7 @@ PyObject* JySync_Init_PyTuple_From_JyTupleForMRO(jobject src)
 		int i;
 		jint srcSize = (*env)->CallIntMethod(env, src, collection_size);
 		PyObject* er = PyTuple_New(srcSize);
-		(*env)->CallStaticObjectMethod(env, JyNIClass, JyNI_setNativeHandle, src, (jlong) er);
+		JyNI_SetNativeHandle(env, src, (PyObject*) er);
 		AS_JY_WITH_GC(er)->flags |= JY_HAS_JHANDLE_FLAG_MASK;
 		for (i = 1; i < srcSize; ++i)
 		{
@@ -36,6 +36,7 @@
  */
 
 #include <JyNI.h>
+#include <pythread_JyNI.h>
 
 inline void JyErr_InsertCurExc()
 {
@@ -74,6 +75,47 @@ void JyTState_setNativeCallDepth(JNIEnv *env, jclass class, jlong nativeThreadSt
 	((PyThreadState*) nativeThreadState)->recursion_depth = callDepth;
 }
 
+/*
+ * Native thread states are recycled: Thread-per-task executors create and drop
+ * Jython ThreadStates at high rates, so deleted states are kept in this pool and
+ * handed out again by JyTState_initNativeThreadState. Beyond TSTATE_POOL_MAX
+ * they are freed.
+ */
+#define TSTATE_POOL_MAX 64
+static PyThreadState* tstatePool[TSTATE_POOL_MAX];
+static int tstatePoolSize = 0;
+static PyThread_type_lock tstatePoolLock = NULL;
+static jlong tstatePoolHits = 0, tstatePoolMisses = 0;
+
+void JyTState_initPool()
+{
+	tstatePoolLock = PyThread_allocate_lock();
+}
+
+void JyTState_getPoolStats(jlong* dest)
+{
+	PyThread_acquire_lock(tstatePoolLock, 1);
+	dest[0] = tstatePoolSize;
+	dest[1] = tstatePoolHits;
+	dest[2] = tstatePoolMisses;
+	PyThread_release_lock(tstatePoolLock);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getThreadStatePoolStats
+ * Signature: ()[J
+ */
+jlongArray JyTState_getThreadStatePoolStats(JNIEnv *env, jclass class)
+{
+	jlong stats[3];
+	jlongArray jres;
+	JyTState_getPoolStats(stats);
+	jres = (*env)->NewLongArray(env, 3);
+	if (jres) (*env)->SetLongArrayRegion(env, jres, 0, 3, stats);
+	return jres;
+}
+
 /*
  * Class:     JyNI_JyNI
  * Method:    initNativeThreadState
@@ -84,7 +126,15 @@ jlong JyTState_initNativeThreadState(JNIEnv *env, jclass class, jobject jyTState
 	//TODO jyTState is currently not used here. Maybe clean it away later...
 //	jputs("init native ThreadState...");
 	//PyThreadState* tstate = (PyThreadState*) PyObject_RawMalloc(TS_TRUNCATED_SIZE);
-	PyThreadState* tstate = (PyThreadState*) malloc(TS_TRUNCATED_SIZE);
+	PyThreadState* tstate = NULL;
+	PyThread_acquire_lock(tstatePoolLock, 1);
+	if (tstatePoolSize)
+	{
+		tstate = tstatePool[--tstatePoolSize];
+		++tstatePoolHits;
+	} else ++tstatePoolMisses;
+	PyThread_release_lock(tstatePoolLock);
+	if (!tstate) tstate = (PyThreadState*) malloc(TS_TRUNCATED_SIZE);
 	tstate->next = NULL;
 	tstate->interp = NULL;
 	tstate->frame = NULL;
@@ -124,16 +174,34 @@ jlong JyTState_initNativeThreadState(JNIEnv *env, jclass class, jobject jyTState
  */
 void JyTState_clearNativeThreadState(JNIEnv *env, jclass class, jlong threadState)
 {
-	(*env)->DeleteWeakGlobalRef(env, TS_GET_JY((PyThreadState*) threadState));
-	if (!--((PyThreadState*) threadState)->JyNI_gilstate_counter)
+	PyThreadState* tstate = (PyThreadState*) threadState;
+	/* The counter is shared with PyGILState_Release and PyThreadState_Clear
+	 * decrefs, so both need the GIL. This is usually called from a Java thread
+	 * outside of JyNI, but it can also happen in a callback while the current
+	 * thread holds the GIL already.
+	 */
+	int reenter = _JyNI_HoldsGIL;
+	int cleared = 0;
+	(*env)->DeleteWeakGlobalRef(env, TS_GET_JY(tstate));
+	if (!reenter) { ENTER_JyNI }
+	if (!--tstate->JyNI_gilstate_counter)
 	{
-		PyThreadState_Clear((PyThreadState*) threadState);
-		_delNativeThreadState((PyThreadState*) threadState);
+		PyThreadState_Clear(tstate);
+		cleared = 1;
 	}
+	if (!reenter) { LEAVE_JyNI0 }
+	if (cleared) _delNativeThreadState(tstate);
 }
 
 void _delNativeThreadState(PyThreadState* threadState)
 {
 	//PyObject_RawFree(threadState);
-	free(threadState);
+	PyThread_acquire_lock(tstatePoolLock, 1);
+	if (tstatePoolSize < TSTATE_POOL_MAX)
+	{
+		tstatePool[tstatePoolSize++] = threadState;
+		threadState = NULL;
+	}
+	PyThread_release_lock(tstatePoolLock);
+	if (threadState) free(threadState);
 }
@@ -2536,10 +2536,10 @@ jboolean JyGC_clearNativeReferences(JNIEnv *env, jclass class, jlongArray refere
 /*
  * Class:     JyNI_JyNI
  * Method:    JyGC_restoreCStubBackend
- * Signature: (JLorg/python/core/PyObject;LJyNI/gc/JyGCHead;)V
+ * Signature: (JLorg/python/core/PyObject;LJyNI/gc/JyGCHead;J)V
  */
 void JyGC_restoreCStubBackend(JNIEnv *env, jclass class, jlong handle,
-		jobject backend, jobject newHead)
+		jobject backend, jobject newHead, jlong tstate)
 {
 	/*
 	 * Actually it appears that native weak references persist object
@@ -2551,15 +2551,19 @@ void JyGC_restoreCStubBackend(JNIEnv *env, jclass class, jlong handle,
 
 	//Something of these commands causes sporadical JVM-crashes
 	//(segfault in JVM-code (V))
-	JyObject* jy = AS_JY((PyObject*) handle);
+	JyObject* jy;
+	jobject tmp;
+	RE_ENTER_JyNI
+	jy = AS_JY((PyObject*) handle);
 	//if ((*env)->IsSameObject(env, jy->jy, NULL)) {
-	jobject tmp = jy->jy;
+	tmp = jy->jy;
 	Py_INCREF((PyObject*) handle);
 	jy->jy = (*env)->NewWeakGlobalRef(env, backend);
 	(*env)->DeleteWeakGlobalRef(env, tmp);
 	//}
 	JyObject_AddOrSetJyGCHead((PyObject*) handle, jy,
 			(*env)->NewWeakGlobalRef(env, newHead));
+	RE_LEAVE_JyNI
 }
 
 typedef struct {
@@ -2604,12 +2608,7 @@ static jboolean longArrayContains(jlong* array, jsize size, jlong value)
 	return JNI_FALSE;
 }
 
-/*
- * Class:     JyNI_JyNI
- * Method:    JyGC_validateGCHead
- * Signature: (J[J)Z
- */
-jboolean JyGC_validateGCHead(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks)
+static jboolean validateGCHead(JNIEnv *env, jlong handle, jlongArray oldLinks)
 {
 	traverseproc trav;
 	PyTypeObject* ptp = Py_TYPE((PyObject*) handle);
@@ -2682,6 +2681,20 @@ jboolean JyGC_validateGCHead(JNIEnv *env, jclass class, jlong handle, jlongArray
 	}
 }
 
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyGC_validateGCHead
+ * Signature: (J[JJ)Z
+ */
+jboolean JyGC_validateGCHead(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks, jlong tstate)
+{
+	jboolean result;
+	RE_ENTER_JyNI
+	result = validateGCHead(env, handle, oldLinks);
+	RE_LEAVE_JyNI
+	return result;
+}
+
 // Former, misconcepted approach:
 ///*
 // * Class:     JyNI_JyNI
@@ -2786,6 +2799,203 @@ jlongArray JyGC_nativeTraverse(JNIEnv *env, jclass class, jlong handle)
 	}
 }
 
+/*
+ * Heap snapshots, see JyNIHeapSnapshot.java for the file format.
+ *
+ * We write every object tracked by the native GC, then the objects held
+ * by a JyGCHead that are not tracked. Each object is described by a record
+ * [handle, type, size, refcount, flags, edge count, edges...] in a batch
+ * that is passed to JyNIHeapSnapshot.writeBatch once full. Untracked edge
+ * targets, e.g. strings, get their own record right after their referrer.
+ * Since there is no bookkeeping of written objects, such a record
+ * can appear several times. Untracked objects are only followed to
+ * HEAP_SNAPSHOT_DEPTH, which suffices for CPython's untracking rules.
+ * The size is the object's own memory including JyNI's headers,
+ * not counting separately allocated buffers.
+ */
+#define HEAP_SNAPSHOT_BATCH 8192
+#define HEAP_SNAPSHOT_DEPTH 3
+#define HEAP_SNAPSHOT_TRACKED   1
+#define HEAP_SNAPSHOT_STATIC    2
+#define HEAP_SNAPSHOT_MIRRORED  4
+#define HEAP_SNAPSHOT_TRUNCATED 8
+
+typedef struct {
+	PyObject** ops;
+	jsize size, capacity;
+} heapSnapshotEdges;
+
+typedef struct {
+	JNIEnv* env;
+	jobject sink;
+	jmethodID writeBatch;
+	jlongArray array;
+	jlong buf[HEAP_SNAPSHOT_BATCH];
+	jsize pos;
+	jlong count;
+	int failed;
+	heapSnapshotEdges edges[HEAP_SNAPSHOT_DEPTH];
+} heapSnapshot;
+
+static int
+visit_heapSnapshot(PyObject *op, void *arg)
+{
+	heapSnapshotEdges* edges = (heapSnapshotEdges*) arg;
+	if (edges->size == edges->capacity)
+	{
+		PyObject** ops = (PyObject**) realloc(edges->ops,
+				(edges->capacity*2+16)*sizeof(PyObject*));
+		if (!ops) return -1;
+		edges->ops = ops;
+		edges->capacity = edges->capacity*2+16;
+	}
+	edges->ops[edges->size++] = op;
+	return 0;
+}
+
+static inline jboolean heapSnapshot_isTracked(PyObject* op)
+{
+	return PyObject_IS_GC(op) && _PyObject_GC_IS_TRACKED(op);
+}
+
+static void heapSnapshot_call(heapSnapshot* snap, jlongArray array, jlong* src, jsize length)
+{
+	JNIEnv* env = snap->env;
+	if (snap->failed) return;
+	(*env)->SetLongArrayRegion(env, array, 0, length, src);
+	(*env)->CallVoidMethod(env, snap->sink, snap->writeBatch, array, length);
+	if ((*env)->ExceptionCheck(env)) snap->failed = 1;
+}
+
+static void heapSnapshot_flush(heapSnapshot* snap)
+{
+	if (snap->pos > 0) heapSnapshot_call(snap, snap->array, snap->buf, snap->pos);
+	snap->pos = 0;
+}
+
+static void heapSnapshot_object(heapSnapshot* snap, PyObject* op, int depth)
+{
+	heapSnapshotEdges* edges = &(snap->edges[depth]);
+	PyTypeObject* tp = Py_TYPE(op);
+	jlong size = 0, flags = 0;
+	jlong* dest;
+	jsize i, length;
+
+	edges->size = 0;
+	if (heapSnapshot_isTracked(op)) flags |= HEAP_SNAPSHOT_TRACKED;
+	if (Is_Static_PyObject(op)) flags |= HEAP_SNAPSHOT_STATIC;
+	else {
+		JyObject* jy = AS_JY(op);
+		if (jy->jy) flags |= HEAP_SNAPSHOT_MIRRORED;
+		if (JyObject_IS_TRUNCATED(jy)) flags |= HEAP_SNAPSHOT_TRUNCATED;
+		size = tp->tp_basicsize+sizeof(JyObject);
+		if (tp->tp_itemsize)
+			size += tp->tp_itemsize*(Py_SIZE(op) < 0 ? -Py_SIZE(op) : Py_SIZE(op));
+		if (PyObject_IS_GC(op)) size += sizeof(PyGC_Head);
+		if (depth < HEAP_SNAPSHOT_DEPTH-1)
+		{
+			traverseproc trav = PyType_CheckExact(op) ? statictype_traverse : tp->tp_traverse;
+			if (trav && trav(op, visit_heapSnapshot, edges) != 0) edges->size = 0;
+		}
+	}
+
+	length = 6+edges->size;
+	if (snap->pos+length > HEAP_SNAPSHOT_BATCH) heapSnapshot_flush(snap);
+	dest = length > HEAP_SNAPSHOT_BATCH ? (jlong*) malloc(length*sizeof(jlong)) :
+			snap->buf+snap->pos;
+	if (!dest) {
+		snap->failed = 1;
+		return;
+	}
+	dest[0] = (jlong) op;
+	dest[1] = (jlong) tp;
+	dest[2] = size;
+	dest[3] = (jlong) Py_REFCNT(op);
+	dest[4] = flags;
+	dest[5] = edges->size;
+	for (i = 0; i < edges->size; ++i)
+		dest[6+i] = (jlong) edges->ops[i];
+	if (length > HEAP_SNAPSHOT_BATCH)
+	{
+		jlongArray array = (*snap->env)->NewLongArray(snap->env, length);
+		if (array) {
+			heapSnapshot_call(snap, array, dest, length);
+			(*snap->env)->DeleteLocalRef(snap->env, array);
+		} else snap->failed = 1;
+		free(dest);
+	} else
+		snap->pos += length;
+	++snap->count;
+
+	if (depth+1 < HEAP_SNAPSHOT_DEPTH)
+	{
+		for (i = 0; i < edges->size && !snap->failed; ++i)
+		{
+			if (!heapSnapshot_isTracked(edges->ops[i]))
+				heapSnapshot_object(snap, edges->ops[i], depth+1);
+		}
+	}
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyGC_writeHeapSnapshot
+ * Signature: (LJyNI/JyNIHeapSnapshot;J)J
+ */
+jlong JyGC_writeHeapSnapshot(JNIEnv *env, jclass class, jobject sink, jlong tstate)
+{
+	/* Only used for snapshots, so we don't cache these IDs at startup: */
+	jclass sinkClass = (*env)->GetObjectClass(env, sink);
+	jmethodID heldHandles = (*env)->GetMethodID(env, sinkClass, "heldHandles", "()[J");
+	jlongArray held;
+	heapSnapshot* snap;
+	PyGC_Head* gc;
+	jlong result;
+	int i;
+
+	snap = (heapSnapshot*) calloc(1, sizeof(heapSnapshot));
+	if (!snap) return -1;
+	snap->env = env;
+	snap->sink = sink;
+	snap->writeBatch = (*env)->GetMethodID(env, sinkClass, "writeBatch", "([JI)V");
+	snap->array = (*env)->NewLongArray(env, HEAP_SNAPSHOT_BATCH);
+	(*env)->DeleteLocalRef(env, sinkClass);
+	if (!snap->writeBatch || !heldHandles || !snap->array) {
+		free(snap);
+		return -1;
+	}
+	ENTER_JyNI
+	for (gc = _PyGC_generation0->gc.gc_next; gc != _PyGC_generation0 && !snap->failed;
+			gc = gc->gc.gc_next)
+		heapSnapshot_object(snap, FROM_GC(gc), 0);
+	/* The Java side may release handles concurrently, but it needs the GIL
+	 * to actually free them. So we query them while holding the GIL. */
+	held = snap->failed ? NULL : (*env)->CallObjectMethod(env, sink, heldHandles);
+	if (held)
+	{
+		jsize j, size = (*env)->GetArrayLength(env, held);
+		jlong* handles = (*env)->GetLongArrayElements(env, held, NULL);
+		if (handles)
+		{
+			for (j = 0; j < size && !snap->failed; ++j)
+			{
+				if (handles[j] && !heapSnapshot_isTracked((PyObject*) handles[j]))
+					heapSnapshot_object(snap, (PyObject*) handles[j], 0);
+			}
+			(*env)->ReleaseLongArrayElements(env, held, handles, JNI_ABORT);
+		} else snap->failed = 1;
+		(*env)->DeleteLocalRef(env, held);
+	} else if ((*env)->ExceptionCheck(env)) snap->failed = 1;
+	heapSnapshot_flush(snap);
+	LEAVE_JyNI
+	result = snap->failed ? -1 : snap->count;
+	for (i = 0; i < HEAP_SNAPSHOT_DEPTH; ++i)
+		free(snap->edges[i].ops);
+	(*env)->DeleteLocalRef(env, snap->array);
+	free(snap);
+	return result;
+}
+
 void
 JyNI_GC_Track_CStub(PyObject* op)
 {
@@ -3066,6 +3276,9 @@ _PyObject_GC_Resize(PyVarObject *op, Py_ssize_t nitems)
 		if (basicsize > PY_SSIZE_T_MAX - sizeof(PyGC_Head) - sizeof(JyObject))
 			return (PyVarObject *)PyErr_NoMemory();
 		//jy = PyObject_REALLOC(jy,  sizeof(JyObject) + sizeof(PyGC_Head) + basicsize);
+		/* op moves, so drop it from reverse lookup until the handle is corrected: */
+		if (jy->flags & JY_INITIALIZED_FLAG_MASK && jy->jy)
+			JyNI_ForgetNativeHandle((PyObject*) op);
 		jy = PyObject_RawRealloc(jy,  sizeof(JyObject) + sizeof(PyGC_Head) + basicsize);
 		if (jy == NULL) return (PyVarObject *) PyErr_NoMemory();
 		//PyGC_Head *q = GC_FROM_JY(jy);
@@ -3078,7 +3291,7 @@ _PyObject_GC_Resize(PyVarObject *op, Py_ssize_t nitems)
 		{
 			/* take care to correct the handle on java-side */
 			env(NULL);
-			(*env)->CallStaticVoidMethod(env, JyNIClass, JyNI_setNativeHandle, jy->jy, (jlong) op);//, (jy->flags & JY_TRUNCATE_FLAG_MASK) != 0);
+			JyNI_SetNativeHandle(env, jy->jy, (PyObject*) op);//, (jy->flags & JY_TRUNCATE_FLAG_MASK) != 0);
 			//todo: maybe do sync here
 		}
 		//JyNIDebug2(JY_NATIVE_REALLOC_GC, AS_JY_WITH_GC(op0), jy, basicsize, NULL);
@@ -672,6 +672,7 @@ SystemExit_init(PySystemExitObject *self, PyObject *args, PyObject *kwds)
 	int i;
 
 	env(-1);
+	exceptionsJNI(-1);
 	jdict = JyNI_JythonPyObject_FromPyObject(kwds);
 	ENTER_SubtypeLoop_Safe_ModePy(jdict, kwds, __len__)
 	dictSize = (*env)->CallIntMethod(env, jdict, JMID(__len__));
@@ -808,6 +809,7 @@ EnvironmentError_init(PyEnvironmentErrorObject *self, PyObject *args, PyObject *
 	int i;
 
 	env(-1);
+	exceptionsJNI(-1);
 //	jputs(__FUNCTION__);
 	jdict = JyNI_JythonPyObject_FromPyObject(kwds);
 	ENTER_SubtypeLoop_Safe_ModePy(jdict, kwds, __len__)
@@ -899,6 +901,7 @@ static PyObject *
 EnvironmentError_str(PyEnvironmentErrorObject *self)
 {
 	env(NULL);
+	exceptionsJNI(NULL);
 	return JyNI_PyObject_FromJythonPyObject(
 		(*env)->CallStaticObjectMethod(env, exceptionsClass, exceptions_EnvironmentError__str__,
 				JyNI_JythonPyObject_FromPyObject((PyObject*) self), JyEmptyPyObjectArray, JyEmptyStringArray));
@@ -1082,6 +1085,7 @@ static PyObject *
 EnvironmentError_reduce(PyEnvironmentErrorObject *self)
 {
 	env(NULL);
+	exceptionsJNI(NULL);
 	return JyNI_PyObject_FromJythonPyObject(
 		(*env)->CallStaticObjectMethod(env, exceptionsClass, exceptions_EnvironmentError__reduce__,
 		JyNI_JythonPyObject_FromPyObject((PyObject*) self), JyEmptyPyObjectArray, JyEmptyStringArray));
@@ -1383,6 +1387,7 @@ SyntaxError_init(PySyntaxErrorObject *self, PyObject *args, PyObject *kwds)
 	int i;
 
 	env(-1);
+	exceptionsJNI(-1);
 	jdict = JyNI_JythonPyObject_FromPyObject(kwds);
 	ENTER_SubtypeLoop_Safe_ModePy(jdict, kwds, __len__)
 	dictSize = (*env)->CallIntMethod(env, jdict, JMID(__len__));
@@ -1505,6 +1510,7 @@ static PyObject *
 SyntaxError_str(PySyntaxErrorObject *self)
 {
 	env(NULL);
+	exceptionsJNI(NULL);
 	return JyNI_PyObject_FromJythonPyObject(
 		(*env)->CallStaticObjectMethod(env, exceptionsClass, exceptions_SyntaxError__str__,
 		JyNI_JythonPyObject_FromPyObject((PyObject*) self), JyEmptyPyObjectArray, JyEmptyStringArray));
@@ -1774,6 +1780,7 @@ static PyObject *
 KeyError_str(PyBaseExceptionObject *self)
 {
 	env(NULL);
+	exceptionsJNI(NULL);
 	return JyNI_PyObject_FromJythonPyObject(
 		(*env)->CallStaticObjectMethod(env, exceptionsClass, exceptions_KeyError__str__,
 		JyNI_JythonPyObject_FromPyObject((PyObject*) self), JyEmptyPyObjectArray, JyEmptyStringArray));
@@ -1920,6 +1927,7 @@ PyUnicodeEncodeError_GetStart(PyObject *exc, Py_ssize_t *start)
 {
 	jint tmp;
 	env(NULL);
+	exceptionsJNI(-1);
 	tmp = (*env)->CallStaticIntMethod(env, exceptionsClass, exceptions_getStart,
 			JyNI_JythonPyObject_FromPyObject(exc), JNI_TRUE);
 	if ((*env)->ExceptionCheck(env))
@@ -1950,6 +1958,7 @@ PyUnicodeDecodeError_GetStart(PyObject *exc, Py_ssize_t *start)
 {
 	jint tmp;
 	env(NULL);
+	exceptionsJNI(-1);
 	tmp = (*env)->CallStaticIntMethod(env, exceptionsClass, exceptions_getStart,
 		JyNI_JythonPyObject_FromPyObject(exc), JNI_FALSE);
 	if ((*env)->ExceptionCheck(env))
@@ -2038,6 +2047,7 @@ PyUnicodeEncodeError_GetEnd(PyObject *exc, Py_ssize_t *end)
 {
 	jint tmp;
 	env(NULL);
+	exceptionsJNI(-1);
 	tmp = (*env)->CallStaticIntMethod(env, exceptionsClass, exceptions_getEnd,
 		JyNI_JythonPyObject_FromPyObject(exc), JNI_TRUE);
 	if ((*env)->ExceptionCheck(env))
@@ -2068,6 +2078,7 @@ PyUnicodeDecodeError_GetEnd(PyObject *exc, Py_ssize_t *end)
 {
 	jint tmp;
 	env(NULL);
+	exceptionsJNI(-1);
 	tmp = (*env)->CallStaticIntMethod(env, exceptionsClass, exceptions_getEnd,
 		JyNI_JythonPyObject_FromPyObject(exc), JNI_FALSE);
 	if ((*env)->ExceptionCheck(env))
@@ -2454,6 +2465,7 @@ UnicodeEncodeError_init(PyObject *self, PyObject *args, PyObject *kwds)
 	int i;
 
 	env(-1);
+	exceptionsJNI(-1);
 	jdict = JyNI_JythonPyObject_FromPyObject(kwds);
 	ENTER_SubtypeLoop_Safe_ModePy(jdict, kwds, __len__)
 	dictSize = (*env)->CallIntMethod(env, jdict, JMID(__len__));
@@ -2485,6 +2497,7 @@ static PyObject *
 UnicodeEncodeError_str(PyObject *self)
 {
 	env(NULL);
+	exceptionsJNI(NULL);
 	return JyNI_PyObject_FromJythonPyObject(
 			(*env)->CallStaticObjectMethod(env, exceptionsClass, exceptions_UnicodeEncodeError__str__,
 			JyNI_JythonPyObject_FromPyObject(self), JyEmptyPyObjectArray, JyEmptyStringArray));
@@ -2569,6 +2582,7 @@ UnicodeDecodeError_init(PyObject *self, PyObject *args, PyObject *kwds)
 	int i;
 
 	env(-1);
+	exceptionsJNI(-1);
 	jdict = JyNI_JythonPyObject_FromPyObject(kwds);
 	ENTER_SubtypeLoop_Safe_ModePy(jdict, kwds, __len__)
 	dictSize = (*env)->CallIntMethod(env, jdict, JMID(__len__));
@@ -2600,6 +2614,7 @@ static PyObject *
 UnicodeDecodeError_str(PyObject *self)
 {
 	env(NULL);
+	exceptionsJNI(NULL);
 	return JyNI_PyObject_FromJythonPyObject(
 		(*env)->CallStaticObjectMethod(env, exceptionsClass, exceptions_UnicodeDecodeError__str__,
 		JyNI_JythonPyObject_FromPyObject(self), JyEmptyPyObjectArray, JyEmptyStringArray));
@@ -2680,6 +2695,7 @@ UnicodeTranslateError_init(PyUnicodeErrorObject *self, PyObject *args, PyObject
 	int i;
 
 	env(-1);
+	exceptionsJNI(-1);
 	jdict = JyNI_JythonPyObject_FromPyObject(kwds);
 	ENTER_SubtypeLoop_Safe_ModePy(jdict, kwds, __len__)
 	dictSize = (*env)->CallIntMethod(env, jdict, JMID(__len__));
@@ -2725,6 +2741,7 @@ static PyObject *
 UnicodeTranslateError_str(PyObject *self)
 {
 	env(NULL);
+	exceptionsJNI(NULL);
 	return JyNI_PyObject_FromJythonPyObject(
 		(*env)->CallStaticObjectMethod(env, exceptionsClass, exceptions_UnicodeTranslateError__str__,
 		JyNI_JythonPyObject_FromPyObject(self), JyEmptyPyObjectArray, JyEmptyStringArray));
@@ -1397,6 +1397,16 @@ PyObject_RawFree(void *p)
 	}
 }
 
+/* Bytes held by pymalloc's arenas, whether in use by objects or not. */
+jlong JyNI_GetArenaBytes(void)
+{
+#ifdef WITH_PYMALLOC
+	return (jlong) narenas_currently_allocated * ARENA_SIZE;
+#else
+	return 0;
+#endif
+}
+
 /* JyNI-note: Though this method might not only be used for PyObject-
  * allocation, we always prepend a JyObject. We regard this slight
  * overhead in non-PyObject cases as preferable over potential
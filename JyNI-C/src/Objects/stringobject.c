@@ -154,6 +154,7 @@ PyString_FromStringAndSize(const char *str, Py_ssize_t size)
 			PyString_InternInPlace(&t);
 			op = (PyStringObject *)t;
 			characters[*str & UCHAR_MAX] = op;
+			JySync_LinkPreAllocatedString(op);
 			Py_INCREF(op);
 		}
 		return (PyObject *) op;
@@ -232,6 +233,7 @@ PyString_FromString(const char *str)
 			PyString_InternInPlace(&t);
 			op = (PyStringObject *)t;
 			characters[*str & UCHAR_MAX] = op;
+			JySync_LinkPreAllocatedString(op);
 			Py_INCREF(op);
 		}
 		return (PyObject *) op;
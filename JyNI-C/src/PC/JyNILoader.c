@@ -236,12 +236,12 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_clearNativeThreadState
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_get
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1get
-	(JNIEnv *env, jclass class, jlong handle, jint index)
+	(JNIEnv *env, jclass class, jlong handle, jint index, jlong tstate)
 {
-	return JyList_get(env, class, handle, index);
+	return JyList_get(env, class, handle, index, tstate);
 }
 
 /*
@@ -258,34 +258,34 @@ JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyList_1size
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_set
- * Signature: (JILorg/python/core/PyObject;J)Lorg/python/core/PyObject;
+ * Signature: (JILorg/python/core/PyObject;JJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1set
-	(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj)
+	(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj, jlong tstate)
 {
-	return JyList_set(env, class, handle, index, obj, pyObj);
+	return JyList_set(env, class, handle, index, obj, pyObj, tstate);
 }
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_add
- * Signature: (JILorg/python/core/PyObject;J)V
+ * Signature: (JILorg/python/core/PyObject;JJ)V
  */
 JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1add
-	(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj)
+	(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj, jlong tstate)
 {
-	JyList_add(env, class, handle, index, obj, pyObj);
+	JyList_add(env, class, handle, index, obj, pyObj, tstate);
 }
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_remove
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1remove
-	(JNIEnv *env, jclass class, jlong handle, jint index)
+	(JNIEnv *env, jclass class, jlong handle, jint index, jlong tstate)
 {
-	return JyList_remove(env, class, handle, index);
+	return JyList_remove(env, class, handle, index, tstate);
 }
 
 /*
@@ -324,12 +324,12 @@ JNIEXPORT jboolean JNICALL Java_JyNI_JyNI_JyGC_1clearNativeReferences
 /*
  * Class:     JyNI_JyNI
  * Method:    lookupFromHandle
- * Signature: (J)Lorg/python/core/PyObject;
+ * Signature: (JJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_lookupFromHandle
-	(JNIEnv *env, jclass class, jlong handle)
+	(JNIEnv *env, jclass class, jlong handle, jlong tstate)
 {
-	return JyNIlookupFromHandle(env, class, handle);
+	return JyNIlookupFromHandle(env, class, handle, tstate);
 }
 
 /*
@@ -368,23 +368,23 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_nativeDecref
 /*
  * Class:     JyNI_JyNI
  * Method:    getNativeTypeName
- * Signature: (J)Ljava/lang/String;
+ * Signature: (JJ)Ljava/lang/String;
  */
 JNIEXPORT jstring JNICALL Java_JyNI_JyNI_getNativeTypeName
-	(JNIEnv *env, jclass class, jlong handle)
+	(JNIEnv *env, jclass class, jlong handle, jlong tstate)
 {
-	return JyNIgetNativeTypeName(env, class, handle);
+	return JyNIgetNativeTypeName(env, class, handle, tstate);
 }
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyGC_restoreCStubBackend
- * Signature: (JLorg/python/core/PyObject;LJyNI/gc/JyGCHead;)V
+ * Signature: (JLorg/python/core/PyObject;LJyNI/gc/JyGCHead;J)V
  */
 JNIEXPORT void JNICALL Java_JyNI_JyNI_JyGC_1restoreCStubBackend
-	(JNIEnv *env, jclass class, jlong handle, jobject backend, jobject newHead)
+	(JNIEnv *env, jclass class, jlong handle, jobject backend, jobject newHead, jlong tstate)
 {
-	JyGC_restoreCStubBackend(env, class, handle, backend, newHead);
+	JyGC_restoreCStubBackend(env, class, handle, backend, newHead, tstate);
 }
 
 ///*
@@ -397,12 +397,12 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_JyGC_1restoreCStubBackend
 /*
  * Class:     JyNI_JyNI
  * Method:    JyGC_validateGCHead
- * Signature: (J[J)Z
+ * Signature: (J[JJ)Z
  */
 JNIEXPORT jboolean JNICALL Java_JyNI_JyNI_JyGC_1validateGCHead
-	(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks)
+	(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks, jlong tstate)
 {
-	return JyGC_validateGCHead(env, class, handle, oldLinks);
+	return JyGC_validateGCHead(env, class, handle, oldLinks, tstate);
 }
 
 /*
@@ -433,9 +433,9 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_releaseWeakReferent
  * Signature: (JLorg/python/core/PyObject;J)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_getItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
 {
-	return JyNI_getItem(env, class, handle, key, tstate);
+	return JyNI_getItem(env, class, handle, key, keyHash, tstate);
 }
 
 /*
@@ -444,9 +444,9 @@ JNIEXPORT jobject JNICALL Java_JyNI_JyNI_getItem
  * Signature: (JLorg/python/core/PyObject;Lorg/python/core/PyObject;J)I
  */
 JNIEXPORT jint JNICALL Java_JyNI_JyNI_setItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jobject value, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jobject value, jint valueHash, jlong tstate)
 {
-	return JyNI_setItem(env, class, handle, key, value, tstate);
+	return JyNI_setItem(env, class, handle, key, keyHash, value, valueHash, tstate);
 }
 
 /*
@@ -455,9 +455,9 @@ JNIEXPORT jint JNICALL Java_JyNI_JyNI_setItem
  * Signature: (JLorg/python/core/PyObject;J)I
  */
 JNIEXPORT jint JNICALL Java_JyNI_JyNI_delItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
 {
-	return JyNI_delItem(env, class, handle, key, tstate);
+	return JyNI_delItem(env, class, handle, key, keyHash, tstate);
 }
 
 /*
@@ -1189,3 +1189,245 @@ JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyNI_1mbcs_1decode
 {
 	return JyNI_mbcs_decode(input, errors, final, tstate);
 }
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setGILSwitchInterval
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setGILSwitchInterval
+  (JNIEnv *env, jclass class, jlong microseconds)
+{
+	JyNI_setGILSwitchInterval(microseconds);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILSwitchInterval
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_getGILSwitchInterval
+  (JNIEnv *env, jclass class)
+{
+	return JyNI_getGILSwitchInterval();
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILWaitHistogram
+ * Signature: (Z)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getGILWaitHistogram
+  (JNIEnv *env, jclass class, jboolean currentThread)
+{
+	return JyNI_getGILWaitHistogram(env, class, currentThread);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILForcedSwitches
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_getGILForcedSwitches
+  (JNIEnv *env, jclass class)
+{
+	return JyNI_getGILForcedSwitches();
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getThreadStatePoolStats
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getThreadStatePoolStats
+  (JNIEnv *env, jclass class)
+{
+	return JyTState_getThreadStatePoolStats(env, class);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyNI_PyIter_NextBatch
+ * Signature: (J[Lorg/python/core/PyObject;J)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyNI_1PyIter_1NextBatch
+  (JNIEnv *env, jclass class, jlong self, jobjectArray dest, jlong tstate)
+{
+	return JyNI_PyIter_NextBatch(env, class, self, dest, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    findItem
+ * Signature: (JLorg/python/core/PyObject;IJ)Lorg/python/core/PyObject;
+ */
+JNIEXPORT jobject JNICALL Java_JyNI_JyNI_findItem
+  (JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
+{
+	return JyNI_findItem(env, class, handle, key, keyHash, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_getRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyList_1getRange
+  (JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray dest, jint destPos, jint count, jlong tstate)
+{
+	return JyList_getRange(env, class, handle, index, dest, destPos, count, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_setRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1setRange
+  (JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray src, jint srcPos, jint count, jlong tstate)
+{
+	JyList_setRange(env, class, handle, index, src, srcPos, count, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_insertRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1insertRange
+  (JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray src, jint srcPos, jint count, jlong tstate)
+{
+	JyList_insertRange(env, class, handle, index, src, srcPos, count, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_removeRange
+ * Signature: (JIIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1removeRange
+  (JNIEnv *env, jclass class, jlong handle, jint fromIndex, jint toIndex, jlong tstate)
+{
+	JyList_removeRange(env, class, handle, fromIndex, toIndex, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_drain
+ * Signature: ([LJyNI/JyReferenceMonitor$NativeAction;)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyRefMonitor_1drain
+  (JNIEnv *env, jclass class, jobjectArray dest)
+{
+	return JyRefMonitor_drain(env, class, dest);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_getDropped
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_JyRefMonitor_1getDropped
+  (JNIEnv *env, jclass class)
+{
+	return JyRefMonitor_getDropped(env, class);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_setSampleInterval
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyRefMonitor_1setSampleInterval
+  (JNIEnv *env, jclass class, jlong bytes)
+{
+	JyRefMonitor_setSampleInterval(env, class, bytes);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setNativeEventMask
+ * Signature: (IJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setNativeEventMask
+  (JNIEnv *env, jclass class, jint mask, jlong thresholdNanos)
+{
+	JyNI_setNativeEventMask(mask, thresholdNanos);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getRuntimeStats
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getRuntimeStats
+  (JNIEnv *env, jclass class)
+{
+	return JyNI_getRuntimeStats(env, class);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setProfiling
+ * Signature: (Z)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setProfiling
+  (JNIEnv *env, jclass class, jboolean enable)
+{
+	JyNI_setProfiling(enable);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    resetProfile
+ * Signature: ()V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_resetProfile
+  (JNIEnv *env, jclass class)
+{
+	JyNI_resetProfile();
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getProfileNames
+ * Signature: ()[Ljava/lang/String;
+ */
+JNIEXPORT jobjectArray JNICALL Java_JyNI_JyNI_getProfileNames
+  (JNIEnv *env, jclass class)
+{
+	return JyNI_getProfileNames(env, class);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getProfileData
+ * Signature: (I)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getProfileData
+  (JNIEnv *env, jclass class, jint index)
+{
+	return JyNI_getProfileData(env, class, index);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyGC_writeHeapSnapshot
+ * Signature: (LJyNI/JyNIHeapSnapshot;J)J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_JyGC_1writeHeapSnapshot
+  (JNIEnv *env, jclass class, jobject sink, jlong tstate)
+{
+	return JyGC_writeHeapSnapshot(env, class, sink, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyNI_unsetenv
+ * Signature: (Ljava/lang/String;)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyNI_1unsetenv
+  (JNIEnv *env, jclass class, jstring key)
+{
+	return JyNI_unsetenv(env, key);
+}
@@ -269,22 +269,22 @@
 //#endif
 #include "pythread_JyNI.h"
 
-static PyThread_type_lock interpreter_lock = 0; /* This is the GIL */
+#include "ceval_gil.h" /* This is the GIL */
 //static PyThread_type_lock pending_lock = 0; /* for pending calls */
 //static long main_thread = 0;
 
 int
 PyEval_ThreadsInitialized(void)
 {
-	return interpreter_lock != 0;
+	return gil_created();
 }
 
 void
 PyEval_InitThreads(void)
 {
-	if (interpreter_lock)
+	if (gil_created())
 		return;
-	interpreter_lock = PyThread_allocate_lock();
+	create_gil();
 	//PyThread_acquire_lock(interpreter_lock, 1);
 	//main_thread = PyThread_get_thread_ident();
 }
@@ -292,13 +292,13 @@ PyEval_InitThreads(void)
 void
 PyEval_AcquireLock(void)
 {
-	PyThread_acquire_lock(interpreter_lock, 1);
+	take_gil();
 }
 
 void
 PyEval_ReleaseLock(void)
 {
-	PyThread_release_lock(interpreter_lock);
+	drop_gil();
 }
 //void
 //PyEval_AcquireThread(PyThreadState *tstate)
@@ -376,9 +376,10 @@ PyEval_SaveThread(void)
 	PyThreadState *tstate = PyThreadState_Swap(NULL);
 	if (tstate == NULL)
 		Py_FatalError("PyEval_SaveThread: NULL tstate");
+	_JyNI_HoldsGIL = 0;
 #ifdef WITH_THREAD
-	if (interpreter_lock)
-		PyThread_release_lock(interpreter_lock);
+	if (gil_created())
+		drop_gil();
 #endif
 	return tstate;
 }
@@ -389,12 +390,13 @@ PyEval_RestoreThread(PyThreadState *tstate)
 	if (tstate == NULL)
 		Py_FatalError("PyEval_RestoreThread: NULL tstate");
 #ifdef WITH_THREAD
-	if (interpreter_lock) {
+	if (gil_created()) {
 		int err = errno;
-		PyThread_acquire_lock(interpreter_lock, 1);
+		take_gil();
 		errno = err;
 	}
 #endif
+	_JyNI_HoldsGIL = 1;
 	PyThreadState_Swap(tstate);
 }
 
@@ -0,0 +1,278 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+/*
+ * The GIL, included by ceval.c only.
+ *
+ * On POSIX this follows the switch-interval design of CPython 3.2
+ * (Python/ceval_gil.h there):
+ * A thread that waits longer than the switch interval for the GIL, without
+ * any switch taking place meanwhile, sets drop_request. The holder checks
+ * this flag at its yield points (see JyNI_GIL_Yield) and drops the GIL.
+ * It then waits until another thread actually took it (forced switching),
+ * so it cannot overtake the waiter right away. While a drop is requested,
+ * newly arriving threads queue up instead of barging in.
+ * Uncontended acquisition is a single compare-and-swap like with the
+ * PyThread locks in thread_JyNI.c.
+ *
+ * Each acquisition records its wait time in a histogram with log2-scaled
+ * buckets of microseconds: Bucket 0 counts waits below 1 us, bucket i
+ * counts waits in [2^(i-1), 2^i) us and the last bucket all longer waits.
+ * There is one histogram per thread and a global one.
+ *
+ * On Windows the GIL is still a plain PyThread lock without switch interval
+ * and without histograms.
+ */
+
+#define DEFAULT_SWITCH_INTERVAL 5000 /* microseconds */
+
+static volatile jlong gil_interval = DEFAULT_SWITCH_INTERVAL;
+
+/* Maintained by ENTER_JyNI, LEAVE_JyNI and the PyEval-functions. */
+JyNI_THREAD_LOCAL int _JyNI_HoldsGIL = 0;
+
+#ifndef MS_WINDOWS
+#include <pthread.h>
+#include <time.h>
+#include <errno.h>
+
+static struct {
+	/* 1 while some thread holds the GIL */
+	volatile int locked;
+	/* threads blocked in take_gil */
+	volatile int waiters;
+	/* set by a waiter whose switch interval expired */
+	volatile int drop_request;
+	/* threads blocked in JyNI_GIL_Yield until the next switch */
+	volatile int switch_waiters;
+	/* incremented on every acquisition */
+	volatile unsigned long switch_number;
+	pthread_mutex_t mutex;
+	pthread_cond_t cond;
+	pthread_mutex_t switch_mutex;
+	pthread_cond_t switch_cond;
+} gil = {0, 0, 0, 0, 0,
+		PTHREAD_MUTEX_INITIALIZER, PTHREAD_COND_INITIALIZER,
+		PTHREAD_MUTEX_INITIALIZER, PTHREAD_COND_INITIALIZER};
+
+static int gil_initialized = 0;
+static unsigned long gil_forced_switches = 0; /* written with the GIL held */
+static jlong gil_wait_hist[JyNI_GIL_HIST_BUCKETS]; /* written with the GIL held */
+static jlong gil_acquisitions = 0, gil_wait_total = 0; /* written with the GIL held */
+static JyNI_THREAD_LOCAL jlong gil_wait_hist_local[JyNI_GIL_HIST_BUCKETS];
+
+#define gil_created() gil_initialized
+#define create_gil() gil_initialized = 1
+
+static jlong gil_elapsed_micros(struct timespec* since)
+{
+	struct timespec now;
+	clock_gettime(CLOCK_MONOTONIC, &now);
+	return (jlong) (now.tv_sec - since->tv_sec) * 1000000 +
+			(now.tv_nsec - since->tv_nsec) / 1000;
+}
+
+/* Must be called with the GIL held. */
+static void gil_record_wait(jlong micros)
+{
+	int bucket = 0;
+	++gil_acquisitions;
+	gil_wait_total += micros;
+	while (micros > 0 && bucket < JyNI_GIL_HIST_BUCKETS-1)
+	{
+		micros >>= 1;
+		++bucket;
+	}
+	++gil_wait_hist[bucket];
+	++gil_wait_hist_local[bucket];
+}
+
+/* Must be called with the GIL held. */
+static void gil_taken(void)
+{
+	__sync_fetch_and_add(&gil.switch_number, 1);
+	gil.drop_request = 0;
+	if (gil.switch_waiters)
+	{
+		pthread_mutex_lock(&gil.switch_mutex);
+		pthread_cond_broadcast(&gil.switch_cond);
+		pthread_mutex_unlock(&gil.switch_mutex);
+	}
+}
+
+static void take_gil(void)
+{
+	struct timespec start, deadline;
+	unsigned long saved;
+	jlong interval;
+
+	/* Fast path, no syscall. Don't barge in while a drop is requested: */
+	if (!gil.drop_request && __sync_bool_compare_and_swap(&gil.locked, 0, 1))
+	{
+		gil_taken();
+		gil_record_wait(0);
+		return;
+	}
+	clock_gettime(CLOCK_MONOTONIC, &start);
+	pthread_mutex_lock(&gil.mutex);
+	__sync_fetch_and_add(&gil.waiters, 1);
+	while (!__sync_bool_compare_and_swap(&gil.locked, 0, 1))
+	{
+		saved = gil.switch_number;
+		interval = gil_interval;
+		clock_gettime(CLOCK_REALTIME, &deadline);
+		deadline.tv_sec += interval / 1000000;
+		deadline.tv_nsec += (interval % 1000000) * 1000;
+		if (deadline.tv_nsec >= 1000000000)
+		{
+			deadline.tv_nsec -= 1000000000;
+			++deadline.tv_sec;
+		}
+		if (pthread_cond_timedwait(&gil.cond, &gil.mutex, &deadline) == ETIMEDOUT
+				&& gil.locked && gil.switch_number == saved)
+			gil.drop_request = 1;
+	}
+	__sync_fetch_and_sub(&gil.waiters, 1);
+	pthread_mutex_unlock(&gil.mutex);
+	gil_taken();
+	gil_record_wait(gil_elapsed_micros(&start));
+	if (JyNI_EventEnabled(JyNI_EVENT_GIL_WAIT))
+		JyNI_reportEvent(JyNI_EVENT_GIL_WAIT, NULL,
+				(jlong) start.tv_sec * 1000000000 + start.tv_nsec);
+}
+
+static void drop_gil(void)
+{
+	if (!__sync_bool_compare_and_swap(&gil.locked, 1, 0)) return;
+	if (gil.waiters)
+	{
+		pthread_mutex_lock(&gil.mutex);
+		pthread_cond_signal(&gil.cond);
+		pthread_mutex_unlock(&gil.mutex);
+	}
+}
+
+/*
+ * Drops and re-takes the GIL if another thread has been waiting for it
+ * longer than the switch interval. This is called from PyErr_CheckSignals,
+ * which long-running native code polls regularly (see SIGCHECK in
+ * longobject.c), so it is the counterpart of CPython's eval-breaker.
+ * Like any call that may run Python code, it may switch threads.
+ */
+void JyNI_GIL_Yield(void)
+{
+	PyThreadState* tstate;
+	unsigned long saved;
+	if (!gil.drop_request || !_JyNI_HoldsGIL) return;
+	tstate = _PyThreadState_Current;
+	_PyThreadState_Current = NULL;
+	_JyNI_HoldsGIL = 0;
+	++gil_forced_switches;
+	__sync_fetch_and_add(&gil.switch_waiters, 1);
+	saved = gil.switch_number;
+	drop_gil();
+	/* Forced switching: Wait until some other thread took the GIL. */
+	pthread_mutex_lock(&gil.switch_mutex);
+	while (gil.switch_number == saved)
+		pthread_cond_wait(&gil.switch_cond, &gil.switch_mutex);
+	pthread_mutex_unlock(&gil.switch_mutex);
+	__sync_fetch_and_sub(&gil.switch_waiters, 1);
+	take_gil();
+	_JyNI_HoldsGIL = 1;
+	_PyThreadState_Current = tstate;
+}
+
+void JyNI_GIL_GetWaitHistogram(jlong* dest, int currentThread)
+{
+	int i;
+	if (currentThread)
+	{
+		for (i = 0; i < JyNI_GIL_HIST_BUCKETS; ++i)
+			dest[i] = gil_wait_hist_local[i];
+	} else {
+		/* Read without the GIL like JyNI_GIL_GetStats, so monitoring
+		 * never competes for it. */
+		for (i = 0; i < JyNI_GIL_HIST_BUCKETS; ++i)
+			dest[i] = gil_wait_hist[i];
+	}
+}
+
+jlong JyNI_GIL_GetForcedSwitches(void)
+{
+	return (jlong) gil_forced_switches;
+}
+
+/*
+ * Reads the counters without taking the GIL, so monitoring never
+ * competes for it. The values may therefore be slightly outdated.
+ */
+void JyNI_GIL_GetStats(jlong* acquisitions, jlong* waitMicros)
+{
+	*acquisitions = gil_acquisitions;
+	*waitMicros = gil_wait_total;
+}
+#else
+static PyThread_type_lock interpreter_lock = 0;
+
+#define gil_created() (interpreter_lock != 0)
+#define create_gil() interpreter_lock = PyThread_allocate_lock()
+#define take_gil() PyThread_acquire_lock(interpreter_lock, 1)
+#define drop_gil() PyThread_release_lock(interpreter_lock)
+
+void JyNI_GIL_Yield(void) {}
+
+void JyNI_GIL_GetWaitHistogram(jlong* dest, int currentThread)
+{
+	int i;
+	for (i = 0; i < JyNI_GIL_HIST_BUCKETS; ++i)
+		dest[i] = 0;
+}
+
+jlong JyNI_GIL_GetForcedSwitches(void)
+{
+	return 0;
+}
+
+void JyNI_GIL_GetStats(jlong* acquisitions, jlong* waitMicros)
+{
+	*acquisitions = 0;
+	*waitMicros = 0;
+}
+#endif
+
+void JyNI_GIL_SetSwitchInterval(jlong microseconds)
+{
+	gil_interval = microseconds > 0 ? microseconds : 1;
+}
+
+jlong JyNI_GIL_GetSwitchInterval(void)
+{
+	return gil_interval;
+}
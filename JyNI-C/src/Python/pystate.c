@@ -351,6 +351,7 @@ PyThreadState_DeleteCurrent()
 		Py_FatalError(
 			"PyThreadState_DeleteCurrent: no current tstate");
 	_PyThreadState_Current = NULL;
+	_JyNI_HoldsGIL = 0;
 //	if (autoInterpreterState && PyThread_get_key_value(autoTLSkey) == tstate)
 //		PyThread_delete_key_value(autoTLSkey);
 	tstate_delete_common(tstate);
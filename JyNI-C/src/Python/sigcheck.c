@@ -47,6 +47,9 @@
 int
 PyErr_CheckSignals(void)
 {
+	/* Native code polls this regularly, so it is where the GIL is handed
+	 * over to threads waiting longer than the switch interval: */
+	JyNI_GIL_Yield();
 	if (!PyOS_InterruptOccurred())
 		return 0;
 	PyErr_SetNone(PyExc_KeyboardInterrupt);
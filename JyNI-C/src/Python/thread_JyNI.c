@@ -32,10 +32,28 @@
  *
  *  Created on: 09.11.2013
  *      Author: Stefan Richthofer
+ *
+ *
+ * PyThread_type_lock was originally backed by JyNI.JyLock, i.e. every acquire
+ * and release was a JNI-upcall. Since ENTER_JyNI acquires the interpreter lock,
+ * this made each call from Java into native code cost a native -> Java -> native
+ * round-trip. No Java code shares these locks, so on POSIX they are now native:
+ * An uncontended acquire is a single compare-and-swap on the locked-flag. Only
+ * if that fails, the thread registers as waiter and blocks on a condition
+ * variable. Release clears the flag and only signals if waiters exist.
+ * On Windows the JyLock-based implementation is still used.
+ *
+ * Like JyLock, the native locks count acquisitions, contended acquisitions
+ * and time spent waiting. Since native locks are not visible from Java, the
+ * counters are kept for all locks together, see JyNI_Lock_GetStats.
  */
 
 #include <JyNI.h>
 #include <pythread_JyNI.h>
+#ifndef MS_WINDOWS
+#include <pthread.h>
+#include <time.h>
+#endif
 
 void PyThread__init_thread(void)
 {
@@ -60,6 +78,86 @@ long PyThread_get_thread_ident(void)
 	return (long) (*env)->CallStaticLongMethod(env, JyNIClass, JyNI_getCurrentThreadID);
 }
 
+#ifndef MS_WINDOWS
+static volatile jlong lock_acquisitions = 0, lock_contended = 0, lock_wait_micros = 0;
+
+typedef struct {
+	volatile int locked;
+	volatile int waiters;
+	pthread_mutex_t mut;
+	pthread_cond_t lock_released;
+} JyNI_lock;
+
+PyThread_type_lock PyThread_allocate_lock(void)
+{
+	JyNI_lock* lock = (JyNI_lock*) malloc(sizeof(JyNI_lock));
+	if (!lock) return NULL;
+	lock->locked = 0;
+	lock->waiters = 0;
+	if (pthread_mutex_init(&lock->mut, NULL))
+	{
+		free(lock);
+		return NULL;
+	}
+	if (pthread_cond_init(&lock->lock_released, NULL))
+	{
+		pthread_mutex_destroy(&lock->mut);
+		free(lock);
+		return NULL;
+	}
+	return (PyThread_type_lock) lock;
+}
+
+void PyThread_free_lock(PyThread_type_lock lock)
+{
+	JyNI_lock* thelock = (JyNI_lock*) lock;
+	if (!thelock) return;
+	pthread_cond_destroy(&thelock->lock_released);
+	pthread_mutex_destroy(&thelock->mut);
+	free(thelock);
+}
+
+int PyThread_acquire_lock(PyThread_type_lock lock, int waitflag)
+{
+	JyNI_lock* thelock = (JyNI_lock*) lock;
+	struct timespec start, now;
+	/* Fast path, no syscall: */
+	if (__sync_bool_compare_and_swap(&thelock->locked, 0, 1))
+	{
+		__sync_fetch_and_add(&lock_acquisitions, 1);
+		return 1;
+	}
+	if (!waitflag) return 0;
+	clock_gettime(CLOCK_MONOTONIC, &start);
+	pthread_mutex_lock(&thelock->mut);
+	/* The increment must be visible before we retry; a releaser that still saw
+	 * no waiters has already cleared locked, so the retry below succeeds then. */
+	__sync_fetch_and_add(&thelock->waiters, 1);
+	while (!__sync_bool_compare_and_swap(&thelock->locked, 0, 1))
+		pthread_cond_wait(&thelock->lock_released, &thelock->mut);
+	__sync_fetch_and_sub(&thelock->waiters, 1);
+	pthread_mutex_unlock(&thelock->mut);
+	clock_gettime(CLOCK_MONOTONIC, &now);
+	__sync_fetch_and_add(&lock_wait_micros, (jlong) (now.tv_sec - start.tv_sec) * 1000000 +
+			(now.tv_nsec - start.tv_nsec) / 1000);
+	__sync_fetch_and_add(&lock_contended, 1);
+	__sync_fetch_and_add(&lock_acquisitions, 1);
+	return 1;
+}
+
+void PyThread_release_lock(PyThread_type_lock lock)
+{
+	JyNI_lock* thelock = (JyNI_lock*) lock;
+	/* Releasing an unlocked lock is ignored, like with JyLock before. */
+	if (!__sync_bool_compare_and_swap(&thelock->locked, 1, 0)) return;
+	if (thelock->waiters)
+	{
+		pthread_mutex_lock(&thelock->mut);
+		pthread_cond_signal(&thelock->lock_released);
+		pthread_mutex_unlock(&thelock->mut);
+	}
+}
+#else
 PyThread_type_lock PyThread_allocate_lock(void)
 {
 	env(NULL);
@@ -85,6 +183,25 @@ void PyThread_release_lock(PyThread_type_lock lock)
 	if ((*env)->ExceptionOccurred(env))
 		(*env)->ExceptionClear(env); //this means, lock was already released, but we don't mind this
 }
+#endif
+
+/*
+ * Reads the counters of the native PyThread locks without synchronization,
+ * so the values may be slightly outdated. On Windows all values are 0, there
+ * each JyLock keeps its own counters.
+ */
+void JyNI_Lock_GetStats(jlong* acquisitions, jlong* contended, jlong* waitMicros)
+{
+#ifndef MS_WINDOWS
+	*acquisitions = lock_acquisitions;
+	*contended = lock_contended;
+	*waitMicros = lock_wait_micros;
+#else
+	*acquisitions = 0;
+	*contended = 0;
+	*waitMicros = 0;
+#endif
+}
 
 void PyThread_ReInitTLS(void)
 {
@@ -0,0 +1,238 @@
+'''
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+
+
+Created on 19.10.2026
+
+Measures the cost of JyNI's garbage collection, as opposed to
+test_JyNI_gc.py, which checks its correctness.
+Every scenario builds a large object graph that is mirrored to native
+code, drops it and runs Java GC until the native allocations are back
+at the level before (within 1% of the graph). Scenarios:
+
+  dicts:        A list of dicts that hold native BenchObjects and tuples.
+  cycles:       Reference cycles Jython object -> BenchObject -> Jython object.
+  resurrection: Lists whose native side silently got a dict that is not
+                reachable from Java, so JyNI must resurrect its Java side
+                (see test_gc_list_modify_silent in test_JyNI_gc.py).
+
+Reported per scenario (median of all rounds):
+  build ms:      Time to build and mirror the graph.
+  allocations:   Native allocations caused by the graph.
+  reclaim ms:    Time from dropping the graph until its native memory was freed.
+  GC pause ms:   Time the JVM spent in garbage collections meanwhile.
+  reaper ms:     Time JyWeakReferenceGC spent clearing native references.
+  CStub pre ms:  Time spent in JyNI.preProcessCStubGCCycle, and its cycles.
+  RSS MB:        Resident memory with the graph built.
+Finally the peak resident memory of the process is reported.
+RSS values are only available on Linux.
+
+Usage: JyNIGCBenchmark.py [size [rounds [result.json]]]
+The defaults are size 20000 and three rounds. If a file name is given,
+all measured values are also written to it as JSON.
+Needs DemoExtension and BenchExtension (JyNI-Bench/BenchExtension), both
+built via setup.py.
+'''
+
+import sys
+import os
+import platform
+
+#Since invalid paths do no harm, we add several possible paths here, where
+#the extensions could be located in various build scenarios.
+if os.name == 'java':
+	systm = platform.java_ver()[-1][0].lower().replace(' ', '')
+	if systm == 'macosx':
+		ver = platform.java_ver()[-1][1]
+		ver = ver[:5] # e.g."10.12.4" => "10.12"
+		buildf = '-'.join((systm, ver, 'intel'))
+	else:
+		if systm.startswith('win'):
+			systm = 'win'
+		buildf = '-'.join((systm, os.uname()[-1]))
+else:
+	systm = os.uname()[0].lower()
+	if systm == 'darwin':
+		ver = platform.mac_ver()[0]
+		ver = ver[:5] # e.g."10.12.4" => "10.12"
+		buildf = '-'.join(('macosx', ver, 'intel'))
+	else:
+		buildf = '-'.join((systm, os.uname()[-1]))
+
+sys.path.append('../../DemoExtension/build/lib.'+buildf+'-2.7') #in case you run it from src dir
+sys.path.append('./DemoExtension/build/lib.'+buildf+'-2.7') #in case you run it from base dir
+sys.path.append('../../JyNI-Bench/BenchExtension/build/lib.'+buildf+'-2.7') #in case you run it from src dir
+sys.path.append('./JyNI-Bench/BenchExtension/build/lib.'+buildf+'-2.7') #in case you run it from base dir
+
+import time
+import json
+
+from JyNI import JyNIRuntime
+from java.lang import System
+from java.lang.management import ManagementFactory
+import DemoExtension
+import BenchExtension
+
+SIZE = int(sys.argv[1]) if len(sys.argv) > 1 else 20000
+ROUNDS = int(sys.argv[2]) if len(sys.argv) > 2 else 3
+RESULT_FILE = sys.argv[3] if len(sys.argv) > 3 else None
+TIMEOUT = 60.0
+
+runtime = JyNIRuntime()
+
+class Node(object):
+	pass
+
+def build_dicts(size):
+	graph = []
+	for i in xrange(size):
+		obj = BenchExtension.BenchObject()
+		obj.value = [i]
+		graph.append({'obj': obj, 'key': (i, 'value %i' % i)})
+	BenchExtension.iterate(graph)
+	for d in graph:
+		BenchExtension.dict_next(d)
+	return graph
+
+def build_cycles(size):
+	graph = []
+	for i in xrange(size):
+		node = Node()
+		obj = BenchExtension.BenchObject()
+		obj.value = node
+		node.peer = obj
+		graph.append(node)
+	return graph
+
+def build_resurrection(size):
+	graph = []
+	for i in xrange(size):
+		l = [0, 'test']
+		DemoExtension.listSetIndex(l, 0, {'a': i, 'b': 'value'})
+		graph.append(l)
+	return graph
+
+SCENARIOS = [('dicts', build_dicts), ('cycles', build_cycles),
+		('resurrection', build_resurrection)]
+
+def proc_status(key):
+	'''Returns a value of /proc/self/status in MB, None if not available.'''
+	try:
+		with open('/proc/self/status') as status:
+			for line in status:
+				if line.startswith(key+':'):
+					return int(line.split()[1])/1024.0
+	except IOError:
+		pass
+	return None
+
+def gc_time():
+	total = 0
+	for bean in ManagementFactory.getGarbageCollectorMXBeans():
+		total += max(bean.getCollectionTime(), 0)
+	return total
+
+def counters():
+	return {'gc': gc_time(),
+			'reaper': runtime.getReaperNanos(),
+			'cstubCycles': runtime.getCStubPreprocessingCycles(),
+			'cstub': runtime.getCStubPreprocessingNanos(),
+			'resurrections': runtime.getResurrections()}
+
+def settle():
+	'''Lets earlier garbage go before a measurement.'''
+	for i in range(3):
+		System.gc()
+		time.sleep(0.1)
+
+def collect(target):
+	'''Runs GC until native allocations drop to target. Returns whether they did.'''
+	deadline = time.time()+TIMEOUT
+	while runtime.getNativeAllocations() > target:
+		if time.time() > deadline:
+			return False
+		System.gc()
+		time.sleep(0.01)
+	return True
+
+def run(build):
+	settle()
+	base = runtime.getNativeAllocations()
+	start = time.time()
+	graph = build(SIZE)
+	build_ms = (time.time()-start)*1000
+	allocations = runtime.getNativeAllocations()-base
+	rss = proc_status('VmRSS')
+	before = counters()
+	start = time.time()
+	del graph
+	complete = collect(base+allocations/100)
+	reclaim_ms = (time.time()-start)*1000
+	after = counters()
+	return {'build_ms': build_ms, 'allocations': allocations,
+			'reclaim_ms': reclaim_ms, 'complete': complete,
+			'gc_pause_ms': after['gc']-before['gc'],
+			'reaper_ms': (after['reaper']-before['reaper'])/1e6,
+			'cstub_pre_ms': (after['cstub']-before['cstub'])/1e6,
+			'cstub_pre_cycles': after['cstubCycles']-before['cstubCycles'],
+			'resurrections': after['resurrections']-before['resurrections'],
+			'rss_mb': rss}
+
+def median(values):
+	values = sorted(v for v in values if v is not None)
+	return values[len(values)/2] if values else None
+
+def fmt(value):
+	return '%10.1f' % value if value is not None else '%10s' % 'n/a'
+
+results = {'size': SIZE, 'rounds': ROUNDS, 'scenarios': {}}
+# Warm up JIT, type mirrors and free lists:
+for name, build in SCENARIOS:
+	run(build)
+
+print "JyNI GC benchmark, %i objects per graph, median of %i rounds:" % (SIZE, ROUNDS)
+print "%-13s %10s %10s %10s %10s %10s %10s %7s %10s %7s" % ('scenario', 'build ms',
+		'allocs', 'reclaim ms', 'GC ms', 'reaper ms', 'CStub ms', 'cycles', 'RSS MB', 'resurr')
+for name, build in SCENARIOS:
+	rounds = [run(build) for i in range(ROUNDS)]
+	results['scenarios'][name] = rounds
+	m = dict((key, median([r[key] for r in rounds])) for key in rounds[0])
+	print "%-13s %s %10i %s %s %s %s %7i %s %7i%s" % (name, fmt(m['build_ms']),
+			m['allocations'], fmt(m['reclaim_ms']), fmt(m['gc_pause_ms']),
+			fmt(m['reaper_ms']), fmt(m['cstub_pre_ms']), m['cstub_pre_cycles'],
+			fmt(m['rss_mb']), m['resurrections'],
+			'' if all(r['complete'] for r in rounds) else '  (not completely reclaimed)')
+results['peak_rss_mb'] = proc_status('VmHWM')
+results['cstub_pre_max_ms'] = runtime.getCStubPreprocessingMaxNanos()/1e6
+print "Longest CStub preprocessing: %.2f ms" % results['cstub_pre_max_ms']
+if results['peak_rss_mb'] is not None:
+	print "Peak RSS: %.1f MB" % results['peak_rss_mb']
+if RESULT_FILE:
+	with open(RESULT_FILE, 'w') as out:
+		json.dump(results, out, indent=1)
+	print "Results written to", RESULT_FILE
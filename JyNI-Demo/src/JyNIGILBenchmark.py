@@ -0,0 +1,143 @@
+'''
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+
+
+Created on 19.10.2026
+
+Measures the uncontended cost of entering native code.
+Every call from Jython into a native function passes ENTER_JyNI/LEAVE_JyNI,
+i.e. acquires and releases the interpreter lock once. For comparison the
+script times a plain JyLock acquire/release pair. That is the Java-side part
+of what each entry cost while PyThread-locks were JNI-upcalls into JyLock;
+the two JNI-transitions of that setup come on top of it.
+Finally it lets several threads call native code concurrently and reports the
+GIL wait times recorded by JyNI, see JyNI.getGILWaitHistogram.
+'''
+
+import sys
+#Since invalid paths do no harm, we add several possible paths here, where
+#DemoExtension.so could be located in various build scenarios. If you use different
+#scenarios in parallel, select the one to be used by setting some of the paths as comments.
+
+#built with an IDE in debug mode:
+sys.path.append('../../DemoExtension/Debug') #in case you run it from src dir
+sys.path.append('./DemoExtension/Debug') #in case you run it from base dir
+#built with an IDE in release mode:
+sys.path.append('../../DemoExtension/Release') #in case you run it from src dir
+sys.path.append('./DemoExtension/Release') #in case you run it from base dir
+#built with setup.py on 64 bit machine:
+sys.path.append('../../DemoExtension/build/lib.linux-x86_64-2.7') #in case you run it from src dir
+sys.path.append('./DemoExtension/build/lib.linux-x86_64-2.7') #in case you run it from base dir
+#built with setup.py on 32 bit machine:
+sys.path.append('../../DemoExtension/build/lib.linux-i686-2.7') #in case you run it from src dir
+sys.path.append('./DemoExtension/build/lib.linux-i686-2.7') #in case you run it from base dir
+#built with setup.py on macosx 10.10:
+sys.path.append('../../DemoExtension/build/lib.macosx-10.10-intel-2.7') #in case you run it from src dir
+sys.path.append('./DemoExtension/build/lib.macosx-10.10-intel-2.7') #in case you run it from base dir
+
+import time
+import threading
+
+from JyNI import JyLock, JyNI
+import DemoExtension
+
+ROUNDS = 5
+CALLS = 200000
+
+def bench(func):
+	best = None
+	for r in range(ROUNDS):
+		start = time.time()
+		func()
+		dur = time.time()-start
+		if best is None or dur < best:
+			best = dur
+	return best*1e9/CALLS
+
+def native_calls():
+	f = DemoExtension.intSquare1
+	for i in xrange(CALLS):
+		f(5)
+
+def jython_calls():
+	def f(x):
+		return x*x
+	for i in xrange(CALLS):
+		f(5)
+
+def jylock_pairs():
+	lock = JyLock()
+	for i in xrange(CALLS):
+		lock.acquire(True)
+		lock.release()
+
+# Warm up JIT and native type-mirrors:
+native_calls()
+jython_calls()
+jylock_pairs()
+
+nat = bench(native_calls)
+jy = bench(jython_calls)
+lck = bench(jylock_pairs)
+print "ns per call, best of %i rounds with %i calls each:" % (ROUNDS, CALLS)
+print "  Jython function:          %8.1f" % jy
+print "  native function:          %8.1f" % nat
+print "  native entry overhead:    %8.1f" % (nat-jy)
+print "  JyLock acquire/release:   %8.1f (per entry with former JyLock-based GIL)" % lck
+
+THREADS = 4
+
+def contended_calls():
+	threads = [threading.Thread(target=native_calls) for i in range(THREADS)]
+	for t in threads:
+		t.start()
+	for t in threads:
+		t.join()
+
+def bucket_bound(i, count):
+	if i == 0:
+		return "< 1"
+	elif i == count-1:
+		return ">= %i" % (1 << (i-1))
+	else:
+		return "< %i" % (1 << i)
+
+before = JyNI.getGILWaitHistogram(False)
+forced = JyNI.getGILForcedSwitches()
+contended_calls()
+hist = [a-b for a, b in zip(JyNI.getGILWaitHistogram(False), before)]
+total = sum(hist)
+print
+print "GIL waits of %i threads with %i native calls each (switch interval %i us):" % \
+		(THREADS, CALLS, JyNI.getGILSwitchInterval())
+acc = 0
+for i in range(len(hist)):
+	if hist[i]:
+		acc += hist[i]
+		print "  %10s us: %9i  (%6.2f%% cumulative)" % (bucket_bound(i, len(hist)), hist[i], acc*100.0/total)
+print "  forced switches: %i" % (JyNI.getGILForcedSwitches()-forced)
@@ -0,0 +1,169 @@
+'''
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+
+
+Created on 19.10.2026
+
+Measures Jython startup with JyNI on the classpath. Every round launches
+a fresh JVM per scenario and measures its wall-clock time:
+
+  plain:     Runs "pass". JyNI must not load its native library here,
+             which is checked and reported.
+  extension: Imports DemoExtension. This includes loading JyNI's native
+             library and initializing it. The time of the import alone
+             is measured inside the child and reported separately.
+
+Usage: JyNIStartupBenchmark.py [rounds [result.json [baseline.json]]]
+The default is ten rounds. Reported are median and minimum. If a file name
+is given, all measured values are also written to it as JSON.
+To measure a change before and after, write the results of the old build
+to a file and pass that file as baseline when running the new build. The
+medians are then compared per scenario, most notably the import time of
+the extension scenario, which covers JyNI's native initialization.
+Needs DemoExtension, built via setup.py.
+'''
+
+import sys
+import os
+import platform
+
+#Since invalid paths do no harm, we add several possible paths here, where
+#the extensions could be located in various build scenarios.
+if os.name == 'java':
+	systm = platform.java_ver()[-1][0].lower().replace(' ', '')
+	if systm == 'macosx':
+		ver = platform.java_ver()[-1][1]
+		ver = ver[:5] # e.g."10.12.4" => "10.12"
+		buildf = '-'.join((systm, ver, 'intel'))
+	else:
+		if systm.startswith('win'):
+			systm = 'win'
+		buildf = '-'.join((systm, os.uname()[-1]))
+else:
+	systm = os.uname()[0].lower()
+	if systm == 'darwin':
+		ver = platform.mac_ver()[0]
+		ver = ver[:5] # e.g."10.12.4" => "10.12"
+		buildf = '-'.join(('macosx', ver, 'intel'))
+	else:
+		buildf = '-'.join((systm, os.uname()[-1]))
+
+sys.path.append('../../DemoExtension/build/lib.'+buildf+'-2.7') #in case you run it from src dir
+sys.path.append('./DemoExtension/build/lib.'+buildf+'-2.7') #in case you run it from base dir
+
+paths = [os.path.abspath(p) for p in (
+		'../../DemoExtension/build/lib.'+buildf+'-2.7', #in case you run it from src dir
+		'./DemoExtension/build/lib.'+buildf+'-2.7')] #in case you run it from base dir
+
+import time
+import json
+
+from java.lang import System, ProcessBuilder
+from java.io import BufferedReader, InputStreamReader
+
+ROUNDS = int(sys.argv[1]) if len(sys.argv) > 1 else 10
+RESULT_FILE = sys.argv[2] if len(sys.argv) > 2 else None
+BASELINE_FILE = sys.argv[3] if len(sys.argv) > 3 else None
+
+# The children report whether JyNI loaded its native library:
+REPORT = "from JyNI import JyNIInitializer; print JyNIInitializer.isNativeLoaded()"
+SCENARIOS = [
+	('plain', "pass; "+REPORT),
+	('extension', "import sys, time; sys.path.extend(%r); start = time.time(); "
+			"import DemoExtension; print (time.time()-start)*1000; %s" % (paths, REPORT))]
+
+java = os.path.join(System.getProperty('java.home'), 'bin', 'java')
+command = [java, '-cp', System.getProperty('java.class.path'),
+		'-Djava.library.path='+System.getProperty('java.library.path'),
+		'org.python.util.jython', '-c']
+
+def run(code):
+	# Jython's subprocess does not work on all Java versions, so we use Java's:
+	start = time.time()
+	builder = ProcessBuilder(command+[code])
+	builder.redirectError(ProcessBuilder.Redirect.INHERIT)
+	child = builder.start()
+	reader = BufferedReader(InputStreamReader(child.getInputStream()))
+	lines = []
+	line = reader.readLine()
+	while line is not None:
+		lines.append(line.strip())
+		line = reader.readLine()
+	returncode = child.waitFor()
+	wall_ms = (time.time()-start)*1000
+	if returncode != 0:
+		raise RuntimeError('child exited with %i' % returncode)
+	result = {'wall_ms': wall_ms, 'native_loaded': lines[-1] == 'True'}
+	if len(lines) > 1:
+		result['import_ms'] = float(lines[-2])
+	return result
+
+def median(values):
+	values = sorted(values)
+	return values[len(values)/2]
+
+results = {'rounds': ROUNDS, 'scenarios': {}}
+# Warm up file system caches:
+for name, code in SCENARIOS:
+	run(code)
+
+print "JyNI startup benchmark, %i rounds:" % ROUNDS
+print "%-10s %12s %12s %12s %12s %8s" % ('scenario', 'median ms', 'min ms',
+		'import ms', 'min import', 'native')
+for name, code in SCENARIOS:
+	rounds = [run(code) for i in range(ROUNDS)]
+	results['scenarios'][name] = rounds
+	walls = [r['wall_ms'] for r in rounds]
+	imports = [r['import_ms'] for r in rounds if 'import_ms' in r]
+	print "%-10s %12.1f %12.1f %12s %12s %8s" % (name, median(walls), min(walls),
+			'%.1f' % median(imports) if imports else 'n/a',
+			'%.1f' % min(imports) if imports else 'n/a',
+			'loaded' if rounds[0]['native_loaded'] else 'no')
+if BASELINE_FILE:
+	with open(BASELINE_FILE) as inp:
+		baseline = json.load(inp)['scenarios']
+	print
+	print "Compared to baseline %s (medians, negative difference is faster):" % BASELINE_FILE
+	print "%-10s %12s %12s %12s %12s" % ('scenario', 'before ms', 'after ms',
+			'import before', 'import after')
+	for name, code in SCENARIOS:
+		if name not in baseline: continue
+		before = baseline[name]
+		after = results['scenarios'][name]
+		line = "%-10s %12.1f %12.1f" % (name, median([r['wall_ms'] for r in before]),
+				median([r['wall_ms'] for r in after]))
+		imports_before = [r['import_ms'] for r in before if 'import_ms' in r]
+		imports_after = [r['import_ms'] for r in after if 'import_ms' in r]
+		if imports_before and imports_after:
+			line += " %12.1f %12.1f (%+.1f)" % (median(imports_before), median(imports_after),
+					median(imports_after)-median(imports_before))
+		print line
+if RESULT_FILE:
+	with open(RESULT_FILE, 'w') as out:
+		json.dump(results, out, indent=1)
+	print "Results written to", RESULT_FILE
@@ -130,12 +130,70 @@ class TestJyNI(unittest.TestCase):
 		self.assertFalse(DemoExtension.intToBoolean(0))
 		self.assertIsNone(DemoExtension.intToBoolean(2))
 
+	def test_small_int_identity(self):
+		# Small ints are preallocated on both sides and linked to each other.
+		# Passing them through native code must yield the very same objects.
+		l = [None]
+		for i in range(-5, 257):
+			DemoExtension.listSetIndex(l, 0, i)
+			self.assertIs(l[0], i)
+			self.assertEqual(l[0], i)
+
 	def test_native_list_access_writing(self):
 		l = ["Hello", "lovely", "world"]
 		DemoExtension.listModifyTest(l, 2)
 		self.assertEqual(l[2], "natively modified")
 		self.assertEqual(len(l), 3)
 
+	def test_native_list_bulk_access(self):
+		# Passing a list to native code makes JyList its backend, so the
+		# following operations run on the native list. It is longer than
+		# JYSYNC_LIST_CHUNK in JySync.c (256) and JyList.CHUNK (64), so
+		# transfers in both directions cross chunk boundaries.
+		n = 600
+		l = range(n)
+		ref = range(n)
+		DemoExtension.listModifyTest(l, 0)
+		ref[0] = "natively modified"
+		self.assertEqual(len(l), n)
+		self.assertEqual(list(l), ref)
+
+		# iteration across chunk boundaries
+		count = 0
+		for x, y in zip(l, ref):
+			self.assertEqual(x, y)
+			count += 1
+		self.assertEqual(count, n)
+		self.assertEqual([x for x in l[250:262]], range(250, 262))
+
+		# slicing
+		self.assertEqual(l[60:70], ref[60:70])
+		self.assertEqual(l[250:520], ref[250:520])
+		self.assertEqual(l[::7], ref[::7])
+		self.assertEqual(l[-3:], ref[-3:])
+
+		# subList().clear(), also used by del on slices
+		l.subList(10, 20).clear()
+		del ref[10:20]
+		del l[100:400]
+		del ref[100:400]
+		self.assertEqual(len(l), len(ref))
+		self.assertEqual(list(l), ref)
+
+		# bulk addAll at an index, also used by slice assignment
+		l.addAll(3, ["a", "b", "c"])
+		ref[3:3] = ["a", "b", "c"]
+		l[5:5] = range(1000, 1300)
+		ref[5:5] = range(1000, 1300)
+		self.assertEqual(len(l), len(ref))
+		self.assertEqual(list(l), ref)
+
+		# native code sees the modified list
+		DemoExtension.listSetIndex(l, len(l)-1, "last")
+		ref[-1] = "last"
+		self.assertEqual(l[-1], "last")
+		self.assertEqual(list(l), ref)
+
 	#Passing self-containing objects to native code used to crash JyNI.
 	#This test proves that this is fixed.
 	def test_native_list_selfcontaining(self):
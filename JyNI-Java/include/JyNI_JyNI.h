@@ -122,10 +122,10 @@ JNIEXPORT jobject JNICALL Java_JyNI_JyNI_PyObjectAsPyString
 /*
  * Class:     JyNI_JyNI
  * Method:    lookupFromHandle
- * Signature: (J)Lorg/python/core/PyObject;
+ * Signature: (JJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_lookupFromHandle
-  (JNIEnv *, jclass, jlong);
+  (JNIEnv *, jclass, jlong, jlong);
 
 /*
  * Class:     JyNI_JyNI
@@ -154,34 +154,34 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_nativeDecref
 /*
  * Class:     JyNI_JyNI
  * Method:    getNativeTypeName
- * Signature: (J)Ljava/lang/String;
+ * Signature: (JJ)Ljava/lang/String;
  */
 JNIEXPORT jstring JNICALL Java_JyNI_JyNI_getNativeTypeName
-  (JNIEnv *, jclass, jlong);
+  (JNIEnv *, jclass, jlong, jlong);
 
 /*
  * Class:     JyNI_JyNI
  * Method:    getItem
- * Signature: (JLorg/python/core/PyObject;J)Lorg/python/core/PyObject;
+ * Signature: (JLorg/python/core/PyObject;IJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_getItem
-  (JNIEnv *, jclass, jlong, jobject, jlong);
+  (JNIEnv *, jclass, jlong, jobject, jint, jlong);
 
 /*
  * Class:     JyNI_JyNI
  * Method:    setItem
- * Signature: (JLorg/python/core/PyObject;Lorg/python/core/PyObject;J)I
+ * Signature: (JLorg/python/core/PyObject;ILorg/python/core/PyObject;IJ)I
  */
 JNIEXPORT jint JNICALL Java_JyNI_JyNI_setItem
-  (JNIEnv *, jclass, jlong, jobject, jobject, jlong);
+  (JNIEnv *, jclass, jlong, jobject, jint, jobject, jint, jlong);
 
 /*
  * Class:     JyNI_JyNI
  * Method:    delItem
- * Signature: (JLorg/python/core/PyObject;J)I
+ * Signature: (JLorg/python/core/PyObject;IJ)I
  */
 JNIEXPORT jint JNICALL Java_JyNI_JyNI_delItem
-  (JNIEnv *, jclass, jlong, jobject, jlong);
+  (JNIEnv *, jclass, jlong, jobject, jint, jlong);
 
 /*
  * Class:     JyNI_JyNI
@@ -282,10 +282,10 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_JyNIDebugMessage
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_get
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1get
-  (JNIEnv *, jclass, jlong, jint);
+  (JNIEnv *, jclass, jlong, jint, jlong);
 
 /*
  * Class:     JyNI_JyNI
@@ -298,26 +298,26 @@ JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyList_1size
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_set
- * Signature: (JILorg/python/core/PyObject;J)Lorg/python/core/PyObject;
+ * Signature: (JILorg/python/core/PyObject;JJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1set
-  (JNIEnv *, jclass, jlong, jint, jobject, jlong);
+  (JNIEnv *, jclass, jlong, jint, jobject, jlong, jlong);
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_add
- * Signature: (JILorg/python/core/PyObject;J)V
+ * Signature: (JILorg/python/core/PyObject;JJ)V
  */
 JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1add
-  (JNIEnv *, jclass, jlong, jint, jobject, jlong);
+  (JNIEnv *, jclass, jlong, jint, jobject, jlong, jlong);
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_remove
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1remove
-  (JNIEnv *, jclass, jlong, jint);
+  (JNIEnv *, jclass, jlong, jint, jlong);
 
 /*
  * Class:     JyNI_JyNI
@@ -754,18 +754,18 @@ JNIEXPORT jboolean JNICALL Java_JyNI_JyNI_JyGC_1clearNativeReferences
 /*
  * Class:     JyNI_JyNI
  * Method:    JyGC_restoreCStubBackend
- * Signature: (JLorg/python/core/PyObject;LJyNI/gc/JyGCHead;)V
+ * Signature: (JLorg/python/core/PyObject;LJyNI/gc/JyGCHead;J)V
  */
 JNIEXPORT void JNICALL Java_JyNI_JyNI_JyGC_1restoreCStubBackend
-  (JNIEnv *, jclass, jlong, jobject, jobject);
+  (JNIEnv *, jclass, jlong, jobject, jobject, jlong);
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyGC_validateGCHead
- * Signature: (J[J)Z
+ * Signature: (J[JJ)Z
  */
 JNIEXPORT jboolean JNICALL Java_JyNI_JyNI_JyGC_1validateGCHead
-  (JNIEnv *, jclass, jlong, jlongArray);
+  (JNIEnv *, jclass, jlong, jlongArray, jlong);
 
 /*
  * Class:     JyNI_JyNI
@@ -807,6 +807,182 @@ JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyNI_1mbcs_1encode
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyNI_1mbcs_1decode
   (JNIEnv *, jclass, jobject, jobject, jobject, jlong);
 
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setGILSwitchInterval
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setGILSwitchInterval
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILSwitchInterval
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_getGILSwitchInterval
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILWaitHistogram
+ * Signature: (Z)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getGILWaitHistogram
+  (JNIEnv *, jclass, jboolean);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILForcedSwitches
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_getGILForcedSwitches
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getThreadStatePoolStats
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getThreadStatePoolStats
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyNI_PyIter_NextBatch
+ * Signature: (J[Lorg/python/core/PyObject;J)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyNI_1PyIter_1NextBatch
+  (JNIEnv *, jclass, jlong, jobjectArray, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    findItem
+ * Signature: (JLorg/python/core/PyObject;IJ)Lorg/python/core/PyObject;
+ */
+JNIEXPORT jobject JNICALL Java_JyNI_JyNI_findItem
+  (JNIEnv *, jclass, jlong, jobject, jint, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_getRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyList_1getRange
+  (JNIEnv *, jclass, jlong, jint, jobjectArray, jint, jint, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_setRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1setRange
+  (JNIEnv *, jclass, jlong, jint, jobjectArray, jint, jint, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_insertRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1insertRange
+  (JNIEnv *, jclass, jlong, jint, jobjectArray, jint, jint, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_removeRange
+ * Signature: (JIIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1removeRange
+  (JNIEnv *, jclass, jlong, jint, jint, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_drain
+ * Signature: ([LJyNI/JyReferenceMonitor$NativeAction;)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyRefMonitor_1drain
+  (JNIEnv *, jclass, jobjectArray);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_getDropped
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_JyRefMonitor_1getDropped
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_setSampleInterval
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyRefMonitor_1setSampleInterval
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setNativeEventMask
+ * Signature: (IJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setNativeEventMask
+  (JNIEnv *, jclass, jint, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getRuntimeStats
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getRuntimeStats
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setProfiling
+ * Signature: (Z)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setProfiling
+  (JNIEnv *, jclass, jboolean);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    resetProfile
+ * Signature: ()V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_resetProfile
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getProfileNames
+ * Signature: ()[Ljava/lang/String;
+ */
+JNIEXPORT jobjectArray JNICALL Java_JyNI_JyNI_getProfileNames
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getProfileData
+ * Signature: (I)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getProfileData
+  (JNIEnv *, jclass, jint);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyGC_writeHeapSnapshot
+ * Signature: (LJyNI/JyNIHeapSnapshot;J)J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_JyGC_1writeHeapSnapshot
+  (JNIEnv *, jclass, jobject, jlong);
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyNI_unsetenv
+ * Signature: (Ljava/lang/String;)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyNI_1unsetenv
+  (JNIEnv *, jclass, jstring);
+
 #ifdef __cplusplus
 }
 #endif
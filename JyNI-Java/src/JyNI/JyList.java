@@ -31,7 +31,12 @@
 package JyNI;
 
 import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.python.core.Py;
 import org.python.core.PyObject;
 
 import JyNI.gc.*;
@@ -79,6 +84,10 @@ import java.lang.ref.WeakReference;
  * replacing it should work like mentioned in the second discussion.
  * (By the way, I am not involved in any of them, I just found them
  * and thought it would be useful here.)
+ *
+ * Since every access crosses JNI, iteration, toArray, addAll and
+ * sub lists transfer contiguous ranges of up to {@link #CHUNK}
+ * items (or all at once) per native call.
  */
 public class JyList extends AbstractList<PyObject> implements TraversableGCHead, PyObjectGCHead {
 	long backendHandle;
@@ -201,7 +210,7 @@ public class JyList extends AbstractList<PyObject> implements TraversableGCHead,
 
 	public PyObject get(int index) {
 		//System.out.println(backendHandle+" JyList-get "+index);
-		return JyNI.JyList_get(backendHandle, index);
+		return JyNI.JyList_get(backendHandle, index, JyTState.prepareNativeThreadState(Py.getThreadState()));
 	}
 
 	public int size() {
@@ -210,14 +219,214 @@ public class JyList extends AbstractList<PyObject> implements TraversableGCHead,
 	}
 
 	public PyObject set(int index, PyObject o) {
-		return JyNI.JyList_set(backendHandle, index, o, JyNI.lookupNativeHandle(o));
+		return JyNI.JyList_set(backendHandle, index, o, JyNI.lookupNativeHandle(o), JyTState.prepareNativeThreadState(Py.getThreadState()));
 	}
 
 	public void add(int index, PyObject o) {
-		JyNI.JyList_add(backendHandle, index, o, JyNI.lookupNativeHandle(o));
+		JyNI.JyList_add(backendHandle, index, o, JyNI.lookupNativeHandle(o), JyTState.prepareNativeThreadState(Py.getThreadState()));
 	}
 
 	public PyObject remove(int index) {
-		return JyNI.JyList_remove(backendHandle, index);
+		return JyNI.JyList_remove(backendHandle, index, JyTState.prepareNativeThreadState(Py.getThreadState()));
+	}
+
+	/** Number of items an iterator fetches per native call. */
+	public static final int CHUNK = 64;
+
+	@Override
+	public Object[] toArray() {
+		return rangeToArray(0, size());
+	}
+
+	@Override
+	public <T> T[] toArray(T[] a) {
+		return rangeToArray(0, size(), a);
+	}
+
+	@Override
+	public Iterator<PyObject> iterator() {
+		return new ChunkIterator(null, 0, -1);
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends PyObject> c) {
+		return addAll(size(), c);
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends PyObject> c) {
+		Object[] items = c.toArray();
+		if (items.length == 0) return false;
+		JyNI.JyList_insertRange(backendHandle, index, items, 0, items.length, JyTState.prepareNativeThreadState(Py.getThreadState()));
+		return true;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		JyNI.JyList_removeRange(backendHandle, fromIndex, toIndex, JyTState.prepareNativeThreadState(Py.getThreadState()));
+	}
+
+	@Override
+	public List<PyObject> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("fromIndex: "+fromIndex+", toIndex: "+toIndex);
+		return new SubList(fromIndex, toIndex - fromIndex);
+	}
+
+	/**
+	 * Replaces the items starting at index by the given ones with a single
+	 * native call.
+	 */
+	public void setRange(int index, PyObject[] items) {
+		if (index < 0 || index + items.length > size())
+			throw new IndexOutOfBoundsException("index: "+index+", length: "+items.length);
+		JyNI.JyList_setRange(backendHandle, index, items, 0, items.length, JyTState.prepareNativeThreadState(Py.getThreadState()));
+	}
+
+	protected Object[] rangeToArray(int fromIndex, int count) {
+		Object[] result = new Object[count];
+		int n = JyNI.JyList_getRange(backendHandle, fromIndex, result, 0, count, JyTState.prepareNativeThreadState(Py.getThreadState()));
+		return n == count ? result : Arrays.copyOf(result, n);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> T[] rangeToArray(int fromIndex, int count, T[] a) {
+		T[] result = a.length >= count ? a : (T[]) java.lang.reflect.Array.newInstance(
+				a.getClass().getComponentType(), count);
+		int n = JyNI.JyList_getRange(backendHandle, fromIndex, result, 0, count, JyTState.prepareNativeThreadState(Py.getThreadState()));
+		if (n < result.length) result[n] = null;
+		return result;
+	}
+
+	/**
+	 * Iterates over the list or a sub list, fetching CHUNK items per native call.
+	 * Like the other JyList operations it does not detect concurrent modification.
+	 */
+	protected class ChunkIterator implements Iterator<PyObject> {
+		protected final SubList owner;
+		protected final Object[] buffer = new Object[CHUNK];
+		protected int index, end, pos = 0, count = 0, last = -1;
+
+		/* end < 0 means up to the current end of the list. */
+		protected ChunkIterator(SubList owner, int index, int end) {
+			this.owner = owner;
+			this.index = index;
+			this.end = end;
+		}
+
+		public boolean hasNext() {
+			if (pos < count) return true;
+			int n = end < 0 ? CHUNK : Math.min(CHUNK, end - index);
+			if (n <= 0) return false;
+			Arrays.fill(buffer, 0, count, null);
+			count = JyNI.JyList_getRange(backendHandle, index, buffer, 0, n, JyTState.prepareNativeThreadState(Py.getThreadState()));
+			pos = 0;
+			return count > 0;
+		}
+
+		public PyObject next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			last = index++;
+			return (PyObject) buffer[pos++];
+		}
+
+		public void remove() {
+			if (last < 0) throw new IllegalStateException();
+			if (owner != null) owner.size--;
+			JyList.this.remove(last);
+			index = last;
+			last = -1;
+			if (end >= 0) --end;
+			// The buffered items are still valid, they just moved one position down.
+		}
+	}
+
+	/**
+	 * View of a range of this list that accesses it in bulk as well.
+	 */
+	protected class SubList extends AbstractList<PyObject> {
+		protected final int offset;
+		protected int size;
+
+		protected SubList(int offset, int size) {
+			this.offset = offset;
+			this.size = size;
+		}
+
+		protected void checkIndex(int index, int bound) {
+			if (index < 0 || index >= bound)
+				throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+
+		public PyObject get(int index) {
+			checkIndex(index, size);
+			return JyList.this.get(offset + index);
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public PyObject set(int index, PyObject o) {
+			checkIndex(index, size);
+			return JyList.this.set(offset + index, o);
+		}
+
+		public void add(int index, PyObject o) {
+			checkIndex(index, size+1);
+			JyNI.JyList_insertRange(backendHandle, offset + index, new Object[] {o}, 0, 1, JyTState.prepareNativeThreadState(Py.getThreadState()));
+			++size;
+		}
+
+		public PyObject remove(int index) {
+			checkIndex(index, size);
+			PyObject result = get(index);
+			JyList.this.remove(offset + index);
+			--size;
+			return result;
+		}
+
+		@Override
+		public boolean addAll(int index, Collection<? extends PyObject> c) {
+			checkIndex(index, size+1);
+			Object[] items = c.toArray();
+			if (items.length == 0) return false;
+			JyNI.JyList_insertRange(backendHandle, offset + index, items, 0, items.length, JyTState.prepareNativeThreadState(Py.getThreadState()));
+			size += items.length;
+			return true;
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends PyObject> c) {
+			return addAll(size, c);
+		}
+
+		@Override
+		protected void removeRange(int fromIndex, int toIndex) {
+			JyNI.JyList_removeRange(backendHandle, offset + fromIndex, offset + toIndex, JyTState.prepareNativeThreadState(Py.getThreadState()));
+			size -= toIndex - fromIndex;
+		}
+
+		@Override
+		public Object[] toArray() {
+			return rangeToArray(offset, size);
+		}
+
+		@Override
+		public <T> T[] toArray(T[] a) {
+			return rangeToArray(offset, size, a);
+		}
+
+		@Override
+		public Iterator<PyObject> iterator() {
+			return new ChunkIterator(this, offset, offset + size);
+		}
+
+		@Override
+		public List<PyObject> subList(int fromIndex, int toIndex) {
+			if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+				throw new IndexOutOfBoundsException("fromIndex: "+fromIndex+", toIndex: "+toIndex);
+			return new SubList(offset + fromIndex, toIndex - fromIndex);
+		}
 	}
 }
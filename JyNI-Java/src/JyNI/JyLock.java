@@ -30,54 +30,145 @@
 
 package JyNI;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+
 /**
  * This class provides a basic lock implementation equivalent to
  * org.python.modules.thread.PyLock, but without the overhead of
  * inheriting PyObject. This basic lock is intended to provide the
  * locking features of PyThread.h.
+ * Note that on POSIX systems JyNI implements PyThread.h locks natively,
+ * so this class is only used by the Windows build.
+ *
+ * The lock is built on AbstractQueuedSynchronizer, so a release wakes
+ * only the longest waiting thread rather than all of them, and waiting
+ * threads park instead of blocking in a monitor. In fair mode a
+ * thread does not barge ahead of queued waiters. Like a PyThread-lock
+ * it is not reentrant and may be released by any thread.
+ *
+ * Counters for acquisitions, contended acquisitions and time spent
+ * waiting are kept per lock to help gauge lock pressure.
  *
  * @author Stefan Richthofer
  *
  */
 public class JyLock {
 
-    private boolean locked = false;
+    private static final class Sync extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = 1L;
+        private final boolean fair;
+
+        Sync(boolean fair) {
+            this.fair = fair;
+        }
+
+        @Override
+        protected boolean tryAcquire(int ignore) {
+            if (fair && hasQueuedPredecessors()) return false;
+            return compareAndSetState(0, 1);
+        }
+
+        @Override
+        protected boolean tryRelease(int ignore) {
+            if (!compareAndSetState(1, 0))
+                throw new IllegalStateException("lock not acquired");
+            return true;
+        }
+
+        boolean isLocked() {
+            return getState() != 0;
+        }
+    }
+
+    private final Sync sync;
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong contendedAcquisitions = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public JyLock() {
+        this(false);
+    }
+
+    public JyLock(boolean fair) {
+        sync = new Sync(fair);
+    }
 
     public boolean acquire() {
         return acquire(true);
     }
 
-    public synchronized boolean acquire(boolean waitflag) {
-        if (waitflag) {
-            while (locked) {
-                try {
-                    wait();
-                } catch (InterruptedException e) {
-                    //System.err.println("Interrupted thread");
-                }
-            }
-            locked = true;
+    public boolean acquire(boolean waitflag) {
+        return acquireTimed(waitflag ? -1 : 0);
+    }
+
+    /**
+     * Semantics of PyThread_acquire_lock_timed: Waits at most
+     * the given number of microseconds. A negative value means to
+     * wait without limit, 0 means not to wait at all.
+     * Interrupts do not abort the wait, but are preserved.
+     */
+    public boolean acquireTimed(long microseconds) {
+        if (sync.tryAcquire(1)) {
+            acquisitions.incrementAndGet();
             return true;
+        }
+        if (microseconds == 0) return false;
+        long start = System.nanoTime();
+        boolean result = true;
+        if (microseconds < 0) {
+            sync.acquire(1);
         } else {
-            if (locked) {
-                return false;
-            } else {
-                locked = true;
-                return true;
+            long deadline = start+TimeUnit.MICROSECONDS.toNanos(microseconds);
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    result = sync.tryAcquireNanos(1, deadline-System.nanoTime());
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
             }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        waitNanos.addAndGet(System.nanoTime()-start);
+        if (result) {
+            acquisitions.incrementAndGet();
+            contendedAcquisitions.incrementAndGet();
         }
+        return result;
     }
 
-    public synchronized void release() {
-        if (locked) {
-            locked = false;
-            notifyAll();
-        } else {
-            throw new IllegalStateException("lock not acquired");
-        }
+    public void release() {
+        sync.release(1);
     }
 
     public boolean locked() {
-        return locked;
+        return sync.isLocked();
+    }
+
+    public boolean isFair() {
+        return sync.fair;
+    }
+
+    /** Number of successful acquisitions. */
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    /** Number of successful acquisitions that had to wait. */
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions.get();
+    }
+
+    /** Total time threads spent waiting for this lock, including timed out attempts. */
+    public long getWaitNanos() {
+        return waitNanos.get();
+    }
+
+    /** Number of threads currently waiting for this lock (estimate). */
+    public int getQueueLength() {
+        return sync.getQueueLength();
     }
-}
\ No newline at end of file
+}
@@ -40,8 +40,16 @@ import org.python.modules._weakref.*;
 import org.python.core.io.FileIO;
 
 import java.lang.reflect.Field;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantLock;
 import java.io.File;
 import java.nio.file.FileSystems;
@@ -75,7 +83,8 @@ public class JyNI {
 
 	public static final int RTLD_JyNI_DEFAULT = RTLD_LAZY | RTLD_GLOBAL;//RTLD_NOW;
 
-	public static final String DLOPENFLAGS_NAME = "dlopenflags".intern();
+	/* A compile-time constant, so JyNIInitializer can use it without loading JyNI. */
+	public static final String DLOPENFLAGS_NAME = "dlopenflags";
 
 	public static final int Py_LT = 0;
 	public static final int Py_LE = 1;
@@ -216,6 +225,17 @@ public class JyNI {
 					}
 					//System.out.println("initJyNI done");
 					loaded = true;
+					String switchInterval = System.getProperty("jyni.switchinterval");
+					if (switchInterval != null) {
+						try {
+							setGILSwitchInterval(Long.parseLong(switchInterval.trim()));
+						} catch (NumberFormatException nfe) {
+							System.err.println("JyNI-Warning: Ignoring malformed jyni.switchinterval: "+switchInterval);
+						}
+					}
+					JyNIEvents.init();
+					JyNIRuntime.register();
+					JyNIInitializer.nativeLoaded = true;
 				}
 			}
 			if (!loaded)
@@ -238,14 +258,16 @@ public class JyNI {
 	public static native PyObject repr(long peerHandle, long tstate);
 	public static native String PyObjectAsString(long peerHandle, long tstate);
 	public static native PyString PyObjectAsPyString(long peerHandle, long tstate);
-	public static native PyObject lookupFromHandle(long handle);
+	public static native PyObject lookupFromHandle(long handle, long tstate);
 	public static native int currentNativeRefCount(long handle);
 	public static native void nativeIncref(long handle, long tstate);
 	public static native void nativeDecref(long handle, long tstate);
-	public static native String getNativeTypeName(long handle);
-	public static native PyObject getItem(long peerHandle, PyObject key, long tstate);
-	public static native int setItem(long peerHandle, PyObject key, PyObject value, long tstate);
-	public static native int delItem(long peerHandle, PyObject key, long tstate);
+	public static native String getNativeTypeName(long handle, long tstate);
+	public static native PyObject getItem(long peerHandle, PyObject key, int keyHash, long tstate);
+	public static native PyObject findItem(long peerHandle, PyObject key, int keyHash, long tstate);
+	public static native int setItem(long peerHandle, PyObject key, int keyHash,
+			PyObject value, int valueHash, long tstate);
+	public static native int delItem(long peerHandle, PyObject key, int keyHash, long tstate);
 	public static native int PyObjectLength(long peerHandle, long tstate);
 	public static native PyObject descr_get(long self, PyObject obj, PyObject type, long tstate);
 	public static native int descr_set(long self, PyObject obj, PyObject value, long tstate);
@@ -253,21 +275,27 @@ public class JyNI {
 	public static native PyObject JyNI_PyObject_RichCompare(long self, PyObject o, int op, long tstate);
 	public static native PyObject JyNI_PyObject_GetIter(long self, long tstate);
 	public static native PyObject JyNI_PyIter_Next(long self, long tstate);
+	public static native int JyNI_PyIter_NextBatch(long self, PyObject[] dest, long tstate);
 
 	//ThreadState-stuff:
 	public static native void setNativeRecursionLimit(int nativeRecursionLimit);
 	public static native void setNativeCallDepth(long nativeHandle, int callDepth);
 	public static native long initNativeThreadState(JyTState jts, ThreadState ts);
 	public static native void clearNativeThreadState(long nativeHandle);
+	public static native long[] getThreadStatePoolStats();
 
 	public static native void JyNIDebugMessage(long mode, long value, String message);
 
 	//List-Stuff:
-	public static native PyObject JyList_get(long handle, int index);
+	public static native PyObject JyList_get(long handle, int index, long tstate);
 	public static native int JyList_size(long handle);
-	public static native PyObject JyList_set(long handle, int index, PyObject o, long pyObject);
-	public static native void JyList_add(long handle, int index, PyObject o, long pyObject);
-	public static native PyObject JyList_remove(long handle, int index);
+	public static native PyObject JyList_set(long handle, int index, PyObject o, long pyObject, long tstate);
+	public static native void JyList_add(long handle, int index, PyObject o, long pyObject, long tstate);
+	public static native PyObject JyList_remove(long handle, int index, long tstate);
+	public static native int JyList_getRange(long handle, int index, Object[] dest, int destPos, int count, long tstate);
+	public static native void JyList_setRange(long handle, int index, Object[] src, int srcPos, int count, long tstate);
+	public static native void JyList_insertRange(long handle, int index, Object[] src, int srcPos, int count, long tstate);
+	public static native void JyList_removeRange(long handle, int fromIndex, int toIndex, long tstate);
 
 	//Set-Stuff:
 	public static native void JySet_putSize(long handle, int size);
@@ -277,6 +305,47 @@ public class JyNI {
 	public static native PyObject PyCFunction_getModule(long handle, long tstate);
 	public static native PyObject JyNI_CMethodDef_bind(long handle, PyObject bindTo, long tstate);
 
+	//GIL-scheduling:
+	/**
+	 * Sets how long (in microseconds) a thread waits for the GIL before it
+	 * requests the holder to hand it over. The holder yields at its next call
+	 * to PyErr_CheckSignals, which long-running native code polls regularly.
+	 * Default is 5000, i.e. 5 ms. Can also be set via the system property
+	 * "jyni.switchinterval". Has no effect on Windows yet.
+	 */
+	public static native void setGILSwitchInterval(long microseconds);
+	public static native long getGILSwitchInterval();
+	/**
+	 * Returns the GIL wait times, either of the calling thread or of all threads,
+	 * as a histogram of 24 log2-scaled buckets of microseconds: Bucket 0 counts
+	 * waits below 1 us, bucket i waits in [2^(i-1), 2^i) us and the last bucket
+	 * all longer waits.
+	 */
+	public static native long[] getGILWaitHistogram(boolean currentThread);
+	/**
+	 * Returns how often a thread handed over the GIL because another thread
+	 * exceeded the switch interval.
+	 */
+	public static native long getGILForcedSwitches();
+	/**
+	 * Enables reporting of native events to {@link JyNIEvents}.
+	 * Internal API, called by JyNIEvents.
+	 */
+	public static native void setNativeEventMask(int mask, long thresholdNanos);
+	/**
+	 * Returns native counters, see {@link JyNIRuntime} for the layout.
+	 * Values are read without synchronization and may be slightly outdated.
+	 */
+	public static native long[] getRuntimeStats();
+	/**
+	 * Native side of {@link JyNIProfiler}.
+	 * Internal API, use JyNIProfiler instead.
+	 */
+	public static native void setProfiling(boolean enable);
+	public static native void resetProfile();
+	public static native String[] getProfileNames();
+	public static native long[] getProfileData(int index);
+
 	//Number protocol:
 	//public static native int JyNI_PyNumber_Check(long o, long tstate);
 	public static native PyObject JyNI_PyNumber_Add(long o1, PyObject o2, long tstate);
@@ -346,6 +415,9 @@ public class JyNI {
 
 	//ReferenceMonitor- and GC-Stuff:
 	public static native void JyRefMonitor_setMemDebugFlags(int flags);
+	public static native int JyRefMonitor_drain(JyReferenceMonitor.NativeAction[] dest);
+	public static native long JyRefMonitor_getDropped();
+	public static native void JyRefMonitor_setSampleInterval(long bytes);
 
 	/**
 	 * Returns true, if the whole graph could be deleted (valid graph).
@@ -359,16 +431,18 @@ public class JyNI {
 	 * JyGC_clearNativeReferences waits (via waitForCStubs) until all CStub-finalizers
 	 * are done.
 	 */
-	public static native void JyGC_restoreCStubBackend(long handle, PyObject backend, JyGCHead newHead);
+	public static native void JyGC_restoreCStubBackend(long handle, PyObject backend, JyGCHead newHead, long tstate);
 	//public static native long[] JyGC_validateGCHead(long handle, long[] oldLinks);
-	public static native boolean JyGC_validateGCHead(long handle, long[] oldLinks);
+	public static native boolean JyGC_validateGCHead(long handle, long[] oldLinks, long tstate);
 	public static native long[] JyGC_nativeTraverse(long handle);
+	public static native long JyGC_writeHeapSnapshot(JyNIHeapSnapshot sink, long tstate);
 	//protected static native void pinWeakReferent(long handle, long tstate);
 	protected static native void releaseWeakReferent(long handle, long tstate);
 	//public static native JyGCHead JyGC_lookupGCHead(long handle);
 
 	/* Utility stuff */
 	public static native int JyNI_putenv(String value);
+	public static native int JyNI_unsetenv(String key);
 	public static native PyObject JyNI_mbcs_encode(PyObject input, PyObject errors, long tstate);
 	public static native PyObject JyNI_mbcs_decode(PyObject input, PyObject errors, PyObject fnl, long tstate);
 
@@ -527,7 +601,12 @@ public class JyNI {
 		else return currentNativeRefCount(handle);
 	}
 
-	public static void setNativeHandle(PyObject object, long handle) {//, boolean keepAlive) {
+	/**
+	 * Returns {@code System.identityHashCode(object)}, so native side can
+	 * record the object in its reverse lookup table. CPeers are not recorded
+	 * there, as they carry their handle directly; for these 0 is returned.
+	 */
+	public static int setNativeHandle(PyObject object, long handle) {//, boolean keepAlive) {
 		//no WeakReferences needed here, because clearNativeHandle is always called
 		//when a corresponding PyObject on C-Side is deallocated
 
@@ -547,8 +626,10 @@ public class JyNI {
 			 */
 			if (((CPeerInterface) object).getHandle() != handle)
 				System.err.println("JyNI-Warning: CPeerInterface not properly initialized: "+object.getType());
+			return 0;
 		} else {
 			JyAttribute.setAttr(object, JyAttribute.JYNI_HANDLE_ATTR, handle);
+			return System.identityHashCode(object);
 		}
 	}
 
@@ -879,6 +960,17 @@ public class JyNI {
 		return er;
 	}
 
+	/**
+	 * Creates a PyLong from the bits of an unsigned 64 bit value,
+	 * i.e. value is interpreted as unsigned.
+	 * Used by native side to transfer unsigned long long values that
+	 * don't fit into a signed jlong without a byte[]-roundtrip.
+	 */
+	public static PyLong newUnsignedLong(long value) {
+		BigInteger result = BigInteger.valueOf(value & Long.MAX_VALUE);
+		return new PyLong(value < 0 ? result.setBit(63) : result);
+	}
+
 	public static void GCTrackPyCPeer(PyCPeer peer) {
 		new JyWeakReferenceGC(peer);
 	}
@@ -994,6 +1086,145 @@ public class JyNI {
 		}
 	}
 
+	/**
+	 * Calls a native callable on behalf of the current thread and raises
+	 * a pending exception if any. The call runs on a native carrier if
+	 * {@link JyNICarrierPool#isOffloaded(Thread)} applies to the current thread.
+	 */
+	public static PyObject callPyCPeer(long peerHandle, PyObject args, PyObject kw) {
+		JyNIRuntime.countEntry(JyNIEvents.CALL);
+		Object event = JyNIEvents.begin(JyNIEvents.CALL);
+		try {
+			if (JyNICarrierPool.isOffloaded(Thread.currentThread()))
+				return JyNICarrierPool.callPyCPeer(peerHandle, args, kw);
+			return maybeExc(callPyCPeer(peerHandle, args, kw,
+					JyTState.prepareNativeThreadState(Py.getThreadState())));
+		} finally {
+			if (event != null)
+				JyNIEvents.end(event, peerHandle, null, JyNIEvents.length(args));
+		}
+	}
+
+	/*
+	 * Variants of getAttrString, getItem, findItem and setItem that
+	 * emit JyNIEvents and count for JyNIRuntime. The peer classes call these.
+	 */
+	static PyObject tracedGetAttrString(long peerHandle, String name, long tstate) {
+		JyNIRuntime.countEntry(JyNIEvents.GET_ATTR);
+		Object event = JyNIEvents.begin(JyNIEvents.GET_ATTR);
+		PyObject result = getAttrString(peerHandle, name, tstate);
+		if (event != null) JyNIEvents.end(event, peerHandle, name, 0);
+		return result;
+	}
+
+	static PyObject tracedGetItem(long peerHandle, PyObject key, int keyHash, long tstate) {
+		JyNIRuntime.countEntry(JyNIEvents.GET_ITEM);
+		Object event = JyNIEvents.begin(JyNIEvents.GET_ITEM);
+		PyObject result = getItem(peerHandle, key, keyHash, tstate);
+		if (event != null) JyNIEvents.end(event, peerHandle, key.getType().getName(), 0);
+		return result;
+	}
+
+	static PyObject tracedFindItem(long peerHandle, PyObject key, int keyHash, long tstate) {
+		JyNIRuntime.countEntry(JyNIEvents.GET_ITEM);
+		Object event = JyNIEvents.begin(JyNIEvents.GET_ITEM);
+		PyObject result = findItem(peerHandle, key, keyHash, tstate);
+		if (event != null) JyNIEvents.end(event, peerHandle, key.getType().getName(), 0);
+		return result;
+	}
+
+	static int tracedSetItem(long peerHandle, PyObject key, int keyHash,
+			PyObject value, int valueHash, long tstate) {
+		JyNIRuntime.countEntry(JyNIEvents.SET_ITEM);
+		Object event = JyNIEvents.begin(JyNIEvents.SET_ITEM);
+		int result = setItem(peerHandle, key, keyHash, value, valueHash, tstate);
+		if (event != null) JyNIEvents.end(event, peerHandle, key.getType().getName(), 0);
+		return result;
+	}
+
+	protected static volatile Executor asyncExecutor = null;
+
+	/**
+	 * Sets the executor that runs calls submitted via
+	 * {@link #callAsync(PyObject, PyObject[], String[])}.
+	 * Null selects the default, i.e. the native carriers of {@link JyNICarrierPool}.
+	 */
+	public static void setAsyncExecutor(Executor executor) {
+		asyncExecutor = executor;
+	}
+
+	public static Executor getAsyncExecutor() {
+		Executor result = asyncExecutor;
+		return result != null ? result : JyNICarrierPool.carriers();
+	}
+
+	/**
+	 * Calls the given callable on the async executor, see {@link #setAsyncExecutor(Executor)},
+	 * and returns a Future of the result. Arguments are given like for
+	 * PyObject.__call__(PyObject[], String[]), i.e. keyword values are the last
+	 * elements of args. They are packed on the calling thread; acquiring the GIL,
+	 * converting them to native objects, the call itself and raising exceptions
+	 * happen on the executor. Use {@link #awaitAsync(Future, long)} to obtain the
+	 * result with Python exceptions unwrapped.
+	 */
+	public static Future<PyObject> callAsync(final PyObject callable, PyObject[] args, String[] kw) {
+		FutureTask<PyObject> result;
+		if (callable instanceof CPeerInterface) {
+			final long handle = ((CPeerInterface) callable).getHandle();
+			final PyObject argTuple, kwDict;
+			if (kw == null || kw.length == 0) {
+				argTuple = args.length == 0 ? Py.EmptyTuple : new PyTuple(args);
+				kwDict = null;
+			} else {
+				HashMap<PyObject, PyObject> back = new HashMap<PyObject, PyObject>(kw.length);
+				for (int i = 0; i < kw.length; ++i) {
+					back.put(Py.newString(kw[i]), args[args.length-kw.length+i]);
+				}
+				PyObject[] args2 = new PyObject[args.length - kw.length];
+				System.arraycopy(args, 0, args2, 0, args2.length);
+				argTuple = args2.length == 0 ? Py.EmptyTuple : new PyTuple(args2, false);
+				kwDict = new PyDictionary(back);
+			}
+			result = new FutureTask<PyObject>(new Callable<PyObject>() {
+				public PyObject call() {
+					PyObject res = callPyCPeer(handle, argTuple, kwDict);
+					if (res == null)
+						throw Py.TypeError(String.format("'%s' object is not callable",
+								callable.getType().fastGetName()));
+					return res;
+				}
+			});
+		} else {
+			final PyObject[] args2 = args.clone();
+			final String[] kw2 = kw == null ? Py.NoKeywords : kw.clone();
+			result = new FutureTask<PyObject>(new Callable<PyObject>() {
+				public PyObject call() {
+					return callable.__call__(args2, kw2);
+				}
+			});
+		}
+		getAsyncExecutor().execute(result);
+		return result;
+	}
+
+	/**
+	 * Waits for the result of {@link #callAsync(PyObject, PyObject[], String[])}.
+	 * A Python exception raised by the call is rethrown as is rather than
+	 * wrapped in an ExecutionException. A negative timeout waits forever.
+	 */
+	public static PyObject awaitAsync(Future<PyObject> future, long timeoutMillis)
+			throws InterruptedException, TimeoutException {
+		try {
+			return timeoutMillis < 0 ? future.get() :
+					future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw Py.JavaError(cause);
+		}
+	}
+
 	public static void JyErr_InsertCurExc(ThreadState tstate, PyObject type, PyObject value, PyTraceback traceback) {
 //		System.out.println("JyErr_InsertCurExc "+tstate);
 //		System.out.println(value);
@@ -1259,6 +1490,14 @@ public class JyNI {
 		return JyNI_putenv(sb.toString());
 	}
 
+	/**
+	 * Removes key from the process environment by using the native
+	 * C function, i.e. the counterpart of {@link #putenv}.
+	 */
+	public static int unsetenv(CharSequence key) {
+		return JyNI_unsetenv(key.toString());
+	}
+
 	public static PyObject mbcs_encode(PyObject input, PyObject errors) {
 		return JyNI_mbcs_encode(input, errors,
 				JyTState.prepareNativeThreadState(Py.getThreadState()));
@@ -1555,9 +1794,10 @@ public class JyNI {
 	// To make sure that resurrected objects cannot be collected again within same cycle.
 	protected static List<JyGCHead> resurrectionQueue = new ArrayList<>(200);
 	public static void resurrect(long handle, ResurrectableGCHead head) {
+		JyNIRuntime.countResurrection();
 		ResurrectableGCHead newHead = head.makeResurrectedHead();
 		PyObject object = head.getPyObject();
-		JyGC_restoreCStubBackend(handle, object, newHead);
+		JyGC_restoreCStubBackend(handle, object, newHead, JyTState.prepareNativeThreadState(Py.getThreadState()));
 		resurrectionQueue.add(newHead);
 		new JyWeakReferenceGC(newHead);
 		//System.out.println("Resurrect CStub "+object);
@@ -1627,6 +1867,7 @@ public class JyNI {
 	 * Do not call this method, it is internal API.
 	 */
 	public static void postProcessCStubGCCycle() {
+		Object event = JyNIEvents.begin(JyNIEvents.CSTUB_POST);
 		/*
 		 * Note: This method is *not* triggered by gc-module postFinalization process.
 		 * Instead we know (do we?) from JyWeakReferenceGC how many CStub-finalizers
@@ -1645,12 +1886,15 @@ public class JyNI {
 		//Should be done automatically:
 		//GlobalRef.processDelayedCallbacks();
 		//gc.notifyPostFinalization(); (maybe include this later)
+		if (event != null) JyNIEvents.end(event, 0, null, 0);
 	}
 
 	/**
 	 * Do not call this method, it is internal API.
 	 */
 	public static void preProcessCStubGCCycle() {
+		Object event = JyNIEvents.begin(JyNIEvents.CSTUB_PRE);
+		long start = System.nanoTime();
 		/* We pretend to be another finalizer here ending in postProcessCStubGCCycle().
 		 * We can do that, because we know when the last CStub finalizer is processed.
 		 */
@@ -1682,7 +1926,7 @@ public class JyNI {
 				head = headRef.get();
 				if (head != null && head instanceof TraversableGCHead) {
 					delayFinalization = JyGC_validateGCHead(handle,
-							((TraversableGCHead) head).toHandleArray()) || delayFinalization;
+							((TraversableGCHead) head).toHandleArray(), JyTState.prepareNativeThreadState(Py.getThreadState())) || delayFinalization;
 				} else if (head != null)
 					System.err.println(
 							"JyNI-error: Encountered JyNI-critical with non-traversable JyGCHead! "
@@ -1694,6 +1938,8 @@ public class JyNI {
 			//System.out.println("Force delayed finalization...");
 			gc.addJythonGCFlags(gc.FORCE_DELAYED_FINALIZATION);
 		}
+		JyNIRuntime.countCStubPreprocessing(System.nanoTime()-start);
+		if (event != null) JyNIEvents.end(event, 0, null, criticalHandles.length);
 //		System.out.println("preProcessCStubGCCycle done");
 	}
 
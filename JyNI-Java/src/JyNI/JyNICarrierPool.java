@@ -0,0 +1,205 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package JyNI;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.python.core.Py;
+import org.python.core.PyObject;
+import org.python.core.PySystemState;
+
+/**
+ * Runs calls into native code on a bounded pool of platform threads,
+ * the native carriers.
+ * A thread that calls native code blocks inside JNI and possibly in
+ * synchronized sections while the call lasts. For a virtual thread
+ * this pins its carrier, and every such thread would need its own
+ * native thread state. If offloading applies, the calling thread
+ * instead hands the call to a native carrier and parks until the
+ * result is ready. Native thread states then only exist per carrier.
+ *
+ * Offloading is configured via {@link #setMode(int)} or the system
+ * property "jyni.offload" ("never", "virtual" or "all"). The number of
+ * carriers defaults to the number of processors and can be set via
+ * {@link #setCarrierCount(int)} or "jyni.carriers" before first use.
+ *
+ * The call runs with the caller's PySystemState, but with the carrier's
+ * Jython ThreadState. So callbacks from native code into Jython see the
+ * carrier's call depth and exception state.
+ * For now only calls of native callables are offloaded, not attribute
+ * access or other slots.
+ */
+public class JyNICarrierPool {
+	public static final int OFFLOAD_NEVER = 0;
+	/** Offload calls made from virtual threads. Requires Java 21 or newer. */
+	public static final int OFFLOAD_VIRTUAL = 1;
+	public static final int OFFLOAD_ALL = 2;
+
+	protected static volatile int mode = OFFLOAD_NEVER;
+	protected static int carrierCount = Runtime.getRuntime().availableProcessors();
+	protected static ExecutorService carriers;
+
+	/** Thread.isVirtual, looked up reflectively since it is not available before Java 21. */
+	protected static final Method isVirtual;
+
+	protected static class CarrierThread extends Thread {
+		public CarrierThread(Runnable target, String name) {
+			super(target, name);
+		}
+	}
+
+	static {
+		Method isVirt = null;
+		try {
+			isVirt = Thread.class.getMethod("isVirtual");
+		} catch (NoSuchMethodException nsme) {}
+		isVirtual = isVirt;
+
+		String carrierProp = System.getProperty("jyni.carriers");
+		if (carrierProp != null) {
+			try {
+				setCarrierCount(Integer.parseInt(carrierProp.trim()));
+			} catch (IllegalArgumentException iae) {
+				/* Also covers NumberFormatException. */
+				System.err.println("JyNI-Warning: Ignoring malformed jyni.carriers: "+carrierProp);
+			}
+		}
+		String offloadProp = System.getProperty("jyni.offload");
+		if (offloadProp != null) {
+			offloadProp = offloadProp.trim();
+			if (offloadProp.equals("virtual")) setMode(OFFLOAD_VIRTUAL);
+			else if (offloadProp.equals("all")) setMode(OFFLOAD_ALL);
+			else if (!offloadProp.equals("never"))
+				System.err.println("JyNI: Unknown value for jyni.offload: "+offloadProp);
+		}
+	}
+
+	public static void setMode(int offloadMode) {
+		if (offloadMode < OFFLOAD_NEVER || offloadMode > OFFLOAD_ALL)
+			throw new IllegalArgumentException("Unknown offload mode: "+offloadMode);
+		mode = offloadMode;
+	}
+
+	public static int getMode() {
+		return mode;
+	}
+
+	/**
+	 * Sets the number of native carriers. Has no effect once the
+	 * carriers were started.
+	 */
+	public static synchronized void setCarrierCount(int count) {
+		if (count < 1) throw new IllegalArgumentException("Need at least one carrier.");
+		carrierCount = count;
+	}
+
+	public static synchronized int getCarrierCount() {
+		return carrierCount;
+	}
+
+	protected static synchronized ExecutorService carriers() {
+		if (carriers == null) {
+			carriers = Executors.newFixedThreadPool(carrierCount, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+				public Thread newThread(Runnable r) {
+					Thread result = new CarrierThread(r,
+							"JyNI-native-carrier-"+count.incrementAndGet());
+					result.setDaemon(true);
+					return result;
+				}
+			});
+		}
+		return carriers;
+	}
+
+	public static boolean isVirtual(Thread thread) {
+		if (isVirtual == null) return false;
+		try {
+			return (Boolean) isVirtual.invoke(thread);
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Tells whether native calls made from the given thread run on a native carrier.
+	 */
+	public static boolean isOffloaded(Thread thread) {
+		int m = mode;
+		if (m == OFFLOAD_NEVER || thread instanceof CarrierThread) return false;
+		return m == OFFLOAD_ALL || isVirtual(thread);
+	}
+
+	/**
+	 * Performs JyNI.callPyCPeer on a native carrier and waits for the result.
+	 * Exceptions raised by the native call are rethrown on the calling thread.
+	 * Waiting is not interruptible, since the native call cannot be abandoned,
+	 * but the interrupt status is preserved.
+	 */
+	public static PyObject callPyCPeer(final long peerHandle, final PyObject args, final PyObject kw) {
+		final PySystemState sys = Py.getSystemState();
+		Future<PyObject> result = carriers().submit(new Callable<PyObject>() {
+			public PyObject call() {
+				PySystemState prev = Py.setSystemState(sys);
+				try {
+					return JyNI.maybeExc(JyNI.callPyCPeer(peerHandle, args, kw,
+							JyTState.prepareNativeThreadState(Py.getThreadState())));
+				} finally {
+					Py.setSystemState(prev);
+				}
+			}
+		});
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return result.get();
+				} catch (InterruptedException ie) {
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new RuntimeException(cause);
+		} finally {
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package JyNI;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.python.core.Py;
+import org.python.core.PyObject;
+import org.python.core.PyTuple;
+
+/**
+ * Emits Java Flight Recorder events for crossings of the Java/native
+ * boundary and for JyNI's GC phases. The events appear in category "JyNI"
+ * and are enabled and configured like any other JFR event, e.g.
+ * via a .jfc file or "jfr configure".
+ *
+ * JyNI is compiled for Java 7, so it cannot subclass jdk.jfr.Event.
+ * Event types are instead defined at runtime via jdk.jfr.EventFactory,
+ * which requires Java 9 or newer (or 8u262). On older Java, or with
+ * the system property "jyni.jfr" set to "false", no events are emitted.
+ *
+ * Every instrumented site first calls {@link #begin(int)}, which only
+ * reads a volatile mask and returns null while the event type is disabled
+ * in all recordings. The mask is updated whenever a recording changes state.
+ *
+ * Conversions and GIL waits happen in native code. Native code measures
+ * them and reports only those that took at least the native threshold,
+ * "jyni.jfr.nativethreshold" in nanoseconds (default 10000). For these
+ * events the JFR duration only covers the report itself. The measured
+ * time is in the field nativeDuration.
+ */
+public class JyNIEvents {
+	public static final int CALL       = 0;
+	public static final int GET_ATTR   = 1;
+	public static final int GET_ITEM   = 2;
+	public static final int SET_ITEM   = 3;
+	public static final int TO_JYTHON  = 4;
+	public static final int TO_NATIVE  = 5;
+	public static final int GIL_WAIT   = 6;
+	public static final int GC_CLEAR   = 7;
+	public static final int CSTUB_PRE  = 8;
+	public static final int CSTUB_POST = 9;
+
+	static final String[] names = {"Call", "GetAttr", "GetItem", "SetItem",
+			"ToJython", "ToNative", "GILWait", "GCClear", "CStubPre", "CStubPost"};
+	static final String[] labels = {"Native Call", "Native Attribute Lookup",
+			"Native Item Lookup", "Native Item Assignment",
+			"Conversion to Jython", "Conversion to Native", "GIL Wait",
+			"Native Reference Clearing", "CStub GC Preprocessing",
+			"CStub GC Postprocessing"};
+	static final String[] countLabels = {"Arguments", null, null, null,
+			null, null, null, "Handles", "Critical Handles", null};
+
+	/* Field indices of every event type: */
+	static final int NATIVE_TYPE = 0, NAME = 1, COUNT = 2, NATIVE_DURATION = 3;
+
+	protected static volatile int mask = 0;
+	protected static long nativeThreshold = 10000;
+
+	protected static Object[] factories;
+	protected static Object[] eventTypes;
+	protected static Method newEvent, isEnabled, set, begin, end, commit;
+
+	/**
+	 * Defines the event types and starts tracking whether they are enabled.
+	 * Called by JyNI after the native library was loaded.
+	 */
+	static synchronized void init() {
+		if (factories != null) return;
+		String prop = System.getProperty("jyni.jfr");
+		if (prop != null && prop.trim().equals("false")) return;
+		prop = System.getProperty("jyni.jfr.nativethreshold");
+		if (prop != null) {
+			try {
+				nativeThreshold = Long.parseLong(prop.trim());
+			} catch (NumberFormatException nfe) {
+				System.err.println("JyNI-Warning: Ignoring malformed jyni.jfr.nativethreshold: "+prop);
+			}
+		}
+		try {
+			defineEventTypes();
+			Class<?> listenerCls = Class.forName("jdk.jfr.FlightRecorderListener");
+			Object listener = Proxy.newProxyInstance(listenerCls.getClassLoader(),
+					new Class<?>[] {listenerCls}, new InvocationHandler() {
+						public Object invoke(Object proxy, Method method, Object[] args) {
+							if (method.getName().equals("recordingStateChanged"))
+								updateMask();
+							else if (method.getName().equals("hashCode"))
+								return System.identityHashCode(proxy);
+							else if (method.getName().equals("equals"))
+								return proxy == args[0];
+							return null;
+						}
+					});
+			Class.forName("jdk.jfr.FlightRecorder").getMethod("addListener",
+					listenerCls).invoke(null, listener);
+		} catch (ClassNotFoundException cnfe) {
+			factories = null;
+			return;
+		} catch (Exception e) {
+			System.err.println("JyNI: Could not set up JFR events: "+e);
+			factories = null;
+			return;
+		}
+		updateMask();
+	}
+
+	private static void defineEventTypes() throws Exception {
+		Class<?> factoryCls = Class.forName("jdk.jfr.EventFactory");
+		Class<?> annotationCls = Class.forName("jdk.jfr.AnnotationElement");
+		Class<?> valueCls = Class.forName("jdk.jfr.ValueDescriptor");
+		Class<?> eventCls = Class.forName("jdk.jfr.Event");
+		Class<?> nameAnn = Class.forName("jdk.jfr.Name");
+		Class<?> labelAnn = Class.forName("jdk.jfr.Label");
+		Class<?> categoryAnn = Class.forName("jdk.jfr.Category");
+		Class<?> timespanAnn = Class.forName("jdk.jfr.Timespan");
+		Class<?> enabledAnn = Class.forName("jdk.jfr.Enabled");
+		Constructor<?> annotation = annotationCls.getConstructor(Class.class, Object.class);
+		Constructor<?> value = valueCls.getConstructor(Class.class, String.class, List.class);
+		Method create = factoryCls.getMethod("create", List.class, List.class);
+		newEvent = factoryCls.getMethod("newEvent");
+		Method getEventType = factoryCls.getMethod("getEventType");
+		isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+		set = eventCls.getMethod("set", int.class, Object.class);
+		begin = eventCls.getMethod("begin");
+		end = eventCls.getMethod("end");
+		commit = eventCls.getMethod("commit");
+
+		String[] category = {"JyNI"};
+		Object[] fact = new Object[names.length];
+		Object[] types = new Object[names.length];
+		for (int i = 0; i < names.length; ++i) {
+			List<Object> annotations = new ArrayList<>();
+			annotations.add(annotation.newInstance(nameAnn, "JyNI."+names[i]));
+			annotations.add(annotation.newInstance(labelAnn, labels[i]));
+			annotations.add(annotation.newInstance(categoryAnn, category));
+			/* Recordings must enable JyNI events explicitly: */
+			annotations.add(annotation.newInstance(enabledAnn, false));
+			List<Object> fields = new ArrayList<>();
+			fields.add(value.newInstance(String.class, "nativeType", Arrays.asList(
+					annotation.newInstance(labelAnn, "Native Type"))));
+			fields.add(value.newInstance(String.class, "name", Arrays.asList(
+					annotation.newInstance(labelAnn, "Name"))));
+			fields.add(value.newInstance(long.class, "count", Arrays.asList(
+					annotation.newInstance(labelAnn,
+							countLabels[i] != null ? countLabels[i] : "Count"))));
+			fields.add(value.newInstance(long.class, "nativeDuration", Arrays.asList(
+					annotation.newInstance(labelAnn, "Native Duration"),
+					annotation.newInstance(timespanAnn, "NANOSECONDS"))));
+			fact[i] = create.invoke(null, annotations, fields);
+			types[i] = getEventType.invoke(fact[i]);
+		}
+		factories = fact;
+		eventTypes = types;
+	}
+
+	protected static synchronized void updateMask() {
+		if (eventTypes == null) return;
+		int m = 0;
+		for (int i = 0; i < eventTypes.length; ++i) {
+			try {
+				if ((Boolean) isEnabled.invoke(eventTypes[i])) m |= 1 << i;
+			} catch (Exception e) {}
+		}
+		mask = m;
+		JyNI.setNativeEventMask(m, nativeThreshold);
+	}
+
+	public static boolean isEnabled(int type) {
+		return (mask & (1 << type)) != 0;
+	}
+
+	/**
+	 * Starts an event of the given type. Returns null if the type is disabled,
+	 * otherwise the event to pass to {@link #end(Object, long, String, long)}.
+	 */
+	public static Object begin(int type) {
+		if ((mask & (1 << type)) == 0) return null;
+		try {
+			Object event = newEvent.invoke(factories[type]);
+			begin.invoke(event);
+			return event;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Ends and commits an event returned by {@link #begin(int)}.
+	 * The native type name is looked up from handle under the GIL, unless handle is 0.
+	 */
+	public static void end(Object event, long handle, String name, long count) {
+		end(event, handle != 0 ? JyNI.getNativeTypeName(handle,
+					JyTState.prepareNativeThreadState(Py.getThreadState())) : null, name, count, 0);
+	}
+
+	static void end(Object event, String nativeType, String name, long count, long nativeDuration) {
+		try {
+			end.invoke(event);
+			set.invoke(event, NATIVE_TYPE, nativeType);
+			set.invoke(event, NAME, name);
+			set.invoke(event, COUNT, count);
+			set.invoke(event, NATIVE_DURATION, nativeDuration);
+			commit.invoke(event);
+		} catch (Exception e) {}
+	}
+
+	/**
+	 * Called from native code to report a conversion or GIL wait.
+	 */
+	protected static void nativeEvent(int type, String nativeType, long nanos) {
+		Object event = begin(type);
+		if (event != null) end(event, nativeType, null, 0, nanos);
+	}
+
+	/** Number of positional arguments, for the count field of call events. */
+	static long length(PyObject args) {
+		return args instanceof PyTuple ? ((PyTuple) args).size() : 0;
+	}
+}
@@ -127,7 +127,7 @@ public class JyNIGlobalRef implements ReferenceBackend {
 			return backend.get(); //todo: make thread-safe with restore.
 		if (nativeHandle == 0) return null;
 		//return restoreBackendFromNative();
-		PyObject result = JyNI.lookupFromHandle(nativeHandle);
+		PyObject result = JyNI.lookupFromHandle(nativeHandle, JyTState.prepareNativeThreadState(Py.getThreadState()));
 		if (result != null && backend != null)
 			backend.restore(result);
 		//if (result == null) System.out.println("Obtained null-result from non-null native handle");
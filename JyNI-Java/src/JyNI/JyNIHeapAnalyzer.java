@@ -0,0 +1,509 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package JyNI;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Evaluates heap snapshots written by {@link JyNIHeapSnapshot}. Computes
+ * the dominator tree of the native object graph and from it the retained
+ * size of each object, i.e. the memory that would be freed along with it.
+ *
+ * The graph gets an artificial root, which refers to the objects held by
+ * a JyGCHead, to objects that have more references than referrers in the
+ * snapshot (i.e. are referenced from Java, from C variables or from the
+ * stack) and to objects that are not reachable otherwise. The retained
+ * size of a type sums up the retained sizes of its objects, except for
+ * objects dominated by another object of the same type.
+ *
+ * Needs neither Jython nor JyNI's native library, so it can run offline:
+ * java -cp JyNI.jar JyNI.JyNIHeapAnalyzer snapshot [limit]
+ */
+public class JyNIHeapAnalyzer {
+	/* Why an object is referred to by the root. Objects that are not,
+	 * but are only dominated by the root, are shared by several roots. */
+	public static final int NO_ROOT = 0;
+	public static final int HELD = 1;
+	public static final int EXTERNAL = 2;
+	public static final int UNREACHABLE = 3;
+
+	static final String[] rootNames = {"shared by several roots", "held by JyGCHead",
+			"externally referenced", "unreachable"};
+
+	protected int nodeCount;
+	protected long[] handles, sizes, refcounts;
+	protected int[] types, flags, heads;
+	/* Referents of node i are edges[edgeStart[i]] to edges[edgeStart[i+1]-1]: */
+	protected int[] edgeStart, edges;
+	protected final List<String> typeNames = new ArrayList<String>();
+	/* Index 0 stands for no head: */
+	protected final List<String> headNames = new ArrayList<String>();
+
+	/* Results of analyze(), the root has index nodeCount: */
+	protected int[] idom, rootReason;
+	protected long[] retained;
+
+	public static class TypeStats {
+		protected final String name;
+		protected long count, size, retained;
+
+		TypeStats(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getRetainedSize() {
+			return retained;
+		}
+	}
+
+	/** Maps handles to node indices, open addressing with linear probing. */
+	static class HandleIndex {
+		long[] keys = new long[1024];
+		int[] values = new int[1024];
+		int size = 0;
+
+		static int hash(long key, int mask) {
+			key ^= key >>> 33;
+			key *= 0xff51afd7ed558ccdL;
+			key ^= key >>> 33;
+			return (int) key & mask;
+		}
+
+		int get(long key) {
+			int mask = keys.length-1;
+			for (int pos = hash(key, mask);; pos = (pos+1) & mask) {
+				if (keys[pos] == key) return values[pos];
+				if (keys[pos] == 0) return -1;
+			}
+		}
+
+		void put(long key, int value) {
+			if (size*4 >= keys.length*3) {
+				long[] oldKeys = keys;
+				int[] oldValues = values;
+				keys = new long[oldKeys.length*2];
+				values = new int[oldKeys.length*2];
+				for (int i = 0; i < oldKeys.length; ++i) {
+					if (oldKeys[i] != 0) insert(oldKeys[i], oldValues[i]);
+				}
+			}
+			insert(key, value);
+			++size;
+		}
+
+		private void insert(long key, int value) {
+			int mask = keys.length-1;
+			int pos = hash(key, mask);
+			while (keys[pos] != 0) pos = (pos+1) & mask;
+			keys[pos] = key;
+			values[pos] = value;
+		}
+	}
+
+	static long readVarLong(DataInputStream in) throws IOException {
+		long result = 0;
+		int shift = 0, b;
+		do {
+			b = in.readUnsignedByte();
+			result |= ((long) (b & 0x7F)) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return result;
+	}
+
+	/**
+	 * Reads a snapshot and analyzes it.
+	 */
+	public static JyNIHeapAnalyzer read(String fileName) throws IOException {
+		JyNIHeapAnalyzer result = new JyNIHeapAnalyzer();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(fileName), 1 << 16));
+		try {
+			result.readGraph(in);
+		} finally {
+			in.close();
+		}
+		result.analyze();
+		return result;
+	}
+
+	protected void readGraph(DataInputStream in) throws IOException {
+		byte[] magic = new byte[JyNIHeapSnapshot.MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, JyNIHeapSnapshot.MAGIC))
+			throw new IOException("Not a JyNI heap snapshot.");
+		long version = readVarLong(in);
+		if (version != JyNIHeapSnapshot.VERSION)
+			throw new IOException("Unsupported snapshot version: "+version);
+
+		HashMap<Long, Integer> typeIndex = new HashMap<Long, Integer>();
+		HandleIndex index = new HandleIndex();
+		int capacity = 1024;
+		handles = new long[capacity];
+		sizes = new long[capacity];
+		refcounts = new long[capacity];
+		types = new int[capacity];
+		flags = new int[capacity];
+		heads = new int[capacity];
+		edgeStart = new int[capacity+1];
+		long[] referents = new long[capacity];
+		int referentCount = 0;
+		boolean unknownType = false;
+		headNames.add(null);
+		while (true) {
+			int tag;
+			try {
+				tag = in.readUnsignedByte();
+			} catch (EOFException eof) {
+				throw new IOException("Snapshot is incomplete.");
+			}
+			if (tag == JyNIHeapSnapshot.TAG_END) break;
+			else if (tag == JyNIHeapSnapshot.TAG_TYPE) {
+				typeIndex.put(readVarLong(in), typeNames.size());
+				typeNames.add(in.readUTF());
+			} else if (tag == JyNIHeapSnapshot.TAG_HEAD) {
+				int id = (int) readVarLong(in);
+				while (headNames.size() <= id) headNames.add(null);
+				headNames.set(id, in.readUTF());
+			} else if (tag == JyNIHeapSnapshot.TAG_OBJECT) {
+				long handle = readVarLong(in);
+				long type = readVarLong(in);
+				long size = readVarLong(in);
+				long refcount = readVarLong(in);
+				int flag = (int) readVarLong(in);
+				int head = (int) readVarLong(in);
+				int count = (int) readVarLong(in);
+				if (index.get(handle) != -1) {
+					/* Untracked objects can appear several times. */
+					for (int i = 0; i < count; ++i) readVarLong(in);
+					continue;
+				}
+				if (nodeCount == capacity) {
+					capacity *= 2;
+					handles = Arrays.copyOf(handles, capacity);
+					sizes = Arrays.copyOf(sizes, capacity);
+					refcounts = Arrays.copyOf(refcounts, capacity);
+					types = Arrays.copyOf(types, capacity);
+					flags = Arrays.copyOf(flags, capacity);
+					heads = Arrays.copyOf(heads, capacity);
+					edgeStart = Arrays.copyOf(edgeStart, capacity+1);
+				}
+				if (referentCount+count > referents.length)
+					referents = Arrays.copyOf(referents, Math.max(referents.length*2, referentCount+count));
+				for (int i = 0; i < count; ++i) referents[referentCount++] = readVarLong(in);
+				index.put(handle, nodeCount);
+				handles[nodeCount] = handle;
+				Integer typeIdx = typeIndex.get(type);
+				types[nodeCount] = typeIdx != null ? typeIdx : -1;
+				unknownType |= typeIdx == null;
+				sizes[nodeCount] = size;
+				refcounts[nodeCount] = refcount;
+				flags[nodeCount] = flag;
+				heads[nodeCount] = head;
+				edgeStart[++nodeCount] = referentCount;
+			} else throw new IOException("Unknown record tag: "+tag);
+		}
+		/* Type -1 is mapped to the last entry: */
+		if (unknownType) typeNames.add("?");
+
+		/* Resolve referents to node indices. References to objects without
+		 * a record can only be to objects freed meanwhile, we drop them. */
+		edges = new int[referentCount];
+		int pos = 0, start = 0;
+		for (int i = 0; i < nodeCount; ++i) {
+			int end = edgeStart[i+1];
+			edgeStart[i] = pos;
+			for (int j = start; j < end; ++j) {
+				int target = index.get(referents[j]);
+				if (target != -1) edges[pos++] = target;
+			}
+			start = end;
+		}
+		edgeStart[nodeCount] = pos;
+		if (pos < edges.length) edges = Arrays.copyOf(edges, pos);
+	}
+
+	/**
+	 * Computes the dominator tree via the algorithm of Lengauer and Tarjan
+	 * with path compression, and the retained sizes.
+	 */
+	protected void analyze() {
+		int n = nodeCount+1, root = nodeCount;
+		int[] indegree = new int[nodeCount];
+		for (int i = 0; i < edges.length; ++i) ++indegree[edges[i]];
+
+		/* Depth first search from the root. Its referents are collected
+		 * on the way, so unreachable objects are only those that remain. */
+		rootReason = new int[nodeCount];
+		int[] dfnum = new int[n], vertex = new int[n], parent = new int[n];
+		int[] stack = new int[n], stackPos = new int[n];
+		Arrays.fill(dfnum, -1);
+		dfnum[root] = 0;
+		vertex[0] = root;
+		int count = 1;
+		for (int pass = HELD; pass <= UNREACHABLE; ++pass) {
+			for (int start = 0; start < nodeCount; ++start) {
+				if (rootReason[start] != NO_ROOT) continue;
+				if (pass == HELD ? heads[start] == 0 : pass == EXTERNAL ?
+						(flags[start] & JyNIHeapSnapshot.FLAG_STATIC) != 0
+						|| refcounts[start] <= indegree[start] : dfnum[start] != -1)
+					continue;
+				rootReason[start] = pass;
+				if (dfnum[start] != -1) continue;
+				dfnum[start] = count;
+				vertex[count++] = start;
+				parent[start] = root;
+				int sp = 0;
+				stack[sp] = start;
+				stackPos[sp++] = edgeStart[start];
+				while (sp > 0) {
+					int v = stack[sp-1];
+					if (stackPos[sp-1] == edgeStart[v+1]) {
+						--sp;
+						continue;
+					}
+					int w = edges[stackPos[sp-1]++];
+					if (dfnum[w] == -1) {
+						dfnum[w] = count;
+						vertex[count++] = w;
+						parent[w] = v;
+						stack[sp] = w;
+						stackPos[sp++] = edgeStart[w];
+					}
+				}
+			}
+		}
+
+		/* Predecessors, the root is handled separately via rootReason: */
+		int[] predStart = new int[nodeCount+1];
+		for (int i = 0; i < edges.length; ++i) ++predStart[edges[i]+1];
+		for (int i = 1; i <= nodeCount; ++i) predStart[i] += predStart[i-1];
+		int[] preds = new int[edges.length];
+		int[] fill = Arrays.copyOf(predStart, nodeCount);
+		for (int v = 0; v < nodeCount; ++v) {
+			for (int j = edgeStart[v]; j < edgeStart[v+1]; ++j)
+				preds[fill[edges[j]]++] = v;
+		}
+
+		int[] semi = new int[n], ancestor = new int[n], best = new int[n];
+		int[] samedom = new int[n], bucketHead = new int[n], bucketNext = new int[n];
+		idom = new int[n];
+		Arrays.fill(ancestor, -1);
+		Arrays.fill(samedom, -1);
+		Arrays.fill(bucketHead, -1);
+		Arrays.fill(idom, -1);
+		for (int i = count-1; i > 0; --i) {
+			int w = vertex[i], p = parent[w], s = p;
+			for (int j = predStart[w]; j < predStart[w+1]; ++j) {
+				int v = preds[j];
+				int s1 = dfnum[v] <= dfnum[w] ? v : semi[eval(v, ancestor, best, semi, dfnum, stack)];
+				if (dfnum[s1] < dfnum[s]) s = s1;
+			}
+			if (rootReason[w] != NO_ROOT) s = root;
+			semi[w] = s;
+			bucketNext[w] = bucketHead[s];
+			bucketHead[s] = w;
+			ancestor[w] = p;
+			best[w] = w;
+			for (int v = bucketHead[p]; v != -1; v = bucketNext[v]) {
+				int y = eval(v, ancestor, best, semi, dfnum, stack);
+				if (semi[y] == semi[v]) idom[v] = p;
+				else samedom[v] = y;
+			}
+			bucketHead[p] = -1;
+		}
+		for (int i = 1; i < count; ++i) {
+			int w = vertex[i];
+			if (samedom[w] != -1) idom[w] = idom[samedom[w]];
+		}
+
+		retained = new long[n];
+		System.arraycopy(sizes, 0, retained, 0, nodeCount);
+		for (int i = count-1; i > 0; --i)
+			retained[idom[vertex[i]]] += retained[vertex[i]];
+	}
+
+	/** Ancestor of v with the semidominator of least dfnum, compressing the path. */
+	private static int eval(int v, int[] ancestor, int[] best, int[] semi, int[] dfnum, int[] stack) {
+		int sp = 0, x = v;
+		while (ancestor[ancestor[x]] != -1) {
+			stack[sp++] = x;
+			x = ancestor[x];
+		}
+		while (sp > 0) {
+			int y = stack[--sp], a = ancestor[y];
+			int b = best[a];
+			ancestor[y] = ancestor[a];
+			if (dfnum[semi[b]] < dfnum[semi[best[y]]]) best[y] = b;
+		}
+		return best[v];
+	}
+
+	public int getObjectCount() {
+		return nodeCount;
+	}
+
+	public long getTotalSize() {
+		return retained[nodeCount];
+	}
+
+	/** Per type statistics, sorted by retained size. */
+	public List<TypeStats> getTypeStats() {
+		TypeStats[] stats = new TypeStats[typeNames.size()];
+		for (int i = 0; i < stats.length; ++i)
+			stats[i] = new TypeStats(typeNames.get(i));
+		for (int v = 0; v < nodeCount; ++v) {
+			TypeStats st = stats[typeOf(v)];
+			++st.count;
+			st.size += sizes[v];
+		}
+
+		/* Walk the dominator tree, counting how many objects of each type
+		 * dominate the current one: */
+		int n = nodeCount+1;
+		int[] childStart = new int[n+1];
+		for (int v = 0; v < nodeCount; ++v) ++childStart[idom[v]+1];
+		for (int i = 1; i <= n; ++i) childStart[i] += childStart[i-1];
+		int[] children = new int[nodeCount];
+		int[] fill = Arrays.copyOf(childStart, n);
+		for (int v = 0; v < nodeCount; ++v) children[fill[idom[v]]++] = v;
+		int[] active = new int[stats.length];
+		int[] stack = new int[n], stackPos = new int[n];
+		int sp = 0;
+		stack[sp] = nodeCount;
+		stackPos[sp++] = childStart[nodeCount];
+		while (sp > 0) {
+			int v = stack[sp-1];
+			if (stackPos[sp-1] == childStart[v+1]) {
+				if (v != nodeCount) --active[typeOf(v)];
+				--sp;
+				continue;
+			}
+			int w = children[stackPos[sp-1]++];
+			if (active[typeOf(w)]++ == 0) stats[typeOf(w)].retained += retained[w];
+			stack[sp] = w;
+			stackPos[sp++] = childStart[w];
+		}
+
+		List<TypeStats> result = new ArrayList<TypeStats>(Arrays.asList(stats));
+		Collections.sort(result, new Comparator<TypeStats>() {
+			public int compare(TypeStats o1, TypeStats o2) {
+				return Long.compare(o2.retained, o1.retained);
+			}
+		});
+		return result;
+	}
+
+	private int typeOf(int v) {
+		return types[v] >= 0 ? types[v] : typeNames.size()-1;
+	}
+
+	/** The objects referred to by the root with the largest retained sizes. */
+	public int[] getLargestDominators(int limit) {
+		PriorityQueue<Integer> queue = new PriorityQueue<Integer>(limit+1, new Comparator<Integer>() {
+			public int compare(Integer o1, Integer o2) {
+				return Long.compare(retained[o1], retained[o2]);
+			}
+		});
+		for (int v = 0; v < nodeCount; ++v) {
+			if (idom[v] != nodeCount) continue;
+			queue.add(v);
+			if (queue.size() > limit) queue.poll();
+		}
+		int[] result = new int[queue.size()];
+		for (int i = result.length-1; i >= 0; --i) result[i] = queue.poll();
+		return result;
+	}
+
+	public void report(PrintStream out, int limit) {
+		long edgeCount = edges.length;
+		out.println("JyNI native heap: "+nodeCount+" objects, "+retained[nodeCount]
+				+" bytes, "+edgeCount+" references");
+		long[] rootCounts = new long[rootNames.length], rootRetained = new long[rootNames.length];
+		for (int v = 0; v < nodeCount; ++v) {
+			if (idom[v] == nodeCount) {
+				++rootCounts[rootReason[v]];
+				rootRetained[rootReason[v]] += retained[v];
+			}
+		}
+		for (int i = 0; i < rootNames.length; ++i) {
+			int reason = (i+1) % rootNames.length;
+			out.println(String.format("  %-23s %10d objects %14d bytes retained",
+					rootNames[reason], rootCounts[reason], rootRetained[reason]));
+		}
+		out.println();
+		out.println(String.format("%-40s %10s %14s %14s", "type", "objects", "bytes", "retained"));
+		List<TypeStats> stats = getTypeStats();
+		for (int i = 0; i < stats.size() && (limit <= 0 || i < limit); ++i) {
+			TypeStats st = stats.get(i);
+			out.println(String.format("%-40s %10d %14d %14d", st.name, st.count, st.size, st.retained));
+		}
+		out.println();
+		out.println(String.format("%-18s %-30s %14s  %s", "dominator", "type", "retained", "root"));
+		for (int v: getLargestDominators(limit > 0 ? limit : 20)) {
+			String root = rootReason[v] == HELD ? headNames.get(heads[v]) : rootNames[rootReason[v]];
+			out.println(String.format("0x%-16x %-30s %14d  %s", handles[v],
+					typeNames.get(typeOf(v)), retained[v], root));
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: JyNIHeapAnalyzer snapshot [limit]");
+			System.exit(2);
+		}
+		read(args[0]).report(System.out, args.length > 1 ? Integer.parseInt(args[1]) : 20);
+	}
+}
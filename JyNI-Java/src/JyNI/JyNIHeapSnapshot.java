@@ -0,0 +1,171 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package JyNI;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.python.core.Py;
+
+import JyNI.gc.JyGCHead;
+import JyNI.gc.JyWeakReferenceGC;
+
+/**
+ * Writes the graph of native objects to a file, see
+ * {@link #write(String)}. {@link JyNIHeapAnalyzer} evaluates such files.
+ *
+ * The file starts with {@link #MAGIC} and the format version as a varint.
+ * All numbers are unsigned LEB128 varints. Then follow records, each
+ * starting with a tag byte:
+ * <pre>
+ * TYPE:   type handle, name (modified UTF-8 as by DataOutput.writeUTF)
+ * HEAD:   head id, class name of a JyGCHead (modified UTF-8)
+ * OBJECT: handle, type handle, size, refcount, flags, head id,
+ *         edge count, handles of the referents
+ * END:    number of OBJECT records
+ * </pre>
+ * A TYPE or HEAD record precedes the first OBJECT record referring to it.
+ * Head id 0 means that no JyGCHead holds the object. Objects that are not
+ * tracked by the native GC can have several OBJECT records, readers should
+ * use the first one. Size is the object's own memory including JyNI's
+ * headers. Separately allocated buffers like the item array of a list
+ * are not included.
+ */
+public class JyNIHeapSnapshot {
+	public static final byte[] MAGIC = {'J', 'y', 'N', 'I', 'H', 'E', 'A', 'P'};
+	public static final int VERSION = 1;
+
+	public static final int TAG_END = 0;
+	public static final int TAG_TYPE = 1;
+	public static final int TAG_HEAD = 2;
+	public static final int TAG_OBJECT = 3;
+
+	/* Must match HEAP_SNAPSHOT_* in gcmodule.c: */
+	/** Tracked by the native GC. */
+	public static final int FLAG_TRACKED = 1;
+	/** Static memory, e.g. builtin types. Size is 0 then. */
+	public static final int FLAG_STATIC = 2;
+	/** Has a Jython counterpart. */
+	public static final int FLAG_MIRRORED = 4;
+	/** Is a CStub, i.e. its Jython counterpart holds the actual data. */
+	public static final int FLAG_TRUNCATED = 8;
+
+	protected final DataOutputStream out;
+	protected final HashSet<Long> types = new HashSet<Long>();
+	protected final HashMap<Class<?>, Integer> heads = new HashMap<Class<?>, Integer>();
+
+	protected JyNIHeapSnapshot(DataOutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes a snapshot of the native object graph to the given file.
+	 * The file is written incrementally, memory use does not depend on
+	 * the number of objects. Holds the GIL while running.
+	 *
+	 * @return the number of object records written
+	 */
+	public static long write(String fileName) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(fileName), 1 << 16));
+		try {
+			out.write(MAGIC);
+			writeVarLong(out, VERSION);
+			long count = JyNI.JyGC_writeHeapSnapshot(new JyNIHeapSnapshot(out),
+					JyTState.prepareNativeThreadState(Py.getThreadState()));
+			if (count < 0) throw new IOException("Could not write native heap snapshot.");
+			out.write(TAG_END);
+			writeVarLong(out, count);
+			return count;
+		} finally {
+			out.close();
+		}
+	}
+
+	static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/** Called from native code with the handles of objects held by a JyGCHead. */
+	protected long[] heldHandles() {
+		return JyWeakReferenceGC.getHandles();
+	}
+
+	/** Called from native code with records as described in gcmodule.c. */
+	protected void writeBatch(long[] batch, int length) throws IOException {
+		int pos = 0;
+		while (pos < length) {
+			long handle = batch[pos], type = batch[pos+1];
+			int edges = (int) batch[pos+5];
+			if (types.add(type)) {
+				out.write(TAG_TYPE);
+				writeVarLong(out, type);
+				out.writeUTF(JyNI.getNativeTypeName(handle,
+					JyTState.prepareNativeThreadState(Py.getThreadState())));
+			}
+			int head = headId(handle);
+			out.write(TAG_OBJECT);
+			writeVarLong(out, handle);
+			writeVarLong(out, type);
+			writeVarLong(out, batch[pos+2]);
+			writeVarLong(out, batch[pos+3]);
+			writeVarLong(out, batch[pos+4]);
+			writeVarLong(out, head);
+			writeVarLong(out, edges);
+			pos += 6;
+			for (int i = 0; i < edges; ++i)
+				writeVarLong(out, batch[pos++]);
+		}
+	}
+
+	protected int headId(long handle) throws IOException {
+		JyWeakReferenceGC ref = JyWeakReferenceGC.lookupJyGCHead(handle);
+		JyGCHead head = ref != null ? ref.get() : null;
+		if (head == null) return 0;
+		Integer id = heads.get(head.getClass());
+		if (id == null) {
+			id = heads.size()+1;
+			heads.put(head.getClass(), id);
+			out.write(TAG_HEAD);
+			writeVarLong(out, id);
+			out.writeUTF(head.getClass().getName());
+		}
+		return id;
+	}
+}
@@ -84,6 +84,25 @@ public class JyNIImporter extends PyObject {
 	List<String> knownPaths = null;
 	Vector<String> libPaths = new Vector<String>();
 
+	/*
+	 * Most imports that reach find_module are imports of ordinary Python
+	 * modules, so most lookups are negative. To answer these without listing
+	 * every directory on sys.path again, we keep an index of the extension
+	 * files per directory. An index is rebuilt when its directory's
+	 * modification time changes. Since that time can be coarse, an index
+	 * built shortly after the last modification isn't trusted yet.
+	 */
+	static final long MTIME_GRANULARITY = 2000;
+
+	static class DirectoryIndex {
+		long mtime;
+		long built;
+		/* Module name -> file name of the extension */
+		HashMap<String, String> extensions = new HashMap<String, String>();
+	}
+
+	protected HashMap<String, DirectoryIndex> directoryIndex = new HashMap<String, DirectoryIndex>();
+
 	public JyNIImporter() {
 		super();
 	}
@@ -193,29 +212,18 @@ public class JyNIImporter extends PyObject {
 			subPath = subPath.replace('.', File.separatorChar);
 		}
 		if (blacklist.contains(modname)) return Py.None;
-		String suf = "."+getSystemDependentDynamicLibraryExtension();
 		for (String s : libPaths)
 		{
 //			System.out.println("JyNI look in "+s+File.separatorChar+subPath);
 			if (subPath != null) s = s+File.separatorChar+subPath;
-			File fl = new File(s);
-			//if (fl.exists())
-			String[] ch = fl.list();
-			if (ch != null)
+			String m = lookupExtension(s, modname);
+			if (m != null)
 			{
-				for (String m : ch)
-				{
-					//System.out.println("Check: "+m);
-					//if (m.equals(name+suf))
-					if (m.startsWith(modname+".") && m.endsWith(suf))
-					{
-						//System.out.println("CPythonExtensionImporter found extension "+name);
-						//System.out.println("Extension-Path: "+s+File.separatorChar+m);
-						dynModules.put(name, new JyNIModuleInfo(name, s+File.separatorChar+m, null));
-//						System.out.println(" JyNI ok");
-						return this;
-					}
-				}	
+				//System.out.println("CPythonExtensionImporter found extension "+name);
+				//System.out.println("Extension-Path: "+s+File.separatorChar+m);
+				dynModules.put(name, new JyNIModuleInfo(name, s+File.separatorChar+m, null));
+//				System.out.println(" JyNI ok");
+				return this;
 			}
 		}
 		//System.out.println("CPythonExtensionImporter8: "+name);
@@ -243,6 +251,7 @@ public class JyNIImporter extends PyObject {
 //		}
 		if (inf.module == null)
 		{
+			JyNIInitializer.patchEnviron();
 			inf.module = JyNI.loadModule(name, inf.path, JyTState.prepareNativeThreadState(Py.getThreadState()));
 			JyNI.maybeExc(inf.module);
 			//System.out.println("had to call JyNI.loadModule, which returned "+inf.module);
@@ -254,6 +263,52 @@ public class JyNIImporter extends PyObject {
 		//return Py.NotImplemented; //PySystemState.packageManager.lookupName(name.intern());
 	}
 
+	/**
+	 * Looks up the extension file for a module in a directory.
+	 * An extension for module foo is named like foo.so or foo.*.so
+	 * (.pyd on Windows).
+	 *
+	 * @return the file name or null if there is no extension
+	 */
+	protected synchronized String lookupExtension(String dir, String modname) {
+		File fl = new File(dir);
+		long mtime = fl.lastModified();
+		DirectoryIndex index = directoryIndex.get(dir);
+		if (index == null || index.mtime != mtime
+				|| index.built-mtime < MTIME_GRANULARITY)
+		{
+			index = new DirectoryIndex();
+			index.mtime = mtime;
+			index.built = System.currentTimeMillis();
+			String suf = "."+getSystemDependentDynamicLibraryExtension();
+			String[] ch = fl.list();
+			if (ch != null)
+			{
+				for (String m : ch)
+				{
+					int dot = m.indexOf('.');
+					if (dot > 0 && m.endsWith(suf))
+					{
+						String key = m.substring(0, dot);
+						if (!index.extensions.containsKey(key)) index.extensions.put(key, m);
+					}
+				}
+			}
+			directoryIndex.put(dir, index);
+		}
+		return index.extensions.get(modname);
+	}
+
+	/**
+	 * Discards the directory index, so the next imports list the
+	 * directories again. Like importlib.invalidate_caches in Python 3,
+	 * this is only needed if extensions are created at runtime within
+	 * less than the file system's timestamp granularity.
+	 */
+	public synchronized void invalidateCaches() {
+		directoryIndex.clear();
+	}
+
 	/**
 	 * Returns a string representation of the object.
 	 *
@@ -53,6 +53,22 @@ public class JyNIInitializer implements JythonInitializer {
 	protected static boolean isWindows = System.getProperty("os.name").startsWith("Windows");
 	static JyNIImporter importer;
 
+	/*
+	 * JyNI's native library is not loaded at Jython startup, but when
+	 * the class JyNI is initialized, usually by the first extension import.
+	 * Set by JyNI's static initializer once the library is ready.
+	 */
+	static volatile boolean nativeLoaded = false;
+	private static boolean environPatched = false;
+
+	/**
+	 * Tells whether JyNI's native library was loaded yet. Until then no
+	 * native objects exist, so JyNI's GC hooks have nothing to do.
+	 */
+	public static boolean isNativeLoaded() {
+		return nativeLoaded;
+	}
+
 	static class SentinelFinalizer implements JyGCHead {
 		public SentinelFinalizer() {
 			new JyWeakReferenceGC(this);
@@ -118,18 +134,29 @@ public class JyNIInitializer implements JythonInitializer {
 		new SentinelFinalizer();
 		gc.addJythonGCFlags(gc.FORCE_DELAYED_WEAKREF_CALLBACKS);
 		gc.registerPreFinalizationProcess(new Runnable(){
-				public void run() {JyNI.preProcessCStubGCCycle();}});
-
-		/* Here we patch os.environ to use a proper putenv implementation.
-		 * This gets it close to CPython semantics. */
-		PyModule config_util = (PyModule) imp.load("config_util");
-		config_util.__findattr__("_patch_os_environ").__call__();
+				public void run() {if (nativeLoaded) JyNI.preProcessCStubGCCycle();}});
 
 		if (isWindows) {
 			/* This enables support for mbcs encoding if we run on Windows. */
+			PyModule config_util = (PyModule) imp.load("config_util");
 			config_util.__findattr__("_register_mbcs_encoding").__call__();
 		}
 //		System.out.println("Init JyNI done");
 		initialized = true;
 	}
+
+	/**
+	 * Patches os.environ to use a proper putenv implementation.
+	 * This gets it close to CPython semantics. We do this right before
+	 * the first extension is loaded rather than at startup, so programs
+	 * that never use native extensions don't pay for it.
+	 * Changes made to os.environ before are passed on to the native
+	 * environment then.
+	 */
+	static synchronized void patchEnviron() {
+		if (environPatched) return;
+		PyModule config_util = (PyModule) imp.load("config_util");
+		config_util.__findattr__("_patch_os_environ").__call__();
+		environPatched = true;
+	}
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package JyNI;
+
+import org.python.core.Py;
+import org.python.core.PyException;
+import org.python.core.PyObject;
+import org.python.core.ThreadState;
+
+/**
+ * Read-ahead buffer for iterating a native iterator from Jython.
+ * Items are fetched in batches via JyNI.JyNI_PyIter_NextBatch, so a batch
+ * costs a single JNI-call and GIL-acquisition. The batch size starts at 1
+ * and doubles with every batch up to {@link #maxBatch}, so loops that stop
+ * early don't pull many items ahead.
+ *
+ * Exhaustion and exceptions are reported exactly where they occurred, i.e.
+ * after the items fetched before. Like with CPython's file iteration, mixing
+ * iteration with other methods that advance the same native iterator, e.g.
+ * sqlite3's cursor.fetchone, skips the items already read ahead.
+ * Because of this, read-ahead is off by default. Set the system property
+ * "jyni.iterprefetch" to the maximal batch size, e.g. 64, to turn it on.
+ */
+public class JyNIIterPrefetch {
+	public static int maxBatch = Integer.getInteger("jyni.iterprefetch", 0);
+
+	protected final long handle;
+	protected PyObject[] buffer;
+	protected int pos = 0, count = 0, batch = 1;
+	/* The last fetch stopped early without an exception: */
+	protected boolean ended = false;
+	/* The last fetch stopped early by this exception: */
+	protected PyException pending = null;
+
+	public JyNIIterPrefetch(long handle) {
+		this.handle = handle;
+	}
+
+	/**
+	 * Returns the next item, or null if the iterator is exhausted.
+	 */
+	public synchronized PyObject next() {
+		if (pos < count) {
+			PyObject res = buffer[pos];
+			buffer[pos++] = null;
+			return res;
+		}
+		if (pending != null) {
+			PyException exc = pending;
+			pending = null;
+			throw exc;
+		}
+		if (ended) {
+			// Don't assume exhaustion is final; we behave like the native iterator.
+			ended = false;
+			return null;
+		}
+		ThreadState ts = Py.getThreadState();
+		long tstate = JyTState.prepareNativeThreadState(ts);
+		if (batch == 1) {
+			batch = Math.min(2, maxBatch);
+			return JyNI.maybeExc(JyNI.JyNI_PyIter_Next(handle, tstate));
+		}
+		if (buffer == null || buffer.length != batch) buffer = new PyObject[batch];
+		/* JyNI.JyNI_exc is shared by all threads, so we detect our exception
+		 * by the thread state JyNI.JyErr_InsertCurExc stores it in. */
+		PyException before = ts.exception;
+		count = JyNI.JyNI_PyIter_NextBatch(handle, buffer, tstate);
+		pos = 0;
+		if (count < buffer.length) {
+			if (ts.exception != before && ts.exception != null) {
+				pending = ts.exception;
+				if (JyNI.JyNI_exc == pending) JyNI.JyNI_exc = null;
+			} else ended = true;
+		}
+		batch = Math.min(batch*2, maxBatch);
+		return next();
+	}
+}
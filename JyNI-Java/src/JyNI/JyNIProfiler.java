@@ -0,0 +1,203 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+
+
+package JyNI;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Profiles calls from Java into native code per native function.
+ * Calls of native callables are attributed to the function, e.g.
+ * "DemoExtension.intSquare", or to "type.__call__" for other callables.
+ * Slot calls are attributed to the receiver's type and the C-API function
+ * performing them, e.g. "numpy.ndarray.PyNumber_Add" or
+ * "numpy.ndarray.PyObject_GetAttr".
+ *
+ * For each function the profiler counts calls and measures three phases:
+ * Conversion of the arguments to native objects, the native call itself
+ * and conversion of the result to Jython. Each phase is recorded in a
+ * histogram of nanoseconds with a relative precision of 1/8, like
+ * HdrHistogram with one significant digit. Times include callbacks into
+ * Jython and nested native calls.
+ *
+ * Profiling is off by default and adds a single flag check per call then.
+ * It is not yet available on Windows. The Python module jyni_profile
+ * provides start, stop and report.
+ */
+public class JyNIProfiler {
+	public static final int ARGUMENTS = 0;
+	public static final int CALL = 1;
+	public static final int RESULT = 2;
+
+	/* Must match JyNI_PROFILE_SUB_BITS and JyNI_PROFILE_HIST_BUCKETS in JyNI.h: */
+	static final int SUB_BITS = 3;
+	public static final int HIST_BUCKETS = (40-SUB_BITS+1) << SUB_BITS;
+	static final int HEADER = 4;
+
+	protected static volatile boolean running = false;
+
+	public static void start() {
+		running = true;
+		JyNI.setProfiling(true);
+	}
+
+	public static void stop() {
+		JyNI.setProfiling(false);
+		running = false;
+	}
+
+	public static boolean isRunning() {
+		return running;
+	}
+
+	/** Clears the values recorded so far. */
+	public static void reset() {
+		JyNI.resetProfile();
+	}
+
+	/** Lowest value in nanoseconds that falls into the given bucket. */
+	public static long bucketLowerBound(int bucket) {
+		if (bucket < 1 << SUB_BITS) return bucket;
+		int mag = (bucket >> SUB_BITS)+SUB_BITS-1;
+		return ((long) ((1 << SUB_BITS) | (bucket & ((1 << SUB_BITS)-1)))) << (mag-SUB_BITS);
+	}
+
+	/** Lowest value in nanoseconds above the given bucket. */
+	public static long bucketUpperBound(int bucket) {
+		if (bucket < 1 << SUB_BITS) return bucket+1;
+		int mag = (bucket >> SUB_BITS)+SUB_BITS-1;
+		return bucketLowerBound(bucket)+(1L << (mag-SUB_BITS));
+	}
+
+	public static class Entry {
+		protected final String name;
+		protected final long[] data;
+
+		Entry(String name, long[] data) {
+			this.name = name;
+			this.data = data;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCalls() {
+			return data[0];
+		}
+
+		/** Total nanoseconds spent in the given phase. */
+		public long getTotalNanos(int phase) {
+			return data[1+phase];
+		}
+
+		public long getTotalNanos() {
+			return data[1]+data[2]+data[3];
+		}
+
+		public double getMeanNanos(int phase) {
+			return data[0] == 0 ? 0.0 : (double) data[1+phase]/data[0];
+		}
+
+		/** Copy of the histogram of the given phase, see {@link #bucketLowerBound(int)}. */
+		public long[] getHistogram(int phase) {
+			long[] result = new long[HIST_BUCKETS];
+			System.arraycopy(data, HEADER+phase*HIST_BUCKETS, result, 0, HIST_BUCKETS);
+			return result;
+		}
+
+		/**
+		 * Returns the upper bound in nanoseconds of the bucket that contains the
+		 * given percentile (0 to 100) of the given phase.
+		 */
+		public long getPercentile(int phase, double percentile) {
+			long count = 0, total = 0;
+			int offset = HEADER+phase*HIST_BUCKETS;
+			for (int i = 0; i < HIST_BUCKETS; ++i)
+				total += data[offset+i];
+			if (total == 0) return 0;
+			long threshold = (long) Math.ceil(total*percentile/100.0);
+			if (threshold < 1) threshold = 1;
+			for (int i = 0; i < HIST_BUCKETS; ++i) {
+				count += data[offset+i];
+				if (count >= threshold) return bucketUpperBound(i);
+			}
+			return bucketUpperBound(HIST_BUCKETS-1);
+		}
+	}
+
+	/**
+	 * Returns the profiled functions that were called since the last reset,
+	 * in descending order of total time.
+	 */
+	public static List<Entry> getEntries() {
+		String[] names = JyNI.getProfileNames();
+		List<Entry> result = new ArrayList<>(names.length);
+		for (int i = 0; i < names.length; ++i) {
+			long[] data = JyNI.getProfileData(i);
+			if (data != null && data[0] > 0) result.add(new Entry(names[i], data));
+		}
+		Collections.sort(result, new Comparator<Entry>() {
+			public int compare(Entry e1, Entry e2) {
+				return Long.compare(e2.getTotalNanos(), e1.getTotalNanos());
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Formats the entries as a table with one line per function: Calls,
+	 * total milliseconds, and mean and 99th percentile in microseconds
+	 * of each phase. limit &lt;= 0 lists all functions.
+	 */
+	public static String report(int limit) {
+		List<Entry> entries = getEntries();
+		StringBuilder result = new StringBuilder();
+		result.append(String.format("%-40s %10s %10s %21s %21s %21s%n", "function",
+				"calls", "total ms", "args us mean/p99", "call us mean/p99",
+				"result us mean/p99"));
+		int count = 0;
+		for (Entry e: entries) {
+			if (limit > 0 && count++ == limit) break;
+			result.append(String.format("%-40s %10d %10.3f", e.getName(), e.getCalls(),
+					e.getTotalNanos()/1e6));
+			for (int phase = ARGUMENTS; phase <= RESULT; ++phase)
+				result.append(String.format(" %10.3f/%10.3f", e.getMeanNanos(phase)/1e3,
+						e.getPercentile(phase, 99.0)/1e3));
+			result.append(String.format("%n"));
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package JyNI;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.ObjectName;
+
+import JyNI.gc.JyWeakReferenceGC;
+
+/**
+ * Implements {@link JyNIRuntimeMXBean} and holds the Java side counters.
+ * The MXBean is registered when JyNI is loaded, unless the system property
+ * "jyni.jmx" is "false".
+ */
+public class JyNIRuntime implements JyNIRuntimeMXBean {
+	public static final String OBJECT_NAME = "JyNI:type=Runtime";
+
+	/* Layout of JyNI.getRuntimeStats(): */
+	static final int MIRRORED = 0, ALLOCATIONS = 1, TABLE_SIZE = 2, TABLE_CAPACITY = 3,
+			TABLE_MAX_PROBE = 4, TABLE_TOTAL_PROBE = 5, TABLE_RESIZES = 6, ARENA_BYTES = 7,
+			GIL_ACQUISITIONS = 8, GIL_WAIT = 9, GIL_FORCED_SWITCHES = 10,
+			LOCK_ACQUISITIONS = 11, LOCK_CONTENDED = 12, LOCK_WAIT = 13;
+
+	/** Indexed by the ids in JyNIEvents. */
+	static final AtomicLongArray entryCalls = new AtomicLongArray(JyNIEvents.SET_ITEM+1);
+	static final AtomicLong reaperBatches = new AtomicLong();
+	static final AtomicLong reaperHandles = new AtomicLong();
+	static final AtomicLong reaperMaxBatch = new AtomicLong();
+	static final AtomicLong reaperNanos = new AtomicLong();
+	static final AtomicLong resurrections = new AtomicLong();
+	static final AtomicLong cstubCycles = new AtomicLong();
+	static final AtomicLong cstubNanos = new AtomicLong();
+	static final AtomicLong cstubMaxNanos = new AtomicLong();
+
+	static void countEntry(int id) {
+		entryCalls.incrementAndGet(id);
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long prev;
+		do {
+			prev = max.get();
+		} while (value > prev && !max.compareAndSet(prev, value));
+	}
+
+	public static void countReaperBatch(int handles, long nanos) {
+		reaperBatches.incrementAndGet();
+		reaperHandles.addAndGet(handles);
+		reaperNanos.addAndGet(nanos);
+		updateMax(reaperMaxBatch, handles);
+	}
+
+	static void countCStubPreprocessing(long nanos) {
+		cstubCycles.incrementAndGet();
+		cstubNanos.addAndGet(nanos);
+		updateMax(cstubMaxNanos, nanos);
+	}
+
+	static void countResurrection() {
+		resurrections.incrementAndGet();
+	}
+
+	static synchronized void register() {
+		String prop = System.getProperty("jyni.jmx");
+		if (prop != null && prop.trim().equals("false")) return;
+		try {
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new JyNIRuntime(), name);
+		} catch (Exception e) {
+			System.err.println("JyNI: Could not register "+OBJECT_NAME+": "+e);
+		}
+	}
+
+	private static long stat(int index) {
+		return JyNI.getRuntimeStats()[index];
+	}
+
+	public long getMirroredObjects() {
+		return stat(MIRRORED);
+	}
+
+	public long getNativeAllocations() {
+		return stat(ALLOCATIONS);
+	}
+
+	public long getNativeArenaBytes() {
+		return stat(ARENA_BYTES);
+	}
+
+	public int getCPeers() {
+		return JyNI.CPeerHandles.size();
+	}
+
+	public int getJyWeakReferences() {
+		return JyWeakReferenceGC.getRefCount();
+	}
+
+	public int getCriticalObjects() {
+		synchronized (JyNI.JyNICriticalObjectSet) {
+			return JyNI.JyNICriticalObjectSet.size();
+		}
+	}
+
+	public long getPointerTableSize() {
+		return stat(TABLE_SIZE);
+	}
+
+	public long getPointerTableCapacity() {
+		return stat(TABLE_CAPACITY);
+	}
+
+	public long getPointerTableMaxProbe() {
+		return stat(TABLE_MAX_PROBE);
+	}
+
+	public double getPointerTableMeanProbe() {
+		long[] stats = JyNI.getRuntimeStats();
+		return stats[TABLE_SIZE] == 0 ? 0.0 :
+				(double) stats[TABLE_TOTAL_PROBE]/stats[TABLE_SIZE];
+	}
+
+	public long getPointerTableResizes() {
+		return stat(TABLE_RESIZES);
+	}
+
+	public long getNativeCalls() {
+		return entryCalls.get(JyNIEvents.CALL);
+	}
+
+	public long getNativeGetAttrCalls() {
+		return entryCalls.get(JyNIEvents.GET_ATTR);
+	}
+
+	public long getNativeGetItemCalls() {
+		return entryCalls.get(JyNIEvents.GET_ITEM);
+	}
+
+	public long getNativeSetItemCalls() {
+		return entryCalls.get(JyNIEvents.SET_ITEM);
+	}
+
+	public long getGILAcquisitions() {
+		return stat(GIL_ACQUISITIONS);
+	}
+
+	public long getGILWaitMicros() {
+		return stat(GIL_WAIT);
+	}
+
+	public long getGILForcedSwitches() {
+		return stat(GIL_FORCED_SWITCHES);
+	}
+
+	public long[] getGILWaitHistogram() {
+		return JyNI.getGILWaitHistogram(false);
+	}
+
+	public long getLockAcquisitions() {
+		return stat(LOCK_ACQUISITIONS);
+	}
+
+	public long getLockContendedAcquisitions() {
+		return stat(LOCK_CONTENDED);
+	}
+
+	public long getLockWaitMicros() {
+		return stat(LOCK_WAIT);
+	}
+
+	public long getReaperBatches() {
+		return reaperBatches.get();
+	}
+
+	public long getReaperHandles() {
+		return reaperHandles.get();
+	}
+
+	public long getReaperMaxBatch() {
+		return reaperMaxBatch.get();
+	}
+
+	public long getReaperNanos() {
+		return reaperNanos.get();
+	}
+
+	public long getCStubPreprocessingCycles() {
+		return cstubCycles.get();
+	}
+
+	public long getCStubPreprocessingNanos() {
+		return cstubNanos.get();
+	}
+
+	public long getCStubPreprocessingMaxNanos() {
+		return cstubMaxNanos.get();
+	}
+
+	public long getResurrections() {
+		return resurrections.get();
+	}
+
+	public int getPreconsumedResurrections() {
+		return JyNI.getPreconsumedSize();
+	}
+
+	public long[] getThreadStatePoolStats() {
+		return JyNI.getThreadStatePoolStats();
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright of JyNI:
+ * Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+ * All rights reserved.
+ *
+ *
+ * Copyright of Python and Jython:
+ * Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+ * 2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+ * Python Software Foundation.
+ * All rights reserved.
+ *
+ *
+ * This file is part of JyNI.
+ *
+ * JyNI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * JyNI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package JyNI;
+
+/**
+ * Live statistics of JyNI, registered as "JyNI:type=Runtime" once
+ * JyNI is loaded. See {@link JyNIRuntime}.
+ * Counters are cumulative since JyNI was loaded, other values are
+ * current. Values are read without locking and may be slightly outdated.
+ */
+public interface JyNIRuntimeMXBean {
+	/** Native objects that currently have a Jython counterpart. */
+	long getMirroredObjects();
+	/** Native allocations not yet freed. */
+	long getNativeAllocations();
+	/** Bytes held by the native small-object allocator. */
+	long getNativeArenaBytes();
+	int getCPeers();
+	int getJyWeakReferences();
+	int getCriticalObjects();
+
+	long getPointerTableSize();
+	long getPointerTableCapacity();
+	long getPointerTableMaxProbe();
+	double getPointerTableMeanProbe();
+	long getPointerTableResizes();
+
+	/* Calls from Java into native code, per entry point: */
+	long getNativeCalls();
+	long getNativeGetAttrCalls();
+	long getNativeGetItemCalls();
+	long getNativeSetItemCalls();
+
+	long getGILAcquisitions();
+	long getGILWaitMicros();
+	long getGILForcedSwitches();
+	long[] getGILWaitHistogram();
+
+	/* Native PyThread locks, all together (always 0 on Windows): */
+	long getLockAcquisitions();
+	long getLockContendedAcquisitions();
+	long getLockWaitMicros();
+
+	/* Native reference clearing by the JyNI GC: */
+	long getReaperBatches();
+	long getReaperHandles();
+	long getReaperMaxBatch();
+	/** Time the reaper spent on batches, excluding waiting for them. */
+	long getReaperNanos();
+	/* JyNI.preProcessCStubGCCycle, run once per Java GC cycle: */
+	long getCStubPreprocessingCycles();
+	long getCStubPreprocessingNanos();
+	long getCStubPreprocessingMaxNanos();
+	long getResurrections();
+	int getPreconsumedResurrections();
+
+	/** Native thread states: pooled, reused from pool, newly allocated. */
+	long[] getThreadStatePoolStats();
+}
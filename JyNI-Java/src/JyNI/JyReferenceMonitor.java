@@ -70,6 +70,35 @@ public class JyReferenceMonitor {
 	public static final short GC_POST_FINALIZE = GC_MASK | FINALIZE_MASK | POST_MASK;
 	public static final short GC_DONE = GC_MASK | POST_MASK;
 
+	/** Flags for {@link #setMemDebugFlags(int)}. */
+	public static final int MEMDEBUG_ENABLED  = 1;
+	/**
+	 * Native actions are recorded into per-thread native buffers and
+	 * passed to the monitor in bulk by a background thread.
+	 * This is much cheaper than reporting every action synchronously.
+	 * On Windows actions are always reported synchronously.
+	 */
+	public static final int MEMDEBUG_BUFFERED = 2;
+	/**
+	 * Only a sample of the native allocations is tracked, on average one per
+	 * {@link #getSampleInterval()} allocated bytes. Memory usage of the monitor
+	 * is then bounded by the number of live sampled objects, since freed
+	 * samples are discarded. Use {@link #getLeakSites()} for extrapolated
+	 * leak reports. Can be combined with {@link #MEMDEBUG_BUFFERED}.
+	 */
+	public static final int MEMDEBUG_SAMPLED  = 4;
+
+	/** Maximal number of actions fetched per drain call. */
+	public static final int DRAIN_BATCH = 512;
+	/** Delay between drain runs in milliseconds, configurable via "jyni.refmonitor.drain". */
+	public static long drainInterval = 50;
+
+	protected static Thread drainer = null;
+	protected static volatile boolean buffered = false;
+	protected static volatile boolean sampled = false;
+	protected static long sampleInterval = 512*1024;
+	protected static final NativeAction[] drainBuffer = new NativeAction[DRAIN_BATCH];
+
 	public static long startTime = System.currentTimeMillis();
 	public static HashMap<Long, ObjectLog> nativeObjects = new HashMap<>();
 	public static HashMap<Long, ObjectLog> permanentLeaks = new HashMap<>();
@@ -115,6 +144,97 @@ public class JyReferenceMonitor {
 		public String cMethod;
 		public int cLine;
 		public String cFile;
+		/** Allocated bytes, if known, otherwise -1. */
+		public long size;
+		/** Time of the action, if recorded natively, otherwise 0. */
+		public long time;
+
+		long time() {
+			return time != 0 ? time : System.currentTimeMillis();
+		}
+	}
+
+	static {
+		String drainProp = System.getProperty("jyni.refmonitor.drain");
+		if (drainProp != null) {
+			try {
+				drainInterval = Long.parseLong(drainProp.trim());
+			} catch (NumberFormatException nfe) {
+				System.err.println("JyNI-Warning: Ignoring malformed jyni.refmonitor.drain: "+drainProp);
+			}
+		}
+	}
+
+	/**
+	 * Configures native memory debugging. Use this rather than
+	 * JyNI.JyRefMonitor_setMemDebugFlags, which does not start the drainer
+	 * required by {@link #MEMDEBUG_BUFFERED}.
+	 * Leaving buffered mode flushes all buffered actions.
+	 */
+	public static synchronized void setMemDebugFlags(int flags) {
+		JyNI.JyRefMonitor_setMemDebugFlags(flags);
+		buffered = (flags & MEMDEBUG_BUFFERED) != 0;
+		sampled = (flags & MEMDEBUG_SAMPLED) != 0;
+		if (buffered && drainer == null) {
+			drainer = new Thread("JyNI-refmonitor-drainer") {
+				public void run() {
+					while (true) {
+						try {
+							Thread.sleep(drainInterval);
+						} catch (InterruptedException ie) {}
+						flush();
+					}
+				}
+			};
+			drainer.setDaemon(true);
+			drainer.start();
+		} else if (!buffered) {
+			flush();
+		}
+	}
+
+	/**
+	 * Sets the mean number of bytes allocated between two samples.
+	 * Affects only samples taken afterwards.
+	 */
+	public static synchronized void setSampleInterval(long bytes) {
+		if (bytes < 1) throw new IllegalArgumentException("Sample interval must be positive.");
+		JyNI.JyRefMonitor_setSampleInterval(bytes);
+		sampleInterval = bytes;
+	}
+
+	public static synchronized long getSampleInterval() {
+		return sampleInterval;
+	}
+
+	/**
+	 * Passes all actions buffered so far to the monitor.
+	 */
+	public static synchronized void flush() {
+		int count;
+		do {
+			count = JyNI.JyRefMonitor_drain(drainBuffer);
+			for (int i = 0; i < count; ++i) {
+				addNativeAction(drainBuffer[i]);
+				drainBuffer[i] = null;
+			}
+		} while (count == DRAIN_BATCH);
+	}
+
+	/**
+	 * Returns the number of buffered actions that were lost, because
+	 * the drainer did not keep up.
+	 */
+	public static long getDroppedActions() {
+		return JyNI.JyRefMonitor_getDropped();
+	}
+
+	/**
+	 * A consistent copy of the current logs, including all buffered actions.
+	 */
+	protected static synchronized ArrayList<ObjectLog> logSnapshot() {
+		if (buffered) flush();
+		return new ArrayList<>(nativeObjects.values());
 	}
 
 //	public static ObjectLogDebugInfo makeDebugInfo(String cTypeName, String cMethod,
@@ -162,6 +282,9 @@ public class JyReferenceMonitor {
 		long jyWeakRef = 0;
 		long JyNIFree = 0;
 		String repr = "n/a";
+		/* Allocated bytes and the number of allocations this log stands for. */
+		long size = 0;
+		double weight = 1.0;
 		/* to save the old log if a memory position is reused */
 		ObjectLog previousLife = null;
 
@@ -198,7 +321,8 @@ public class JyReferenceMonitor {
 
 		public String getNativeTypeName() {
 			if (nativeType == null) {
-				String nt = JyNI.getNativeTypeName(nativeRef);
+				String nt = JyNI.getNativeTypeName(nativeRef,
+					JyTState.prepareNativeThreadState(Py.getThreadState()));
 				if (nt != null) return nt;
 				else return "type "+na;
 			} else return nativeType;
@@ -224,10 +348,11 @@ public class JyReferenceMonitor {
 //				}
 //			}
 			if (nativeType == null) {
-				String nt = JyNI.getNativeTypeName(nativeRef);
+				String nt = JyNI.getNativeTypeName(nativeRef,
+					JyTState.prepareNativeThreadState(Py.getThreadState()));
 				System.out.println("JyNI-Warning: Null-type discovered: "+nt);
 				System.out.println("object: "+(
-						nativeFree == 0 ? JyNI.lookupFromHandle(nativeRef) : na));
+						nativeFree == 0 ? JyNI.lookupFromHandle(nativeRef, JyTState.prepareNativeThreadState(Py.getThreadState())) : na));
 				if (nt != null)
 					nativeType = nt+"_n";
 			}
@@ -251,7 +376,7 @@ public class JyReferenceMonitor {
 //			System.out.println("forceUpdatePyObject "+nativeRef);//Free on non-allocated ref!
 //			System.out.println("Src-func: "+nativeAllocFunc);
 //			System.out.println("type: "+this.nativeType);
-			PyObject op = nativeFree == 0 ? JyNI.lookupFromHandle(nativeRef) : null;
+			PyObject op = nativeFree == 0 ? JyNI.lookupFromHandle(nativeRef, JyTState.prepareNativeThreadState(Py.getThreadState())) : null;
 //			System.out.println("forceUpdatePyObject done");
 			if (op != null) object = new WeakReference<>(op);
 		}
@@ -273,8 +398,8 @@ public class JyReferenceMonitor {
 					object = new WeakReference<>(nvac.obj);
 				}
 			}
-			if (nativeType != null) {
-				if (this.nativeType != null && !this.nativeType.equals(nativeType)) {
+			if (nvac.cTypeName != null) {
+				if (this.nativeType != null && !this.nativeType.equals(nvac.cTypeName)) {
 					throw new ObjectLogException(
 						"Log-Type error: Contradictory native type-strings!",
 						this, nvac);
@@ -293,8 +418,9 @@ public class JyReferenceMonitor {
 							"Log-Realloc error: Old ref doesn't match!",
 							this, nvac);
 					nativeRef = nvac.nativeRef2;
-					nativeLatestRealloc = System.currentTimeMillis();
+					nativeLatestRealloc = nvac.time();
 					nativeReallocFunc = nvac.cMethod+"/"+nvac.cLine;
+					if (nvac.size > 0) size = nvac.size;
 				} else if ((nvac.action & INC_MASK) != 0) {
 					if (nativeAlloc != 0)
 						throw new ObjectLogException(
@@ -304,8 +430,13 @@ public class JyReferenceMonitor {
 						throw new ObjectLogException(
 							"Log-Alloc error: Alloc on already freed ref!",
 							this, nvac);
-					nativeAlloc = System.currentTimeMillis();
+					nativeAlloc = nvac.time();
 					nativeAllocFunc = nvac.cMethod+"/"+nvac.cLine;
+					if (nvac.size > 0) size = nvac.size;
+					/* An allocation of s bytes is sampled with probability
+					 * 1-exp(-s/interval), so it stands for the inverse of that. */
+					if (sampled && size > 0)
+						weight = 1.0/(1.0-Math.exp(-(double) size/sampleInterval));
 				} else if ((nvac.action & DEC_MASK) != 0) {
 					if (nativeAlloc == 0)
 						throw new ObjectLogException(
@@ -315,7 +446,7 @@ public class JyReferenceMonitor {
 						throw new ObjectLogException(
 							"Log-Free error: Free on already freed ref!",
 							this, nvac);
-					nativeFree = System.currentTimeMillis();
+					nativeFree = nvac.time();
 					nativeFreeFunc = nvac.cMethod+"/"+nvac.cLine;
 				}
 			}
@@ -324,7 +455,7 @@ public class JyReferenceMonitor {
 					throw new ObjectLogException(
 						"Log-Immortal error: Object made immortal twice!",
 						this, nvac);
-				immortal = System.currentTimeMillis();
+				immortal = nvac.time();
 				immortalFunc = nvac.cMethod+"/"+nvac.cLine;
 			}
 			if ((nvac.action & GC_MASK) != 0) {
@@ -377,7 +508,8 @@ public class JyReferenceMonitor {
 //		}
 //	}
 
-	public static void addJyWeakRef(long handle) {
+	public static synchronized void addJyWeakRef(long handle) {
+		if (buffered) flush();
 		ObjectLog log = nativeObjects.get(handle);
 		if (log != null) {
 			if (log.jyWeakRef != 0) {
@@ -387,7 +519,8 @@ public class JyReferenceMonitor {
 		}
 	}
 
-	public static void clearJyWeakRef(long handle) {
+	public static synchronized void clearJyWeakRef(long handle) {
+		if (buffered) flush();
 		ObjectLog log = nativeObjects.get(handle);
 		if (log != null) {
 			if (log.jyWeakRef == 0) {
@@ -397,7 +530,8 @@ public class JyReferenceMonitor {
 		}
 	}
 
-	public static void notifyResurrect(long handle, PyObject obj) {
+	public static synchronized void notifyResurrect(long handle, PyObject obj) {
+		if (buffered) flush();
 		ObjectLog log = nativeObjects.get(handle);
 		if (log != null) {
 			// We keep this warning silent for now, since it appears to
@@ -410,7 +544,8 @@ public class JyReferenceMonitor {
 		}
 	}
 
-	public static void notifyJyNIFree(long handle) {
+	public static synchronized void notifyJyNIFree(long handle) {
+		if (buffered) flush();
 		ObjectLog log = nativeObjects.get(handle);
 		if (log != null) {
 			if (log.JyNIFree != 0) {
@@ -444,7 +579,7 @@ public class JyReferenceMonitor {
 //		
 //	}
 
-	public static void addNativeAction(NativeAction nvac) {
+	public static synchronized void addNativeAction(NativeAction nvac) {
 //	public static void addNativeAction(short action, PyObject obj, long nativeRef1, long nativeRef2,
 //			ObjectLogDebugInfo debugInfo) {
 			//String nativeType, String cMethod, String cFile, int line, String nativeRepr) {
@@ -465,6 +600,8 @@ public class JyReferenceMonitor {
 		} catch (ObjectLogException ole) {
 			System.err.println(ole.getMessage());
 		}
+		if (sampled && log.nativeFree != 0)
+			nativeObjects.remove(nvac.nativeRef1);
 
 		//System.out.println(line);
 		//System.out.println("addAction: "+action+" ("+cMethod+")");
@@ -487,7 +624,7 @@ public class JyReferenceMonitor {
 	}
 
 	public static List<ObjectLog> getCurrentNativeLeaks() {
-		ArrayList<ObjectLog> tmp = new ArrayList<>(nativeObjects.values());
+		ArrayList<ObjectLog> tmp = logSnapshot();
 		Map<Long, Object> lsrc = new HashMap<>(tmp.size());
 		for (ObjectLog obl: tmp) {
 			lsrc.put(obl.nativeRef, obl);
@@ -503,7 +640,67 @@ public class JyReferenceMonitor {
 		return result;
 	}
 
-	public static void declareLeaksPermanent(Collection<ObjectLog> leaks) {
+	/**
+	 * Leaks aggregated by native type and allocating function.
+	 * In sampling mode counts and bytes are estimates.
+	 */
+	public static class LeakSite implements Comparable<LeakSite> {
+		public final String cTypeName;
+		public final String allocFunction;
+		public int sampledLeaks;
+		public double estimatedLeaks;
+		public double estimatedBytes;
+
+		public LeakSite(String cTypeName, String allocFunction) {
+			this.cTypeName = cTypeName;
+			this.allocFunction = allocFunction;
+		}
+
+		public int compareTo(LeakSite other) {
+			return Double.compare(other.estimatedBytes, estimatedBytes);
+		}
+
+		public String toString() {
+			return String.format("%s from %s: ~%.0f objects, ~%.0f bytes (%d tracked)",
+					cTypeName, allocFunction, estimatedLeaks, estimatedBytes, sampledLeaks);
+		}
+	}
+
+	/**
+	 * Returns the current native leaks grouped by site, largest first.
+	 */
+	public static List<LeakSite> getLeakSites() {
+		HashMap<String, LeakSite> sites = new HashMap<>();
+		for (ObjectLog log: getCurrentNativeLeaks()) {
+			String tp = log.getNativeTypeName();
+			String func = log.nativeAllocFunc != null ? log.nativeAllocFunc : ObjectLog.na;
+			String key = tp+"@"+func;
+			LeakSite site = sites.get(key);
+			if (site == null) {
+				site = new LeakSite(tp, func);
+				sites.put(key, site);
+			}
+			++site.sampledLeaks;
+			site.estimatedLeaks += log.weight;
+			site.estimatedBytes += log.weight*log.size;
+		}
+		ArrayList<LeakSite> result = new ArrayList<>(sites.values());
+		Collections.sort(result);
+		return result;
+	}
+
+	public static void listLeakSites() {
+		List<LeakSite> sites = getLeakSites();
+		if (sites.isEmpty()) System.out.println("no leaks recorded");
+		else {
+			System.out.println("Current native leak sites"+
+					(sampled ? " (extrapolated from samples):" : ":"));
+			for (LeakSite site: sites)
+				System.out.println("  "+site);
+		}
+	}
+
+	public static synchronized void declareLeaksPermanent(Collection<ObjectLog> leaks) {
 		for (ObjectLog l: leaks) {
 			nativeObjects.remove(l.initialNativeRef);
 			permanentLeaks.put(l.initialNativeRef, l);
@@ -534,7 +731,7 @@ public class JyReferenceMonitor {
 	}
 
 	public static void listWouldDeleteNative() {
-		ArrayList<ObjectLog> tmp = new ArrayList<>(nativeObjects.values());
+		ArrayList<ObjectLog> tmp = logSnapshot();
 		boolean found = false;
 		for (ObjectLog log: tmp) {
 			if (log.JyNIFree != 0 && log.JyNIFree >= lastGCRun) {
@@ -550,7 +747,7 @@ public class JyReferenceMonitor {
 	}
 
 	public static void listFreed() {
-		ArrayList<ObjectLog> tmp = new ArrayList<>(nativeObjects.values());
+		ArrayList<ObjectLog> tmp = logSnapshot();
 		for (ObjectLog log: tmp) {
 			if (log.nativeFree != 0) {
 				log.updatePyObject();
@@ -560,7 +757,7 @@ public class JyReferenceMonitor {
 	}
 
 	public static void listFreeStatus(String typeName) {
-		ArrayList<ObjectLog> tmp = new ArrayList<>(nativeObjects.values());
+		ArrayList<ObjectLog> tmp = logSnapshot();
 		for (ObjectLog log: tmp) {
 			if (log.getNativeTypeName().equals(typeName)) {
 				log.updatePyObject();
@@ -569,12 +766,13 @@ public class JyReferenceMonitor {
 		}
 	}
 
-	public static ObjectLog getLog(long nativeReference) {
+	public static synchronized ObjectLog getLog(long nativeReference) {
+		if (buffered) flush();
 		return nativeObjects.get(nativeReference);
 	}
 
 	public static void listImmortal() {
-		ArrayList<ObjectLog> tmp = new ArrayList<>(nativeObjects.values());
+		ArrayList<ObjectLog> tmp = logSnapshot();
 		for (ObjectLog log: tmp) {
 			if (log.immortal != 0) {
 				log.updatePyObject();
@@ -584,7 +782,7 @@ public class JyReferenceMonitor {
 	}
 
 	public static void listAll() {
-		ArrayList<ObjectLog> tmp = new ArrayList<>(nativeObjects.values());
+		ArrayList<ObjectLog> tmp = logSnapshot();
 		for (ObjectLog log: tmp) {
 			log.updatePyObject();
 			System.out.println(log);
@@ -30,7 +30,11 @@
 
 package JyNI;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 
 import org.python.core.Py;
@@ -43,10 +47,44 @@ public class JyTState {
 	//No IdentityHashMap needed, since ThreadState does not overwrite hashCode().
 	//Note that WeakHashMap has weak keys and "strong" values, so this mapping implements a
 	//keep-alive relationship with each ThreadState keeping alive the corresponding JyTState.
+	//Access must be synchronized on tStateLookup.
 	protected static WeakHashMap<ThreadState, JyTState> tStateLookup =
 			new WeakHashMap<ThreadState, JyTState>();
-	
-	protected WeakReference<ThreadState> tState;
+
+	//Avoids the synchronized lookup for the common case of one ThreadState per thread.
+	protected static final ThreadLocal<JyTState> current = new ThreadLocal<JyTState>();
+
+	//Native thread states whose ThreadState died are released as soon as this is polled,
+	//so the native side can hand them out again without waiting for finalization.
+	protected static final ReferenceQueue<ThreadState> deadOwners = new ReferenceQueue<ThreadState>();
+	//Keeps the OwnerRefs reachable, so they are actually enqueued.
+	protected static final Set<OwnerRef> liveOwners =
+			Collections.newSetFromMap(new ConcurrentHashMap<OwnerRef, Boolean>());
+
+	/**
+	 * Weak reference to the ThreadState owning a native thread state.
+	 * Releases the native thread state exactly once, either explicitly
+	 * or after the owner died.
+	 */
+	protected static class OwnerRef extends WeakReference<ThreadState> {
+		protected final long nativeHandle;
+		protected volatile boolean released = false;
+
+		protected OwnerRef(ThreadState owner, long nativeHandle) {
+			super(owner, deadOwners);
+			this.nativeHandle = nativeHandle;
+			liveOwners.add(this);
+		}
+
+		protected synchronized void release() {
+			if (released) return;
+			released = true;
+			liveOwners.remove(this);
+			JyNI.clearNativeThreadState(nativeHandle);
+		}
+	}
+
+	protected OwnerRef tState;
 	protected int nativeCallDepth;
 	protected long nativeHandle;
 
@@ -59,13 +97,52 @@ public class JyTState {
 	}
 
 	public static JyTState fromThreadState(ThreadState ts) {
-		JyTState res = tStateLookup.get(ts);
-		if (res != null) return res;
-		res = new JyTState(ts);
-		tStateLookup.put(ts, res);
+		JyTState res = current.get();
+		if (res != null && res.tState.get() == ts && !res.tState.released) return res;
+		releaseDeadOwners();
+		synchronized (tStateLookup) {
+			res = tStateLookup.get(ts);
+			if (res == null) {
+				res = new JyTState(ts);
+				tStateLookup.put(ts, res);
+			}
+		}
+		current.set(res);
 		return res;
 	}
 
+	/**
+	 * Returns the native thread states of all collected ThreadStates to
+	 * the native pool. This happens automatically whenever a JyTState is
+	 * looked up on a thread for the first time.
+	 */
+	public static void releaseDeadOwners() {
+		OwnerRef ref;
+		while ((ref = (OwnerRef) deadOwners.poll()) != null)
+			ref.release();
+	}
+
+	/**
+	 * Detaches the native thread state of the given ThreadState, if any,
+	 * see {@link #release()}.
+	 */
+	public static void release(ThreadState ts) {
+		JyTState jts;
+		synchronized (tStateLookup) {
+			jts = tStateLookup.get(ts);
+		}
+		if (jts != null) jts.release();
+	}
+
+	/**
+	 * Returns {pooled, reused, allocated}: the number of native thread states
+	 * currently waiting in the pool for reuse, and how many requests for a
+	 * native thread state were served from the pool or by allocation.
+	 */
+	public static long[] getPoolStats() {
+		return JyNI.getThreadStatePoolStats();
+	}
+
 	public static long prepareNativeThreadState() {
 		return prepareNativeThreadState(Py.getThreadState());
 	}
@@ -93,13 +170,29 @@ public class JyTState {
 
 	protected JyTState(ThreadState tState)
 	{
-		this.tState = new WeakReference<ThreadState>(tState);
 		nativeCallDepth = tState.call_depth;
 		nativeHandle = JyNI.initNativeThreadState(this, tState);
+		this.tState = new OwnerRef(tState, nativeHandle);
 //		System.out.println("JyTState created: "+nativeHandle);
 	}
-	
-	protected void finalize() throws Throwable {
-		JyNI.clearNativeThreadState(nativeHandle);
+
+	/**
+	 * Detaches this JyTState from its ThreadState and returns the native
+	 * thread state to the native pool for reuse. A later native call on
+	 * behalf of the same ThreadState attaches a fresh JyTState.
+	 * This is meant for executors, e.g. to call at the end of each task,
+	 * so that short-lived ThreadStates don't keep native thread states
+	 * until they are collected. Must not be called while a native call
+	 * of this ThreadState is in progress.
+	 */
+	public void release() {
+		ThreadState ts = tState.get();
+		if (ts != null) {
+			synchronized (tStateLookup) {
+				if (tStateLookup.get(ts) == this) tStateLookup.remove(ts);
+			}
+		}
+		if (current.get() == this) current.remove();
+		tState.release();
 	}
 }
@@ -60,9 +60,8 @@ public class PyCFunction extends PyBuiltinCallable implements CPeerInterface,
 //    	for (String kw: keywords) System.out.println(kw);
 		PyObject result = null;
 		if (keywords.length == 0) {
-			result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle,
-					args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null,
-					JyTState.prepareNativeThreadState(Py.getThreadState())));
+			result = JyNI.callPyCPeer(objectHandle,
+					args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null);
 		} else {
 			//todo: Use PyStringMap here... much work needs to be done to make the peer dictobject accept this
 			HashMap<PyObject, PyObject> back = new HashMap<PyObject, PyObject>(keywords.length);
@@ -76,14 +75,14 @@ public class PyCFunction extends PyBuiltinCallable implements CPeerInterface,
 //				System.out.println("call PyCPeer... kw "+back.size());
 //				for (PyObject ky: back.keySet()) System.out.println(ky);
 //				System.out.println("--------------");
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
-					new PyDictionary(back), JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
+					new PyDictionary(back));
 			} else {
 //				System.out.println("call PyCPeer2... kw "+back.size());
 //				for (PyObject ky: back.keySet()) System.out.println(ky);
 //				System.out.println("--------------");
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, Py.EmptyTuple,
-					new PyDictionary(back), JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, Py.EmptyTuple,
+					new PyDictionary(back));
 			}
 		}
 		if (result == null) {
@@ -99,7 +98,7 @@ public class PyCFunction extends PyBuiltinCallable implements CPeerInterface,
 	@Override
 	public PyObject __findattr_ex__(String name) {
 //		System.out.println("Look for attribute "+name+" in PyCFunction");
-		PyObject er = JyNI.maybeExc(JyNI.getAttrString(objectHandle, name,
+		PyObject er = JyNI.maybeExc(JyNI.tracedGetAttrString(objectHandle, name,
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 		return er != null ? er : Py.None;
 	}
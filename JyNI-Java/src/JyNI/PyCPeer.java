@@ -46,6 +46,8 @@ import java.util.HashMap;
 public class PyCPeer extends PyObject implements CPeerInterface, FinalizableBuiltin {
 
 	public long objectHandle;//, refHandle;
+	/* Read-ahead state, only created if this is a native iterator: */
+	protected volatile JyNIIterPrefetch prefetch;
 
 	public PyCPeer(long objectHandle, PyType subtype) {
 		super(subtype);
@@ -62,9 +64,8 @@ public class PyCPeer extends PyObject implements CPeerInterface, FinalizableBuil
 	public PyObject __call__(PyObject[] args, String[] keywords) {
 		PyObject result = null;
 		if (keywords.length == 0) {
-			result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle,
-					args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null,
-					JyTState.prepareNativeThreadState(Py.getThreadState())));
+			result = JyNI.callPyCPeer(objectHandle,
+					args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null);
 		} else {
 			//todo: Use PyStringMap here... much work needs to be done to make the peer dictobject accept this
 			HashMap<PyObject, PyObject> back = new HashMap<PyObject, PyObject>(keywords.length);
@@ -75,11 +76,11 @@ public class PyCPeer extends PyObject implements CPeerInterface, FinalizableBuil
 			if (args.length > keywords.length) {
 				PyObject[] args2 = new PyObject[args.length - keywords.length];
 				System.arraycopy(args, 0, args2, 0, args2.length);
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
-					new PyDictionary(back), JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
+					new PyDictionary(back));
 			} else
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, Py.EmptyTuple,
-					new PyDictionary(back), JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, Py.EmptyTuple,
+					new PyDictionary(back));
 		}
 		if (result == null)
 			// This is equivalent to
@@ -94,7 +95,7 @@ public class PyCPeer extends PyObject implements CPeerInterface, FinalizableBuil
 	@Override
 	public PyObject __findattr_ex__(String name) {
 //		System.out.println("Look for attribute "+name+" in PyCPeer");
-		PyObject er = JyNI.maybeExc(JyNI.getAttrString(objectHandle, name,
+		PyObject er = JyNI.maybeExc(JyNI.tracedGetAttrString(objectHandle, name,
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 //		System.out.println("result: "+er);
 		return er != null ? er : Py.None;
@@ -109,37 +110,28 @@ public class PyCPeer extends PyObject implements CPeerInterface, FinalizableBuil
 
 	@Override
 	public PyObject __finditem__(PyObject key) {
-		PyObject res = JyNI.getItem(objectHandle, key,
-				JyTState.prepareNativeThreadState(Py.getThreadState()));
 		if ((((PyCPeerType) objtype).nativeMethodFlags & PyCPeerType.OB_ITER) != 0)
-		{
-			try {
-				JyNI.maybeExc(res);
-			} catch (PyException exc) {
-				if (exc.match(Py.IndexError)) {
-					/* We compensate an incompatibility between behaviors of
-					 * Jython's and CPythons PySequenceIter objects.
-					 * While CPython's implementation aborts sanely on
-					 * StopIteration or IndexError, Jython's implementation
-					 * strictly requires StopIteration. So we replace IndexError
-					 * by StopIteration, if we're an iterable.
-					 */
-					throw new PyException(Py.StopIteration, exc.value);
-				} else throw exc;
-			}
-			return res;
-		} else return JyNI.maybeExc(res);
+			/* Jython's PySequenceIter ends on null, so we use findItem, which
+			 * reports IndexError and StopIteration that way. This also
+			 * compensates that CPython's sequence iteration stops on
+			 * IndexError, while Jython's strictly requires StopIteration.
+			 */
+			return JyNI.maybeExc(JyNI.tracedFindItem(objectHandle, key, System.identityHashCode(key),
+					JyTState.prepareNativeThreadState(Py.getThreadState())));
+		return JyNI.maybeExc(JyNI.tracedGetItem(objectHandle, key, System.identityHashCode(key),
+				JyTState.prepareNativeThreadState(Py.getThreadState())));
 	}
 
 	@Override
 	public void __setitem__(PyObject key, PyObject value) {
-		JyNI.maybeExc(JyNI.setItem(objectHandle, key, value,
+		JyNI.maybeExc(JyNI.tracedSetItem(objectHandle, key, System.identityHashCode(key),
+				value, System.identityHashCode(value),
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 	}
 
 	@Override
 	public void __delitem__(PyObject key) {
-		JyNI.maybeExc(JyNI.delItem(objectHandle, key,
+		JyNI.maybeExc(JyNI.delItem(objectHandle, key, System.identityHashCode(key),
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 	}
 
@@ -651,10 +643,12 @@ public class PyCPeer extends PyObject implements CPeerInterface, FinalizableBuil
 // ------ implementation of PyMapping-methods ------
 	@Override
 	public PyObject __getitem__(PyObject other) {
-		if ((((PyCPeerType) objtype).nativeMethodFlags & PyCPeerType.MP_SUBSCRIPT) != 0)
-			return JyNI.maybeExc(JyNI.getItem(objectHandle, other,
-					JyTState.prepareNativeThreadState(Py.getThreadState())));
-		return super.__getitem__(other);
+		PyObject res = JyNI.maybeExc(JyNI.tracedGetItem(objectHandle, other, System.identityHashCode(other),
+				JyTState.prepareNativeThreadState(Py.getThreadState())));
+		/* Don't go via __finditem__, which may report IndexError as null: */
+		if (res == null && (((PyCPeerType) objtype).nativeMethodFlags & PyCPeerType.MP_SUBSCRIPT) == 0)
+			throw Py.KeyError(other);
+		return res;
 	}
 
 
@@ -670,8 +664,17 @@ public class PyCPeer extends PyObject implements CPeerInterface, FinalizableBuil
 
 	@Override
 	public PyObject __iternext__() {
-		return JyNI.maybeExc(JyNI.JyNI_PyIter_Next(objectHandle,
-				JyTState.prepareNativeThreadState(Py.getThreadState())));
+		if (JyNIIterPrefetch.maxBatch <= 1)
+			return JyNI.maybeExc(JyNI.JyNI_PyIter_Next(objectHandle,
+					JyTState.prepareNativeThreadState(Py.getThreadState())));
+		JyNIIterPrefetch pf = prefetch;
+		if (pf == null) {
+			synchronized (this) {
+				if (prefetch == null) prefetch = new JyNIIterPrefetch(objectHandle);
+				pf = prefetch;
+			}
+		}
+		return pf.next();
 	}
 
 
@@ -278,9 +278,8 @@ public class PyCPeerType extends PyType implements CPeerInterface, FinalizableBu
 	public PyObject __call__(PyObject[] args, String[] keywords) {
 		PyObject result;
 		if (keywords.length == 0)
-			result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle,
-				args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null,
-				JyTState.prepareNativeThreadState(Py.getThreadState())));
+			result = JyNI.callPyCPeer(objectHandle,
+				args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null);
 		else {
 			//todo: Use PyStringMap here... much work needs to be done to make the peer dictobject accept this
 			HashMap<PyObject, PyObject> back = new HashMap<PyObject, PyObject>(keywords.length);
@@ -291,11 +290,10 @@ public class PyCPeerType extends PyType implements CPeerInterface, FinalizableBu
 			if (args.length > keywords.length) {
 				PyObject[] args2 = new PyObject[args.length - keywords.length];
 				System.arraycopy(args, 0, args2, 0, args2.length);
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
-					new PyDictionary(back), JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
+					new PyDictionary(back));
 			} else
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, Py.EmptyTuple, new PyDictionary(back),
-					JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, Py.EmptyTuple, new PyDictionary(back));
 		}
 		if (result == null)
 			throw Py.TypeError(String.format("'%s' object is not callable", getType().fastGetName()));
@@ -311,7 +309,7 @@ public class PyCPeerType extends PyType implements CPeerInterface, FinalizableBu
 		//System.out.println("Look for attribute "+name+" in PyCPeerType "+this.name);
 		ThreadState tstate = Py.getThreadState();
 		long ts = JyTState.prepareNativeThreadState(tstate);
-		PyObject er = JyNI.getAttrString(objectHandle, name, ts);
+		PyObject er = JyNI.tracedGetAttrString(objectHandle, name, ts);
 		if (er == null && tstate.exception != null && tstate.exception.type == Py.AttributeError) {
 			// In attribute error case we give it another chance by redirecting to super.
 			//PyException tmp = tstate.exception;
@@ -377,19 +375,20 @@ public class PyCPeerType extends PyType implements CPeerInterface, FinalizableBu
 	 */
 	@Override
 	public PyObject __finditem__(PyObject key) {
-		return JyNI.maybeExc(JyNI.getItem(objectHandle, key,
+		return JyNI.maybeExc(JyNI.tracedGetItem(objectHandle, key, System.identityHashCode(key),
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 	}
 
 	@Override
 	public void __setitem__(PyObject key, PyObject value) {
-		JyNI.maybeExc(JyNI.setItem(objectHandle, key, value,
+		JyNI.maybeExc(JyNI.tracedSetItem(objectHandle, key, System.identityHashCode(key),
+				value, System.identityHashCode(value),
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 	}
 
 	@Override
 	public void __delitem__(PyObject key) {
-		JyNI.maybeExc(JyNI.delItem(objectHandle, key,
+		JyNI.maybeExc(JyNI.delItem(objectHandle, key, System.identityHashCode(key),
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 	}
 
@@ -87,9 +87,8 @@ public class PyDictionaryCPeer extends PyDictionary implements
 	public PyObject __call__(PyObject[] args, String[] keywords) {
 		PyObject result;
 		if (keywords.length == 0)
-			result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle,
-				args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null,
-				JyTState.prepareNativeThreadState(Py.getThreadState())));
+			result = JyNI.callPyCPeer(objectHandle,
+				args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null);
 		else {
 			HashMap<PyObject, PyObject> back = new HashMap<PyObject, PyObject>(keywords.length);
 			for (int i = 0; i < keywords.length; ++i) {
@@ -99,11 +98,10 @@ public class PyDictionaryCPeer extends PyDictionary implements
 			if (args.length > keywords.length) {
 				PyObject[] args2 = new PyObject[args.length - keywords.length];
 				System.arraycopy(args, 0, args2, 0, args2.length);
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
-					new PyDictionary(back), JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
+					new PyDictionary(back));
 			} else
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, Py.EmptyTuple, new PyDictionary(back),
-					JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, Py.EmptyTuple, new PyDictionary(back));
 		}
 		return result == null ? super.__call__(args, keywords) : result;
 	}
@@ -112,7 +110,7 @@ public class PyDictionaryCPeer extends PyDictionary implements
 	public PyObject __findattr_ex__(String name) {
 //		System.out.println("Look for attribute "+name+" in PyDictionaryCPeer "+this);//.name+" "+(findAttrCount++));
 		long ts = JyTState.prepareNativeThreadState(Py.getThreadState());
-		PyObject result = JyNI.maybeExc(JyNI.getAttrString(objectHandle, name, ts));
+		PyObject result = JyNI.maybeExc(JyNI.tracedGetAttrString(objectHandle, name, ts));
 		return result != null ? result : super.__findattr_ex__(name);
 	}
 
@@ -149,7 +147,7 @@ public class PyDictionaryCPeer extends PyDictionary implements
 //		System.out.println("Look for item "+key+" in PyDictionaryCPeer "+this);
 //		System.out.println("__finditem__: "+key);
 //		System.out.println(getType().getName());
-		PyObject result = JyNI.maybeExc(JyNI.getItem(objectHandle, key,
+		PyObject result = JyNI.maybeExc(JyNI.tracedGetItem(objectHandle, key, System.identityHashCode(key),
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 //		System.out.println("done native __finditem__");
 		return result != null ? result : super.__finditem__(key);
@@ -159,7 +157,8 @@ public class PyDictionaryCPeer extends PyDictionary implements
 	public void __setitem__(PyObject key, PyObject value) {
 //		System.out.println("__setitem__: "+key);
 //		super.__setitem__(key, value);
-		int er = JyNI.setItem(objectHandle, key, value,
+		int er = JyNI.tracedSetItem(objectHandle, key, System.identityHashCode(key),
+				value, System.identityHashCode(value),
 				JyTState.prepareNativeThreadState(Py.getThreadState()));
 		JyNI.maybeExc(er);
 		if (er != 0) super.__setitem__(key, value);
@@ -169,7 +168,7 @@ public class PyDictionaryCPeer extends PyDictionary implements
 	public void __delitem__(PyObject key) {
 //		System.out.println("__delitem__");
 //		super.__delitem__(key);
-		int er = JyNI.delItem(objectHandle, key,
+		int er = JyNI.delItem(objectHandle, key, System.identityHashCode(key),
 				JyTState.prepareNativeThreadState(Py.getThreadState()));
 		JyNI.maybeExc(er);
 		if (er != 0) super.__delitem__(key);
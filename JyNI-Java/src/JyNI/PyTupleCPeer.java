@@ -72,9 +72,8 @@ public class PyTupleCPeer extends PyTuple implements
 	public PyObject __call__(PyObject[] args, String[] keywords) {
 		PyObject result;
 		if (keywords.length == 0)
-			result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle,
-				args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null,
-				JyTState.prepareNativeThreadState(Py.getThreadState())));
+			result = JyNI.callPyCPeer(objectHandle,
+				args.length == 0 ? Py.EmptyTuple : new PyTuple(args, false), null);
 		else {
 			HashMap<PyObject, PyObject> back = new HashMap<PyObject, PyObject>(keywords.length);
 			for (int i = 0; i < keywords.length; ++i) {
@@ -84,11 +83,10 @@ public class PyTupleCPeer extends PyTuple implements
 			if (args.length > keywords.length) {
 				PyObject[] args2 = new PyObject[args.length - keywords.length];
 				System.arraycopy(args, 0, args2, 0, args2.length);
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
-					new PyDictionary(back), JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, new PyTuple(args2, false),
+					new PyDictionary(back));
 			} else
-				result = JyNI.maybeExc(JyNI.callPyCPeer(objectHandle, Py.EmptyTuple, new PyDictionary(back),
-					JyTState.prepareNativeThreadState(Py.getThreadState())));
+				result = JyNI.callPyCPeer(objectHandle, Py.EmptyTuple, new PyDictionary(back));
 		}
 		return result == null ? super.__call__(args, keywords) : result;
 	}
@@ -97,7 +95,7 @@ public class PyTupleCPeer extends PyTuple implements
 	public PyObject __findattr_ex__(String name) {
 		//System.out.println("Look for attribute "+name+" in PyCPeerType "+this.name+" "+(findAttrCount++));
 		long ts = JyTState.prepareNativeThreadState(Py.getThreadState());
-		PyObject result = JyNI.maybeExc(JyNI.getAttrString(objectHandle, name, ts));
+		PyObject result = JyNI.maybeExc(JyNI.tracedGetAttrString(objectHandle, name, ts));
 		return result != null ? result : super.__findattr_ex__(name);
 	}
 
@@ -133,7 +131,7 @@ public class PyTupleCPeer extends PyTuple implements
 //		return super.__finditem__(key);
 //		System.out.println("__finditem__: "+key);
 //		System.out.println(getType().getName());
-		PyObject result = JyNI.maybeExc(JyNI.getItem(objectHandle, key,
+		PyObject result = JyNI.maybeExc(JyNI.tracedGetItem(objectHandle, key, System.identityHashCode(key),
 				JyTState.prepareNativeThreadState(Py.getThreadState())));
 //		System.out.println("done native __finditem__");
 		return result != null ? result : super.__finditem__(key);
@@ -143,7 +141,8 @@ public class PyTupleCPeer extends PyTuple implements
 	public void __setitem__(PyObject key, PyObject value) {
 //		System.out.println("__setitem__: "+key);
 //		super.__setitem__(key, value);
-		int er = JyNI.setItem(objectHandle, key, value,
+		int er = JyNI.tracedSetItem(objectHandle, key, System.identityHashCode(key),
+				value, System.identityHashCode(value),
 				JyTState.prepareNativeThreadState(Py.getThreadState()));
 		JyNI.maybeExc(er);
 		if (er != 0) super.__setitem__(key, value);
@@ -153,7 +152,7 @@ public class PyTupleCPeer extends PyTuple implements
 	public void __delitem__(PyObject key) {
 //		System.out.println("__delitem__");
 //		super.__delitem__(key);
-		int er = JyNI.delItem(objectHandle, key,
+		int er = JyNI.delItem(objectHandle, key, System.identityHashCode(key),
 				JyTState.prepareNativeThreadState(Py.getThreadState()));
 		JyNI.maybeExc(er);
 		if (er != 0) super.__delitem__(key);
@@ -30,6 +30,7 @@
 package JyNI.gc;
 
 import JyNI.JyNI;
+import JyNI.JyNIInitializer;
 import org.python.core.PyObject;
 import org.python.core.PyInstance;
 import org.python.core.finalization.*;
@@ -44,7 +45,7 @@ public class JyNIFinalizeTriggerFactory implements FinalizeTriggerFactory {
 
 		@Override
 		public void performFinalization() {
-			if (gc.delayedFinalizationEnabled())
+			if (gc.delayedFinalizationEnabled() && JyNIInitializer.isNativeLoaded())
 				JyNI.waitForCStubs();
 			super.performFinalization();
 		}
@@ -53,7 +54,8 @@ public class JyNIFinalizeTriggerFactory implements FinalizeTriggerFactory {
 	@Override
 	public FinalizeTrigger makeTrigger(PyObject toFinalize) {
 		FinalizeTrigger result = new JyNIFinalizeTrigger(toFinalize);
-		if (toFinalize instanceof PyInstance) {
+		/* Before JyNI's native library was loaded there are no native objects. */
+		if (toFinalize instanceof PyInstance && JyNIInitializer.isNativeLoaded()) {
 			if (JyNI.lookupNativeHandle(toFinalize) != 0)
 			/*
 			 * In this case we deactivate the trigger, because the native
@@ -32,6 +32,8 @@ package JyNI.gc;
 
 import org.python.core.Py;
 import JyNI.JyNI;
+import JyNI.JyNIEvents;
+import JyNI.JyNIRuntime;
 import JyNI.JyTState;
 import JyNI.JyReferenceMonitor;
 import java.lang.ref.WeakReference;
@@ -59,7 +61,9 @@ public class JyWeakReferenceGC extends WeakReference<JyGCHead> {
 			//System.out.println(JyNI.lookupFromHandle(nativeRef));
 			JyReferenceMonitor.addJyWeakRef(nativeRef);
 		} //else System.out.println("Create JyWeakRef: sentinel");
-		refList.put(nativeRef, this);
+		synchronized (refList) {
+			refList.put(nativeRef, this);
+		}
 //		refTNList.put(nativeRef, head.getClass().getSimpleName());
 //		if (reaper == null) {
 //		reaper = new GCReaperThread();
@@ -75,10 +79,31 @@ public class JyWeakReferenceGC extends WeakReference<JyGCHead> {
 	}
 
 	public static JyWeakReferenceGC lookupJyGCHead(long handle) {
-		return refList.get(handle);
+		synchronized (refList) {
+			return refList.get(handle);
+		}
 		//return result != null ? result.get() : null;
 	}
 
+	public static int getRefCount() {
+		synchronized (refList) {
+			return refList.size();
+		}
+	}
+
+	/**
+	 * Handles of all native objects currently held by a JyGCHead.
+	 */
+	public static long[] getHandles() {
+		synchronized (refList) {
+			long[] result = new long[refList.size()];
+			int pos = 0;
+			for (long handle: refList.keySet())
+				result[pos++] = handle;
+			return result;
+		}
+	}
+
 	static class GCReaperThread extends Thread {
 
 		public GCReaperThread() {
@@ -113,11 +138,14 @@ public class JyWeakReferenceGC extends WeakReference<JyGCHead> {
 				}
 				JyReferenceMonitor.notifyGCRun();
 				if (!refCache.isEmpty()) {
+					long start = System.nanoTime();
 					clearRefs = new long[refCache.size()];
 					pos = 0;
 					//System.out.println("Attempt native clear:");
 					for (JyWeakReferenceGC ref0: refCache) {
-						refList.remove(ref0.nativeRef);
+						synchronized (refList) {
+							refList.remove(ref0.nativeRef);
+						}
 						JyReferenceMonitor.clearJyWeakRef(ref0.nativeRef);
 						clearRefs[pos++] = ref0.nativeRef;
 						//System.out.println("  "+JyReferenceMonitor.getLog(ref0.nativeRef));
@@ -130,11 +158,15 @@ public class JyWeakReferenceGC extends WeakReference<JyGCHead> {
 					}
 					if (nativecollectionEnabled) {
 						//System.out.println("\nAttempt native clear... "+clearRefs.length);
+						Object event = JyNIEvents.begin(JyNIEvents.GC_CLEAR);
 						boolean validGraph = JyNI.JyGC_clearNativeReferences(clearRefs,
 								JyTState.prepareNativeThreadState(Py.getThreadState()));
+						if (event != null) JyNIEvents.end(event, 0,
+								validGraph ? null : "invalid graph", clearRefs.length);
 						//System.out.println("native clear done "+validGraph+"\n");
 						JyReferenceMonitor.notifyClearReferences(clearRefs, validGraph);
 					}
+					JyNIRuntime.countReaperBatch(clearRefs.length, System.nanoTime()-start);
 				}
 			}
 		}
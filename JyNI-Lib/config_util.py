@@ -87,7 +87,7 @@ def _patch_os_environ():
 	from JyNI import JyNI
 
 	def unsetenv(key):
-		JyNI.putenv(key, "")
+		JyNI.unsetenv(key)
 
 # This variant fails with read-only attribute error:
 # 	if os._name in ('os2', 'nt'):  # Where Env Var Names Must Be UPPERCASE
@@ -225,4 +225,15 @@ def _patch_os_environ():
 			def copy(self):
 				return dict(self)
 
+	# JyNI patches os.environ only right before the first extension is
+	# loaded, so we pass on changes that happened before:
+	from java.lang import System
+	native_env = System.getenv()
+	for key, value in os.environ.items():
+		if native_env.get(key) != value:
+			JyNI.putenv(key, value)
+	for key in native_env.keySet():
+		if not key in os.environ and not key.upper() in os.environ:
+			unsetenv(key)
+
 	os.environ = _Environ(os.environ)
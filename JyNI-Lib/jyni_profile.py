@@ -0,0 +1,81 @@
+#
+#  Copyright of JyNI:
+#  Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+#  All rights reserved.
+#
+#
+#  Copyright of Python and Jython:
+#  Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+#  2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+#  Python Software Foundation.
+#  All rights reserved.
+#
+#
+#  This file is part of JyNI.
+#
+#  JyNI is free software: you can redistribute it and/or modify
+#  it under the terms of the GNU Lesser General Public License as
+#  published by the Free Software Foundation, either version 3 of
+#  the License, or (at your option) any later version.
+#
+#  JyNI is distributed in the hope that it will be useful,
+#  but WITHOUT ANY WARRANTY; without even the implied warranty of
+#  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#  GNU Lesser General Public License for more details.
+#
+#  You should have received a copy of the GNU Lesser General Public
+#  License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+
+
+'''Profiles calls of native functions and slots per function.
+
+	import jyni_profile
+	jyni_profile.start()
+	... run code that uses extensions ...
+	jyni_profile.stop()
+	jyni_profile.report()
+
+For every function, the report lists the number of calls, the total time
+and mean and 99th percentile of argument conversion, native call and
+result conversion. See JyNI.JyNIProfiler for details.
+'''
+
+import sys
+from JyNI import JyNIProfiler
+
+ARGUMENTS = JyNIProfiler.ARGUMENTS
+CALL = JyNIProfiler.CALL
+RESULT = JyNIProfiler.RESULT
+
+def start(reset=True):
+	'''Starts profiling. Unless reset is False, values of earlier runs are cleared.'''
+	if reset:
+		JyNIProfiler.reset()
+	JyNIProfiler.start()
+
+def stop():
+	JyNIProfiler.stop()
+
+def reset():
+	JyNIProfiler.reset()
+
+def is_running():
+	return JyNIProfiler.isRunning()
+
+def stats():
+	'''Returns a list of (name, calls, args, call, result) in descending order
+	of total time. args, call and result are (total ns, mean ns, p99 ns).
+	'''
+	result = []
+	for entry in JyNIProfiler.getEntries():
+		phases = [(entry.getTotalNanos(phase), entry.getMeanNanos(phase),
+				entry.getPercentile(phase, 99.0))
+				for phase in (ARGUMENTS, CALL, RESULT)]
+		result.append(tuple([entry.getName(), entry.getCalls()]+phases))
+	return result
+
+def report(limit=0, file=None):
+	'''Prints the profile, at most limit functions unless limit is 0.'''
+	if file is None:
+		file = sys.stdout
+	file.write(JyNIProfiler.report(limit))
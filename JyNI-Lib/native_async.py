@@ -0,0 +1,70 @@
+#
+#  Copyright of JyNI:
+#  Copyright (c) 2013, 2014, 2015, 2016, 2017 Stefan Richthofer.
+#  All rights reserved.
+#
+#
+#  Copyright of Python and Jython:
+#  Copyright (c) 2001, 2002, 2003, 2004, 2005, 2006, 2007, 2008,
+#  2009, 2010, 2011, 2012, 2013, 2014, 2015, 2016, 2017
+#  Python Software Foundation.
+#  All rights reserved.
+#
+#
+#  This file is part of JyNI.
+#
+#  JyNI is free software: you can redistribute it and/or modify
+#  it under the terms of the GNU Lesser General Public License as
+#  published by the Free Software Foundation, either version 3 of
+#  the License, or (at your option) any later version.
+#
+#  JyNI is distributed in the hope that it will be useful,
+#  but WITHOUT ANY WARRANTY; without even the implied warranty of
+#  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#  GNU Lesser General Public License for more details.
+#
+#  You should have received a copy of the GNU Lesser General Public
+#  License along with JyNI.  If not, see <http://www.gnu.org/licenses/>.
+
+
+'''Asynchronous calls of native functions from Python code.
+
+	import native_async
+	f = native_async.call_async(DemoExtension.intSquare1, 5)
+	... do other work ...
+	print f.result()
+
+The call runs on the executor configured via JyNI.setAsyncExecutor,
+by default on the native carrier threads of JyNI.
+'''
+
+from JyNI import JyNI
+
+class NativeFuture(object):
+	'''Pending result of call_async.'''
+
+	def __init__(self, future):
+		self._future = future
+
+	def result(self, timeout=None):
+		'''Waits for the call to finish and returns its result or raises
+		its exception. timeout is given in seconds; None waits forever.
+		'''
+		if timeout is None:
+			return JyNI.awaitAsync(self._future, -1)
+		return JyNI.awaitAsync(self._future, long(timeout*1000))
+
+	def done(self):
+		return self._future.isDone()
+
+	def cancel(self):
+		'''Cancels the call if it has not started yet.'''
+		return self._future.cancel(False)
+
+def call_async(func, *args, **kwargs):
+	'''Calls func(*args, **kwargs) asynchronously and returns a NativeFuture.'''
+	if kwargs:
+		keys = kwargs.keys()
+		return NativeFuture(JyNI.callAsync(func,
+				list(args)+[kwargs[key] for key in keys], keys))
+	return NativeFuture(JyNI.callAsync(func, list(args), []))
@@ -67,20 +67,20 @@ void (*JyNI_JyNIDebugMessage)(JNIEnv*, jclass, jlong, jlong, jstring);
 jobject (*JyNICallPyCPeer)(JNIEnv*, jclass, jlong, jobject, jobject, jlong);
 jobject (*JyNIGetAttrString)(JNIEnv*, jclass, jlong, jstring, jlong);
 jobject (*JyNIrepr)(JNIEnv*, jclass, jlong, jlong);
-jobject (*JyNI_getItem)(JNIEnv*, jclass, jlong, jobject, jlong);
-jint (*JyNI_setItem)(JNIEnv*, jclass, jlong, jobject, jobject, jlong);
-jint (*JyNI_delItem)(JNIEnv*, jclass, jlong, jobject, jlong);
+jobject (*JyNI_getItem)(JNIEnv*, jclass, jlong, jobject, jint, jlong);
+jint (*JyNI_setItem)(JNIEnv*, jclass, jlong, jobject, jint, jobject, jint, jlong);
+jint (*JyNI_delItem)(JNIEnv*, jclass, jlong, jobject, jint, jlong);
 jint (*JyNI_PyObjectLength)(JNIEnv*, jclass, jlong, jlong);
 jobject (*JyNI_descr_get)(jlong, jobject, jobject, jlong);
 jint (*JyNI_descr_set)(jlong, jobject, jobject, jlong);
 jstring (*JyNIPyObjectAsString)(JNIEnv*, jclass, jlong, jlong);
 jobject (*JyNIPyObjectAsPyString)(JNIEnv*, jclass, jlong, jlong);
 jint (*JyNISetAttrString)(JNIEnv*, jclass, jlong, jstring, jobject, jlong);
-jobject (*JyNIlookupFromHandle)(JNIEnv*, jclass, jlong);
+jobject (*JyNIlookupFromHandle)(JNIEnv*, jclass, jlong, jlong);
 jint (*JyNIcurrentNativeRefCount)(JNIEnv*, jclass, jlong);
 void (*JyNI_nativeIncref)(jlong, jlong);
 void (*JyNI_nativeDecref)(jlong, jlong);
-jstring (*JyNIgetNativeTypeName)(JNIEnv*, jclass, jlong);
+jstring (*JyNIgetNativeTypeName)(JNIEnv*, jclass, jlong, jlong);
 void (*JyNIUnload)(JavaVM*);
 
 void (*JyTStateSetNativeRecursionLimit)(JNIEnv*, jclass, jint);
@@ -88,11 +88,11 @@ void (*JyTStateSetNativeCallDepth)(JNIEnv*, jclass, jlong, jint);
 jlong (*JyTStateInitNativeThreadState)(JNIEnv*, jclass, jobject, jobject);
 void (*JyTStateClearNativeThreadState)(JNIEnv*, jclass, jlong);
 
-jobject (*JyList_get)(JNIEnv*, jclass, jlong, jint);
+jobject (*JyList_get)(JNIEnv*, jclass, jlong, jint, jlong);
 jint (*JyList_size)(JNIEnv*, jclass, jlong);
-jobject (*JyList_set)(JNIEnv*, jclass, jlong, jint, jobject, jlong);
-void (*JyList_add)(JNIEnv*, jclass, jlong, jint, jobject, jlong);
-jobject (*JyList_remove)(JNIEnv*, jclass, jlong, jint);
+jobject (*JyList_set)(JNIEnv*, jclass, jlong, jint, jobject, jlong, jlong);
+void (*JyList_add)(JNIEnv*, jclass, jlong, jint, jobject, jlong, jlong);
+jobject (*JyList_remove)(JNIEnv*, jclass, jlong, jint, jlong);
 
 void (*JySet_putSize)(JNIEnv*, jclass, jlong, jint);
 
@@ -106,9 +106,9 @@ jobject (*JyNI_PyIter_Next)(jlong, jlong);
 
 void (*JyRefMonitor_setMemDebugFlags)(JNIEnv*, jclass, jint);
 jboolean (*JyGC_clearNativeReferences)(JNIEnv*, jclass, jlongArray, jlong);
-void (*JyGC_restoreCStubBackend)(JNIEnv*, jclass, jlong, jobject, jobject);
+void (*JyGC_restoreCStubBackend)(JNIEnv*, jclass, jlong, jobject, jobject, jlong);
 //jlongArray (*JyGC_validateGCHead)(JNIEnv*, jclass, jlong, jlongArray);
-jboolean (*JyGC_validateGCHead)(JNIEnv*, jclass, jlong, jlongArray);
+jboolean (*JyGC_validateGCHead)(JNIEnv*, jclass, jlong, jlongArray, jlong);
 jlongArray (*JyGC_nativeTraverse)(JNIEnv*, jclass, jlong);
 void (*JyNI_releaseWeakReferent)(JNIEnv*, jclass, jlong, jlong);
 
@@ -177,6 +177,28 @@ jint (*JyNI_putenv)(JNIEnv*, jstring);
 jobject (*JyNI_mbcs_encode)(jobject, jobject, jlong);
 jobject (*JyNI_mbcs_decode)(jobject, jobject, jobject, jlong);
 
+void (*JyNI_setGILSwitchInterval)(jlong);
+jlong (*JyNI_getGILSwitchInterval)(void);
+jlongArray (*JyNI_getGILWaitHistogram)(JNIEnv*, jclass, jboolean);
+jlong (*JyNI_getGILForcedSwitches)(void);
+jlongArray (*JyTState_getThreadStatePoolStats)(JNIEnv*, jclass);
+jint (*JyNI_PyIter_NextBatch)(JNIEnv*, jclass, jlong, jobjectArray, jlong);
+jobject (*JyNI_findItem)(JNIEnv*, jclass, jlong, jobject, jint, jlong);
+jint (*JyList_getRange)(JNIEnv*, jclass, jlong, jint, jobjectArray, jint, jint, jlong);
+void (*JyList_setRange)(JNIEnv*, jclass, jlong, jint, jobjectArray, jint, jint, jlong);
+void (*JyList_insertRange)(JNIEnv*, jclass, jlong, jint, jobjectArray, jint, jint, jlong);
+void (*JyList_removeRange)(JNIEnv*, jclass, jlong, jint, jint, jlong);
+jint (*JyRefMonitor_drain)(JNIEnv*, jclass, jobjectArray);
+jlong (*JyRefMonitor_getDropped)(JNIEnv*, jclass);
+void (*JyRefMonitor_setSampleInterval)(JNIEnv*, jclass, jlong);
+void (*JyNI_setNativeEventMask)(jint, jlong);
+jlongArray (*JyNI_getRuntimeStats)(JNIEnv*, jclass);
+void (*JyNI_setProfiling)(jboolean);
+void (*JyNI_resetProfile)(void);
+jobjectArray (*JyNI_getProfileNames)(JNIEnv*, jclass);
+jlongArray (*JyNI_getProfileData)(JNIEnv*, jclass, jint);
+jlong (*JyGC_writeHeapSnapshot)(JNIEnv*, jclass, jobject, jlong);
+jint (*JyNI_unsetenv)(JNIEnv*, jstring);
 
 JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *jvm, void *reserved)
 {
@@ -342,6 +364,28 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_initJyNI
 	*(void **) (&JyNI_putenv) = dlsym(JyNIHandle, "JyNI_putenv");
 	*(void **) (&JyNI_mbcs_encode) = dlsym(JyNIHandle, "JyNI_mbcs_encode");
 	*(void **) (&JyNI_mbcs_decode) = dlsym(JyNIHandle, "JyNI_mbcs_decode");
+	*(void **) (&JyNI_setGILSwitchInterval) = dlsym(JyNIHandle, "JyNI_setGILSwitchInterval");
+	*(void **) (&JyNI_getGILSwitchInterval) = dlsym(JyNIHandle, "JyNI_getGILSwitchInterval");
+	*(void **) (&JyNI_getGILWaitHistogram) = dlsym(JyNIHandle, "JyNI_getGILWaitHistogram");
+	*(void **) (&JyNI_getGILForcedSwitches) = dlsym(JyNIHandle, "JyNI_getGILForcedSwitches");
+	*(void **) (&JyTState_getThreadStatePoolStats) = dlsym(JyNIHandle, "JyTState_getThreadStatePoolStats");
+	*(void **) (&JyNI_PyIter_NextBatch) = dlsym(JyNIHandle, "JyNI_PyIter_NextBatch");
+	*(void **) (&JyNI_findItem) = dlsym(JyNIHandle, "JyNI_findItem");
+	*(void **) (&JyList_getRange) = dlsym(JyNIHandle, "JyList_getRange");
+	*(void **) (&JyList_setRange) = dlsym(JyNIHandle, "JyList_setRange");
+	*(void **) (&JyList_insertRange) = dlsym(JyNIHandle, "JyList_insertRange");
+	*(void **) (&JyList_removeRange) = dlsym(JyNIHandle, "JyList_removeRange");
+	*(void **) (&JyRefMonitor_drain) = dlsym(JyNIHandle, "JyRefMonitor_drain");
+	*(void **) (&JyRefMonitor_getDropped) = dlsym(JyNIHandle, "JyRefMonitor_getDropped");
+	*(void **) (&JyRefMonitor_setSampleInterval) = dlsym(JyNIHandle, "JyRefMonitor_setSampleInterval");
+	*(void **) (&JyNI_setNativeEventMask) = dlsym(JyNIHandle, "JyNI_setNativeEventMask");
+	*(void **) (&JyNI_getRuntimeStats) = dlsym(JyNIHandle, "JyNI_getRuntimeStats");
+	*(void **) (&JyNI_setProfiling) = dlsym(JyNIHandle, "JyNI_setProfiling");
+	*(void **) (&JyNI_resetProfile) = dlsym(JyNIHandle, "JyNI_resetProfile");
+	*(void **) (&JyNI_getProfileNames) = dlsym(JyNIHandle, "JyNI_getProfileNames");
+	*(void **) (&JyNI_getProfileData) = dlsym(JyNIHandle, "JyNI_getProfileData");
+	*(void **) (&JyGC_writeHeapSnapshot) = dlsym(JyNIHandle, "JyGC_writeHeapSnapshot");
+	*(void **) (&JyNI_unsetenv) = dlsym(JyNIHandle, "JyNI_unsetenv");
 
 	jint result = (*JyNIInit)(java);
 	if (result != JNI_VERSION_1_2) puts("Init-result indicates error!");
@@ -494,12 +538,12 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_clearNativeThreadState
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_get
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1get
-	(JNIEnv *env, jclass class, jlong handle, jint index)
+	(JNIEnv *env, jclass class, jlong handle, jint index, jlong tstate)
 {
-	return (*JyList_get)(env, class, handle, index);
+	return (*JyList_get)(env, class, handle, index, tstate);
 }
 
 /*
@@ -516,34 +560,34 @@ JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyList_1size
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_set
- * Signature: (JILorg/python/core/PyObject;J)Lorg/python/core/PyObject;
+ * Signature: (JILorg/python/core/PyObject;JJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1set
-	(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj)
+	(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj, jlong tstate)
 {
-	return (*JyList_set)(env, class, handle, index, obj, pyObj);
+	return (*JyList_set)(env, class, handle, index, obj, pyObj, tstate);
 }
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_add
- * Signature: (JILorg/python/core/PyObject;J)V
+ * Signature: (JILorg/python/core/PyObject;JJ)V
  */
 JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1add
-	(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj)
+	(JNIEnv *env, jclass class, jlong handle, jint index, jobject obj, jlong pyObj, jlong tstate)
 {
-	(*JyList_add)(env, class, handle, index, obj, pyObj);
+	(*JyList_add)(env, class, handle, index, obj, pyObj, tstate);
 }
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyList_remove
- * Signature: (JI)Lorg/python/core/PyObject;
+ * Signature: (JIJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyList_1remove
-	(JNIEnv *env, jclass class, jlong handle, jint index)
+	(JNIEnv *env, jclass class, jlong handle, jint index, jlong tstate)
 {
-	return (*JyList_remove)(env, class, handle, index);
+	return (*JyList_remove)(env, class, handle, index, tstate);
 }
 
 /*
@@ -582,12 +626,12 @@ JNIEXPORT jboolean JNICALL Java_JyNI_JyNI_JyGC_1clearNativeReferences
 /*
  * Class:     JyNI_JyNI
  * Method:    lookupFromHandle
- * Signature: (J)Lorg/python/core/PyObject;
+ * Signature: (JJ)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_lookupFromHandle
-	(JNIEnv *env, jclass class, jlong handle)
+	(JNIEnv *env, jclass class, jlong handle, jlong tstate)
 {
-	return (*JyNIlookupFromHandle)(env, class, handle);
+	return (*JyNIlookupFromHandle)(env, class, handle, tstate);
 }
 
 /*
@@ -626,23 +670,23 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_nativeDecref
 /*
  * Class:     JyNI_JyNI
  * Method:    getNativeTypeName
- * Signature: (J)Ljava/lang/String;
+ * Signature: (JJ)Ljava/lang/String;
  */
 JNIEXPORT jstring JNICALL Java_JyNI_JyNI_getNativeTypeName
-	(JNIEnv *env, jclass class, jlong handle)
+	(JNIEnv *env, jclass class, jlong handle, jlong tstate)
 {
-	return (*JyNIgetNativeTypeName)(env, class, handle);
+	return (*JyNIgetNativeTypeName)(env, class, handle, tstate);
 }
 
 /*
  * Class:     JyNI_JyNI
  * Method:    JyGC_restoreCStubBackend
- * Signature: (JLorg/python/core/PyObject;LJyNI/gc/JyGCHead;)V
+ * Signature: (JLorg/python/core/PyObject;LJyNI/gc/JyGCHead;J)V
  */
 JNIEXPORT void JNICALL Java_JyNI_JyNI_JyGC_1restoreCStubBackend
-	(JNIEnv *env, jclass class, jlong handle, jobject backend, jobject newHead)
+	(JNIEnv *env, jclass class, jlong handle, jobject backend, jobject newHead, jlong tstate)
 {
-	(*JyGC_restoreCStubBackend)(env, class, handle, backend, newHead);
+	(*JyGC_restoreCStubBackend)(env, class, handle, backend, newHead, tstate);
 }
 
 ///*
@@ -655,12 +699,12 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_JyGC_1restoreCStubBackend
 /*
  * Class:     JyNI_JyNI
  * Method:    JyGC_validateGCHead
- * Signature: (J[J)Z
+ * Signature: (J[JJ)Z
  */
 JNIEXPORT jboolean JNICALL Java_JyNI_JyNI_JyGC_1validateGCHead
-	(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks)
+	(JNIEnv *env, jclass class, jlong handle, jlongArray oldLinks, jlong tstate)
 {
-	return (*JyGC_validateGCHead)(env, class, handle, oldLinks);
+	return (*JyGC_validateGCHead)(env, class, handle, oldLinks, tstate);
 }
 
 /*
@@ -691,9 +735,9 @@ JNIEXPORT void JNICALL Java_JyNI_JyNI_releaseWeakReferent
  * Signature: (JLorg/python/core/PyObject;J)Lorg/python/core/PyObject;
  */
 JNIEXPORT jobject JNICALL Java_JyNI_JyNI_getItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
 {
-	return (*JyNI_getItem)(env, class, handle, key, tstate);
+	return (*JyNI_getItem)(env, class, handle, key, keyHash, tstate);
 }
 
 /*
@@ -702,9 +746,9 @@ JNIEXPORT jobject JNICALL Java_JyNI_JyNI_getItem
  * Signature: (JLorg/python/core/PyObject;Lorg/python/core/PyObject;J)I
  */
 JNIEXPORT jint JNICALL Java_JyNI_JyNI_setItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jobject value, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jobject value, jint valueHash, jlong tstate)
 {
-	return (*JyNI_setItem)(env, class, handle, key, value, tstate);
+	return (*JyNI_setItem)(env, class, handle, key, keyHash, value, valueHash, tstate);
 }
 
 /*
@@ -713,9 +757,9 @@ JNIEXPORT jint JNICALL Java_JyNI_JyNI_setItem
  * Signature: (JLorg/python/core/PyObject;J)I
  */
 JNIEXPORT jint JNICALL Java_JyNI_JyNI_delItem
-	(JNIEnv *env, jclass class, jlong handle, jobject key, jlong tstate)
+	(JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
 {
-	return (*JyNI_delItem)(env, class, handle, key, tstate);
+	return (*JyNI_delItem)(env, class, handle, key, keyHash, tstate);
 }
 
 /*
@@ -1448,3 +1492,244 @@ JNIEXPORT jobject JNICALL Java_JyNI_JyNI_JyNI_1mbcs_1decode
 	return (*JyNI_mbcs_decode)(input, errors, final, tstate);
 }
 
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setGILSwitchInterval
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setGILSwitchInterval
+  (JNIEnv *env, jclass class, jlong microseconds)
+{
+	(*JyNI_setGILSwitchInterval)(microseconds);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILSwitchInterval
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_getGILSwitchInterval
+  (JNIEnv *env, jclass class)
+{
+	return (*JyNI_getGILSwitchInterval)();
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILWaitHistogram
+ * Signature: (Z)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getGILWaitHistogram
+  (JNIEnv *env, jclass class, jboolean currentThread)
+{
+	return (*JyNI_getGILWaitHistogram)(env, class, currentThread);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getGILForcedSwitches
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_getGILForcedSwitches
+  (JNIEnv *env, jclass class)
+{
+	return (*JyNI_getGILForcedSwitches)();
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getThreadStatePoolStats
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getThreadStatePoolStats
+  (JNIEnv *env, jclass class)
+{
+	return (*JyTState_getThreadStatePoolStats)(env, class);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyNI_PyIter_NextBatch
+ * Signature: (J[Lorg/python/core/PyObject;J)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyNI_1PyIter_1NextBatch
+  (JNIEnv *env, jclass class, jlong self, jobjectArray dest, jlong tstate)
+{
+	return (*JyNI_PyIter_NextBatch)(env, class, self, dest, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    findItem
+ * Signature: (JLorg/python/core/PyObject;IJ)Lorg/python/core/PyObject;
+ */
+JNIEXPORT jobject JNICALL Java_JyNI_JyNI_findItem
+  (JNIEnv *env, jclass class, jlong handle, jobject key, jint keyHash, jlong tstate)
+{
+	return (*JyNI_findItem)(env, class, handle, key, keyHash, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_getRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyList_1getRange
+  (JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray dest, jint destPos, jint count, jlong tstate)
+{
+	return (*JyList_getRange)(env, class, handle, index, dest, destPos, count, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_setRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1setRange
+  (JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray src, jint srcPos, jint count, jlong tstate)
+{
+	(*JyList_setRange)(env, class, handle, index, src, srcPos, count, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_insertRange
+ * Signature: (JI[Ljava/lang/Object;IIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1insertRange
+  (JNIEnv *env, jclass class, jlong handle, jint index, jobjectArray src, jint srcPos, jint count, jlong tstate)
+{
+	(*JyList_insertRange)(env, class, handle, index, src, srcPos, count, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyList_removeRange
+ * Signature: (JIIJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyList_1removeRange
+  (JNIEnv *env, jclass class, jlong handle, jint fromIndex, jint toIndex, jlong tstate)
+{
+	(*JyList_removeRange)(env, class, handle, fromIndex, toIndex, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_drain
+ * Signature: ([LJyNI/JyReferenceMonitor$NativeAction;)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyRefMonitor_1drain
+  (JNIEnv *env, jclass class, jobjectArray dest)
+{
+	return (*JyRefMonitor_drain)(env, class, dest);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_getDropped
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_JyRefMonitor_1getDropped
+  (JNIEnv *env, jclass class)
+{
+	return (*JyRefMonitor_getDropped)(env, class);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyRefMonitor_setSampleInterval
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_JyRefMonitor_1setSampleInterval
+  (JNIEnv *env, jclass class, jlong bytes)
+{
+	(*JyRefMonitor_setSampleInterval)(env, class, bytes);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setNativeEventMask
+ * Signature: (IJ)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setNativeEventMask
+  (JNIEnv *env, jclass class, jint mask, jlong thresholdNanos)
+{
+	(*JyNI_setNativeEventMask)(mask, thresholdNanos);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getRuntimeStats
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getRuntimeStats
+  (JNIEnv *env, jclass class)
+{
+	return (*JyNI_getRuntimeStats)(env, class);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    setProfiling
+ * Signature: (Z)V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_setProfiling
+  (JNIEnv *env, jclass class, jboolean enable)
+{
+	(*JyNI_setProfiling)(enable);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    resetProfile
+ * Signature: ()V
+ */
+JNIEXPORT void JNICALL Java_JyNI_JyNI_resetProfile
+  (JNIEnv *env, jclass class)
+{
+	(*JyNI_resetProfile)();
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getProfileNames
+ * Signature: ()[Ljava/lang/String;
+ */
+JNIEXPORT jobjectArray JNICALL Java_JyNI_JyNI_getProfileNames
+  (JNIEnv *env, jclass class)
+{
+	return (*JyNI_getProfileNames)(env, class);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    getProfileData
+ * Signature: (I)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_JyNI_JyNI_getProfileData
+  (JNIEnv *env, jclass class, jint index)
+{
+	return (*JyNI_getProfileData)(env, class, index);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyGC_writeHeapSnapshot
+ * Signature: (LJyNI/JyNIHeapSnapshot;J)J
+ */
+JNIEXPORT jlong JNICALL Java_JyNI_JyNI_JyGC_1writeHeapSnapshot
+  (JNIEnv *env, jclass class, jobject sink, jlong tstate)
+{
+	return (*JyGC_writeHeapSnapshot)(env, class, sink, tstate);
+}
+
+/*
+ * Class:     JyNI_JyNI
+ * Method:    JyNI_unsetenv
+ * Signature: (Ljava/lang/String;)I
+ */
+JNIEXPORT jint JNICALL Java_JyNI_JyNI_JyNI_1unsetenv
+  (JNIEnv *env, jclass class, jstring key)
+{
+	return (*JyNI_unsetenv)(env, key);
+}
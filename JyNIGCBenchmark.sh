@@ -0,0 +1 @@
+java -cp jython.jar:build/JyNI.jar org.python.util.jython JyNI-Demo/src/JyNIGCBenchmark.py "$@"